@@ -0,0 +1,65 @@
+package com.crisisgame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.crisisgame.analytics.AnalyticsQuery;
+import com.crisisgame.analytics.ChoiceAnalytics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * /api/analytics queries over ten million random finished games: one filtered single-column group-by
+ * ("which option do Expert players pick on turn 3") and a two-column one over every game.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class AnalyticsBenchmark {
+    private static final int GAMES = 10_000_000;
+    private static final String[] LETTERS = {"A", "B", "C", "D", "E"};
+    private static final String[] GENDERS = {"Female", "Male", "Other"};
+
+    private final ChoiceAnalytics analytics = new ChoiceAnalytics(GAMES);
+    private AnalyticsQuery choiceByDifficulty;
+    private AnalyticsQuery scoreByAge;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<String> choices = new ArrayList<>(Collections.nCopies(ChoiceAnalytics.TURNS, "A"));
+        for (int i = 0; i < GAMES; i++) {
+            for (int turn = 0; turn < choices.size(); turn++) choices.set(turn, LETTERS[random.nextInt(LETTERS.length)]);
+            analytics.record(1 + random.nextInt(5), 16 + random.nextInt(50), GENDERS[random.nextInt(GENDERS.length)],
+                    random.nextInt(101), choices);
+        }
+        choiceByDifficulty = AnalyticsQuery.parse(Map.of("groupBy", "choice3", "difficulty", "4"));
+        scoreByAge = AnalyticsQuery.parse(Map.of("groupBy", "ageBand,scoreBand"));
+    }
+
+    @Benchmark
+    public Object choiceOnTurnThreeForExperts() {
+        return analytics.query(choiceByDifficulty);
+    }
+
+    @Benchmark
+    public Object scoreBandByAgeBand() {
+        return analytics.query(scoreByAge);
+    }
+}
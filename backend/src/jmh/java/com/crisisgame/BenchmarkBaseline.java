@@ -0,0 +1,111 @@
+package com.crisisgame;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the backend benchmarks with allocation profiling and writes a JMH JSON baseline, optionally
+ * printing the change against an earlier baseline. Any other arguments are passed to JMH as usual
+ * (benchmark regex, -wi, -i, -f, ...).
+ *
+ * <pre>
+ * mvn -Pbenchmarks package
+ * java -cp target/benchmarks.jar com.crisisgame.BenchmarkBaseline --out baseline-new.json --compare baseline-old.json [jmh args]
+ * java -cp target/benchmarks.jar com.crisisgame.BenchmarkBaseline --diff baseline-old.json baseline-new.json
+ * </pre>
+ */
+public final class BenchmarkBaseline {
+    private static final String ALLOC = "gc.alloc.rate.norm";
+
+    private BenchmarkBaseline() {}
+
+    public static void main(String[] args) throws IOException, RunnerException, CommandLineOptionException {
+        Path out = Paths.get("target", "jmh-baseline.json");
+        Path compare = null;
+        List<String> jmhArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> out = Paths.get(args[++i]);
+                case "--compare" -> compare = Paths.get(args[++i]);
+                case "--diff" -> {
+                    printDiff(Paths.get(args[i + 1]), Paths.get(args[i + 2]));
+                    return;
+                }
+                default -> jmhArgs.add(args[i]);
+            }
+        }
+
+        if (out.getParent() != null) Files.createDirectories(out.getParent());
+        CommandLineOptions commandLine = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(out.toString());
+        if (commandLine.getIncludes().isEmpty()) options.include("com\\.crisisgame\\..*Benchmark");
+        new Runner(options.build()).run();
+        System.out.println("Baseline written to " + out);
+
+        if (compare != null) printDiff(compare, out);
+    }
+
+    /** Prints score and allocation per benchmark (keyed by name and params) for two baseline files. */
+    static void printDiff(Path before, Path after) throws IOException {
+        Map<String, double[]> old = read(before);
+        Map<String, double[]> now = read(after);
+        System.out.printf("%-70s %12s %12s %8s %12s %12s%n", "benchmark", "before", "after", "change", "B/op before", "B/op after");
+        for (Map.Entry<String, double[]> e : now.entrySet()) {
+            double[] a = e.getValue();
+            double[] b = old.get(e.getKey());
+            if (b == null) {
+                System.out.printf("%-70s %12s %12.3f %8s %12s %12.0f%n", e.getKey(), "-", a[0], "new", "-", a[1]);
+            } else {
+                double change = b[0] == 0 ? 0 : 100.0 * (a[0] - b[0]) / b[0];
+                System.out.printf("%-70s %12.3f %12.3f %+7.1f%% %12.0f %12.0f%n", e.getKey(), b[0], a[0], change, b[1], a[1]);
+            }
+        }
+        for (String removed : old.keySet()) {
+            if (!now.containsKey(removed)) System.out.printf("%-70s %12s%n", removed, "removed");
+        }
+    }
+
+    private static Map<String, double[]> read(Path file) throws IOException {
+        Map<String, double[]> results = new LinkedHashMap<>();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonArray runs = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : runs) {
+                JsonObject run = element.getAsJsonObject();
+                String key = run.get("benchmark").getAsString().replace("com.crisisgame.", "");
+                if (run.has("params")) key += " " + run.getAsJsonObject("params");
+                double score = run.getAsJsonObject("primaryMetric").get("score").getAsDouble();
+                double alloc = Double.NaN;
+                JsonObject secondary = run.getAsJsonObject("secondaryMetrics");
+                if (secondary != null && secondary.has(ALLOC)) alloc = secondary.getAsJsonObject(ALLOC).get("score").getAsDouble();
+                results.put(key, new double[] {score, alloc});
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,105 @@
+package com.crisisgame;
+
+import java.util.List;
+
+import com.crisisgame.model.GameState;
+import com.crisisgame.model.PlayerProfile;
+import com.crisisgame.model.TurnResponse;
+
+/** Realistic inputs shared by the benchmarks: Gemini-style turns and a session halfway through a game. */
+final class BenchmarkInputs {
+    private BenchmarkInputs() {}
+
+    /** Gemini turn with markdown bold labels, as the live model usually answers. */
+    static final String BOLD_OPTIONS_TURN = "**Turn 6 - The Hearing**\n\n"
+            + "Jordan, the Senate subcommittee has moved your testimony up to Thursday. Overnight, a second whistleblower "
+            + "posted screenshots suggesting executives at Helix Systems Inc. knew about the defect for eighteen months, "
+            + "and three institutional investors issued a joint letter demanding an independent review. Your general "
+            + "counsel urges caution, while the head of customer care reports that call volumes have tripled.\n\n"
+            + "**What do you do?**\n\n"
+            + "**A.** Request a delay and brief committee staff privately first\n"
+            + "**B.** **Publish the internal timeline before the hearing**\n"
+            + "**C)** Commission an independent review and announce its terms\n"
+            + "**D.** Offer the whistleblower a formal channel and protections\n"
+            + "**E.** Prepare a joint statement with the board chair\n";
+
+    /** The options of {@link #BOLD_OPTIONS_TURN}, as the structured reply carries them. */
+    static final List<String> BOLD_OPTIONS = List.of(
+            "A) Request a delay and brief committee staff privately first",
+            "B) Publish the internal timeline before the hearing",
+            "C) Commission an independent review and announce its terms",
+            "D) Offer the whistleblower a formal channel and protections",
+            "E) Prepare a joint statement with the board chair");
+
+    /** Plain labels with a few lines that look like options but are not (abbreviations, numbered lists). */
+    static final String PLAIN_OPTIONS_TURN = "Turn 4: Your decision to consult legal has bought time, but the story is spreading.\n"
+            + "Reporters from the Ledger and Channel 7 are camped outside HQ. Dr. Patel, the Chief Medical Officer, "
+            + "warns that patient trust is eroding and asks for a clear message by 5 p.m.\n"
+            + "1. Regulators want a written summary\n"
+            + "2. Employees want guidance for customer calls\n\n"
+            + "A) Hold a press conference with Dr. Patel this afternoon\n"
+            + "B) Send a detailed letter to affected patients first\n"
+            + "C) Brief regulators privately before any public statement\n"
+            + "D) Launch a dedicated information hotline and FAQ page\n"
+            + "E) Ask the board to appoint an independent monitor\n";
+
+    /** A reply where the model drifted and only listed three options. */
+    static final String DRIFTED_TURN = "The board meeting ends without a decision. Investors are calling.\n\n"
+            + "**A:** Call an emergency all-hands\n"
+            + "**B:** Draft a holding statement\n"
+            + "**C:** Escalate to the CEO\n";
+
+    static final List<String> TURNS = List.of(BOLD_OPTIONS_TURN, PLAIN_OPTIONS_TURN, DRIFTED_TURN);
+
+    static PlayerProfile player(int difficulty) {
+        PlayerProfile player = new PlayerProfile();
+        player.setName("Jordan Lee");
+        player.setGender("Female");
+        player.setAge(34);
+        player.setDifficulty(difficulty);
+        return player;
+    }
+
+    /** Session after the given number of Gemini turns, with full messages and choice history. */
+    static GameState sessionAfter(int turns) {
+        GameState state = new GameState("bench-session", player(3));
+        state.getMessagesHistory().add("ASSISTANT:\n" + BOLD_OPTIONS_TURN);
+        for (int i = 0; i < turns; i++) {
+            String choice = String.valueOf((char) ('A' + i % 5));
+            state.addChoice(choice);
+            state.getMessagesHistory().add("USER CHOICE: " + choice);
+            state.getMessagesHistory().add("ASSISTANT:\n" + TURNS.get(i % TURNS.size()));
+            state.nextTurn();
+        }
+        return state;
+    }
+
+    /** Mid-game response with options and the running score. */
+    static TurnResponse ongoingResponse() {
+        GameState state = sessionAfter(5);
+        TurnResponse ongoing = TurnResponse.ongoing(state.getSessionId(), state.getTurn(), BOLD_OPTIONS_TURN,
+                BOLD_OPTIONS);
+        ongoing.score = state.getScore().breakdown();
+        return ongoing;
+    }
+
+    /** Final-turn response with the debrief fields, score and percentile ranks. */
+    static TurnResponse finalResponse() {
+        GameState done = sessionAfter(10);
+        TurnResponse finished = TurnResponse.finished(done.getSessionId(), done.getTurn(),
+                "FINAL RESULTS: After 10 turns of intense Advanced-level crisis management, Jordan Lee has navigated the complex "
+                + "healthcare scenario. Your strategic decisions shaped stakeholder responses, media coverage, and long-term outcomes.",
+                "The crisis was contained with trust largely restored.",
+                "Promoted to Vice President of Communications within the year.",
+                "Transparent, well-sequenced stakeholder communication under pressure.",
+                "Engage regulators earlier and prepare the board before public statements.",
+                "Collaborative and steady, balancing speed with accuracy.",
+                "Situational Crisis Communication Theory (SCCT): responses matched the organization's level of responsibility.",
+                "https://image.pollinations.ai/prompt/Professional%20corporate%20executive%20portrait?width=512&height=512",
+                done.getScore().percentage());
+        finished.score = done.getScore().breakdown();
+        finished.percentileRank = 62.5;
+        finished.classPercentileRank = 80.0;
+        return finished;
+    }
+}
@@ -0,0 +1,67 @@
+package com.crisisgame;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.crisisgame.model.GameState;
+import com.crisisgame.model.TurnResponse;
+import com.crisisgame.scenario.ScenarioRepository;
+import com.crisisgame.scenario.ScenarioTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-request work in GameService that does not touch the network: the mock-mode opening scenario and
+ * turn generators, and the conversation history sent with every Gemini turn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameServiceBenchmark {
+    private GameService service;
+    private ScenarioTable table;
+    private GameState[] midGame;
+    private GameState lateGame;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        service = new GameService();
+        table = new ScenarioRepository(null).table();
+        // One session per mock turn (2-10), so every phase of the narrative is exercised
+        midGame = new GameState[9];
+        for (int i = 0; i < midGame.length; i++) midGame[i] = BenchmarkInputs.sessionAfter(i + 1);
+        lateGame = BenchmarkInputs.sessionAfter(9);
+    }
+
+    @Benchmark
+    public String mockScenario() {
+        int difficulty = 1 + (next++ % ScenarioTable.DIFFICULTIES);
+        ScenarioTable.Entry entry = table.scenario(difficulty, next % table.scenarioCount(difficulty));
+        return entry.narrative().renderScenario("Jordan Lee", 34, "Female", "Director of Public Affairs");
+    }
+
+    @Benchmark
+    public TurnResponse mockTurn() {
+        GameState state = midGame[next++ % midGame.length];
+        return service.generateDynamicMockTurnResponse(state.getSessionId(), state, "C");
+    }
+
+    @Benchmark
+    public List<OpenAIClient.Message> conversationHistory() {
+        return service.buildConversationHistory(lateGame,
+                "Player chooses option C. Continue to next turn. Write 3-5 sentences and then provide EXACTLY five labeled options A–E.");
+    }
+}
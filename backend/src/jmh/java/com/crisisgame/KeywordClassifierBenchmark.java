@@ -0,0 +1,153 @@
+package com.crisisgame;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.crisisgame.scenario.ScenarioPack;
+import com.crisisgame.util.KeywordClassifier;
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Old toLowerCase + contains chains against a single {@link KeywordClassifier} scan: crisis-type
+ * classification of every built-in scenario narrative (roughly 60-110 words each) plus a longer
+ * LLM-style turn, and the choice-quality heuristics over every built-in option line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeywordClassifierBenchmark {
+    private enum CrisisType { TECHNOLOGY, MANUFACTURING, HEALTHCARE, FOOD, SOCIAL_MEDIA, FINANCIAL, ENVIRONMENTAL, TRANSPORTATION }
+
+    private static final KeywordClassifier<CrisisType> CLASSIFIER = KeywordClassifier.builder(CrisisType.class)
+            .add(CrisisType.TECHNOLOGY, "tech", "cyber", "data", "quantum", "digital")
+            .add(CrisisType.MANUFACTURING, "manufacturing", "factory", "safety", "explosion", "industrial")
+            .add(CrisisType.HEALTHCARE, "healthcare", "medical", "hospital", "pharma", "patient")
+            .add(CrisisType.FOOD, "food", "contamination", "outbreak", "recall", "restaurant")
+            .add(CrisisType.SOCIAL_MEDIA, "social media", "platform", "content", "algorithm", "online")
+            .add(CrisisType.FINANCIAL, "financial", "bank", "fraud", "regulatory", "investment")
+            .add(CrisisType.ENVIRONMENTAL, "environment", "pollution", "toxic", "cleanup", "climate")
+            .add(CrisisType.TRANSPORTATION, "transport", "airline", "logistics", "supply", "shipping")
+            .build();
+
+    private enum ChoiceSignal { PROACTIVE, REACTIVE, STAKEHOLDER_FOCUS, STRATEGIC, STAKEHOLDER_CARE, LONG_TERM, DEFENSIVE, MINIMIZE, DAMAGE }
+
+    private static final KeywordClassifier<ChoiceSignal> CHOICES = KeywordClassifier.builder(ChoiceSignal.class)
+            .add(ChoiceSignal.PROACTIVE, "proactive", "prevent", "anticipate", "prepare")
+            .add(ChoiceSignal.REACTIVE, "respond", "react", "address", "immediate")
+            .add(ChoiceSignal.STAKEHOLDER_FOCUS, "stakeholder", "community", "customer", "partner")
+            .add(ChoiceSignal.STRATEGIC, "strategic", "comprehensive", "systematic")
+            .add(ChoiceSignal.STAKEHOLDER_CARE, "stakeholder", "community", "transparent")
+            .add(ChoiceSignal.LONG_TERM, "long-term", "sustainable", "future")
+            .add(ChoiceSignal.DEFENSIVE, "deny", "blame")
+            .add(ChoiceSignal.MINIMIZE, "minimize")
+            .add(ChoiceSignal.DAMAGE, "damage")
+            .build();
+
+    private List<String> narratives;
+    private List<String> options;
+
+    @Setup
+    public void setUp() throws Exception {
+        narratives = new ArrayList<>();
+        try (Reader reader = new InputStreamReader(
+                KeywordClassifierBenchmark.class.getResourceAsStream("/scenarios/default-pack.json"), StandardCharsets.UTF_8)) {
+            ScenarioPack pack = new Gson().fromJson(reader, ScenarioPack.class);
+            pack.scenarios.forEach(s -> narratives.add(s.narrative));
+            options = new ArrayList<>();
+            pack.scenarios.forEach(s -> options.addAll(s.options));
+        }
+        narratives.add("**Turn 6 - The Hearing**\n\nThe Senate subcommittee has moved your testimony up to Thursday. "
+                + "Overnight, a second whistleblower posted screenshots suggesting executives knew about the defect for "
+                + "eighteen months, and three institutional investors issued a joint letter demanding an independent "
+                + "review. Your general counsel urges caution, while the head of customer care reports that call volumes "
+                + "have tripled and employee morale is sliding. Reporters are asking whether the board still supports the CEO.\n\n"
+                + "**A.** Request a delay and brief committee staff privately first\n"
+                + "**B.** Publish the internal timeline before the hearing\n"
+                + "**C.** Commission an independent review and announce its terms\n"
+                + "**D.** Offer the whistleblower a formal channel and protections\n"
+                + "**E.** Prepare a joint statement with the board chair\n");
+    }
+
+    @Benchmark
+    public void containsChain(Blackhole bh) {
+        for (String narrative : narratives) bh.consume(legacyCrisisType(narrative.toLowerCase()));
+    }
+
+    @Benchmark
+    public void classifier(Blackhole bh) {
+        for (String narrative : narratives) bh.consume(CLASSIFIER.first(CLASSIFIER.scan(narrative)));
+    }
+
+    /** Every choice heuristic evaluated, as calculateConsistencyScore and analyzeChoiceQuality do per choice. */
+    @Benchmark
+    public int choiceContainsChain() {
+        int score = 0;
+        for (String choice : options) {
+            String c = choice.toLowerCase();
+            if (c.contains("proactive") || c.contains("prevent") || c.contains("anticipate") || c.contains("prepare")) score++;
+            if (c.contains("respond") || c.contains("react") || c.contains("address") || c.contains("immediate")) score++;
+            if (c.contains("stakeholder") || c.contains("community") || c.contains("customer") || c.contains("partner")) score++;
+            if (c.contains("strategic") || c.contains("comprehensive") || c.contains("systematic")) score += 2;
+            if (c.contains("stakeholder") || c.contains("community") || c.contains("transparent")) score += 2;
+            if (c.contains("long-term") || c.contains("sustainable") || c.contains("future")) score += 2;
+            if (c.contains("deny") || c.contains("blame") || c.contains("minimize") && !c.contains("damage")) score--;
+        }
+        return score;
+    }
+
+    @Benchmark
+    public int choiceClassifier() {
+        int score = 0;
+        for (String choice : options) {
+            long hits = CHOICES.scan(choice);
+            if (KeywordClassifier.has(hits, ChoiceSignal.PROACTIVE)) score++;
+            if (KeywordClassifier.has(hits, ChoiceSignal.REACTIVE)) score++;
+            if (KeywordClassifier.has(hits, ChoiceSignal.STAKEHOLDER_FOCUS)) score++;
+            if (KeywordClassifier.has(hits, ChoiceSignal.STRATEGIC)) score += 2;
+            if (KeywordClassifier.has(hits, ChoiceSignal.STAKEHOLDER_CARE)) score += 2;
+            if (KeywordClassifier.has(hits, ChoiceSignal.LONG_TERM)) score += 2;
+            if (KeywordClassifier.has(hits, ChoiceSignal.DEFENSIVE)
+                    || KeywordClassifier.has(hits, ChoiceSignal.MINIMIZE) && !KeywordClassifier.has(hits, ChoiceSignal.DAMAGE)) score--;
+        }
+        return score;
+    }
+
+    private static String legacyCrisisType(String prompt) {
+        if (prompt.contains("tech") || prompt.contains("cyber") || prompt.contains("data") || prompt.contains("quantum") || prompt.contains("digital"))
+            return "technology";
+        if (prompt.contains("manufacturing") || prompt.contains("factory") || prompt.contains("safety") || prompt.contains("explosion") || prompt.contains("industrial"))
+            return "manufacturing";
+        if (prompt.contains("healthcare") || prompt.contains("medical") || prompt.contains("hospital") || prompt.contains("pharma") || prompt.contains("patient"))
+            return "healthcare";
+        if (prompt.contains("food") || prompt.contains("contamination") || prompt.contains("outbreak") || prompt.contains("recall") || prompt.contains("restaurant"))
+            return "food";
+        if (prompt.contains("social media") || prompt.contains("platform") || prompt.contains("content") || prompt.contains("algorithm") || prompt.contains("online"))
+            return "social_media";
+        if (prompt.contains("financial") || prompt.contains("bank") || prompt.contains("fraud") || prompt.contains("regulatory") || prompt.contains("investment"))
+            return "financial";
+        if (prompt.contains("environment") || prompt.contains("pollution") || prompt.contains("toxic") || prompt.contains("cleanup") || prompt.contains("climate"))
+            return "environmental";
+        if (prompt.contains("transport") || prompt.contains("airline") || prompt.contains("logistics") || prompt.contains("supply") || prompt.contains("shipping"))
+            return "transportation";
+        return "general";
+    }
+}
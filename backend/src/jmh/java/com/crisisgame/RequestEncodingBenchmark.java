@@ -0,0 +1,125 @@
+package com.crisisgame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Gemini request encoding: the old Gson tree (serialized once for the log line and again for the body)
+ * against {@link GeminiRequestBody}, both building the same structured mid-game turn request with its
+ * generationConfig and response schema. Run with {@code -prof gc} and compare gc.alloc.rate.norm for
+ * bytes allocated per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestEncodingBenchmark {
+    private String systemPrompt;
+    private List<OpenAIClient.Message> messages;
+    private final Buffer sink = new Buffer();
+    private final GenerationSettings settings = new GenerationSettings("gemini-2.5-flash", 0, 800);
+    private JsonObject responseSchema;
+
+    @Setup
+    public void setUp() {
+        systemPrompt = GameService.systemPromptFor(null);
+        messages = new ArrayList<>();
+        messages.add(new OpenAIClient.Message("user", "Player: Jordan Lee (Female, age 34, difficulty 3). Continue the crisis scenario."));
+        for (int i = 0; i < 3; i++) {
+            messages.add(new OpenAIClient.Message("user", "Player chooses: " + (char) ('A' + i)));
+            messages.add(new OpenAIClient.Message("assistant",
+                    "**Turn " + (i + 2) + "** The regulator's letter arrives just as \"Channel 7\" goes live outside HQ.\n"
+                    + "Employees are forwarding the leaked memo, and the board wants a plan by 9am. Investors are calling..."));
+        }
+        messages.add(new OpenAIClient.Message("user",
+                "Player chooses option C. Continue to next turn. Write 3-5 sentences and then provide EXACTLY five labeled options A–E."));
+        // A tree-based client keeps the schema as a parsed constant
+        responseSchema = JsonParser.parseString(ResponseSchema.TURN.encoded().utf8()).getAsJsonObject();
+
+        Buffer streamed = new Buffer();
+        try {
+            new GeminiRequestBody(systemPrompt, messages, settings, ResponseSchema.TURN).writeTo(streamed);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        if (!JsonParser.parseString(streamed.readUtf8()).equals(gsonBody())) {
+            throw new IllegalStateException("The two encoders build different request bodies");
+        }
+    }
+
+    @Benchmark
+    public long gsonTree() throws IOException {
+        JsonObject body = gsonBody();
+        String logged = "Request body: " + body.toString();
+        RequestBody requestBody = RequestBody.create(body.toString(), MediaType.parse("application/json"));
+        requestBody.writeTo(sink);
+        long written = sink.size() + logged.length();
+        sink.clear();
+        return written;
+    }
+
+    private JsonObject gsonBody() {
+        JsonObject body = new JsonObject();
+        JsonObject systemInstruction = new JsonObject();
+        JsonArray systemParts = new JsonArray();
+        JsonObject systemPart = new JsonObject();
+        systemPart.addProperty("text", systemPrompt);
+        systemParts.add(systemPart);
+        systemInstruction.add("parts", systemParts);
+        body.add("systemInstruction", systemInstruction);
+
+        JsonArray contents = new JsonArray();
+        for (OpenAIClient.Message m : messages) {
+            JsonObject content = new JsonObject();
+            JsonArray parts = new JsonArray();
+            JsonObject part = new JsonObject();
+            part.addProperty("text", m.content);
+            parts.add(part);
+            content.add("parts", parts);
+            content.addProperty("role", m.role.equals("assistant") ? "model" : "user");
+            contents.add(content);
+        }
+        body.add("contents", contents);
+
+        JsonObject generationConfig = new JsonObject();
+        generationConfig.addProperty("maxOutputTokens", settings.maxOutputTokens);
+        JsonObject thinkingConfig = new JsonObject();
+        thinkingConfig.addProperty("thinkingBudget", settings.thinkingBudget);
+        generationConfig.add("thinkingConfig", thinkingConfig);
+        generationConfig.addProperty("responseMimeType", "application/json");
+        generationConfig.add("responseSchema", responseSchema);
+        body.add("generationConfig", generationConfig);
+        return body;
+    }
+
+    @Benchmark
+    public long streamingWriter() throws IOException {
+        new GeminiRequestBody(systemPrompt, messages, settings, ResponseSchema.TURN).writeTo(sink);
+        long written = sink.size();
+        sink.clear();
+        return written;
+    }
+}
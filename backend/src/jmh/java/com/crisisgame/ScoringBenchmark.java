@@ -0,0 +1,64 @@
+package com.crisisgame;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.crisisgame.model.ScoreBreakdown;
+import com.crisisgame.scoring.ScoreTracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Session scoring over 10-choice games: the per-turn path the server takes (record the choice, then
+ * build the breakdown sent with the turn) and the final level + percentage.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringBenchmark {
+    private static final String[] LETTERS = {"A", "B", "C", "D", "E"};
+    private static final int GAMES = 1024;
+
+    private final String[][] games = new String[GAMES][10];
+    private final ScoreTracker tracker = new ScoreTracker(4);
+    private int next;
+
+    @Setup
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (String[] game : games) {
+            for (int turn = 0; turn < game.length; turn++) game[turn] = LETTERS[random.nextInt(LETTERS.length)];
+        }
+    }
+
+    @Benchmark
+    public void perTurnBreakdown(Blackhole bh) {
+        String[] game = games[next++ & (GAMES - 1)];
+        tracker.reset();
+        for (String choice : game) {
+            tracker.record(choice);
+            bh.consume(tracker.breakdown());
+        }
+    }
+
+    @Benchmark
+    public int finalScore() {
+        String[] game = games[next++ & (GAMES - 1)];
+        tracker.reset();
+        for (String choice : game) tracker.record(choice);
+        return tracker.level() * 100 + tracker.percentage();
+    }
+}
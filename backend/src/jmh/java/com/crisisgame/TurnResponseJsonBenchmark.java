@@ -0,0 +1,46 @@
+package com.crisisgame;
+
+import java.util.concurrent.TimeUnit;
+
+import com.crisisgame.model.TurnResponse;
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Reflective Gson serialization of turn responses, as GameServer wrote them before ModelCodec; see WireFormatBenchmark. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TurnResponseJsonBenchmark {
+    private final Gson gson = new Gson();
+    private TurnResponse ongoing;
+    private TurnResponse finished;
+
+    @Setup
+    public void setUp() {
+        ongoing = BenchmarkInputs.ongoingResponse();
+        finished = BenchmarkInputs.finalResponse();
+    }
+
+    @Benchmark
+    public String ongoingTurn() {
+        return gson.toJson(ongoing);
+    }
+
+    @Benchmark
+    public String finalResults() {
+        return gson.toJson(finished);
+    }
+}
@@ -0,0 +1,72 @@
+package com.crisisgame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.crisisgame.model.TurnResponse;
+import com.crisisgame.wire.ModelCodec;
+import com.crisisgame.wire.WireBuffer;
+import com.crisisgame.wire.WireEncoder;
+import com.crisisgame.wire.WireFormat;
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Response encoding per wire format, from the model object to the bytes handed to the socket:
+ * reflective Gson plus getBytes (the old path), then the ModelCodec adapters writing JSON and CBOR into
+ * a reused {@link WireBuffer}. Payload sizes are printed at setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+    @Param({"ongoing", "final"})
+    public String response;
+
+    private final Gson gson = new Gson();
+    private final WireBuffer buffer = new WireBuffer(4096);
+    private TurnResponse turn;
+
+    @Setup
+    public void setUp() {
+        turn = "final".equals(response) ? BenchmarkInputs.finalResponse() : BenchmarkInputs.ongoingResponse();
+        System.out.printf("%n%s payload: gson %d B, json %d B, cbor %d B%n", response,
+                gsonReflective().length, encode(WireFormat.JSON), encode(WireFormat.CBOR));
+    }
+
+    @Benchmark
+    public byte[] gsonReflective() {
+        return gson.toJson(turn).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int json() {
+        return encode(WireFormat.JSON);
+    }
+
+    @Benchmark
+    public int cbor() {
+        return encode(WireFormat.CBOR);
+    }
+
+    private int encode(WireFormat format) {
+        buffer.reset();
+        WireEncoder out = format.encoder(buffer);
+        ModelCodec.write(out, turn);
+        return buffer.size();
+    }
+}
@@ -0,0 +1,156 @@
+package com.crisisgame;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.crisisgame.util.Env;
+
+import okhttp3.Call;
+
+/**
+ * Time budget and cancellation handle for one player request, passed from the handler through
+ * GameService into the Gemini call. The budget comes from the X-Request-Timeout-Ms header or the
+ * GAME_REQUEST_TIMEOUT_MS default (60 s), capped at GAME_REQUEST_TIMEOUT_MAX_MS.
+ *
+ * OpenAIClient sizes the OkHttp call timeout from what is left and attaches the call here, so
+ * {@link #cancel} aborts it mid-flight: when the WebSocket client goes away, or when a newer request
+ * for the same session supersedes it (the client gave up and retried). The JDK HTTP server does not
+ * report closed connections, so plain HTTP requests end by deadline or by being superseded.
+ */
+public final class Deadline {
+    public enum Reason {
+        EXPIRED(504, "Request deadline exceeded"),
+        CLIENT_GONE(499, "Client disconnected"),
+        SUPERSEDED(409, "Superseded by a newer request for this session");
+
+        public final int status;
+        public final String message;
+
+        Reason(int status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+    }
+
+    /** Thrown when work stops because its request expired or was cancelled. */
+    public static final class CancelledException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public final Reason reason;
+
+        CancelledException(Reason reason) {
+            super(reason.message);
+            this.reason = reason;
+        }
+    }
+
+    public static final long DEFAULT_TIMEOUT_MS = Env.longValue("GAME_REQUEST_TIMEOUT_MS", 60_000);
+    public static final long MAX_TIMEOUT_MS = Env.longValue("GAME_REQUEST_TIMEOUT_MAX_MS", 120_000);
+
+    private static final LongAdder[] CANCELLED = {new LongAdder(), new LongAdder(), new LongAdder()};
+    private static final LongAdder ABORTED_CALLS = new LongAdder();
+    private static final LongAdder SKIPPED = new LongAdder();
+    private static final LongAdder DROPPED_RESPONSES = new LongAdder();
+
+    private final long deadlineNanos;
+    private volatile Reason cancelled;
+    private volatile Call call;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(long millis) {
+        return new Deadline(System.nanoTime() + Math.max(0, millis) * 1_000_000);
+    }
+
+    /** Budget from a request header value in milliseconds, or the server default if absent or invalid. */
+    public static Deadline fromHeader(String timeoutMs) {
+        long millis = DEFAULT_TIMEOUT_MS;
+        if (timeoutMs != null) {
+            try {
+                millis = Long.parseLong(timeoutMs.trim());
+            } catch (NumberFormatException e) {
+                // keep the default
+            }
+        }
+        return after(Math.min(millis, MAX_TIMEOUT_MS));
+    }
+
+    /** The server default budget, for requests that cannot carry a header. */
+    public static Deadline standard() {
+        return after(DEFAULT_TIMEOUT_MS);
+    }
+
+    /** Time left, rounded up so that waiting this long always reaches the deadline. */
+    public long remainingMillis() {
+        return Math.max(0, (deadlineNanos - System.nanoTime() + 999_999) / 1_000_000);
+    }
+
+    /** Why this request should stop, or null while it is still wanted. */
+    public Reason stopReason() {
+        Reason reason = cancelled;
+        if (reason != null) return reason;
+        return System.nanoTime() - deadlineNanos >= 0 ? Reason.EXPIRED : null;
+    }
+
+    /** Throws if the request has expired or been cancelled; call before starting expensive work. */
+    public void check() throws CancelledException {
+        Reason reason = stopReason();
+        if (reason != null) {
+            SKIPPED.increment();
+            throw stopped(reason);
+        }
+    }
+
+    /** Stops the request and aborts its in-flight Gemini call, if any. First reason wins. */
+    public void cancel(Reason reason) {
+        synchronized (this) {
+            if (cancelled != null) return;
+            cancelled = reason;
+        }
+        Call inFlight = call;
+        if (inFlight != null) inFlight.cancel();
+    }
+
+    /** Registers the call that {@link #cancel} should abort; cancels it at once if already stopped. */
+    void attach(Call inFlight) {
+        call = inFlight;
+        if (cancelled != null) inFlight.cancel();
+    }
+
+    void detach(Call inFlight) {
+        if (call == inFlight) call = null;
+    }
+
+    /** The exception to surface for a stopped request, counted once per request. */
+    CancelledException stopped(Reason reason) {
+        CANCELLED[reason.ordinal()].increment();
+        return new CancelledException(reason);
+    }
+
+    /** As {@link #stopped}, for a Gemini call that was cut off while in flight. */
+    CancelledException aborted(Reason reason) {
+        ABORTED_CALLS.increment();
+        return stopped(reason);
+    }
+
+    /** A response was ready but its client was no longer waiting, so it was not written. */
+    public static void recordDroppedResponse() {
+        DROPPED_RESPONSES.increment();
+    }
+
+    public static Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("defaultTimeoutMs", DEFAULT_TIMEOUT_MS);
+        Map<String, Long> cancelled = new LinkedHashMap<>();
+        for (Reason reason : Reason.values()) cancelled.put(reason.name().toLowerCase(), CANCELLED[reason.ordinal()].sum());
+        m.put("cancelledRequests", cancelled);
+        m.put("abortedGeminiCalls", ABORTED_CALLS.sum());
+        m.put("skippedRequests", SKIPPED.sum());
+        m.put("droppedResponses", DROPPED_RESPONSES.sum());
+        return m;
+    }
+}
@@ -1,17 +1,43 @@
 package com.crisisgame;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.BufferedWriter;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
+import com.crisisgame.analytics.AnalyticsQuery;
+import com.crisisgame.events.EventExport;
+import com.crisisgame.model.ChoiceRequest;
 import com.crisisgame.model.PlayerProfile;
 import com.crisisgame.model.StartResponse;
+import com.crisisgame.model.TeamRequest;
 import com.crisisgame.model.TurnResponse;
+import com.crisisgame.profiling.FlightRecordings;
+import com.crisisgame.profiling.RequestEvent;
+import com.crisisgame.profiling.StageEvent;
+import com.crisisgame.spectate.SpectatorHub;
+import com.crisisgame.team.TeamService;
+import com.crisisgame.team.TeamSnapshot;
+import com.crisisgame.wire.ModelCodec;
+import com.crisisgame.wire.WireBuffer;
+import com.crisisgame.wire.WireEncoder;
+import com.crisisgame.wire.WireFormat;
+import com.crisisgame.ws.GameSocketServer;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
@@ -19,18 +45,39 @@ import com.sun.net.httpserver.HttpServer;
 public class GameServer {
 
     private static final GameService gameService = new GameService();
-    private static final Gson gson = new Gson();
+    private static final GameSocketServer socketServer = GameSocketServer.fromEnvironment(gameService);
+    private static final TeamService teams = TeamService.fromEnvironment(gameService);
+    private static final Gson gson = new Gson(); // metrics only; game responses go through ModelCodec
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final ThreadLocal<WireBuffer> RESPONSE_BUFFER = ThreadLocal.withInitial(() -> new WireBuffer(4096));
+    private static final String ADMIN_TOKEN = System.getenv("ADMIN_TOKEN");
 
     public static void main(String[] args) throws IOException {
-        HttpServer server = HttpServer.create(new InetSocketAddress(8081), 0);
+        // Without TCP_NODELAY a small response waits for the client's delayed ACK, about 40 ms per request
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+        // A projected game brings a whole class of spectators at once; the default backlog of 50 makes them retry connects
+        String backlog = System.getenv("GAME_SERVER_BACKLOG");
+        HttpServer server = HttpServer.create(new InetSocketAddress(8081), backlog != null ? Integer.parseInt(backlog) : 1024);
         
         // Add CORS support for all endpoints
         server.createContext("/api/game/start", new CORSHandler(new StartGameHandler()));
         server.createContext("/api/game/turn", new CORSHandler(new TurnHandler()));
+        server.createContext("/api/team/", new CORSHandler(new TeamHandler()));
+        server.createContext("/api/spectate", new CORSHandler(new SpectateHandler()));
+        server.createContext("/api/metrics", new CORSHandler(new MetricsHandler()));
+        server.createContext("/api/leaderboard", new CORSHandler(new LeaderboardHandler()));
+        server.createContext("/api/analytics", new CORSHandler(new AnalyticsHandler()));
+        server.createContext("/api/admin/generation", new CORSHandler(new GenerationAdminHandler()));
+        server.createContext("/api/admin/recording", new CORSHandler(new RecordingHandler()));
+        server.createContext("/api/export", new CORSHandler(new ExportHandler()));
         
-        server.setExecutor(null);
+        // Handlers block on Gemini calls, so serve requests from a pool instead of the single dispatcher thread
+        String threads = System.getenv("GAME_SERVER_THREADS");
+        server.setExecutor(Executors.newFixedThreadPool(threads != null ? Integer.parseInt(threads) : 64));
         server.start();
-        System.out.println("Crisis Game Server started on port 8081");
+        socketServer.start();
+        gameService.prewarm();
+        System.out.println("Crisis Game Server started on port 8081 (WebSocket on " + socketServer.port() + ")");
     }
 
     static class CORSHandler implements HttpHandler {
@@ -45,7 +92,7 @@ public class GameServer {
             // Add CORS headers
             exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
             exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-            exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, Authorization");
+            exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, Authorization, X-Request-Timeout-Ms, Idempotency-Key");
 
             // Handle preflight OPTIONS request
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
@@ -53,7 +100,19 @@ public class GameServer {
                 return;
             }
 
-            handler.handle(exchange);
+            RequestEvent event = new RequestEvent();
+            event.begin();
+            try {
+                handler.handle(exchange);
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.method = exchange.getRequestMethod();
+                    event.path = exchange.getRequestURI().getPath();
+                    event.status = exchange.getResponseCode();
+                    event.commit();
+                }
+            }
         }
     }
 
@@ -62,24 +121,36 @@ public class GameServer {
         public void handle(HttpExchange exchange) throws IOException {
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
-                    // Read request body
-                    String requestBody = readRequestBody(exchange);
+                    // Parse player profile straight from the request body
+                    StageEvent read = StageEvent.start(StageEvent.READ_REQUEST);
+                    PlayerProfile player;
+                    try (JsonReader in = requestReader(exchange)) {
+                        player = ModelCodec.readPlayer(in);
+                    }
+                    read.finish(null, 0, requestLength(exchange));
+                    // A chosen seed replays a recorded game, so it takes the admin token
+                    if (player.getSeed() != null && !authorized(exchange)) {
+                        sendError(exchange, 403, "Starting with a seed requires the admin token");
+                        return;
+                    }
                     
-                    // Parse player profile from JSON
-                    PlayerProfile player = gson.fromJson(requestBody, PlayerProfile.class);
+                    // Start new game within the request's time budget
+                    Deadline deadline = requestDeadline(exchange);
+                    StartResponse response = gameService.start(player, null, deadline);
                     
-                    // Start new game
-                    StartResponse response = gameService.start(player);
-                    
-                    // Send response as JSON
-                    String jsonResponse = gson.toJson(response);
-                    sendJsonResponse(exchange, 200, jsonResponse);
+                    // Send response in the negotiated format
+                    if (!stillWanted(exchange, deadline)) return;
+                    StageEvent write = StageEvent.start(StageEvent.WRITE_RESPONSE);
+                    int size = sendResponse(exchange, 200, out -> ModelCodec.write(out, response));
+                    write.finish(response.sessionId, response.turn, size);
+                } catch (Deadline.CancelledException e) {
+                    sendError(exchange, e.reason.status, e.getMessage());
                 } catch (Exception e) {
                     e.printStackTrace();
-                    sendJsonResponse(exchange, 500, "{\"error\":\"Internal server error: " + e.getMessage() + "\"}");
+                    sendError(exchange, 500, "Internal server error: " + e.getMessage());
                 }
             } else {
-                sendJsonResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+                sendError(exchange, 405, "Method not allowed");
             }
         }
     }
@@ -89,46 +160,449 @@ public class GameServer {
         public void handle(HttpExchange exchange) throws IOException {
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
-                    // Read request body
-                    String requestBody = readRequestBody(exchange);
+                    // Parse turn request straight from the request body
+                    StageEvent read = StageEvent.start(StageEvent.READ_REQUEST);
+                    ChoiceRequest turnRequest;
+                    try (JsonReader in = requestReader(exchange)) {
+                        turnRequest = ModelCodec.readChoice(in);
+                    }
+                    read.finish(turnRequest.getSessionId(), 0, requestLength(exchange));
                     
-                    // Parse turn request from JSON
-                    @SuppressWarnings("unchecked")
-                    Map<String, String> turnRequest = gson.fromJson(requestBody, Map.class);
-                    String sessionId = turnRequest.get("sessionId");
-                    String choice = turnRequest.get("choice");
+                    // Process turn within the request's time budget
+                    Deadline deadline = requestDeadline(exchange);
+                    // An Idempotency-Key header stands in for a requestId missing from the body
+                    String requestKey = turnRequest.getRequestId() != null ? turnRequest.getRequestId()
+                            : exchange.getRequestHeaders().getFirst("Idempotency-Key");
+                    TurnResponse response = gameService.turn(turnRequest.getSessionId(), turnRequest.getChoice(),
+                            requestKey, turnRequest.getTurn(), null, deadline);
                     
-                    // Process turn
-                    TurnResponse response = gameService.turn(sessionId, choice);
-                    
-                    // Send response as JSON
-                    String jsonResponse = gson.toJson(response);
-                    sendJsonResponse(exchange, 200, jsonResponse);
+                    // Send response in the negotiated format
+                    if (!stillWanted(exchange, deadline)) return;
+                    StageEvent write = StageEvent.start(StageEvent.WRITE_RESPONSE);
+                    int size = sendResponse(exchange, 200, out -> ModelCodec.write(out, response));
+                    write.finish(response.sessionId, response.turn, size);
+                } catch (Deadline.CancelledException e) {
+                    sendError(exchange, e.reason.status, e.getMessage());
+                } catch (GameService.TurnConflictException e) {
+                    sendError(exchange, 409, e.getMessage());
                 } catch (Exception e) {
                     e.printStackTrace();
-                    sendJsonResponse(exchange, 500, "{\"error\":\"Internal server error: " + e.getMessage() + "\"}");
+                    sendError(exchange, 500, "Internal server error: " + e.getMessage());
+                }
+            } else {
+                sendError(exchange, 405, "Method not allowed");
+            }
+        }
+    }
+
+    /**
+     * Team games, where members vote on each turn of one shared game: POST create, join, start and vote
+     * with a JSON body, and GET state?teamId=ID&since=VERSION to long-poll for the next change. Members
+     * polling the same version are all answered with the same encoded bytes.
+     */
+    static class TeamHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String action = exchange.getRequestURI().getPath().substring("/api/team/".length());
+            try {
+                if ("state".equals(action)) {
+                    if (!"GET".equals(exchange.getRequestMethod())) {
+                        sendError(exchange, 405, "Method not allowed");
+                        return;
+                    }
+                    long since;
+                    try {
+                        String requested = queryParameter(exchange, "since");
+                        since = requested == null ? 0 : Long.parseLong(requested.trim());
+                    } catch (NumberFormatException e) {
+                        sendError(exchange, 400, "since must be a version number");
+                        return;
+                    }
+                    // Answered now or, once the team changes or the poll times out, from a team thread
+                    teams.await(queryParameter(exchange, "teamId"), since, snapshot -> sendSnapshot(exchange, 200, snapshot));
+                    return;
+                }
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    sendError(exchange, 405, "Method not allowed");
+                    return;
+                }
+                TeamRequest request;
+                try (JsonReader in = requestReader(exchange)) {
+                    request = ModelCodec.readTeamRequest(in);
+                } catch (IOException | IllegalStateException | NumberFormatException e) {
+                    sendError(exchange, 400, "Malformed team request");
+                    return;
+                }
+                switch (action) {
+                    case "create" -> sendJsonResponse(exchange, 200, gson.toJson(teams.create(request)));
+                    case "join" -> sendJsonResponse(exchange, 200, gson.toJson(teams.join(request)));
+                    case "start" -> sendSnapshot(exchange, 202, teams.start(request));
+                    case "vote" -> sendSnapshot(exchange, 200, teams.vote(request));
+                    default -> sendError(exchange, 404, "Unknown team action");
+                }
+            } catch (TeamService.TeamException e) {
+                sendError(exchange, e.status, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * GET ?session=ID follows a game read-only as Server-Sent Events: a "start" or "turn" event with the
+     * usual response JSON for each step, beginning with the latest one, until the final turn. The
+     * request returns at once; SpectatorHub's writer threads keep the stream going.
+     */
+    static class SpectateHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendJsonResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+                return;
+            }
+            SpectatorHub spectators = gameService.spectators();
+            String sessionId = queryParameter(exchange, "session");
+            if (!spectators.watchable(sessionId)) {
+                sendJsonResponse(exchange, 404, "{\"error\":\"Unknown session\"}");
+                return;
+            }
+            if (spectators.full()) {
+                sendJsonResponse(exchange, 503, "{\"error\":\"Too many spectators\"}");
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            // Length 0: chunked transfer, open until the game ends or the spectator leaves
+            exchange.sendResponseHeaders(200, 0);
+            boolean subscribed = spectators.subscribe(sessionId, exchange.getRequestHeaders().getFirst("Last-Event-ID"),
+                    new SpectatorHub.Stream() {
+                        @Override
+                        public OutputStream body() {
+                            return exchange.getResponseBody();
+                        }
+
+                        @Override
+                        public void close() {
+                            exchange.close();
+                        }
+                    });
+            if (!subscribed) exchange.close();
+        }
+    }
+
+    static class MetricsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if ("GET".equals(exchange.getRequestMethod())) {
+                Map<String, Object> metrics = new LinkedHashMap<>();
+                metrics.put("http", HttpClientPool.shared().snapshot());
+                metrics.putAll(gameService.metrics());
+                metrics.put("websocket", socketServer.metrics());
+                metrics.put("teams", teams.metrics());
+                metrics.put("deadlines", Deadline.metrics());
+                sendJsonResponse(exchange, 200, gson.toJson(metrics));
+            } else {
+                sendJsonResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            }
+        }
+    }
+
+    static class LeaderboardHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if ("GET".equals(exchange.getRequestMethod())) {
+                // Cached, pre-serialized snapshot: ?class=CODE for a class board, the global board otherwise
+                String classCode = queryParameter(exchange, "class");
+                byte[] snapshot = gameService.leaderboard().snapshotJson(classCode);
+                if (snapshot == null) {
+                    sendJsonResponse(exchange, 404, "{\"error\":\"Unknown class\"}");
+                } else {
+                    sendJsonResponse(exchange, 200, snapshot);
+                }
+            } else {
+                sendJsonResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            }
+        }
+    }
+
+    /**
+     * GET ?groupBy=difficulty,choice3&gender=female counts finished games per group, with each group's
+     * share and mean final score. Dimensions: difficulty, gender, ageBand, scoreBand, choice1-choice10.
+     */
+    static class AnalyticsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendJsonResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+                return;
+            }
+            Map<String, Object> result;
+            try {
+                result = gameService.analytics().query(AnalyticsQuery.parse(queryParameters(exchange)));
+            } catch (IllegalArgumentException e) {
+                sendJsonResponse(exchange, 400, gson.toJson(Map.of("error", e.getMessage())));
+                return;
+            }
+            sendJsonResponse(exchange, 200, gson.toJson(result));
+        }
+    }
+
+    /**
+     * GET shows the generation controller; POST {"mode":"live"|"mock"|"auto"} switches it at runtime.
+     * Requests must carry "Authorization: Bearer <ADMIN_TOKEN>"; without ADMIN_TOKEN the endpoint is off.
+     */
+    static class GenerationAdminHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (rejectedAdmin(exchange)) return;
+            GenerationController generation = gameService.generation();
+            if ("POST".equals(exchange.getRequestMethod())) {
+                String mode = null;
+                try (JsonReader in = requestReader(exchange)) {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        if ("mode".equals(in.nextName())) mode = in.nextString();
+                        else in.skipValue();
+                    }
+                    in.endObject();
+                    generation.setMode(GenerationController.Mode.valueOf(String.valueOf(mode).trim().toUpperCase()));
+                } catch (IOException | IllegalStateException | IllegalArgumentException e) {
+                    sendJsonResponse(exchange, 400, "{\"error\":\"mode must be live, mock or auto\"}");
+                    return;
                 }
+                sendJsonResponse(exchange, 200, gson.toJson(generation.snapshot()));
+            } else if ("GET".equals(exchange.getRequestMethod())) {
+                sendJsonResponse(exchange, 200, gson.toJson(generation.snapshot()));
             } else {
                 sendJsonResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
             }
         }
     }
 
-    private static String readRequestBody(HttpExchange exchange) throws IOException {
-        StringBuilder body = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                body.append(line);
+    /**
+     * GET ?seconds=N&settings=default|profile runs a Java Flight Recorder recording for N seconds (30 by
+     * default, JFR_MAX_SECONDS at most) and sends the .jfr file back. The request holds a server thread
+     * for the whole recording; a second request while one runs gets 409. Needs the admin token, as above.
+     */
+    static class RecordingHandler implements HttpHandler {
+        private final FlightRecordings recordings = new FlightRecordings();
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (rejectedAdmin(exchange)) return;
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendJsonResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+                return;
+            }
+            int seconds = FlightRecordings.DEFAULT_SECONDS;
+            String settings = queryParameter(exchange, "settings");
+            Path file;
+            try {
+                String requested = queryParameter(exchange, "seconds");
+                if (requested != null) seconds = Integer.parseInt(requested.trim());
+                file = recordings.record(seconds, settings == null ? "default" : settings);
+            } catch (NumberFormatException e) {
+                sendJsonResponse(exchange, 400, "{\"error\":\"seconds must be a number\"}");
+                return;
+            } catch (IllegalArgumentException e) {
+                sendJsonResponse(exchange, 400, "{\"error\":\"settings must be default or profile\"}");
+                return;
+            } catch (FlightRecordings.BusyException e) {
+                sendJsonResponse(exchange, 409, "{\"error\":\"A recording is already running\"}");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sendJsonResponse(exchange, 503, "{\"error\":\"Recording interrupted\"}");
+                return;
+            }
+
+            try {
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                exchange.getResponseHeaders().set("Content-Disposition",
+                        "attachment; filename=\"" + file.getFileName() + "\"");
+                exchange.sendResponseHeaders(200, Files.size(file));
+                try (OutputStream os = exchange.getResponseBody()) {
+                    Files.copy(file, os);
+                }
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * GET streams logged gameplay events as NDJSON over chunked transfer, gzip-compressed when the client
+     * accepts it. Optional filters: from and to (epoch milliseconds or ISO-8601, inclusive), difficulty
+     * and session. Needs the admin token like the admin endpoints, since events carry player names.
+     */
+    static class ExportHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (rejectedAdmin(exchange)) return;
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendJsonResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+                return;
+            }
+            EventExport.Filter filter = new EventExport.Filter();
+            try {
+                String from = queryParameter(exchange, "from");
+                String to = queryParameter(exchange, "to");
+                String difficulty = queryParameter(exchange, "difficulty");
+                if (from != null) filter.fromMillis = EventExport.parseTime(from);
+                if (to != null) filter.toMillis = EventExport.parseTime(to);
+                if (difficulty != null) filter.difficulty = Integer.parseInt(difficulty.trim());
+                filter.sessionId = queryParameter(exchange, "session");
+            } catch (IllegalArgumentException e) {
+                sendJsonResponse(exchange, 400, "{\"error\":\"from and to must be epoch milliseconds or ISO-8601 times, difficulty a number\"}");
+                return;
+            }
+
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            if (gzip) exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            // Length 0: chunked transfer, the export is written as it is read
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream body = exchange.getResponseBody();
+            if (gzip) body = new GZIPOutputStream(body, 64 * 1024);
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8), 64 * 1024)) {
+                long count = EventExport.write(gameService.events(), filter, out);
+                System.out.println("Exported " + count + " gameplay events");
+            }
+        }
+    }
+
+    /**
+     * True if the request carries "Authorization: Bearer <ADMIN_TOKEN>". Fails closed: with no
+     * ADMIN_TOKEN configured nothing is authorized. Compared in constant time.
+     */
+    private static boolean authorized(HttpExchange exchange) {
+        if (ADMIN_TOKEN == null || ADMIN_TOKEN.isBlank()) return false;
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && MessageDigest.isEqual(
+                ("Bearer " + ADMIN_TOKEN).getBytes(StandardCharsets.UTF_8), header.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Sends 403 when no ADMIN_TOKEN is configured or 401 when the request lacks it; true if it did. */
+    private static boolean rejectedAdmin(HttpExchange exchange) throws IOException {
+        if (ADMIN_TOKEN == null || ADMIN_TOKEN.isBlank()) {
+            sendJsonResponse(exchange, 403, "{\"error\":\"Admin endpoints are disabled; set ADMIN_TOKEN\"}");
+            return true;
+        }
+        if (!authorized(exchange)) {
+            sendJsonResponse(exchange, 401, "{\"error\":\"Unauthorized\"}");
+            return true;
+        }
+        return false;
+    }
+
+    /** Declared request body size, or -1 when the client did not send a Content-Length. */
+    private static long requestLength(HttpExchange exchange) {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length == null) return -1;
+        try {
+            return Long.parseLong(length.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** All query parameters in request order; a repeated name keeps its last value. */
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return parameters;
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            parameters.put(key, eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            if (key.equals(name)) {
+                return eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
             }
         }
-        return body.toString();
+        return null;
+    }
+
+    /** X-Request-Timeout-Ms budget for this request, or the server default. */
+    private static Deadline requestDeadline(HttpExchange exchange) {
+        return Deadline.fromHeader(exchange.getRequestHeaders().getFirst("X-Request-Timeout-Ms"));
+    }
+
+    /**
+     * False (after a short error reply) when the client stopped waiting before the response was ready,
+     * so the full body is not serialized for a client that has given up.
+     */
+    private static boolean stillWanted(HttpExchange exchange, Deadline deadline) throws IOException {
+        Deadline.Reason reason = deadline.stopReason();
+        if (reason == null) return true;
+        Deadline.recordDroppedResponse();
+        sendError(exchange, reason.status, reason.message);
+        return false;
+    }
+
+    private static JsonReader requestReader(HttpExchange exchange) {
+        return new JsonReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Encodes the body into this thread's reusable buffer in the format the Accept header asks for
+     * (JSON unless application/cbor is listed) and sends it with a fixed Content-Length.
+     *
+     * @return the body size in bytes
+     */
+    private static int sendResponse(HttpExchange exchange, int statusCode, Consumer<WireEncoder> body) throws IOException {
+        WireFormat format = WireFormat.negotiate(exchange.getRequestHeaders().getFirst("Accept"));
+        WireBuffer buffer = RESPONSE_BUFFER.get();
+        buffer.reset();
+        body.accept(format.encoder(buffer));
+
+        exchange.getResponseHeaders().set("Content-Type", format.contentType());
+        exchange.getResponseHeaders().set("Vary", "Accept");
+        int size = buffer.size();
+        exchange.sendResponseHeaders(statusCode, size);
+        try (OutputStream os = exchange.getResponseBody()) {
+            buffer.writeTo(os);
+        }
+        // Don't let one oversized response pin a large buffer to the thread
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) RESPONSE_BUFFER.remove();
+        return size;
+    }
+
+    /** Sends a team snapshot's shared bytes; also called from team threads, so failures just close the exchange. */
+    private static void sendSnapshot(HttpExchange exchange, int statusCode, TeamSnapshot snapshot) {
+        WireFormat format = WireFormat.negotiate(exchange.getRequestHeaders().getFirst("Accept"));
+        byte[] body = snapshot.encoded(format);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", format.contentType());
+            exchange.getResponseHeaders().set("Vary", "Accept");
+            exchange.sendResponseHeaders(statusCode, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
+        sendResponse(exchange, statusCode, out -> ModelCodec.writeError(out, message));
     }
 
     private static void sendJsonResponse(HttpExchange exchange, int statusCode, String jsonResponse) throws IOException {
+        sendJsonResponse(exchange, statusCode, jsonResponse.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sendJsonResponse(HttpExchange exchange, int statusCode, byte[] responseBytes) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        byte[] responseBytes = jsonResponse.getBytes(StandardCharsets.UTF_8);
         exchange.sendResponseHeaders(statusCode, responseBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
             os.write(responseBytes);
@@ -3,21 +3,42 @@ package com.crisisgame;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
 import java.util.UUID;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import com.crisisgame.analytics.ChoiceAnalytics;
+import com.crisisgame.events.EventLog;
+import com.crisisgame.leaderboard.Leaderboard;
+import com.crisisgame.model.FinalAssessment;
 import com.crisisgame.model.GameState;
+import com.crisisgame.model.GeneratedTurn;
 import com.crisisgame.model.PlayerProfile;
 import com.crisisgame.model.StartResponse;
 import com.crisisgame.model.TurnResponse;
-import com.crisisgame.util.OptionParser;
+import com.crisisgame.narrative.NarrativeEngine;
+import com.crisisgame.narrative.WorldState;
+import com.crisisgame.profiling.StageEvent;
+import com.crisisgame.scenario.ScenarioRepository;
+import com.crisisgame.scenario.ScenarioTable;
+import com.crisisgame.spectate.SpectatorHub;
+import com.crisisgame.util.KeywordClassifier;
 
 public class GameService {
     private static final String GEMINI_MODEL = "gemini-2.5-pro";
 
-    private static String systemPromptFor(PlayerProfile p){
+    static String systemPromptFor(PlayerProfile p){
         return """
         You are an expert crisis simulation storyteller creating immersive, dynamic corporate crisis scenarios. 
 
@@ -76,9 +97,91 @@ public class GameService {
     }
 
     // In-memory session store
-    private final Map<String, GameState> sessions = new HashMap<>();
-    private final OpenAIClient openAI = new OpenAIClient();
-    private static final boolean MOCK_MODE = true; // Temporarily enable to avoid API overload
+    private final Map<String, GameState> sessions = new ConcurrentHashMap<>();
+    // Deadline of the turn request currently being served per session, so a retry can cancel it
+    private final Map<String, Deadline> inFlight = new ConcurrentHashMap<>();
+    // Latest keyed turn request per session and its reply, so a repeat of it is answered without replaying the turn
+    private final Map<String, TurnSlot> replies = new ConcurrentHashMap<>();
+    private final LongAdder replayedTurns = new LongAdder();
+    private final LongAdder awaitedTurns = new LongAdder();
+    private final LongAdder conflictingTurns = new LongAdder();
+    private final OpenAIClient openAI;
+    private final ScenarioRepository scenarios = ScenarioRepository.fromEnvironment();
+    // Mock-mode turns, written from the session's world state
+    private final NarrativeEngine narrative = new NarrativeEngine();
+    private final Leaderboard leaderboard = Leaderboard.fromEnvironment();
+    // Every game's opening and turns, kept on disk after the session is gone
+    private final EventLog events = EventLog.fromEnvironment();
+    // Finished games in columns, for instructor queries
+    private final ChoiceAnalytics analytics = ChoiceAnalytics.fromEnvironment();
+    // Read-only event streams of running games, for projecting them to a class
+    private final SpectatorHub spectators = SpectatorHub.fromEnvironment();
+    // Live or mock generation per turn; mock by default to avoid API overload, adaptive with CRISIS_MOCK_MODE=false
+    private final GenerationController generation = GenerationController.fromEnvironment();
+
+    public GameService() {
+        this(new OpenAIClient());
+    }
+
+    /** With a given Gemini client, e.g. one pointed at the local stand-in. */
+    GameService(OpenAIClient openAI) {
+        this.openAI = openAI;
+    }
+
+    /** Warms Gemini connections at startup; nothing to do while turns are mocked. */
+    public void prewarm() {
+        if (generation.mayCallLive()) openAI.prewarm();
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("routes", openAI.getRouter().snapshot());
+        metrics.put("scenarios", scenarios.snapshot());
+        metrics.put("leaderboard", leaderboard.metrics());
+        metrics.put("generation", generation.snapshot());
+        metrics.put("events", events.metrics());
+        metrics.put("analytics", analytics.metrics());
+        metrics.put("spectators", spectators.metrics());
+        Map<String, Object> retries = new LinkedHashMap<>();
+        retries.put("replayed", replayedTurns.sum());
+        retries.put("awaited", awaitedTurns.sum());
+        retries.put("conflicts", conflictingTurns.sum());
+        metrics.put("turnRetries", retries);
+        return metrics;
+    }
+
+    public GenerationController generation() {
+        return generation;
+    }
+
+    public Leaderboard leaderboard() {
+        return leaderboard;
+    }
+
+    public EventLog events() {
+        return events;
+    }
+
+    public ChoiceAnalytics analytics() {
+        return analytics;
+    }
+
+    public SpectatorHub spectators() {
+        return spectators;
+    }
+
+    // Keyword table for the outcome heuristics, compiled once
+    private enum OutcomeSignal { SUCCESS, OUTSTANDING, GOOD, POSITIVE, AVERAGE, POOR, CRISIS }
+
+    private static final KeywordClassifier<OutcomeSignal> OUTCOME_KEYWORDS = KeywordClassifier.builder(OutcomeSignal.class)
+            .add(OutcomeSignal.SUCCESS, "success", "excellent")
+            .add(OutcomeSignal.OUTSTANDING, "outstanding")
+            .add(OutcomeSignal.GOOD, "good", "effective")
+            .add(OutcomeSignal.POSITIVE, "positive")
+            .add(OutcomeSignal.AVERAGE, "average", "adequate")
+            .add(OutcomeSignal.POOR, "poor", "failed")
+            .add(OutcomeSignal.CRISIS, "crisis")
+            .build();
 
     // Test method to verify Gemini API connectivity
     public String testGeminiAPI() throws IOException {
@@ -89,151 +192,137 @@ public class GameService {
         return openAI.chat(GEMINI_MODEL, "You are a helpful assistant.", testMessages);
     }
 
+    /** A turn request for a turn the session is no longer at: it was already played, or the game is over. */
+    public static final class TurnConflictException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public final int currentTurn;
+
+        TurnConflictException(int expectedTurn, int currentTurn, boolean finished) {
+            super(finished ? "Game already finished"
+                    : "Turn " + expectedTurn + " is not the current turn; the game is at turn " + currentTurn);
+            this.currentTurn = currentTurn;
+        }
+    }
+
+    /**
+     * A session's latest keyed or turn-numbered turn request and its reply. Only the latest request can
+     * still be repeated: a client that sent a newer one has seen the reply to the older.
+     */
+    private static final class TurnSlot {
+        String key;
+        int turn = -1; // the turn answered; for a key-only request, known once it starts playing
+        CompletableFuture<TurnResponse> reply;
+
+        boolean matches(String requestKey, Integer expectedTurn) {
+            if (reply == null) return false;
+            if (requestKey != null) return requestKey.equals(key);
+            return expectedTurn != null && expectedTurn == turn;
+        }
+
+        void claim(String requestKey, Integer expectedTurn, CompletableFuture<TurnResponse> ownReply) {
+            key = requestKey;
+            turn = expectedTurn == null ? -1 : expectedTurn;
+            reply = ownReply;
+        }
+
+        TurnSlot copy() {
+            TurnSlot copy = new TurnSlot();
+            copy.key = key;
+            copy.turn = turn;
+            copy.reply = reply;
+            return copy;
+        }
+
+        void restore(TurnSlot previous) {
+            key = previous.key;
+            turn = previous.turn;
+            reply = previous.reply;
+        }
+    }
+
     public StartResponse start(PlayerProfile player) throws IOException {
+        return start(player, null, null);
+    }
+
+    /**
+     * Starts a game; with a listener, a live opening narrative is streamed to it while Gemini writes it.
+     * Mock turns are generated whole, so the listener is not called. A deadline, if given, bounds and
+     * can cancel the Gemini call.
+     */
+    public StartResponse start(PlayerProfile player, Consumer<String> narrativeListener, Deadline deadline) throws IOException {
+        StartResponse response = startGame(player, narrativeListener, deadline);
+        events.recordStart(player, response);
+        spectators.publish(response.sessionId, response);
+        return response;
+    }
+
+    private StartResponse startGame(PlayerProfile player, Consumer<String> narrativeListener, Deadline deadline) throws IOException {
         String sessionId = UUID.randomUUID().toString();
+        // The seed is logged with the player, so the game can be replayed exactly
+        if (player.getSeed() == null) player.setSeed(ThreadLocalRandom.current().nextLong());
         GameState state = new GameState(sessionId, player);
 
-        if (MOCK_MODE) {
+        if (generation.choose() != GenerationController.Source.LIVE) {
             // Generate dynamic mock scenarios based on player profile
             return generateDynamicMockScenario(sessionId, state, player);
         }
 
+        StageEvent prompt = StageEvent.start(StageEvent.PROMPT);
         String userIntro = String.format(
             "Player Info — Name: %s, Age: %d, Gender: %s, Difficulty: %d. Begin Turn 1 now. " +
-            "Write 3-5 sentences, then EXACTLY five labeled options A–E.",
+            "Write 3-5 sentences of narrative and EXACTLY five options.",
             player.getName(), player.getAge(), player.getGender(), player.getDifficulty()
         );
+        String systemPrompt = systemPromptFor(player);
+        prompt.finish(sessionId, state.getTurn(), systemPrompt.length() + userIntro.length());
 
-        String narrative = openAI.chat(
-                GEMINI_MODEL,
-                systemPromptFor(player),
-                List.of(new OpenAIClient.Message("user", userIntro))
-        );
+        GeneratedTurn opening;
+        StageEvent generate = StageEvent.start(StageEvent.GENERATE);
+        long started = System.nanoTime();
+        try {
+            opening = openAI.chatTurn(
+                    ModelRouter.Phase.OPENING,
+                    systemPrompt,
+                    List.of(new OpenAIClient.Message("user", userIntro)),
+                    narrativeListener,
+                    deadline
+            );
+            generation.recordSuccess(elapsedMillis(started));
+        } catch (IOException e) {
+            if (!fallBackAfter(e, started)) throw e;
+            return generateDynamicMockScenario(sessionId, state, player);
+        } finally {
+            generate.finish(sessionId, state.getTurn(), -1);
+        }
 
-        state.getMessagesHistory().add("ASSISTANT:\n" + narrative);
+        state.getMessagesHistory().add("ASSISTANT:\n" + opening.narrative);
+        state.setLiveOptions(opening.options);
         sessions.put(sessionId, state);
 
-        List<String> options = OptionParser.extractOptions(narrative);
-        return new StartResponse(sessionId, state.getTurn(), narrative, options);
+        return new StartResponse(sessionId, state.getTurn(), opening.narrative, opening.options);
     }
 
     private StartResponse generateDynamicMockScenario(String sessionId, GameState state, PlayerProfile player) {
+        StageEvent mock = StageEvent.start(StageEvent.MOCK_TURN);
+        // Scenarios come from the preindexed table, selected by difficulty level
+        ScenarioTable table = scenarios.table();
         int difficulty = player.getDifficulty();
-        
-        // Enhanced scenarios based on difficulty level
-        String[][][] difficultyScenarios = {
-            // Difficulty 1: Entry-level scenarios - Local/Department issues
-            {
-                {
-                    "You're %s, a %d-year-old %s working as %s at TechStart Inc., a small startup. A minor data glitch has exposed 500 customer email addresses to a marketing partner. Your manager asks you to draft an apology email while the CEO handles the technical fix. The local news is asking questions, and a few customers have called complaining. You need to craft appropriate communication.",
-                    "A) Draft a simple apology email acknowledging the minor issue",
-                    "B) Wait for technical team to provide more details first",
-                    "C) Consult with legal team about appropriate language",
-                    "D) Prepare FAQ document for customer service team",
-                    "E) Research best practices for similar situations online"
-                },
-                {
-                    "Welcome %s! As a %d-year-old %s serving as %s at LocalManu Corp, you're dealing with a workplace safety incident. A worker slipped and was injured due to a wet floor that wasn't properly marked. The injury is minor, but HR wants you to help coordinate communication with the worker's family and document lessons learned for future prevention.",
-                    "A) Contact the injured worker's family with a personal call",
-                    "B) Focus on documenting the incident for internal records",
-                    "C) Work with facilities to improve safety signage immediately",
-                    "D) Coordinate with HR on worker support and communication",
-                    "E) Research workplace safety communication best practices"
-                }
-            },
-            // Difficulty 2: Intermediate scenarios - Regional/Multi-department impact
-            {
-                {
-                    "You're %s, a %d-year-old %s working as %s at MidSize Solutions. A cybersecurity breach has compromised 15,000 customer accounts across three states. Local media outlets are covering the story, state regulators have opened an investigation, and your customer service lines are overwhelmed. The CEO expects you to coordinate the communication response while IT works on containment.",
-                    "A) Issue immediate public statement acknowledging breach scope and response actions",
-                    "B) Coordinate with state regulators first to ensure compliance with disclosure requirements",
-                    "C) Focus on customer notification and support before public communications",
-                    "D) Engage cybersecurity experts to provide technical credibility to communications",
-                    "E) Develop comprehensive multi-channel communication strategy for different stakeholder groups"
-                },
-                {
-                    "Welcome %s! As a %d-year-old %s in the role of %s at Regional Foods Corp, you're facing a serious challenge. E. coli contamination has been traced to your company's lettuce supply, affecting customers in 5 states with 8 hospitalizations. The CDC is investigating, grocery chains are pulling products, and national news crews are gathering outside your facilities. You must coordinate a complex multi-stakeholder response.",
-                    "A) Implement immediate voluntary recall across all affected regions",
-                    "B) Coordinate closely with CDC and health authorities on investigation timeline",
-                    "C) Focus communication efforts on supporting affected families first",
-                    "D) Engage with retail partners to coordinate messaging and supply chain response",
-                    "E) Establish crisis communication center to manage multiple stakeholder communications"
-                }
-            },
-            // Difficulty 3: Advanced scenarios - National/Industry-wide implications
-            {
-                {
-                    "You're %s, a %d-year-old %s serving as %s at NationTech Corp, a major technology firm. A sophisticated nation-state cyber attack has breached your cloud infrastructure, potentially accessing sensitive data from millions of users including government contractors. The FBI has launched an investigation, Congress is demanding hearings, international partners are questioning security protocols, and your stock has dropped 25%%. This crisis has national security implications.",
-                    "A) Coordinate with federal authorities while maintaining transparency with affected stakeholders",
-                    "B) Implement comprehensive security overhaul and communicate progress publicly",
-                    "C) Focus on supporting affected government and enterprise clients with priority response",
-                    "D) Engage with international partners and industry leaders on coordinated security response",
-                    "E) Develop strategic communications addressing national security concerns and business continuity"
-                },
-                {
-                    "Welcome %s! As a %d-year-old %s working as %s at GlobalManufacturing Inc., you're managing a catastrophic situation. An explosion at your primary chemical plant has killed 3 workers and released toxic clouds affecting nearby communities. EPA is conducting emergency response, international environmental groups are mobilizing, class-action lawsuits are being filed, and regulatory agencies in multiple countries are suspending operations. This crisis threatens the company's global operations.",
-                    "A) Coordinate comprehensive response addressing worker families, community safety, and environmental impact",
-                    "B) Establish international crisis response center with regulatory agencies and environmental experts",
-                    "C) Focus on immediate community evacuation and health support before addressing business implications",
-                    "D) Engage with global environmental organizations and regulatory bodies on remediation strategy",
-                    "E) Develop integrated crisis response addressing legal, environmental, operational, and reputational challenges"
-                }
-            },
-            // Difficulty 4: Expert scenarios - Global/Transformational impact
-            {
-                {
-                    "As %s, a %d-year-old %s in your executive role as %s at GlobalSocial Corp, you're confronting an unprecedented crisis. Your platform's AI algorithm has been systematically promoting extremist content leading to real-world violence in 12 countries. Whistleblower documents reveal internal knowledge dating back years. The UN is calling for investigation, governments are threatening regulation, advertisers representing $5 billion have suspended campaigns, and employee walkouts are spreading globally. This crisis threatens the future of social media governance.",
-                    "A) Implement immediate AI algorithm shutdown and engage with international regulatory bodies",
-                    "B) Establish global transparency initiative with external oversight and regular public accountability",
-                    "C) Focus on supporting affected communities worldwide and funding violence prevention programs",
-                    "D) Lead industry transformation by creating new ethical AI standards and governance frameworks",
-                    "E) Develop comprehensive global response addressing regulatory, ethical, operational, and societal implications"
-                },
-                {
-                    "You're %s, a %d-year-old %s serving as %s at PharmaGlobal Inc. A critical medication manufactured at your facilities has been linked to serious side effects affecting patients worldwide. Internal documents suggest possible cover-up of early warning signs. Health agencies in 30+ countries are launching investigations, medical professionals are questioning prescription practices, patient advocacy groups are organizing international litigation, and your research integrity is under global scrutiny. This crisis could reshape pharmaceutical industry standards.",
-                    "A) Establish global patient safety response with full transparency and independent medical review",
-                    "B) Coordinate with international health agencies on comprehensive safety assessment and regulatory compliance",
-                    "C) Focus on supporting affected patients worldwide with medical care and compensation programs",
-                    "D) Lead industry transformation in safety standards and transparent reporting protocols",
-                    "E) Develop integrated global response addressing medical, regulatory, legal, and ethical dimensions"
-                }
-            },
-            // Difficulty 5: Master scenarios - Civilization/Paradigm-shifting impact
-            {
-                {
-                    "You're %s, a %d-year-old %s serving as %s at QuantumCorp, the world's leading quantum computing company. A critical security flaw in your quantum encryption technology has been discovered, potentially compromising global financial systems, military communications, and state secrets. The vulnerability affects every major government and corporation using your technology. Markets are crashing, international diplomatic relations are strained, cyber warfare capabilities are questioned, and the fundamental trust in digital security is collapsing. This crisis could reshape global information security paradigms.",
-                    "A) Coordinate with world governments and international bodies on global security infrastructure protection",
-                    "B) Lead international consortium to develop next-generation security standards and implementation protocols",
-                    "C) Focus on immediate protection of critical infrastructure while developing long-term solutions",
-                    "D) Pioneer new paradigm in quantum security with open-source collaboration and transparency",
-                    "E) Orchestrate civilization-level response addressing national security, economic stability, and technological trust"
-                },
-                {
-                    "Welcome %s! As a %d-year-old %s in your role as %s at BioGenesis Corp, you're facing humanity's greatest crisis. Your genetically modified organisms, released globally to address climate change, have begun mutating unpredictably. Environmental systems worldwide are destabilizing, food chains are collapsing, and some mutations pose existential threats to ecosystems. The UN Security Council is in emergency session, scientific communities are calling for unprecedented global intervention, and humanity's survival may depend on your crisis response. This is a civilization-defining moment.",
-                    "A) Coordinate global scientific response with immediate environmental containment and reversal strategies",
-                    "B) Establish international crisis response with world governments, UN, and scientific institutions",
-                    "C) Focus on immediate ecosystem protection and food security while developing long-term solutions",
-                    "D) Lead unprecedented global collaboration on environmental restoration and species protection",
-                    "E) Orchestrate humanity's response to existential threat requiring complete paradigm shift in environmental stewardship"
-                }
-            }
-        };
-        
-        // Select scenario based on difficulty level (0-4 index)
-        int difficultyIndex = Math.min(difficulty - 1, 4);
-        String[][] scenarios = difficultyScenarios[difficultyIndex];
-        String[] scenario = scenarios[(int)(Math.random() * scenarios.length)];
+        ScenarioTable.Entry scenario = table.scenario(difficulty,
+                state.getRandom().nextInt(table.scenarioCount(difficulty)));
         
         // Determine role based on difficulty
         String role = getRoleByDifficulty(player.getDifficulty());
         
-        String narrative = String.format(scenario[0], 
+        String narrative = scenario.narrative().renderScenario(
             player.getName(), player.getAge(), player.getGender(), role);
+        state.setWorld(this.narrative.begin(state.getRandom().nextLong(), difficulty, scenario.options()));
         
-        String[] options = {scenario[1], scenario[2], scenario[3], scenario[4], scenario[5]};
-        
+        // Kept so a later live turn can pick up the story
+        state.getMessagesHistory().add("ASSISTANT:\n" + narrative);
         sessions.put(sessionId, state);
-        return new StartResponse(sessionId, 1, narrative, Arrays.asList(options));
+        mock.finish(sessionId, 1, narrative.length());
+        return new StartResponse(sessionId, 1, narrative, scenario.options());
     }
 
     private String getRoleByDifficulty(int difficulty) {
@@ -247,86 +336,39 @@ public class GameService {
         };
     }
 
-    private TurnResponse generateDynamicMockTurnResponse(String sessionId, GameState state, String choice) {
-        int turn = state.getTurn();
-        PlayerProfile player = state.getPlayer();
-        
-        // Dynamic narratives based on turn progression
-        String[][] turnNarratives = {
-            // Early turns (2-4) - Immediate crisis response
-            {
-                "Turn %d: Your decision to %s has triggered immediate reactions across all stakeholder groups. Social media sentiment is shifting rapidly as news outlets pick up the story. Your legal team reports that regulatory agencies are requesting detailed documentation while your HR department is fielding calls from concerned employees. The CEO has scheduled an emergency board meeting for tomorrow morning.",
-                "Turn %d: The crisis escalates as your choice to %s becomes public knowledge. Competitor companies are distancing themselves while industry analysts debate the long-term implications. Your customer service department reports a 300%% increase in calls, and the IT security team has discovered additional vulnerabilities. Key investors are demanding an immediate strategy meeting.",
-                "Turn %d: Following your decision to %s, the crisis has attracted international attention. Multiple government agencies are launching investigations while consumer advocacy groups organize boycotts. Your supply chain partners are reconsidering contracts, and your stock price has fluctuated by 15%%. Emergency protocols are now in effect across all departments."
-            },
-            // Mid turns (5-7) - Stakeholder management
-            {
-                "Turn %d: Your strategic choice to %s has begun showing measurable results. Key stakeholders are responding differently - some with increased confidence, others with lingering skepticism. Media coverage is evolving from breaking news to analysis pieces. Your communications team has tracked sentiment across 50+ platforms, revealing complex public opinion patterns that require sophisticated management.",
-                "Turn %d: The implementation of your %s strategy has reached a critical juncture. Internal teams are reporting mixed feedback from focus groups while external analysts publish conflicting assessments. Your crisis response has become a case study in real-time, with business schools requesting interviews. The next decision will likely determine the long-term trajectory of recovery.",
-                "Turn %d: Your approach to %s has established new industry precedents. Competitors are adopting similar strategies while regulatory bodies use your response as a benchmark for future guidelines. Employee morale surveys show improvement, but customer trust metrics remain volatile. The crisis has evolved into a complex ecosystem requiring nuanced navigation."
-            },
-            // Late turns (8-10) - Resolution and consequences
-            {
-                "Turn %d: As you implement %s, the crisis enters its final phase. Long-term implications are becoming clear as quarterly reports reflect the full impact. Your leadership during this crisis has been noted by industry publications, and headhunters are making unsolicited contact. The board of directors is preparing their final assessment of the crisis management effectiveness.",
-                "Turn %d: Your decision to %s represents the culminating moment of the crisis response. Stakeholder confidence is stabilizing at new levels while your personal reputation has been fundamentally shaped by this experience. The crisis has transformed from an emergency into a defining chapter of your career and the company's history.",
-                "Turn %d: The final implementation of %s concludes this crisis management scenario. All stakeholders have reached their positions on the company's handling of the situation. Your leadership style has been tested under extreme pressure, and the outcomes will influence industry best practices for years to come. This experience has become a defining moment in your professional development."
-            }
-        };
-        
-        // Dynamic options based on turn phase
-        String[][] turnOptions = {
-            // Early turns - Crisis response
-            {
-                "A) Launch comprehensive stakeholder communication campaign across all channels",
-                "B) Implement immediate operational changes to address root causes",
-                "C) Engage external crisis management consultants for strategic guidance",
-                "D) Focus on damage control while preparing long-term recovery strategy",
-                "E) Coordinate with industry leaders to establish unified response protocols"
-            },
-            // Mid turns - Strategic management
-            {
-                "A) Develop transparent progress reporting system for all stakeholders",
-                "B) Initiate innovative solutions that could transform the industry standard",
-                "C) Build strategic partnerships to strengthen recovery efforts",
-                "D) Implement advanced monitoring systems to prevent future crises",
-                "E) Create comprehensive training programs based on lessons learned"
-            },
-            // Late turns - Resolution and legacy
-            {
-                "A) Establish permanent organizational changes based on crisis learnings",
-                "B) Develop thought leadership content to share insights with industry",
-                "C) Create crisis preparedness framework for other organizations",
-                "D) Focus on reputation rebuilding through strategic community engagement",
-                "E) Document comprehensive case study for future crisis management reference"
-            }
-        };
-        
-        // Select narrative and options based on turn
-        int phase = Math.min(2, (turn - 2) / 3); // 0=early, 1=mid, 2=late
-        int variation = (turn - 2) % 3; // Variation within phase
-        
-        String narrative = String.format(turnNarratives[phase][variation], turn, choice);
-        String[] options = turnOptions[phase];
+    TurnResponse generateDynamicMockTurnResponse(String sessionId, GameState state, String choice) {
+        WorldState world = state.getWorld();
+        if (world == null) {
+            // A live game falling back to mock turns: the story continues from the last Gemini options
+            world = narrative.begin(state.getRandom().nextLong(), state.getPlayer().getDifficulty(),
+                    state.getLiveOptions());
+            state.setWorld(world);
+        }
+        NarrativeEngine.Turn turn = narrative.next(world, state.getTurn(), choice);
         
-        return TurnResponse.ongoing(sessionId, turn, narrative, Arrays.asList(options));
+        TurnResponse response = TurnResponse.ongoing(sessionId, state.getTurn(), turn.narrative, turn.options);
+        response.score = state.getScore().breakdown();
+        return response;
     }
 
     private TurnResponse generateDynamicFinalResults(String sessionId, GameState state, String choice) {
         PlayerProfile player = state.getPlayer();
         int difficulty = player.getDifficulty();
         
-        // Enhanced performance scoring based on choices and consistency
-        int performanceScore = calculatePerformanceScore(state, choice, difficulty);
+        // Enhanced performance scoring based on choices and consistency, kept up to date per turn
+        int performanceScore = state.getScore().level();
         
         // Generate AI-based results using Gemini API
         try {
+            StageEvent prompt = StageEvent.start(StageEvent.PROMPT);
             String resultsPrompt = buildResultsPrompt(state, player, performanceScore, difficulty);
-            String aiResults = openAI.chat("gemini-2.5-pro", 
+            prompt.finish(sessionId, state.getTurn(), resultsPrompt.length());
+
+            StageEvent generate = StageEvent.start(StageEvent.GENERATE);
+            FinalAssessment assessment = openAI.chatAssessment(ModelRouter.Phase.FINAL_ANALYSIS,
                 "You are an expert MBA crisis management instructor providing personalized feedback to students.", 
                 List.of(new OpenAIClient.Message("user", resultsPrompt)));
-            
-            // Parse AI results into structured format
-            ParsedResults parsedResults = parseAIResults(aiResults);
+            generate.finish(sessionId, state.getTurn(), -1);
             
             String finalNarrative = String.format(
                 "FINAL RESULTS: After 10 turns of intense %s-level crisis management, %s has navigated the complex %s scenario. " +
@@ -336,21 +378,25 @@ public class GameService {
             );
             
             // Generate performance-based image description
-            String imageDescription = generateImageDescription(player, performanceScore, difficulty);
+            StageEvent image = StageEvent.start(StageEvent.IMAGE);
+            String imageDescription = generateImageDescription(player, performanceScore, difficulty, state.getRandom());
             String imageUrl = null;
             try {
-                imageUrl = openAI.generateImage(imageDescription);
+                imageUrl = openAI.generateImage(imageDescription, state.getRandom());
             } catch (IOException e) {
                 System.err.println("Failed to generate image: " + e.getMessage());
             }
+            image.finish(sessionId, state.getTurn(), imageDescription.length());
             
             // Calculate accurate performance percentage (not always 100%)
-            int accuratePercentage = calculateAccuratePercentage(performanceScore, state.getChoiceHistory(), difficulty);
+            int accuratePercentage = state.getScore().percentage();
             
-            return TurnResponse.finished(sessionId, state.getTurn(), finalNarrative,
-                parsedResults.outcome, parsedResults.career, parsedResults.strengths,
-                parsedResults.improvements, parsedResults.leadership, parsedResults.crisisTheory, 
+            TurnResponse response = TurnResponse.finished(sessionId, state.getTurn(), finalNarrative,
+                assessment.outcome, assessment.career, assessment.strengths,
+                assessment.improvements, assessment.leadershipStyle, assessment.crisisTheory, 
                 imageUrl, accuratePercentage);
+            response.score = state.getScore().breakdown();
+            return response;
                 
         } catch (Exception e) {
             System.err.println("Failed to generate AI results: " + e.getMessage());
@@ -382,19 +428,9 @@ public class GameService {
         prompt.append("INSTRUCTIONS:\n");
         prompt.append("Based on the player's choices and performance, provide concise MBA-level crisis management analysis. ");
         prompt.append("Keep responses brief and professional. Do NOT reference specific turn numbers or choice letters (A, B, C, etc.). ");
-        prompt.append("Your response must be in this EXACT format:\n\n");
-        
-        prompt.append("OUTCOME: [One concise sentence describing the overall crisis resolution outcome]\n\n");
-        
-        prompt.append("CAREER: [One sentence about career impact - be realistic based on performance]\n\n");
-        
-        prompt.append("STRENGTHS: [One sentence highlighting key strengths demonstrated]\n\n");
+        prompt.append("Fill in every field of the response schema with one concise, professional sentence.\n\n");
         
-        prompt.append("IMPROVEMENTS: [One sentence about main areas for improvement]\n\n");
-        
-        prompt.append("LEADERSHIP: [One sentence describing their leadership approach]\n\n");
-        
-        prompt.append("CRISIS_THEORY: [Identify which specific MBA crisis communication theory they primarily applied from this comprehensive list: " +
+        prompt.append("For crisisTheory, identify which specific MBA crisis communication theory they primarily applied from this comprehensive list: " +
             "Image Restoration Theory (Benoit), Situational Crisis Communication Theory/SCCT (Coombs), Excellence Theory (Grunig & Hunt), " +
             "Stakeholder Theory (Freeman), Contingency Theory (Cameron), Issues Management Theory (Chase & Jones), " +
             "Apologia Theory (Ware & Linkugel), Discourse of Renewal (Seeger), Crisis & Emergency Risk Communication/CERC (Reynolds), " +
@@ -402,142 +438,13 @@ public class GameService {
             "Chaos Theory (Seeger), Media Dependency Theory (Ball-Rokeach), Organizational Learning Theory (Argyris), " +
             "Prospect Theory (Kahneman & Tversky), Social Identity Theory (Tajfel), or Resilience Theory (Holling). " +
             "Choose the MOST appropriate theory based on their decision patterns. Provide ONLY the theory name and a brief 1-2 sentence explanation " +
-            "of why it fits their overall approach. Do NOT reference specific turns or choice letters.]\n\n");
+            "of why it fits their overall approach. Do NOT reference specific turns or choice letters.\n\n");
         
         prompt.append("Keep all responses concise and professional. Focus on overall patterns, not specific choices.");
         
         return prompt.toString();
     }
     
-    private static class ParsedResults {
-        String outcome, career, strengths, improvements, leadership, crisisTheory;
-    }
-    
-    private ParsedResults parseAIResults(String aiResults) {
-        ParsedResults results = new ParsedResults();
-        
-        try {
-            String[] lines = aiResults.split("\n");
-            
-            for (String line : lines) {
-                line = line.trim();
-                if (line.startsWith("OUTCOME:")) {
-                    results.outcome = line.substring(8).trim();
-                } else if (line.startsWith("CAREER:")) {
-                    results.career = line.substring(7).trim();
-                } else if (line.startsWith("STRENGTHS:")) {
-                    results.strengths = line.substring(10).trim();
-                } else if (line.startsWith("IMPROVEMENTS:")) {
-                    results.improvements = line.substring(13).trim();
-                } else if (line.startsWith("LEADERSHIP:")) {
-                    results.leadership = line.substring(11).trim();
-                } else if (line.startsWith("CRISIS_THEORY:")) {
-                    results.crisisTheory = line.substring(14).trim();
-                }
-            }
-            
-            // Ensure all fields have values
-            if (results.outcome == null) results.outcome = "Crisis management completed with mixed results";
-            if (results.career == null) results.career = "Role maintained with additional training needs";
-            if (results.strengths == null) results.strengths = "Demonstrated resilience under pressure";
-            if (results.improvements == null) results.improvements = "Could improve strategic planning and stakeholder communication";
-            if (results.leadership == null) results.leadership = "Developing leadership style with room for growth";
-            if (results.crisisTheory == null) results.crisisTheory = "Mixed crisis communication approach without clear theoretical framework";
-            
-        } catch (Exception e) {
-            System.err.println("Error parsing AI results: " + e.getMessage());
-            // Return default values if parsing fails
-            results.outcome = "Crisis management approach showed both strengths and areas for development";
-            results.career = "Position maintained with focus on professional development";
-            results.strengths = "Showed commitment to learning and problem-solving";
-            results.improvements = "Could benefit from more strategic planning and stakeholder analysis";
-            results.leadership = "Emerging leadership skills with potential for growth";
-            results.crisisTheory = "Applied mixed crisis management approaches - recommend focusing on specific theoretical frameworks";
-        }
-        
-        return results;
-    }
-    
-    private int calculateAccuratePercentage(int performanceScore, List<String> choices, int difficulty) {
-        // Base score from performance (40% of total)
-        int baseScore = (performanceScore - 1) * 20; // 0, 20, 40, 60, 80
-        
-        // Consistency bonus/penalty (20% of total)
-        int consistencyScore = calculateConsistencyScore(choices);
-        
-        // Difficulty adjustment (10% of total)  
-        int difficultyBonus = (difficulty - 1) * 5; // 0, 5, 10 bonus for higher difficulty
-        
-        // Choice quality analysis (30% of total)
-        int choiceQualityScore = analyzeChoiceQuality(choices);
-        
-        int finalScore = baseScore + consistencyScore + difficultyBonus + choiceQualityScore;
-        
-        // Ensure score is within reasonable bounds (30-95% range)
-        return Math.max(30, Math.min(95, finalScore));
-    }
-    
-    private int calculateConsistencyScore(List<String> choices) {
-        if (choices.size() < 3) return 0;
-        
-        // Look for strategic consistency patterns
-        int proactiveChoices = 0;
-        int reactiveChoices = 0;
-        int stakeholderFocused = 0;
-        
-        for (String choice : choices) {
-            String c = choice.toLowerCase();
-            if (c.contains("proactive") || c.contains("prevent") || c.contains("anticipate") || c.contains("prepare")) {
-                proactiveChoices++;
-            }
-            if (c.contains("respond") || c.contains("react") || c.contains("address") || c.contains("immediate")) {
-                reactiveChoices++;
-            }
-            if (c.contains("stakeholder") || c.contains("community") || c.contains("customer") || c.contains("partner")) {
-                stakeholderFocused++;
-            }
-        }
-        
-        // Reward consistency in approach
-        int maxApproach = Math.max(proactiveChoices, Math.max(reactiveChoices, stakeholderFocused));
-        double consistencyRatio = (double) maxApproach / choices.size();
-        
-        if (consistencyRatio >= 0.7) return 15; // Highly consistent
-        if (consistencyRatio >= 0.5) return 10; // Moderately consistent  
-        if (consistencyRatio >= 0.3) return 5;  // Somewhat consistent
-        return 0; // Inconsistent approach
-    }
-    
-    private int analyzeChoiceQuality(List<String> choices) {
-        int qualityScore = 0;
-        
-        for (String choice : choices) {
-            String c = choice.toLowerCase();
-            
-            // Reward strategic thinking keywords
-            if (c.contains("strategic") || c.contains("comprehensive") || c.contains("systematic")) {
-                qualityScore += 2;
-            }
-            
-            // Reward stakeholder consideration
-            if (c.contains("stakeholder") || c.contains("community") || c.contains("transparent")) {
-                qualityScore += 2;
-            }
-            
-            // Reward long-term thinking
-            if (c.contains("long-term") || c.contains("sustainable") || c.contains("future")) {
-                qualityScore += 2;
-            }
-            
-            // Penalize purely defensive choices
-            if (c.contains("deny") || c.contains("blame") || c.contains("minimize") && !c.contains("damage")) {
-                qualityScore -= 1;
-            }
-        }
-        
-        return Math.max(0, Math.min(30, qualityScore)); // Cap at 30 points
-    }
-    
     private TurnResponse generateFallbackResults(String sessionId, GameState state, String choice, int performanceScore, int difficulty) {
         // Simple fallback results if AI generation fails
         String[] outcomes = {
@@ -555,7 +462,7 @@ public class GameService {
         };
         
         int resultIndex = Math.min(performanceScore - 1, 3);
-        int accuratePercentage = calculateAccuratePercentage(performanceScore, state.getChoiceHistory(), difficulty);
+        int accuratePercentage = state.getScore().percentage();
         
         // Enhanced fallback theory analysis with variety
         String[] theories = {
@@ -580,21 +487,20 @@ public class GameService {
             getDifficultyName(difficulty), state.getPlayer().getName(), getScenarioType(state)
         );
         
-        return TurnResponse.finished(sessionId, state.getTurn(), finalNarrative,
+        TurnResponse response = TurnResponse.finished(sessionId, state.getTurn(), finalNarrative,
             outcomes[resultIndex], careers[resultIndex], 
             "Demonstrated crisis management capabilities", 
             "Could enhance strategic planning", 
             "Developing crisis leadership skills",
             appliedTheory, null, accuratePercentage);
+        response.score = state.getScore().breakdown();
+        return response;
     }
     
-    private String generateImageDescription(PlayerProfile player, int performanceIndex, int difficulty) {
+    private String generateImageDescription(PlayerProfile player, int performanceIndex, int difficulty, SplittableRandom random) {
         String gender = player.getGender().toLowerCase();
         String role = getRoleByDifficulty(difficulty);
         
-        // Add randomization to descriptions
-        java.util.Random random = new java.util.Random(System.currentTimeMillis() + player.getName().hashCode());
-        
         // Create pools of varied descriptions for each performance level
         String[] excellentDescriptions = {
             String.format("Confident %s %s in executive boardroom presenting successful crisis resolution to stakeholders, professional business attire, leadership success, excellent performance", gender, role),
@@ -644,146 +550,6 @@ public class GameService {
         return descriptions[random.nextInt(descriptions.length)];
     }
 
-    private int calculatePerformanceScore(GameState state, String lastChoice, int difficulty) {
-        List<String> choiceHistory = state.getChoiceHistory();
-        if (choiceHistory == null) {
-            choiceHistory = new ArrayList<>();
-        }
-        choiceHistory.add(lastChoice);
-        
-        int baseScore = 50; // Start with neutral score
-        
-        // 1. Choice Consistency Analysis (20 points)
-        int consistencyScore = analyzeChoiceConsistency(choiceHistory);
-        
-        // 2. Strategic Thinking Analysis (20 points)
-        int strategicScore = analyzeStrategicThinking(choiceHistory, difficulty);
-        
-        // 3. Crisis Phase Management (20 points)  
-        int phaseScore = analyzeCrisisPhaseManagement(choiceHistory);
-        
-        // 4. Stakeholder Balance (20 points)
-        int stakeholderScore = analyzeStakeholderBalance(choiceHistory);
-        
-        // 5. Difficulty Adjustment (20 points)
-        int difficultyBonus = calculateDifficultyBonus(difficulty, choiceHistory.size());
-        
-        int totalScore = baseScore + consistencyScore + strategicScore + phaseScore + stakeholderScore + difficultyBonus;
-        
-        // Normalize to 1-4 scale for result selection
-        if (totalScore >= 85) return 4; // Excellent
-        if (totalScore >= 70) return 3; // Good  
-        if (totalScore >= 55) return 2; // Adequate
-        return 1; // Needs Improvement
-    }
-    
-    private int analyzeChoiceConsistency(List<String> choices) {
-        if (choices.size() < 3) return 10; // Not enough data, give neutral score
-        
-        Map<String, Integer> choiceCount = new HashMap<>();
-        for (String choice : choices) {
-            choiceCount.put(choice, choiceCount.getOrDefault(choice, 0) + 1);
-        }
-        
-        // Balanced approach (not too repetitive, not too chaotic) scores higher
-        int uniqueChoices = choiceCount.size();
-        if (uniqueChoices >= 3 && uniqueChoices <= 4) return 20; // Good balance
-        if (uniqueChoices == 2 || uniqueChoices == 5) return 15; // Slightly unbalanced
-        return 10; // Too repetitive or too chaotic
-    }
-    
-    private int analyzeStrategicThinking(List<String> choices, int difficulty) {
-        // A, B, C, D, E represent different strategic approaches
-        // A = Immediate/Reactive, B = Collaborative, C = Analytical, D = Innovative, E = Comprehensive
-        
-        int score = 10; // Base strategic score
-        
-        // Look for strategic progression (reactive -> collaborative -> analytical -> innovative)
-        for (int i = 1; i < choices.size(); i++) {
-            String prev = choices.get(i-1);
-            String curr = choices.get(i);
-            
-            // Reward strategic escalation patterns
-            if (isStrategicProgression(prev, curr)) {
-                score += 2;
-            }
-        }
-        
-        // Difficulty-appropriate choices
-        if (difficulty >= 4) { // Expert/Master levels
-            long innovativeChoices = choices.stream().filter(c -> c.equals("D") || c.equals("E")).count();
-            score += (int)(innovativeChoices * 2); // Reward innovation at high levels
-        }
-        
-        return Math.min(20, score);
-    }
-    
-    private boolean isStrategicProgression(String prev, String curr) {
-        // Define strategic progression: A(reactive) -> B(collaborative) -> C(analytical) -> D(innovative) -> E(comprehensive)
-        String[] progression = {"A", "B", "C", "D", "E"};
-        int prevIndex = java.util.Arrays.asList(progression).indexOf(prev);
-        int currIndex = java.util.Arrays.asList(progression).indexOf(curr);
-        
-        return currIndex > prevIndex; // Moving toward more sophisticated approaches
-    }
-    
-    private int analyzeCrisisPhaseManagement(List<String> choices) {
-        int score = 10; // Base score
-        int totalChoices = choices.size();
-        
-        if (totalChoices >= 8) { // Enough choices to analyze phases
-            // Early phase (turns 1-3): Should be more reactive/immediate (A, B)
-            List<String> earlyChoices = choices.subList(0, Math.min(3, totalChoices));
-            long reactiveEarly = earlyChoices.stream().filter(c -> c.equals("A") || c.equals("B")).count();
-            
-            // Mid phase (turns 4-7): Should be more analytical/collaborative (B, C)
-            if (totalChoices > 3) {
-                List<String> midChoices = choices.subList(3, Math.min(7, totalChoices));
-                long analyticalMid = midChoices.stream().filter(c -> c.equals("B") || c.equals("C")).count();
-                score += analyticalMid * 2;
-            }
-            
-            // Late phase (turns 8-10): Should be more strategic/innovative (C, D, E)
-            if (totalChoices > 7) {
-                List<String> lateChoices = choices.subList(7, totalChoices);
-                long strategicLate = lateChoices.stream().filter(c -> c.equals("C") || c.equals("D") || c.equals("E")).count();
-                score += strategicLate * 3;
-            }
-            
-            score += reactiveEarly * 2; // Reward appropriate early responses
-        }
-        
-        return Math.min(20, score);
-    }
-    
-    private int analyzeStakeholderBalance(List<String> choices) {
-        // Each choice type represents focus on different stakeholders
-        // A = Internal/immediate, B = External/collaborative, C = Data/analytical, D = Innovation, E = Comprehensive
-        
-        Map<String, Integer> stakeholderFocus = new HashMap<>();
-        for (String choice : choices) {
-            stakeholderFocus.put(choice, stakeholderFocus.getOrDefault(choice, 0) + 1);
-        }
-        
-        int uniqueApproaches = stakeholderFocus.size();
-        
-        // Reward balanced stakeholder management
-        if (uniqueApproaches >= 4) return 20; // Excellent balance
-        if (uniqueApproaches == 3) return 15; // Good balance
-        if (uniqueApproaches == 2) return 10; // Limited balance
-        return 5; // Poor balance
-    }
-    
-    private int calculateDifficultyBonus(int difficulty, int choicesCount) {
-        // Bonus points for managing higher difficulty levels successfully
-        int baseBonus = (difficulty - 1) * 3; // 0, 3, 6, 9, 12 for difficulties 1-5
-        
-        // Completion bonus
-        int completionBonus = choicesCount >= 10 ? 5 : 0;
-        
-        return Math.min(20, baseBonus + completionBonus);
-    }
-
     private String getDifficultyName(int difficulty) {
         return switch(difficulty) {
             case 1 -> "Entry-level";
@@ -796,68 +562,199 @@ public class GameService {
     }
 
     private String getScenarioType(GameState state) {
-        // This would ideally track which scenario was used, for now return generic
+        // This would ideally track which scenario was used, for now return generic; derived from the
+        // seed, so the results prompt and the final narrative name the same type
         String[] types = {"technology", "manufacturing", "healthcare", "social media", "food safety"};
-        return types[(int)(Math.random() * types.length)];
+        return types[(int) Math.floorMod(state.getSeed(), (long) types.length)];
     }
 
     public TurnResponse turn(String sessionId, String choice) throws IOException {
+        return turn(sessionId, choice, null, null);
+    }
+
+    /**
+     * Plays a turn; with a listener, live narrative (or the final summary) is streamed to it as it is written.
+     * With a deadline, a newer request for the same session cancels this one (the client gave up on it and
+     * retried), and the choice is only recorded once the turn has been generated, so the retry starts clean.
+     */
+    public TurnResponse turn(String sessionId, String choice, Consumer<String> narrativeListener, Deadline deadline) throws IOException {
+        return runTurn(sessionId, choice, null, null, narrativeListener, deadline);
+    }
+
+    /**
+     * As above, for a request a client may send more than once. It is identified by its idempotency key,
+     * or, without one, by the turn it answers ({@code expectedTurn}, the turn of the response the player
+     * chose from). A repeat of the session's latest such request is answered with the response the first
+     * one produced, waiting for it if it is still being generated, so a retry never plays the turn twice
+     * or pays for a second Gemini call. A request for a turn the session has already moved past gets
+     * {@link TurnConflictException}. With neither key nor turn, this is the plain turn above.
+     */
+    public TurnResponse turn(String sessionId, String choice, String requestKey, Integer expectedTurn,
+                             Consumer<String> narrativeListener, Deadline deadline) throws IOException {
+        if (requestKey == null && expectedTurn == null) return turn(sessionId, choice, narrativeListener, deadline);
+        if (!sessions.containsKey(sessionId)) throw new IOException("Invalid sessionId");
+
+        TurnSlot slot = replies.computeIfAbsent(sessionId, id -> new TurnSlot());
+        while (true) {
+            CompletableFuture<TurnResponse> earlier = null;
+            CompletableFuture<TurnResponse> own = new CompletableFuture<>();
+            TurnSlot previous = null;
+            synchronized (slot) {
+                if (slot.matches(requestKey, expectedTurn)) {
+                    earlier = slot.reply;
+                } else {
+                    previous = slot.copy();
+                    slot.claim(requestKey, expectedTurn, own);
+                }
+            }
+
+            if (earlier != null) {
+                (earlier.isDone() ? replayedTurns : awaitedTurns).increment();
+                try {
+                    return awaitReply(earlier, deadline);
+                } catch (IOException e) {
+                    // The first copy failed or was abandoned before its turn was played; this one plays it
+                    if (earlier.isCompletedExceptionally() && (deadline == null || deadline.stopReason() == null)) continue;
+                    throw e;
+                }
+            }
+
+            try {
+                // The turn actually played; a live final turn does not advance the turn number, so it
+                // cannot be derived from the response
+                TurnResponse response = runTurn(sessionId, choice, expectedTurn, played -> {
+                    synchronized (slot) {
+                        if (slot.reply == own) slot.turn = played;
+                    }
+                }, narrativeListener, deadline);
+                own.complete(response);
+                return response;
+            } catch (IOException | RuntimeException e) {
+                // Nothing was played, so nothing to replay; a repeat of the request before this one still can be
+                synchronized (slot) {
+                    if (slot.reply == own) slot.restore(previous);
+                }
+                own.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /** Waits for the reply to an earlier copy of a request, within this copy's own deadline. */
+    private static TurnResponse awaitReply(CompletableFuture<TurnResponse> reply, Deadline deadline) throws IOException {
+        try {
+            return deadline == null ? reply.get() : reply.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw deadline.stopped(Deadline.Reason.EXPIRED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the turn");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Turn failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /** Plays the session's current turn; {@code onPlay}, if given, is told its number before it is played. */
+    private TurnResponse runTurn(String sessionId, String choice, Integer expectedTurn, IntConsumer onPlay,
+                                 Consumer<String> narrativeListener, Deadline deadline) throws IOException {
+        // Covers the wait for a turn already running on this session, too
+        StageEvent lookup = StageEvent.start(StageEvent.SESSION);
         GameState state = sessions.get(sessionId);
         if (state == null) throw new IOException("Invalid sessionId");
+
+        Deadline previous = deadline == null ? null : inFlight.put(sessionId, deadline);
+        if (previous != null) previous.cancel(Deadline.Reason.SUPERSEDED);
+        try {
+            // Requests are served concurrently now; a session still advances one turn at a time
+            synchronized (state) {
+                lookup.finish(sessionId, state.getTurn(), -1);
+                if (deadline != null) deadline.check();
+                if (expectedTurn != null && (expectedTurn != state.getTurn() || state.isFinished())) {
+                    conflictingTurns.increment();
+                    throw new TurnConflictException(expectedTurn, state.getTurn(), state.isFinished());
+                }
+                if (onPlay != null) onPlay.accept(state.getTurn());
+                TurnResponse response = playTurn(sessionId, state, choice, narrativeListener, deadline);
+                // Under the session lock, so a session's events are logged and streamed in turn order
+                events.recordTurn(state.getPlayer(), choice, response);
+                spectators.publish(sessionId, response);
+                return response;
+            }
+        } finally {
+            if (deadline != null) inFlight.remove(sessionId, deadline);
+        }
+    }
+
+    private TurnResponse playTurn(String sessionId, GameState state, String choice, Consumer<String> narrativeListener,
+                                  Deadline deadline) throws IOException {
         if (state.isFinished()) throw new IOException("Game already finished");
 
         boolean finalTurn = state.getTurn() >= 10;
         
-        if (MOCK_MODE) {
-            // Track the choice
-            state.addChoice(choice);
-            
-            // Generate dynamic mock response based on turn and choice
-            state.nextTurn();
-            
-            if (!finalTurn) {
-                return generateDynamicMockTurnResponse(sessionId, state, choice);
-            } else {
-                // Generate dynamic final results based on difficulty and performance
-                return generateDynamicFinalResults(sessionId, state, choice);
-            }
+        GenerationController.Source source = generation.choose();
+        if (source != GenerationController.Source.LIVE) {
+            return playMockTurn(sessionId, state, choice, finalTurn, source);
         }
 
         String continuationUserMsg;
         if (!finalTurn) {
             continuationUserMsg =
                 "Player chooses option " + choice.toUpperCase() + ". Continue to next turn. " +
-                "Write 3-5 sentences and then provide EXACTLY five labeled options A–E.";
+                "Write 3-5 sentences of narrative and EXACTLY five options.";
         } else {
             continuationUserMsg =
                 "Player chooses option " + choice.toUpperCase() + ". This was the 10th turn. " +
                 "Now provide the final analysis per rules (items 1–6). Do NOT include further options.";
         }
 
-        String narrative = openAI.chat(
-                GEMINI_MODEL,
-                systemPromptFor(state.getPlayer()),
-                buildConversationHistory(state, continuationUserMsg)
-        );
-
-        state.getMessagesHistory().add("USER CHOICE: " + choice);
-        state.getMessagesHistory().add("ASSISTANT:\n" + narrative);
+        StageEvent prompt = StageEvent.start(StageEvent.PROMPT);
+        String systemPrompt = systemPromptFor(state.getPlayer());
+        List<OpenAIClient.Message> messages = buildConversationHistory(state, continuationUserMsg);
+        prompt.finish(sessionId, state.getTurn(), promptChars(systemPrompt, messages));
 
+        StageEvent generate = StageEvent.start(StageEvent.GENERATE);
+        long started = System.nanoTime();
         if (!finalTurn) {
+            GeneratedTurn next;
+            try {
+                next = openAI.chatTurn(ModelRouter.Phase.MID_GAME, systemPrompt, messages, narrativeListener, deadline);
+                generation.recordSuccess(elapsedMillis(started));
+            } catch (IOException e) {
+                if (!fallBackAfter(e, started)) throw e;
+                return playMockTurn(sessionId, state, choice, false, GenerationController.Source.FALLBACK);
+            } finally {
+                generate.finish(sessionId, state.getTurn(), -1);
+            }
+            // Track the choice; this also updates the running score
+            addChoice(sessionId, state, choice);
+            state.getMessagesHistory().add("USER CHOICE: " + choice);
+            state.getMessagesHistory().add("ASSISTANT:\n" + next.narrative);
+            state.setLiveOptions(next.options);
+
             state.nextTurn();
-            List<String> options = OptionParser.extractOptions(narrative);
-            return TurnResponse.ongoing(state.getSessionId(), state.getTurn(), narrative, options);
+            TurnResponse response = TurnResponse.ongoing(state.getSessionId(), state.getTurn(), next.narrative, next.options);
+            response.score = state.getScore().breakdown();
+            return response;
         } else {
+            FinalAssessment assessment;
+            try {
+                assessment = openAI.chatAssessment(ModelRouter.Phase.FINAL_ANALYSIS, systemPrompt, messages, narrativeListener, deadline);
+                generation.recordSuccess(elapsedMillis(started));
+            } catch (IOException e) {
+                if (!fallBackAfter(e, started)) throw e;
+                return playMockTurn(sessionId, state, choice, true, GenerationController.Source.FALLBACK);
+            } finally {
+                generate.finish(sessionId, state.getTurn(), -1);
+            }
+            addChoice(sessionId, state, choice);
+            state.getMessagesHistory().add("USER CHOICE: " + choice);
+            state.getMessagesHistory().add("ASSISTANT:\n" + assessment.summary);
             state.setFinished(true);
 
-            String outcome = extractBullet(narrative, 1);
-            String career  = extractBullet(narrative, 2);
-            String good    = extractBullet(narrative, 3);
-            String better  = extractBullet(narrative, 4);
-            String style   = extractBullet(narrative, 5);
-            String theory  = extractBullet(narrative, 6);
-
+            StageEvent image = StageEvent.start(StageEvent.IMAGE);
             PlayerProfile p = state.getPlayer();
+            long outcomeHits = OUTCOME_KEYWORDS.scan(assessment.outcome);
             String imgPrompt = String.format(
                 "Professional corporate executive portrait of %s (%s, age %d) in a modern office setting after managing a crisis. " +
                 "Subject shows %s expression reflecting their %s performance. " +
@@ -868,83 +765,136 @@ public class GameService {
                 p.getName(),
                 p.getGender().toLowerCase(),
                 p.getAge(),
-                determineFacialExpression(outcome),
-                determinePerformanceLevel(outcome),
-                determineMoodFromOutcome(outcome)
+                determineFacialExpression(assessment.outcome, outcomeHits),
+                determinePerformanceLevel(assessment.outcome, outcomeHits),
+                determineMoodFromOutcome(assessment.outcome, outcomeHits)
             );
 
-            String imageUrl = openAI.generateImage(imgPrompt);
+            String imageUrl = openAI.generateImage(imgPrompt, state.getRandom());
+            image.finish(sessionId, state.getTurn(), imgPrompt.length());
 
-            return TurnResponse.finished(
+            TurnResponse response = TurnResponse.finished(
                     state.getSessionId(),
                     state.getTurn(),
-                    narrative, // full final write-up
-                    emptyTo(narrative, outcome),
-                    emptyTo("See narrative.", career),
-                    emptyTo("See narrative.", good),
-                    emptyTo("See narrative.", better),
-                    emptyTo("See narrative.", style),
-                    emptyTo("See narrative.", theory),
+                    assessment.summary,
+                    assessment.outcome,
+                    assessment.career,
+                    assessment.strengths,
+                    assessment.improvements,
+                    assessment.leadershipStyle,
+                    assessment.crisisTheory,
                     imageUrl,
-                    75 // Default score for real AI responses
+                    state.getScore().percentage()
             );
+            response.score = state.getScore().breakdown();
+            return rank(state, response);
         }
     }
 
-    private static String extractBullet(String text, int n){
-        
-        var p = java.util.regex.Pattern.compile("(?m)^[\\s]*" + n + "[\\)\\.:\\-]\\s*(.+)$");
-        var m = p.matcher(text);
-        return m.find() ? m.group(1).trim() : "";
+    private TurnResponse playMockTurn(String sessionId, GameState state, String choice, boolean finalTurn,
+                                      GenerationController.Source source) {
+        // Track the choice; this also updates the running score
+        addChoice(sessionId, state, choice);
+
+        // Generate dynamic mock response based on turn and choice
+        state.nextTurn();
+
+        if (!finalTurn) {
+            StageEvent mock = StageEvent.start(StageEvent.MOCK_TURN);
+            TurnResponse response = generateDynamicMockTurnResponse(sessionId, state, choice);
+            state.getMessagesHistory().add("USER CHOICE: " + choice);
+            state.getMessagesHistory().add("ASSISTANT:\n" + response.narrative);
+            mock.finish(sessionId, state.getTurn(), response.narrative.length());
+            return response;
+        }
+        // Generate dynamic final results based on difficulty and performance; during a brownout
+        // skip the Gemini assessment the mock final turn normally asks for
+        state.setFinished(true);
+        TurnResponse results = source == GenerationController.Source.FALLBACK
+                ? generateFallbackResults(sessionId, state, choice, state.getScore().level(), state.getPlayer().getDifficulty())
+                : generateDynamicFinalResults(sessionId, state, choice);
+        return rank(state, results);
+    }
+
+    /** Records the choice, which also updates the running score. */
+    private static void addChoice(String sessionId, GameState state, String choice) {
+        StageEvent score = StageEvent.start(StageEvent.SCORE);
+        state.addChoice(choice);
+        score.finish(sessionId, state.getTurn(), -1);
+    }
+
+    private static long promptChars(String systemPrompt, List<OpenAIClient.Message> messages) {
+        long chars = systemPrompt.length();
+        for (OpenAIClient.Message message : messages) chars += message.content.length();
+        return chars;
+    }
+
+    /** Reports a failed live call; true if the turn should be served from the mock tables instead. */
+    private boolean fallBackAfter(IOException e, long startNanos) {
+        // Nobody is waiting for an abandoned request, and it says nothing about the provider
+        if (e instanceof Deadline.CancelledException) return false;
+        generation.recordFailure(elapsedMillis(startNanos), e instanceof OpenAIClient.ApiException api && api.isQuota());
+        if (generation.mode() != GenerationController.Mode.AUTO) return false;
+        System.out.println("Live generation failed (" + e.getMessage() + "), serving a mock turn");
+        generation.recordFallback();
+        return true;
     }
 
-    private static String determineFacialExpression(String outcome) {
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /** Adds a finished game to the leaderboard and analytics and reports where it landed. */
+    private TurnResponse rank(GameState state, TurnResponse response) {
+        analytics.record(state, response.performanceScore);
+        PlayerProfile p = state.getPlayer();
+        Leaderboard.Placement placement = leaderboard.record(
+                p.getClassCode(), p.getName(), p.getDifficulty(), response.performanceScore);
+        response.percentileRank = placement.percentile;
+        response.classPercentileRank = placement.classPercentile;
+        return response;
+    }
+
+    private static String determineFacialExpression(String outcome, long hits) {
         if (outcome == null) return "focused and determined";
-        String lower = outcome.toLowerCase();
-        if (lower.contains("success") || lower.contains("excellent") || lower.contains("outstanding")) {
+        if (KeywordClassifier.hasAny(hits, OutcomeSignal.SUCCESS, OutcomeSignal.OUTSTANDING)) {
             return "confident and satisfied";
-        } else if (lower.contains("good") || lower.contains("effective") || lower.contains("positive")) {
+        } else if (KeywordClassifier.hasAny(hits, OutcomeSignal.GOOD, OutcomeSignal.POSITIVE)) {
             return "professional and composed";
-        } else if (lower.contains("poor") || lower.contains("failed") || lower.contains("crisis")) {
+        } else if (KeywordClassifier.hasAny(hits, OutcomeSignal.POOR, OutcomeSignal.CRISIS)) {
             return "concerned but determined";
         } else {
             return "thoughtful and analytical";
         }
     }
     
-    private static String determinePerformanceLevel(String outcome) {
+    private static String determinePerformanceLevel(String outcome, long hits) {
         if (outcome == null) return "professional";
-        String lower = outcome.toLowerCase();
-        if (lower.contains("success") || lower.contains("excellent")) {
+        if (KeywordClassifier.has(hits, OutcomeSignal.SUCCESS)) {
             return "exceptional";
-        } else if (lower.contains("good") || lower.contains("effective")) {
+        } else if (KeywordClassifier.has(hits, OutcomeSignal.GOOD)) {
             return "strong";
-        } else if (lower.contains("average") || lower.contains("adequate")) {
+        } else if (KeywordClassifier.has(hits, OutcomeSignal.AVERAGE)) {
             return "competent";
         } else {
             return "challenging but learning";
         }
     }
     
-    private static String determineMoodFromOutcome(String outcome) {
+    private static String determineMoodFromOutcome(String outcome, long hits) {
         if (outcome == null) return "Professional and focused";
-        String lower = outcome.toLowerCase();
-        if (lower.contains("success") || lower.contains("excellent")) {
+        if (KeywordClassifier.has(hits, OutcomeSignal.SUCCESS)) {
             return "Triumphant and confident";
-        } else if (lower.contains("good") || lower.contains("effective")) {
+        } else if (KeywordClassifier.has(hits, OutcomeSignal.GOOD)) {
             return "Satisfied and professional";
-        } else if (lower.contains("poor") || lower.contains("failed")) {
+        } else if (KeywordClassifier.has(hits, OutcomeSignal.POOR)) {
             return "Resilient and determined";
         } else {
             return "Contemplative and strategic";
         }
     }
 
-    private static String emptyTo(String fallback, String val){
-        return (val == null || val.isBlank()) ? fallback : val;
-    }
-
-    private List<OpenAIClient.Message> buildConversationHistory(GameState state, String currentUserMsg) {
+    List<OpenAIClient.Message> buildConversationHistory(GameState state, String currentUserMsg) {
         List<OpenAIClient.Message> messages = new ArrayList<>();
         
         // Add initial context with player profile (condensed)
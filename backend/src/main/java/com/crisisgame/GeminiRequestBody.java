@@ -0,0 +1,142 @@
+package com.crisisgame;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+
+/**
+ * Gemini generateContent request written straight into the OkHttp sink.
+ *
+ * Building a Gson tree and calling toString() copied every prompt several times per call. Here the
+ * JSON is emitted field by field, message text is escaped directly into the sink, and the escaped
+ * UTF-8 bytes of system prompts (which are the same for every call) are encoded once and reused.
+ * Structured calls add JSON output mode and their pre-encoded {@link ResponseSchema}.
+ */
+class GeminiRequestBody extends RequestBody {
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final int MAX_CACHED_PROMPTS = 32;
+    private static final Map<String, ByteString> ENCODED_PROMPTS = new ConcurrentHashMap<>();
+
+    private static final ByteString SYSTEM_OPEN = ByteString.encodeUtf8("{\"systemInstruction\":{\"parts\":[{\"text\":");
+    private static final ByteString SYSTEM_CLOSE = ByteString.encodeUtf8("}]},");
+    private static final ByteString CONTENTS_OPEN = ByteString.encodeUtf8("\"contents\":[");
+    private static final ByteString PART_OPEN = ByteString.encodeUtf8("{\"parts\":[{\"text\":");
+    private static final ByteString ROLE_USER = ByteString.encodeUtf8("}],\"role\":\"user\"}");
+    private static final ByteString ROLE_MODEL = ByteString.encodeUtf8("}],\"role\":\"model\"}");
+    private static final ByteString CONTENTS_CLOSE = ByteString.encodeUtf8("]");
+    private static final ByteString GENERATION_CONFIG = ByteString.encodeUtf8(",\"generationConfig\":{");
+    private static final ByteString MAX_OUTPUT_TOKENS = ByteString.encodeUtf8("\"maxOutputTokens\":");
+    private static final ByteString THINKING_BUDGET = ByteString.encodeUtf8("\"thinkingConfig\":{\"thinkingBudget\":");
+    private static final ByteString RESPONSE_SCHEMA = ByteString.encodeUtf8("\"responseMimeType\":\"application/json\",\"responseSchema\":");
+
+    private final ByteString systemPrompt;
+    private final List<OpenAIClient.Message> messages;
+    private final GenerationSettings settings;
+    private final ResponseSchema schema;
+
+    /** @param schema the shape the reply must have, or null for free text */
+    GeminiRequestBody(String systemPrompt, List<OpenAIClient.Message> messages, GenerationSettings settings,
+                      ResponseSchema schema) {
+        this.systemPrompt = systemPrompt == null || systemPrompt.isEmpty() ? null : encodedPrompt(systemPrompt);
+        this.messages = messages;
+        this.settings = settings;
+        this.schema = schema;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        if (systemPrompt != null) {
+            sink.write(SYSTEM_OPEN).write(systemPrompt).write(SYSTEM_CLOSE);
+        } else {
+            sink.writeByte('{');
+        }
+
+        sink.write(CONTENTS_OPEN);
+        for (int i = 0; i < messages.size(); i++) {
+            OpenAIClient.Message m = messages.get(i);
+            if (i > 0) sink.writeByte(',');
+            sink.write(PART_OPEN);
+            writeJsonString(sink, m.content);
+            // Gemini uses "user" and "model" roles
+            sink.write("assistant".equals(m.role) ? ROLE_MODEL : ROLE_USER);
+        }
+        sink.write(CONTENTS_CLOSE);
+
+        if (schema != null || settings != null && settings.hasGenerationConfig()) {
+            sink.write(GENERATION_CONFIG);
+            boolean first = true;
+            if (settings != null && settings.maxOutputTokens > 0) {
+                sink.write(MAX_OUTPUT_TOKENS).writeDecimalLong(settings.maxOutputTokens);
+                first = false;
+            }
+            if (settings != null && settings.thinkingBudget >= 0) {
+                if (!first) sink.writeByte(',');
+                sink.write(THINKING_BUDGET).writeDecimalLong(settings.thinkingBudget).writeByte('}');
+                first = false;
+            }
+            if (schema != null) {
+                if (!first) sink.writeByte(',');
+                sink.write(RESPONSE_SCHEMA).write(schema.encoded());
+            }
+            sink.writeByte('}');
+        }
+        sink.writeByte('}');
+    }
+
+    /** Escaped, quoted UTF-8 form of a system prompt, encoded on first use. */
+    static ByteString encodedPrompt(String prompt) {
+        ByteString cached = ENCODED_PROMPTS.get(prompt);
+        if (cached != null) return cached;
+
+        Buffer buffer = new Buffer();
+        try {
+            writeJsonString(buffer, prompt);
+        } catch (IOException e) {
+            throw new IllegalStateException("In-memory buffer write failed", e);
+        }
+        ByteString encoded = buffer.readByteString();
+        if (ENCODED_PROMPTS.size() >= MAX_CACHED_PROMPTS) ENCODED_PROMPTS.clear();
+        ENCODED_PROMPTS.put(prompt, encoded);
+        return encoded;
+    }
+
+    static void writeJsonString(BufferedSink sink, String value) throws IOException {
+        sink.writeByte('"');
+        if (value != null) {
+            int runStart = 0;
+            for (int i = 0; i < value.length(); i++) {
+                String escape = escapeFor(value.charAt(i));
+                if (escape == null) continue;
+                if (runStart < i) sink.writeUtf8(value, runStart, i);
+                sink.writeUtf8(escape);
+                runStart = i + 1;
+            }
+            if (runStart < value.length()) sink.writeUtf8(value, runStart, value.length());
+        }
+        sink.writeByte('"');
+    }
+
+    private static String escapeFor(char c) {
+        if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') return null;
+        return switch (c) {
+            case '"' -> "\\\"";
+            case '\\' -> "\\\\";
+            case '\n' -> "\\n";
+            case '\r' -> "\\r";
+            case '\t' -> "\\t";
+            default -> String.format("\\u%04x", (int) c);
+        };
+    }
+}
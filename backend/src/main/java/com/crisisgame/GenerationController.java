@@ -0,0 +1,220 @@
+package com.crisisgame;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.crisisgame.util.Env;
+
+/**
+ * Decides for each turn whether it is generated live by Gemini or from the mock scenario tables.
+ *
+ * In AUTO mode, live calls feed a smoothed latency and error rate. A breach of either, or a single
+ * quota rejection (HTTP 429), trips the controller: turns are served from the mock tables for a
+ * cool-down, then live generation is let back in for a growing share of turns (10%, 20%, 40%, 80%,
+ * all), doubling every ramp step that passes without a new breach. A live call that fails in AUTO
+ * mode is answered from the mock tables instead of with an error. ModelRouter's per-route model
+ * downgrade still applies first; this is the next step down when the provider itself is struggling.
+ *
+ * LIVE and MOCK pin every turn to one source, and can be set at runtime via /api/admin/generation.
+ * The starting mode is CRISIS_GENERATION_MODE (live, mock or auto); without it, CRISIS_MOCK_MODE=false
+ * means AUTO and anything else MOCK. Thresholds: GENERATION_SLO_MS, GENERATION_MAX_ERROR_RATE,
+ * GENERATION_COOLDOWN_MS, GENERATION_RAMP_STEP_MS.
+ */
+public class GenerationController {
+    public enum Mode { LIVE, MOCK, AUTO }
+
+    /** Where one turn comes from; FALLBACK is a mock turn served because live generation is degraded. */
+    public enum Source { LIVE, MOCK, FALLBACK }
+
+    private enum Health { HEALTHY, TRIPPED, RECOVERING }
+
+    private static final double EWMA_ALPHA = 0.2;
+    private static final int MIN_SAMPLES_FOR_TRIP = 3;
+    private static final double FIRST_RAMP_SHARE = 0.1;
+
+    private final long sloMillis;
+    private final double maxErrorRate;
+    private final long cooldownMillis;
+    private final long rampStepMillis;
+
+    private volatile Mode mode;
+    private volatile boolean degraded;
+    private volatile double liveShare = 1.0;
+
+    // Guarded by this
+    private Health health = Health.HEALTHY;
+    private long nextTransitionAt;
+    private double ewmaLatencyMs;
+    private double ewmaErrorRate;
+    private long samples;
+    private String lastTripReason;
+
+    private final LongAdder liveTurns = new LongAdder();
+    private final LongAdder mockTurns = new LongAdder();
+    private final LongAdder fallbackTurns = new LongAdder();
+    private final LongAdder liveFailures = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+
+    public GenerationController(Mode mode, long sloMillis, double maxErrorRate, long cooldownMillis, long rampStepMillis) {
+        this.mode = mode;
+        this.sloMillis = sloMillis;
+        this.maxErrorRate = maxErrorRate;
+        this.cooldownMillis = cooldownMillis;
+        this.rampStepMillis = rampStepMillis;
+    }
+
+    public static GenerationController fromEnvironment() {
+        // Mock stays the default to avoid API overload; CRISIS_MOCK_MODE=false opts into Gemini
+        Mode mode = "false".equalsIgnoreCase(System.getenv("CRISIS_MOCK_MODE")) ? Mode.AUTO : Mode.MOCK;
+        String configured = Env.stringValue("CRISIS_GENERATION_MODE", null);
+        if (configured != null) {
+            try {
+                mode = Mode.valueOf(configured.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.out.println("Ignoring invalid CRISIS_GENERATION_MODE=" + configured + ", using " + mode.name().toLowerCase());
+            }
+        }
+        return new GenerationController(mode,
+                Env.longValue("GENERATION_SLO_MS", 8_000),
+                Env.doubleValue("GENERATION_MAX_ERROR_RATE", 0.25),
+                Env.longValue("GENERATION_COOLDOWN_MS", 30_000),
+                Env.longValue("GENERATION_RAMP_STEP_MS", 10_000));
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        System.out.println("Generation mode set to " + mode + " (was " + this.mode + ")");
+        this.mode = mode;
+    }
+
+    /** Whether Gemini may be called at all, e.g. for connection prewarming. */
+    public boolean mayCallLive() {
+        return mode != Mode.MOCK;
+    }
+
+    /** Source for the next turn. */
+    public Source choose() {
+        Source source = switch (mode) {
+            case LIVE -> Source.LIVE;
+            case MOCK -> Source.MOCK;
+            case AUTO -> chooseAdaptively();
+        };
+        count(source);
+        return source;
+    }
+
+    /** A live turn was answered from the mock tables after its Gemini call failed. */
+    public void recordFallback() {
+        liveTurns.decrement();
+        fallbackTurns.increment();
+    }
+
+    public void recordSuccess(long latencyMs) {
+        record(latencyMs, false, false);
+    }
+
+    /** @param quota the provider rejected the call for quota or rate limits */
+    public void recordFailure(long latencyMs, boolean quota) {
+        liveFailures.increment();
+        record(latencyMs, true, quota);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("mode", mode.name());
+        synchronized (this) {
+            advance(System.currentTimeMillis());
+            m.put("health", health.name());
+            m.put("liveShare", liveShare);
+            m.put("ewmaLatencyMs", ewmaLatencyMs);
+            m.put("ewmaErrorRate", ewmaErrorRate);
+            m.put("lastTripReason", lastTripReason);
+        }
+        m.put("sloMs", sloMillis);
+        m.put("maxErrorRate", maxErrorRate);
+        m.put("trips", trips.sum());
+        m.put("liveTurns", liveTurns.sum());
+        m.put("mockTurns", mockTurns.sum());
+        m.put("fallbackTurns", fallbackTurns.sum());
+        m.put("liveFailures", liveFailures.sum());
+        return m;
+    }
+
+    private Source chooseAdaptively() {
+        if (!degraded) return Source.LIVE;
+        double share;
+        synchronized (this) {
+            advance(System.currentTimeMillis());
+            share = liveShare;
+        }
+        return share > 0 && ThreadLocalRandom.current().nextDouble() < share ? Source.LIVE : Source.FALLBACK;
+    }
+
+    private void count(Source source) {
+        switch (source) {
+            case LIVE -> liveTurns.increment();
+            case MOCK -> mockTurns.increment();
+            case FALLBACK -> fallbackTurns.increment();
+        }
+    }
+
+    private synchronized void record(long latencyMs, boolean failed, boolean quota) {
+        double error = failed ? 1 : 0;
+        if (samples == 0) {
+            ewmaLatencyMs = latencyMs;
+            ewmaErrorRate = error;
+        } else {
+            ewmaLatencyMs = EWMA_ALPHA * latencyMs + (1 - EWMA_ALPHA) * ewmaLatencyMs;
+            ewmaErrorRate = EWMA_ALPHA * error + (1 - EWMA_ALPHA) * ewmaErrorRate;
+        }
+        samples++;
+
+        if (quota) {
+            trip("provider quota exhausted");
+        } else if (samples >= MIN_SAMPLES_FOR_TRIP && ewmaErrorRate > maxErrorRate) {
+            trip(String.format("error rate %.0f%% over %.0f%%", ewmaErrorRate * 100, maxErrorRate * 100));
+        } else if (samples >= MIN_SAMPLES_FOR_TRIP && ewmaLatencyMs > sloMillis) {
+            trip(String.format("latency %.0fms over the %dms SLO", ewmaLatencyMs, sloMillis));
+        }
+    }
+
+    /** Caller holds the lock. */
+    private void trip(String reason) {
+        long now = System.currentTimeMillis();
+        health = Health.TRIPPED;
+        degraded = true;
+        liveShare = 0;
+        nextTransitionAt = now + cooldownMillis;
+        // Start fresh when live generation is probed again
+        samples = 0;
+        ewmaLatencyMs = 0;
+        ewmaErrorRate = 0;
+        lastTripReason = reason;
+        trips.increment();
+        System.out.println("Live generation tripped (" + reason + "), serving mock turns for " + cooldownMillis / 1000 + "s");
+    }
+
+    /** Moves through the cool-down and ramp steps that are due; caller holds the lock. */
+    private void advance(long now) {
+        while (health != Health.HEALTHY && now >= nextTransitionAt) {
+            if (health == Health.TRIPPED) {
+                health = Health.RECOVERING;
+                liveShare = FIRST_RAMP_SHARE;
+            } else if (liveShare * 2 >= 1) {
+                health = Health.HEALTHY;
+                liveShare = 1.0;
+                degraded = false;
+                System.out.println("Live generation fully restored");
+                return;
+            } else {
+                liveShare *= 2;
+            }
+            nextTransitionAt += rampStepMillis;
+        }
+    }
+}
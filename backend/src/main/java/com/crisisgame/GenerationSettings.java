@@ -0,0 +1,43 @@
+package com.crisisgame;
+
+/**
+ * Model and generationConfig values for a single Gemini call.
+ * A negative thinking budget or output token limit leaves the model default in place. On Gemini 2.5
+ * the output limit counts thinking tokens too, so {@link #forAnswer} sizes it as the thinking budget
+ * plus the tokens the reply itself needs.
+ */
+public class GenerationSettings {
+    public final String model;
+    public final int thinkingBudget;
+    public final int maxOutputTokens;
+
+    public GenerationSettings(String model, int thinkingBudget, int maxOutputTokens) {
+        this.model = model;
+        this.thinkingBudget = thinkingBudget;
+        this.maxOutputTokens = maxOutputTokens;
+    }
+
+    /** Settings whose output limit leaves answerTokens for the reply after the thinking budget. */
+    public static GenerationSettings forAnswer(String model, int thinkingBudget, int answerTokens) {
+        return new GenerationSettings(model, thinkingBudget,
+                answerTokens > 0 ? answerTokens + Math.max(0, thinkingBudget) : answerTokens);
+    }
+
+    public static GenerationSettings modelDefaults(String model) {
+        return new GenerationSettings(model, -1, -1);
+    }
+
+    /** Output tokens left for the reply once the thinking budget is spent; negative if unlimited. */
+    public int answerTokens() {
+        return maxOutputTokens > 0 ? maxOutputTokens - Math.max(0, thinkingBudget) : maxOutputTokens;
+    }
+
+    boolean hasGenerationConfig() {
+        return thinkingBudget >= 0 || maxOutputTokens > 0;
+    }
+
+    @Override
+    public String toString() {
+        return model + " (thinkingBudget=" + thinkingBudget + ", maxOutputTokens=" + maxOutputTokens + ")";
+    }
+}
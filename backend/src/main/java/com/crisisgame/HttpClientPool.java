@@ -0,0 +1,253 @@
+package com.crisisgame;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.crisisgame.util.Env;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Process-wide OkHttp client shared by every Gemini call.
+ *
+ * The default OkHttp dispatcher only runs 5 calls per host, which silently caps concurrent model calls
+ * no matter how many players are waiting. Sizing is configurable through environment variables:
+ * <ul>
+ *   <li>GEMINI_HTTP_MAX_REQUESTS / GEMINI_HTTP_MAX_REQUESTS_PER_HOST - dispatcher limits (128 / 64)</li>
+ *   <li>GEMINI_HTTP_MAX_IDLE_CONNECTIONS / GEMINI_HTTP_KEEP_ALIVE_SECONDS - connection pool (16 / 300)</li>
+ *   <li>GEMINI_HTTP_PROTOCOL - "h2" to prefer HTTP/2 multiplexing (default) or "http1" to force HTTP/1.1</li>
+ *   <li>GEMINI_HTTP_PREWARM_CONNECTIONS / GEMINI_HTTP_PREWARM_IDLE_SECONDS - connections opened at startup
+ *       and again whenever the client has been idle that long (2 / 120)</li>
+ * </ul>
+ */
+public class HttpClientPool {
+    private static final HttpClientPool SHARED = new HttpClientPool();
+
+    private final OkHttpClient client;
+    private final Dispatcher dispatcher;
+    private final ConnectionPool connectionPool;
+    private final int prewarmConnections;
+    private final long prewarmIdleMillis;
+    private final Map<String, Boolean> prewarmTargets = new ConcurrentHashMap<>();
+    private final AtomicLong lastCallMillis = new AtomicLong(System.currentTimeMillis());
+    private volatile ScheduledExecutorService prewarmScheduler;
+
+    // Metrics
+    private final LongAdder callsStarted = new LongAdder();
+    private final LongAdder callsFailed = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectionsFailed = new LongAdder();
+    private final LongAdder connectNanos = new LongAdder();
+    private final AtomicLong maxConnectNanos = new AtomicLong();
+    private final LongAdder tlsHandshakeNanos = new LongAdder();
+    private final LongAdder connectionsReused = new LongAdder();
+    private final LongAdder prewarmRuns = new LongAdder();
+
+    private HttpClientPool() {
+        this.dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Env.intValue("GEMINI_HTTP_MAX_REQUESTS", 128));
+        dispatcher.setMaxRequestsPerHost(Env.intValue("GEMINI_HTTP_MAX_REQUESTS_PER_HOST", 64));
+
+        this.connectionPool = new ConnectionPool(
+                Env.intValue("GEMINI_HTTP_MAX_IDLE_CONNECTIONS", 16),
+                Env.intValue("GEMINI_HTTP_KEEP_ALIVE_SECONDS", 300), TimeUnit.SECONDS);
+
+        List<Protocol> protocols = "http1".equalsIgnoreCase(System.getenv("GEMINI_HTTP_PROTOCOL"))
+                ? List.of(Protocol.HTTP_1_1)
+                : List.of(Protocol.HTTP_2, Protocol.HTTP_1_1);
+
+        this.prewarmConnections = Env.intValue("GEMINI_HTTP_PREWARM_CONNECTIONS", 2);
+        this.prewarmIdleMillis = Env.intValue("GEMINI_HTTP_PREWARM_IDLE_SECONDS", 120) * 1000L;
+
+        this.client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .protocols(protocols)
+                .eventListenerFactory(call -> new MetricsListener())
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(60, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public static HttpClientPool shared() {
+        return SHARED;
+    }
+
+    public OkHttpClient client() {
+        return client;
+    }
+
+    /** Records that a call is about to be handed to the dispatcher, for idle tracking. */
+    void markCall() {
+        lastCallMillis.set(System.currentTimeMillis());
+    }
+
+    /**
+     * Opens connections to the given URL so the first player does not pay for DNS, TCP and TLS setup.
+     * The URL is remembered and warmed again whenever the client has been idle for the configured period.
+     */
+    public void prewarm(String url) {
+        if (prewarmConnections <= 0) return;
+        prewarmTargets.put(url, Boolean.TRUE);
+        warm(url);
+        startIdleRewarm();
+    }
+
+    private void warm(String url) {
+        prewarmRuns.increment();
+        for (int i = 0; i < prewarmConnections; i++) {
+            Request req = new Request.Builder().url(url).head().build();
+            client.newCall(req).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    System.out.println("Connection pre-warm failed for " + call.request().url().host() + ": " + e.getMessage());
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    response.close();
+                }
+            });
+        }
+    }
+
+    private synchronized void startIdleRewarm() {
+        if (prewarmScheduler != null || prewarmIdleMillis <= 0) return;
+        prewarmScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "http-prewarm");
+            t.setDaemon(true);
+            return t;
+        });
+        prewarmScheduler.scheduleWithFixedDelay(() -> {
+            boolean idle = System.currentTimeMillis() - lastCallMillis.get() >= prewarmIdleMillis;
+            if (idle && connectionPool.idleConnectionCount() < prewarmConnections) {
+                lastCallMillis.set(System.currentTimeMillis());
+                prewarmTargets.keySet().forEach(this::warm);
+            }
+        }, prewarmIdleMillis, prewarmIdleMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("maxRequests", dispatcher.getMaxRequests());
+        m.put("maxRequestsPerHost", dispatcher.getMaxRequestsPerHost());
+        m.put("runningCalls", dispatcher.runningCallsCount());
+        m.put("queuedCalls", dispatcher.queuedCallsCount());
+        m.put("callsStarted", callsStarted.sum());
+        m.put("callsFailed", callsFailed.sum());
+        m.put("avgQueueWaitMs", averageMillis(queueWaitNanos.sum(), callsStarted.sum()));
+        m.put("maxQueueWaitMs", maxQueueWaitNanos.get() / 1_000_000.0);
+        m.put("poolConnections", connectionPool.connectionCount());
+        m.put("poolIdleConnections", connectionPool.idleConnectionCount());
+        m.put("connectionsOpened", connectionsOpened.sum());
+        m.put("connectionsFailed", connectionsFailed.sum());
+        m.put("connectionsReused", connectionsReused.sum());
+        m.put("avgConnectMs", averageMillis(connectNanos.sum(), connectionsOpened.sum()));
+        m.put("maxConnectMs", maxConnectNanos.get() / 1_000_000.0);
+        m.put("avgTlsHandshakeMs", averageMillis(tlsHandshakeNanos.sum(), connectionsOpened.sum()));
+        m.put("prewarmRuns", prewarmRuns.sum());
+        return m;
+    }
+
+    private static double averageMillis(long totalNanos, long count) {
+        return count == 0 ? 0 : totalNanos / (double) count / 1_000_000.0;
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry until the larger value sticks
+        }
+    }
+
+    /** One listener per call; times the dispatcher queue wait and any new connection setup. */
+    private class MetricsListener extends EventListener {
+        private final long createdNanos = System.nanoTime();
+        private long connectStartNanos;
+        private long secureStartNanos;
+        private boolean newConnection;
+
+        private boolean dispatched;
+
+        @Override
+        public void callStart(Call call) {
+            callsStarted.increment();
+        }
+
+        // callStart fires on enqueue, so the first routing event marks when the dispatcher let the call run
+        private void markDispatched() {
+            if (dispatched) return;
+            dispatched = true;
+            long waited = System.nanoTime() - createdNanos;
+            queueWaitNanos.add(waited);
+            updateMax(maxQueueWaitNanos, waited);
+        }
+
+        @Override
+        public void proxySelectStart(Call call, okhttp3.HttpUrl url) {
+            markDispatched();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStartNanos = System.nanoTime();
+            newConnection = true;
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            secureStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            tlsHandshakeNanos.add(System.nanoTime() - secureStartNanos);
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            long took = System.nanoTime() - connectStartNanos;
+            connectionsOpened.increment();
+            connectNanos.add(took);
+            updateMax(maxConnectNanos, took);
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+            connectionsFailed.increment();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, okhttp3.Connection connection) {
+            markDispatched();
+            if (!newConnection) connectionsReused.increment();
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            callsFailed.increment();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.crisisgame;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.crisisgame.util.Env;
+
+/**
+ * Chooses the Gemini model and generation settings for each call based on the game phase.
+ *
+ * Mid-game turns go to a fast model, the final assessment to the pro model. When a route's smoothed
+ * latency breaches its SLO it is downgraded to its fallback model for a cool-down period, after which
+ * the primary model is tried again. Every route can be overridden through environment variables,
+ * e.g. GEMINI_ROUTE_MID_GAME_MODEL, _FALLBACK_MODEL, _THINKING_BUDGET, _ANSWER_TOKENS, _SLO_MS.
+ * Budgets are given as tokens for the reply; the thinking budget is added on top to get
+ * maxOutputTokens, which on Gemini 2.5 counts both.
+ */
+public class ModelRouter {
+    public enum Phase { OPENING, MID_GAME, FINAL_ANALYSIS }
+
+    private static final double EWMA_ALPHA = 0.2;
+    private static final int MIN_SAMPLES_FOR_DOWNGRADE = 3;
+    private static final long DOWNGRADE_COOLDOWN_MS = 60_000;
+
+    private final Map<Phase, Route> routes = new EnumMap<>(Phase.class);
+
+    public ModelRouter() {
+        routes.put(Phase.OPENING, Route.fromEnv(Phase.OPENING,
+                GenerationSettings.forAnswer("gemini-2.5-flash", 512, 1024),
+                GenerationSettings.forAnswer("gemini-2.5-flash-lite", 0, 1024), 8_000));
+        routes.put(Phase.MID_GAME, Route.fromEnv(Phase.MID_GAME,
+                GenerationSettings.forAnswer("gemini-2.5-flash", 0, 800),
+                GenerationSettings.forAnswer("gemini-2.5-flash-lite", 0, 800), 5_000));
+        routes.put(Phase.FINAL_ANALYSIS, Route.fromEnv(Phase.FINAL_ANALYSIS,
+                GenerationSettings.forAnswer("gemini-2.5-pro", 2048, 4096),
+                GenerationSettings.forAnswer("gemini-2.5-flash", 1024, 4096), 20_000));
+    }
+
+    public Route route(Phase phase) {
+        return routes.get(phase);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        routes.forEach((phase, route) -> m.put(phase.name(), route.snapshot()));
+        return m;
+    }
+
+    public static class Route {
+        private final Phase phase;
+        private final GenerationSettings primary;
+        private final GenerationSettings fallback;
+        private final long sloMillis;
+
+        private double ewmaLatencyMs;
+        private long samples;
+        private volatile long downgradedUntil;
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder downgrades = new LongAdder();
+        private final LongAdder totalLatencyMs = new LongAdder();
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder outputTokens = new LongAdder();
+        private final LongAdder thoughtTokens = new LongAdder();
+        private final Map<String, LongAdder> callsByModel = new ConcurrentHashMap<>();
+
+        Route(Phase phase, GenerationSettings primary, GenerationSettings fallback, long sloMillis) {
+            this.phase = phase;
+            this.primary = primary;
+            this.fallback = fallback;
+            this.sloMillis = sloMillis;
+        }
+
+        static Route fromEnv(Phase phase, GenerationSettings primary, GenerationSettings fallback, long sloMillis) {
+            String prefix = "GEMINI_ROUTE_" + phase.name() + "_";
+            GenerationSettings p = GenerationSettings.forAnswer(
+                    Env.stringValue(prefix + "MODEL", primary.model),
+                    Env.intValue(prefix + "THINKING_BUDGET", primary.thinkingBudget),
+                    Env.intValue(prefix + "ANSWER_TOKENS", primary.answerTokens()));
+            GenerationSettings f = GenerationSettings.forAnswer(
+                    Env.stringValue(prefix + "FALLBACK_MODEL", fallback.model),
+                    fallback.thinkingBudget,
+                    p.answerTokens());
+            return new Route(phase, p, f, Env.intValue(prefix + "SLO_MS", (int) sloMillis));
+        }
+
+        GenerationSettings primary() {
+            return primary;
+        }
+
+        GenerationSettings fallback() {
+            return fallback;
+        }
+
+        /** Settings for the next call: the primary model unless the route is currently downgraded. */
+        public GenerationSettings settings() {
+            return isDowngraded() ? fallback : primary;
+        }
+
+        public boolean isDowngraded() {
+            return System.currentTimeMillis() < downgradedUntil;
+        }
+
+        public void recordSuccess(GenerationSettings used, long latencyMs, int prompt, int output, int thoughts) {
+            record(used, latencyMs);
+            promptTokens.add(prompt);
+            outputTokens.add(output);
+            thoughtTokens.add(thoughts);
+        }
+
+        public void recordFailure(GenerationSettings used, long latencyMs) {
+            failures.increment();
+            record(used, latencyMs);
+        }
+
+        private void record(GenerationSettings used, long latencyMs) {
+            calls.increment();
+            totalLatencyMs.add(latencyMs);
+            callsByModel.computeIfAbsent(used.model, k -> new LongAdder()).increment();
+
+            // Only primary-model latency decides whether to downgrade
+            if (used != primary) return;
+            boolean breached;
+            synchronized (this) {
+                ewmaLatencyMs = samples == 0 ? latencyMs : EWMA_ALPHA * latencyMs + (1 - EWMA_ALPHA) * ewmaLatencyMs;
+                samples++;
+                breached = samples >= MIN_SAMPLES_FOR_DOWNGRADE && ewmaLatencyMs > sloMillis;
+                if (breached) {
+                    // Start fresh when the primary model is probed again after the cool-down
+                    samples = 0;
+                    ewmaLatencyMs = 0;
+                }
+            }
+            if (breached) {
+                downgradedUntil = System.currentTimeMillis() + DOWNGRADE_COOLDOWN_MS;
+                downgrades.increment();
+                System.out.println("Route " + phase + " breached its " + sloMillis + "ms SLO on " + primary.model
+                        + ", using " + fallback.model + " for " + DOWNGRADE_COOLDOWN_MS / 1000 + "s");
+            }
+        }
+
+        Map<String, Object> snapshot() {
+            long n = calls.sum();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("primary", primary.toString());
+            m.put("fallback", fallback.toString());
+            m.put("sloMs", sloMillis);
+            m.put("downgraded", isDowngraded());
+            m.put("downgrades", downgrades.sum());
+            m.put("calls", n);
+            m.put("failures", failures.sum());
+            m.put("avgLatencyMs", n == 0 ? 0 : totalLatencyMs.sum() / (double) n);
+            synchronized (this) {
+                m.put("ewmaLatencyMs", ewmaLatencyMs);
+            }
+            m.put("promptTokens", promptTokens.sum());
+            m.put("outputTokens", outputTokens.sum());
+            m.put("thoughtTokens", thoughtTokens.sum());
+            Map<String, Long> byModel = new LinkedHashMap<>();
+            callsByModel.forEach((model, count) -> byModel.put(model, count.sum()));
+            m.put("callsByModel", byModel);
+            return m;
+        }
+    }
+}
@@ -1,36 +1,81 @@
 package com.crisisgame;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.crisisgame.model.FinalAssessment;
+import com.crisisgame.model.GeneratedTurn;
+import com.crisisgame.profiling.GeminiCallEvent;
+import com.crisisgame.profiling.StageEvent;
+import com.crisisgame.util.JsonFieldStreamer;
+import com.crisisgame.util.KeywordClassifier;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
-import okhttp3.MediaType;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
-import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.BufferedSource;
 
 /**
- * Client for Google's Gemini API using Gemini 2.5 Pro - the most powerful thinking model
- * with maximum response accuracy and state-of-the-art performance for complex reasoning tasks.
- * Note: Gemini 2.5 Pro comes with thinking on by default for enhanced reasoning capabilities.
+ * Client for Google's Gemini API. Each call names its model explicitly, either directly or through
+ * the {@link ModelRouter}, which sends fast mid-game turns to Gemini 2.5 Flash and the final
+ * assessment to Gemini 2.5 Pro - the thinking model with the strongest reasoning. Game turns and the
+ * final assessment are requested in JSON mode under a {@link ResponseSchema} and come back as typed
+ * results rather than free text.
  */
 public class OpenAIClient {
     private static final String API_KEY = System.getenv("GEMINI_API_KEY") != null ? 
         System.getenv("GEMINI_API_KEY") : 
         "YOUR_API_KEY_HERE"; // Replace with your actual API key or set the GEMINI_API_KEY environment variable
-    private static final String GEMINI_URL = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-pro:generateContent?key=" + API_KEY;
+    private static final String DEFAULT_BASE_URL = "https://generativelanguage.googleapis.com/v1beta";
 
-    private final OkHttpClient http = new OkHttpClient.Builder()
-            .connectTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
-            .writeTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
-            .readTimeout(60, java.util.concurrent.TimeUnit.SECONDS)
-            .build();
-    private final Gson gson = new Gson();
+    // Base URL of the Gemini API; point GEMINI_BASE_URL at a GeminiStandInServer to run offline
+    private final String baseUrl;
+
+    private final HttpClientPool pool = HttpClientPool.shared();
+    private final OkHttpClient http = pool.client();
+    private final ModelRouter router = new ModelRouter();
+
+    public OpenAIClient() {
+        this(System.getenv("GEMINI_BASE_URL") != null ? System.getenv("GEMINI_BASE_URL") : DEFAULT_BASE_URL);
+    }
+
+    public OpenAIClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /** Opens connections to the Gemini host ahead of the first player request. */
+    public void prewarm() {
+        pool.prewarm(baseUrl + "/models?key=" + API_KEY);
+    }
+
+    public ModelRouter getRouter() {
+        return router;
+    }
+
+    private String generateContentUrl(String model) {
+        return baseUrl + "/models/" + model + ":generateContent?key=" + API_KEY;
+    }
+
+    private String streamGenerateContentUrl(String model) {
+        return baseUrl + "/models/" + model + ":streamGenerateContent?alt=sse&key=" + API_KEY;
+    }
 
     public static class Message {
         public String role;
@@ -38,49 +83,148 @@ public class OpenAIClient {
         public Message(String role, String content){ this.role=role; this.content=content; }
     }
 
-    public String chat(String model, String systemPrompt, List<Message> messages) throws IOException {
-        System.out.println("Making Gemini API call...");
-        JsonObject body = new JsonObject();
-        
-        // Add system instruction (correct Gemini format)
-        if (systemPrompt != null && !systemPrompt.isEmpty()) {
-            JsonObject systemInstruction = new JsonObject();
-            JsonArray systemParts = new JsonArray();
-            JsonObject systemPart = new JsonObject();
-            systemPart.addProperty("text", systemPrompt);
-            systemParts.add(systemPart);
-            systemInstruction.add("parts", systemParts);
-            body.add("systemInstruction", systemInstruction);
+    /** Non-2xx answer from the Gemini API; 429 means the quota or rate limit was hit. */
+    public static class ApiException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
         }
-        
-        // Add conversation contents
-        JsonArray contents = new JsonArray();
-        for (Message m : messages) {
-            JsonObject content = new JsonObject();
-            JsonArray parts = new JsonArray();
-            JsonObject part = new JsonObject();
-            part.addProperty("text", m.content);
-            parts.add(part);
-            content.add("parts", parts);
-            
-            // Gemini uses "user" and "model" roles
-            String geminiRole = m.role.equals("assistant") ? "model" : "user";
-            content.addProperty("role", geminiRole);
-            contents.add(content);
+
+        public boolean isQuota() {
+            return status == 429;
         }
-        body.add("contents", contents);
+    }
+
+    /** Model answer plus the token usage Gemini reported for it. */
+    private static class Reply {
+        String text;
+        int promptTokens, outputTokens, thoughtTokens;
+    }
+
+    /**
+     * Calls the model chosen by the router for this game phase and records latency and token usage
+     * against the route so the routing policy can be tuned from /api/metrics.
+     */
+    public String chat(ModelRouter.Phase phase, String systemPrompt, List<Message> messages) throws IOException {
+        return chat(phase, null, systemPrompt, messages, null, null);
+    }
+
+    /** Routed call in JSON mode under {@link ResponseSchema#TURN}, decoded into the narrative and options. */
+    public GeneratedTurn chatTurn(ModelRouter.Phase phase, String systemPrompt, List<Message> messages) throws IOException {
+        return chatTurn(phase, systemPrompt, messages, null, null);
+    }
+
+    /**
+     * As {@link #chatTurn(ModelRouter.Phase, String, List)}, but when a listener is given the reply is
+     * streamed and the narrative is handed to it piece by piece while the model is still writing.
+     * A deadline, if given, bounds the call and can cancel it.
+     */
+    public GeneratedTurn chatTurn(ModelRouter.Phase phase, String systemPrompt, List<Message> messages,
+                                  Consumer<String> narrativeListener, Deadline deadline) throws IOException {
+        JsonFieldStreamer narrative = narrativeListener == null ? null : new JsonFieldStreamer("narrative", narrativeListener);
+        String reply = chat(phase, ResponseSchema.TURN, systemPrompt, messages, narrative == null ? null : narrative::feed, deadline);
+        StageEvent parse = StageEvent.start(StageEvent.PARSE_REPLY);
+        GeneratedTurn turn = StructuredReplyReader.readTurn(reply);
+        parse.finish(null, 0, reply.length());
+        return turn;
+    }
+
+    /** Routed call in JSON mode under {@link ResponseSchema#ASSESSMENT}, decoded into the debrief fields. */
+    public FinalAssessment chatAssessment(ModelRouter.Phase phase, String systemPrompt, List<Message> messages) throws IOException {
+        return chatAssessment(phase, systemPrompt, messages, null, null);
+    }
+
+    /**
+     * As {@link #chatAssessment(ModelRouter.Phase, String, List)}, streaming the summary to the listener if one
+     * is given, and bounded by the deadline if one is given.
+     */
+    public FinalAssessment chatAssessment(ModelRouter.Phase phase, String systemPrompt, List<Message> messages,
+                                          Consumer<String> summaryListener, Deadline deadline) throws IOException {
+        JsonFieldStreamer summary = summaryListener == null ? null : new JsonFieldStreamer("summary", summaryListener);
+        String reply = chat(phase, ResponseSchema.ASSESSMENT, systemPrompt, messages, summary == null ? null : summary::feed, deadline);
+        StageEvent parse = StageEvent.start(StageEvent.PARSE_REPLY);
+        FinalAssessment assessment = StructuredReplyReader.readAssessment(reply);
+        parse.finish(null, 0, reply.length());
+        return assessment;
+    }
+
+    private String chat(ModelRouter.Phase phase, ResponseSchema schema, String systemPrompt, List<Message> messages,
+                        Consumer<String> onText, Deadline deadline) throws IOException {
+        ModelRouter.Route route = router.route(phase);
+        GenerationSettings settings = route.settings();
+        GeminiCallEvent event = new GeminiCallEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Reply reply = null;
+        String outcome = "error";
+        try {
+            reply = call(settings, schema, systemPrompt, messages, onText, deadline);
+            route.recordSuccess(settings, elapsedMillis(start), reply.promptTokens, reply.outputTokens, reply.thoughtTokens);
+            outcome = "ok";
+            return reply.text;
+        } catch (Deadline.CancelledException e) {
+            // Abandoned by the player, not a failure of the model
+            outcome = "cancelled";
+            throw e;
+        } catch (IOException e) {
+            route.recordFailure(settings, elapsedMillis(start));
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = phase.name();
+                event.model = settings.model;
+                event.streaming = onText != null;
+                event.messages = messages.size();
+                event.promptChars = systemPrompt == null ? 0 : systemPrompt.length();
+                for (Message message : messages) event.promptChars += message.content.length();
+                event.outcome = outcome;
+                if (reply != null) {
+                    event.replyChars = reply.text.length();
+                    event.promptTokens = reply.promptTokens;
+                    event.outputTokens = reply.outputTokens;
+                    event.thoughtTokens = reply.thoughtTokens;
+                }
+                event.commit();
+            }
+        }
+    }
+
+    public String chat(String model, String systemPrompt, List<Message> messages) throws IOException {
+        return call(GenerationSettings.modelDefaults(model), null, systemPrompt, messages, null, null).text;
+    }
+
+    /**
+     * @param onText if not null, the reply is streamed (server-sent events) and each text piece is passed on as it arrives
+     * @param deadline if not null, the OkHttp call timeout is set to the time left and the call is attached so that
+     *                 cancelling the request aborts it; the call is not started at all if the request is already over
+     */
+    private Reply call(GenerationSettings settings, ResponseSchema schema, String systemPrompt, List<Message> messages,
+                       Consumer<String> onText, Deadline deadline) throws IOException {
+        if (deadline != null) deadline.check();
+        System.out.println("Making " + (onText == null ? "" : "streaming ") + "Gemini API call to " + settings
+                + (schema == null ? "" : " with " + schema + " schema") + "...");
+        System.out.println("Request: " + messages.size() + " message(s), system prompt "
+                + (systemPrompt == null ? 0 : systemPrompt.length()) + " chars");
 
-        System.out.println("Request body: " + body.toString());
-        
         Request req = new Request.Builder()
-                .url(GEMINI_URL)
+                .url(onText == null ? generateContentUrl(settings.model) : streamGenerateContentUrl(settings.model))
                 .addHeader("Content-Type", "application/json")
-                .post(RequestBody.create(body.toString(), MediaType.parse("application/json")))
+                .post(new GeminiRequestBody(systemPrompt, messages, settings, schema))
                 .build();
 
-        System.out.println("Sending request to: " + GEMINI_URL);
-        
-        try (Response res = http.newCall(req).execute()) {
+        System.out.println("Sending request to: " + baseUrl);
+
+        Call call = http.newCall(req);
+        if (deadline != null) {
+            call.timeout().timeout(Math.max(1, deadline.remainingMillis()), TimeUnit.MILLISECONDS);
+            deadline.attach(call);
+        }
+        try (Response res = execute(call, deadline)) {
             System.out.println("Response received. Status: " + res.code());
             
             if (!res.isSuccessful()) {
@@ -90,87 +234,228 @@ public class OpenAIClient {
                     errorBody = resBody.string();
                 }
                 System.out.println("Error response: " + errorBody);
-                throw new IOException("Gemini API error: " + res.code() + " " + res.message() + " - " + errorBody);
+                throw new ApiException(res.code(), "Gemini API error: " + res.code() + " " + res.message() + " - " + errorBody);
             }
             
-            String responseBody = "{}";
             ResponseBody resBody = res.body();
-            if (resBody != null) {
-                responseBody = resBody.string();
-            }
-            System.out.println("Response body: " + responseBody);
-            
-            JsonObject json = gson.fromJson(responseBody, JsonObject.class);
-            
-            // Parse Gemini response format
-            if (json.has("candidates") && json.getAsJsonArray("candidates").size() > 0) {
-                JsonObject candidate = json.getAsJsonArray("candidates").get(0).getAsJsonObject();
-                if (candidate.has("content")) {
-                    JsonObject content = candidate.getAsJsonObject("content");
-                    if (content.has("parts") && content.getAsJsonArray("parts").size() > 0) {
-                        JsonObject part = content.getAsJsonArray("parts").get(0).getAsJsonObject();
-                        String result = part.get("text").getAsString();
-                        System.out.println("Extracted result: " + result.substring(0, Math.min(100, result.length())) + "...");
-                        return result;
+            if (resBody == null) throw new IOException("Gemini API returned no response body");
+
+            // Read the response envelope as it streams in; only the candidate text is kept
+            Reply reply;
+            try {
+                if (onText == null) {
+                    try (JsonReader in = new JsonReader(resBody.charStream())) {
+                        reply = readReply(in);
                     }
+                } else {
+                    reply = readEventStream(resBody.source(), onText);
                 }
+            } catch (IllegalStateException e) {
+                throw new IOException("Unexpected Gemini API response format: " + e.getMessage(), e);
             }
-            
-            throw new IOException("Unexpected Gemini API response format: " + responseBody);
-        } catch (Exception e) {
+            if (reply.text == null) throw new IOException("Unexpected Gemini API response format: no candidate text");
+
+            System.out.println("Extracted result: " + reply.text.substring(0, Math.min(100, reply.text.length())) + "...");
+            return reply;
+        } catch (IOException e) {
+            Deadline.Reason stop = deadline == null ? null : deadline.stopReason();
+            if (stop != null) {
+                System.out.println("Gemini call abandoned: " + stop.message);
+                throw deadline.aborted(stop);
+            }
+            System.out.println("Exception during API call: " + e.getMessage());
+            e.printStackTrace();
+            throw e;
+        } catch (RuntimeException e) {
             System.out.println("Exception during API call: " + e.getMessage());
             e.printStackTrace();
             throw e;
+        } finally {
+            if (deadline != null) deadline.detach(call);
         }
     }
 
+    /** streamGenerateContent?alt=sse: one response envelope per "data:" line; text pieces are concatenated, usage is cumulative. */
+    private static Reply readEventStream(BufferedSource source, Consumer<String> onText) throws IOException {
+        Reply reply = new Reply();
+        StringBuilder text = new StringBuilder();
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (!line.startsWith("data:")) continue;
+            Reply event;
+            try (JsonReader in = new JsonReader(new StringReader(line.substring(5)))) {
+                event = readReply(in);
+            }
+            if (event.text != null && !event.text.isEmpty()) {
+                text.append(event.text);
+                onText.accept(event.text);
+            }
+            if (event.promptTokens > 0) reply.promptTokens = event.promptTokens;
+            if (event.outputTokens > 0) reply.outputTokens = event.outputTokens;
+            if (event.thoughtTokens > 0) reply.thoughtTokens = event.thoughtTokens;
+        }
+        reply.text = text.length() == 0 ? null : text.toString();
+        return reply;
+    }
+
+    /** generateContent response: text of the first candidate (thought parts skipped) plus usageMetadata. */
+    private static Reply readReply(JsonReader in) throws IOException {
+        Reply reply = new Reply();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "candidates" -> {
+                    in.beginArray();
+                    if (in.hasNext()) reply.text = readCandidateText(in);
+                    while (in.hasNext()) in.skipValue();
+                    in.endArray();
+                }
+                case "usageMetadata" -> {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        switch (in.nextName()) {
+                            case "promptTokenCount" -> reply.promptTokens = in.nextInt();
+                            case "candidatesTokenCount" -> reply.outputTokens = in.nextInt();
+                            case "thoughtsTokenCount" -> reply.thoughtTokens = in.nextInt();
+                            default -> in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return reply;
+    }
+
+    private static String readCandidateText(JsonReader in) throws IOException {
+        StringBuilder text = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!"content".equals(in.nextName()) || in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                continue;
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!"parts".equals(in.nextName())) {
+                    in.skipValue();
+                    continue;
+                }
+                in.beginArray();
+                while (in.hasNext()) {
+                    String partText = null;
+                    boolean thought = false;
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        switch (in.nextName()) {
+                            case "text" -> partText = in.nextString();
+                            case "thought" -> thought = in.nextBoolean();
+                            default -> in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                    if (partText != null && !thought) {
+                        if (text == null) text = new StringBuilder(partText.length());
+                        text.append(partText);
+                    }
+                }
+                in.endArray();
+            }
+            in.endObject();
+        }
+        in.endObject();
+        return text == null ? null : text.toString();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
     /**
-     * Generate contextual images based on crisis scenario and performance results
+     * Runs the call through the shared dispatcher so its per-host limits and queue metrics apply;
+     * a plain execute() would bypass the dispatcher entirely.
      */
-    public String generateImage(String description) throws IOException {
+    private Response execute(Call call, Deadline deadline) throws IOException {
+        pool.markCall();
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call c, IOException e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call c, Response response) {
+                if (!result.complete(response)) response.close();
+            }
+        });
+
+        try {
+            // The call timeout only starts once the dispatcher runs the call; the deadline also covers the queue
+            return deadline == null ? result.get() : result.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            call.cancel();
+            throw new InterruptedIOException("Gemini call queued past the request deadline");
+        } catch (InterruptedException e) {
+            call.cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Gemini call interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Gemini call failed", e.getCause());
+        }
+    }
+
+    /**
+     * Generate contextual images based on crisis scenario and performance results; the image is picked
+     * with the game's random generator
+     */
+    public String generateImage(String description, SplittableRandom random) throws IOException {
         System.out.println("Generating contextual image for: " + description);
         
-        String imagePrompt = description.toLowerCase();
-        
-        // Extract key attributes
-        boolean isExcellent = imagePrompt.contains("excellent") || imagePrompt.contains("successful") || imagePrompt.contains("confident") || imagePrompt.contains("triumphant");
-        boolean isPoor = imagePrompt.contains("poor") || imagePrompt.contains("failed") || imagePrompt.contains("stressed") || imagePrompt.contains("reflective") || imagePrompt.contains("challenging");
+        long hits = IMAGE_KEYWORDS.scan(description);
         
         // Determine performance level
         String performanceLevel = "adequate"; // default
-        if (isExcellent) performanceLevel = "excellent";
-        else if (isPoor) performanceLevel = "poor";
+        if (KeywordClassifier.hasAny(hits, ImageSignal.EXCELLENT)) performanceLevel = "excellent";
+        else if (KeywordClassifier.hasAny(hits, ImageSignal.POOR)) performanceLevel = "poor";
         
         // Determine crisis type
-        String crisisType = getCrisisType(imagePrompt);
+        String crisisType = getCrisisType(hits);
         
         // Get crisis-management relevant image
-        return getCrisisManagementImage(performanceLevel, crisisType, description);
+        return getCrisisManagementImage(performanceLevel, crisisType, random);
     }
     
-    private String getCrisisType(String prompt) {
-        if (prompt.contains("tech") || prompt.contains("cyber") || prompt.contains("data") || prompt.contains("quantum") || prompt.contains("digital")) 
-            return "technology";
-        if (prompt.contains("manufacturing") || prompt.contains("factory") || prompt.contains("safety") || prompt.contains("explosion") || prompt.contains("industrial")) 
-            return "manufacturing";
-        if (prompt.contains("healthcare") || prompt.contains("medical") || prompt.contains("hospital") || prompt.contains("pharma") || prompt.contains("patient")) 
-            return "healthcare";
-        if (prompt.contains("food") || prompt.contains("contamination") || prompt.contains("outbreak") || prompt.contains("recall") || prompt.contains("restaurant")) 
-            return "food";
-        if (prompt.contains("social media") || prompt.contains("platform") || prompt.contains("content") || prompt.contains("algorithm") || prompt.contains("online")) 
-            return "social_media";
-        if (prompt.contains("financial") || prompt.contains("bank") || prompt.contains("fraud") || prompt.contains("regulatory") || prompt.contains("investment")) 
-            return "financial";
-        if (prompt.contains("environment") || prompt.contains("pollution") || prompt.contains("toxic") || prompt.contains("cleanup") || prompt.contains("climate")) 
-            return "environmental";
-        if (prompt.contains("transport") || prompt.contains("airline") || prompt.contains("logistics") || prompt.contains("supply") || prompt.contains("shipping")) 
-            return "transportation";
-        return "general";
+    // Crisis types are declared in priority order; the first one hit wins
+    private enum ImageSignal {
+        TECHNOLOGY, MANUFACTURING, HEALTHCARE, FOOD, SOCIAL_MEDIA, FINANCIAL, ENVIRONMENTAL, TRANSPORTATION,
+        EXCELLENT, POOR
+    }
+
+    private static final KeywordClassifier<ImageSignal> IMAGE_KEYWORDS = KeywordClassifier.builder(ImageSignal.class)
+            .add(ImageSignal.TECHNOLOGY, "tech", "cyber", "data", "quantum", "digital")
+            .add(ImageSignal.MANUFACTURING, "manufacturing", "factory", "safety", "explosion", "industrial")
+            .add(ImageSignal.HEALTHCARE, "healthcare", "medical", "hospital", "pharma", "patient")
+            .add(ImageSignal.FOOD, "food", "contamination", "outbreak", "recall", "restaurant")
+            .add(ImageSignal.SOCIAL_MEDIA, "social media", "platform", "content", "algorithm", "online")
+            .add(ImageSignal.FINANCIAL, "financial", "bank", "fraud", "regulatory", "investment")
+            .add(ImageSignal.ENVIRONMENTAL, "environment", "pollution", "toxic", "cleanup", "climate")
+            .add(ImageSignal.TRANSPORTATION, "transport", "airline", "logistics", "supply", "shipping")
+            .add(ImageSignal.EXCELLENT, "excellent", "successful", "confident", "triumphant")
+            .add(ImageSignal.POOR, "poor", "failed", "stressed", "reflective", "challenging")
+            .build();
+
+    private static final long CRISIS_TYPE_MASK = (1L << ImageSignal.EXCELLENT.ordinal()) - 1;
+
+    private String getCrisisType(long hits) {
+        ImageSignal type = IMAGE_KEYWORDS.first(hits & CRISIS_TYPE_MASK);
+        return type == null ? "general" : type.name().toLowerCase();
     }
     
-    private String getCrisisManagementImage(String performanceLevel, String crisisType, String description) {
-        java.util.Random random = new java.util.Random(System.currentTimeMillis() + description.hashCode());
-        
+    private String getCrisisManagementImage(String performanceLevel, String crisisType, SplittableRandom random) {
         // Crisis Management Excellence - Success scenarios
         String[] excellentCrisisImages = {
             "https://images.unsplash.com/photo-1557804506-669a67965ba0?w=800&h=600&fit=crop&q=80", // Professional boardroom success
@@ -264,9 +549,4 @@ public class OpenAIClient {
         
         return selectedPool[random.nextInt(selectedPool.length)];
     }
-
-    // Legacy method for backward compatibility
-    public String generateImage(String prompt, String size) throws IOException {
-        return generateImage(prompt);
-    }
 }
\ No newline at end of file
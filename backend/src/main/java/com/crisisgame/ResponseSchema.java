@@ -0,0 +1,61 @@
+package com.crisisgame;
+
+import com.google.gson.JsonParser;
+
+import okio.ByteString;
+
+/**
+ * Response schemas sent with structured Gemini calls (generationConfig.responseSchema, with
+ * responseMimeType application/json). The model's reply is then a JSON document of this shape, which
+ * {@link StructuredReplyReader} decodes into typed results instead of scraping free text.
+ * Each schema is compacted and UTF-8 encoded once, so request bodies just copy the bytes.
+ */
+public enum ResponseSchema {
+    /** One game turn: the narrative and exactly five options. */
+    TURN("""
+        {
+          "type": "OBJECT",
+          "properties": {
+            "narrative": {"type": "STRING", "description": "What happens this turn, 3-5 vivid sentences addressed to the player. No options here."},
+            "options": {
+              "type": "ARRAY",
+              "description": "Exactly five distinct courses of action, in order A to E, each without its letter label.",
+              "items": {"type": "STRING"},
+              "minItems": 5,
+              "maxItems": 5
+            }
+          },
+          "required": ["narrative", "options"],
+          "propertyOrdering": ["narrative", "options"]
+        }
+        """),
+
+    /** The end-of-game assessment, one field per item of the debrief. */
+    ASSESSMENT("""
+        {
+          "type": "OBJECT",
+          "properties": {
+            "summary": {"type": "STRING", "description": "2-4 sentence wrap-up of how the crisis ended and its long-term reputation impact."},
+            "outcome": {"type": "STRING", "description": "One sentence on the overall crisis resolution outcome and company status."},
+            "career": {"type": "STRING", "description": "One sentence on the player's career trajectory, realistic for their performance."},
+            "strengths": {"type": "STRING", "description": "One sentence on the leadership strengths demonstrated."},
+            "improvements": {"type": "STRING", "description": "One sentence on the main areas for improvement."},
+            "leadershipStyle": {"type": "STRING", "description": "One sentence describing the player's leadership approach."},
+            "crisisTheory": {"type": "STRING", "description": "The crisis communication theory the player primarily applied, with a 1-2 sentence explanation."}
+          },
+          "required": ["summary", "outcome", "career", "strengths", "improvements", "leadershipStyle", "crisisTheory"],
+          "propertyOrdering": ["summary", "outcome", "career", "strengths", "improvements", "leadershipStyle", "crisisTheory"]
+        }
+        """);
+
+    private final ByteString encoded;
+
+    ResponseSchema(String schema) {
+        this.encoded = ByteString.encodeUtf8(JsonParser.parseString(schema).toString());
+    }
+
+    /** Compact UTF-8 JSON of the schema, ready to be written into a request body. */
+    ByteString encoded() {
+        return encoded;
+    }
+}
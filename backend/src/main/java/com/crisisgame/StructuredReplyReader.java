@@ -0,0 +1,104 @@
+package com.crisisgame;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.crisisgame.model.FinalAssessment;
+import com.crisisgame.model.GeneratedTurn;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Decodes replies produced under a {@link ResponseSchema} straight into typed results with a
+ * streaming JsonReader: no tree, no reflection, unknown fields skipped. A reply that does not have
+ * the schema's shape is an IOException like any other failed call, not something to patch up.
+ */
+final class StructuredReplyReader {
+    static final int OPTION_COUNT = 5;
+
+    private StructuredReplyReader() {}
+
+    static GeneratedTurn readTurn(String json) throws IOException {
+        GeneratedTurn turn = new GeneratedTurn();
+        List<String> options = new ArrayList<>(OPTION_COUNT);
+        try (JsonReader in = new JsonReader(new StringReader(json))) {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "narrative" -> turn.narrative = nextString(in);
+                    case "options" -> {
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            if (options.size() == OPTION_COUNT) throw mismatch(ResponseSchema.TURN, "more than " + OPTION_COUNT + " options");
+                            options.add(labelled(options.size(), nextString(in)));
+                        }
+                        in.endArray();
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw mismatch(ResponseSchema.TURN, e.getMessage());
+        }
+        if (isBlank(turn.narrative)) throw mismatch(ResponseSchema.TURN, "no narrative");
+        if (options.size() != OPTION_COUNT) throw mismatch(ResponseSchema.TURN, options.size() + " options");
+        turn.options = options;
+        return turn;
+    }
+
+    static FinalAssessment readAssessment(String json) throws IOException {
+        FinalAssessment a = new FinalAssessment();
+        try (JsonReader in = new JsonReader(new StringReader(json))) {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "summary" -> a.summary = nextString(in);
+                    case "outcome" -> a.outcome = nextString(in);
+                    case "career" -> a.career = nextString(in);
+                    case "strengths" -> a.strengths = nextString(in);
+                    case "improvements" -> a.improvements = nextString(in);
+                    case "leadershipStyle" -> a.leadershipStyle = nextString(in);
+                    case "crisisTheory" -> a.crisisTheory = nextString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw mismatch(ResponseSchema.ASSESSMENT, e.getMessage());
+        }
+        if (isBlank(a.summary) || isBlank(a.outcome) || isBlank(a.career) || isBlank(a.strengths)
+                || isBlank(a.improvements) || isBlank(a.leadershipStyle) || isBlank(a.crisisTheory)) {
+            throw mismatch(ResponseSchema.ASSESSMENT, "missing fields");
+        }
+        return a;
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString().trim();
+    }
+
+    /** "A) text"; a label the model added on its own despite the schema is dropped first. */
+    private static String labelled(int index, String option) {
+        String text = option == null ? "" : option;
+        if (text.length() > 2 && Character.toUpperCase(text.charAt(0)) == 'A' + index
+                && (text.charAt(1) == ')' || text.charAt(1) == '.' || text.charAt(1) == ':')) {
+            text = text.substring(2).trim();
+        }
+        return (char) ('A' + index) + ") " + text;
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    private static IOException mismatch(ResponseSchema schema, String detail) {
+        return new IOException("Gemini reply does not match the " + schema + " schema: " + detail);
+    }
+}
@@ -0,0 +1,44 @@
+package com.crisisgame.analytics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A group-by-and-count query for {@link ChoiceAnalytics}, parsed from request parameters:
+ * {@code groupBy=difficulty,choice3} names the grouping dimensions, and any dimension given as a
+ * parameter filters on the listed labels, e.g. {@code difficulty=4,5&gender=female&scoreBand=90-100}.
+ */
+public final class AnalyticsQuery {
+    final List<Dimension> groupBy = new ArrayList<>();
+    /** Allowed codes per filtered dimension. */
+    final Map<Dimension, boolean[]> filters = new LinkedHashMap<>();
+
+    /** @throws IllegalArgumentException naming the parameter that is not understood */
+    public static AnalyticsQuery parse(Map<String, String> parameters) {
+        AnalyticsQuery query = new AnalyticsQuery();
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            String value = parameter.getValue();
+            if (parameter.getKey().equals("groupBy")) {
+                for (String name : value.split(",")) {
+                    if (name.isBlank()) continue;
+                    Dimension dimension = Dimension.named(name.trim());
+                    if (query.groupBy.contains(dimension)) throw new IllegalArgumentException("Duplicate groupBy " + name);
+                    query.groupBy.add(dimension);
+                }
+            } else {
+                Dimension dimension = Dimension.named(parameter.getKey());
+                boolean[] allowed = new boolean[dimension.cardinality()];
+                for (String label : value.split(",")) allowed[dimension.code(label)] = true;
+                query.filters.put(dimension, allowed);
+            }
+        }
+        return query;
+    }
+
+    boolean allows(Dimension dimension, int code) {
+        boolean[] allowed = filters.get(dimension);
+        return allowed == null || allowed[code];
+    }
+}
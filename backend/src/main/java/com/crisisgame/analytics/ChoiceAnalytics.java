@@ -0,0 +1,237 @@
+package com.crisisgame.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.crisisgame.model.GameState;
+import com.crisisgame.util.Env;
+
+/**
+ * Finished games in column form for /api/analytics: difficulty, age, gender, final score and the choice
+ * of each of the ten turns, one byte per game per column. Columns are cut into chunks of 65536 games;
+ * a query scans the chunks in parallel, each into its own count and score-sum arrays indexed by group,
+ * and adds those up at the end. A game takes 14 bytes, so ten million games fit in about 140 MB.
+ *
+ * Games are appended at game end. Only the newest chunk is written, and a chunk publishes its rows
+ * through its volatile size, so queries run without locks next to the writer. Beyond
+ * ANALYTICS_MAX_GAMES (ten million by default) the oldest chunk is dropped.
+ */
+public class ChoiceAnalytics {
+    public static final int TURNS = 10;
+    static final int MAX_AGE = 127;
+    private static final int CHUNK_ROWS = 1 << 16;
+    private static final int COLUMNS = Dimension.CHOICE + TURNS;
+    private static final int MAX_GROUPS = 10_000;
+
+    private static final class Chunk {
+        final byte[][] columns = new byte[COLUMNS][CHUNK_ROWS];
+        volatile int size;
+    }
+
+    /** Counts and score sums of one chunk, or of several once merged. */
+    private static final class Partial {
+        final long[] counts;
+        final long[] scoreSums;
+        long games;
+
+        Partial(int groups) {
+            counts = new long[groups];
+            scoreSums = new long[groups];
+        }
+
+        Partial merge(Partial other) {
+            games += other.games;
+            for (int g = 0; g < counts.length; g++) {
+                counts[g] += other.counts[g];
+                scoreSums[g] += other.scoreSums[g];
+            }
+            return this;
+        }
+    }
+
+    private final int maxChunks;
+    // Oldest first; replaced, never modified, when a chunk is added or dropped
+    private volatile Chunk[] chunks = new Chunk[0];
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+
+    public ChoiceAnalytics(long maxGames) {
+        this.maxChunks = (int) Math.max(1, (maxGames + CHUNK_ROWS - 1) / CHUNK_ROWS);
+    }
+
+    public static ChoiceAnalytics fromEnvironment() {
+        return new ChoiceAnalytics(Env.longValue("ANALYTICS_MAX_GAMES", 10_000_000));
+    }
+
+    /** Adds a finished game. */
+    public void record(GameState state, int finalScore) {
+        record(state.getPlayer().getDifficulty(), state.getPlayer().getAge(), state.getPlayer().getGender(),
+                finalScore, state.getChoiceHistory());
+    }
+
+    public synchronized void record(int difficulty, int age, String gender, int finalScore, List<String> choices) {
+        Chunk[] current = chunks;
+        Chunk chunk = current.length == 0 ? null : current[current.length - 1];
+        if (chunk == null || chunk.size == CHUNK_ROWS) chunk = addChunk(current);
+
+        int row = chunk.size;
+        byte[][] columns = chunk.columns;
+        columns[Dimension.DIFFICULTY][row] = (byte) clamp(difficulty, 1, 5);
+        columns[Dimension.AGE][row] = (byte) clamp(age, 0, MAX_AGE);
+        columns[Dimension.GENDER][row] = genderCode(gender);
+        columns[Dimension.SCORE][row] = (byte) clamp(finalScore, 0, 100);
+        for (int turn = 0; turn < TURNS; turn++) {
+            columns[Dimension.CHOICE + turn][row] = turn < choices.size() ? choiceCode(choices.get(turn)) : 0;
+        }
+        // Publishes the row to queries
+        chunk.size = row + 1;
+        recorded.increment();
+    }
+
+    /**
+     * Counts games per group of the groupBy dimensions among games matching the filters, with their
+     * share and mean final score. Groups without games are left out.
+     */
+    public Map<String, Object> query(AnalyticsQuery query) {
+        long started = System.nanoTime();
+        queries.increment();
+
+        // One lookup table per column the query reads. A table maps the stored byte to the group-index
+        // contribution of its code (code * stride), or -1 if the filter rejects it.
+        List<Integer> columns = new ArrayList<>();
+        List<int[]> tables = new ArrayList<>();
+        int groups = 1;
+        for (int d = query.groupBy.size() - 1; d >= 0; d--) {
+            Dimension dimension = query.groupBy.get(d);
+            int[] table = new int[256];
+            for (int b = 0; b < 256; b++) {
+                int code = dimension.codes[b];
+                table[b] = code < 0 || !query.allows(dimension, code) ? -1 : code * groups;
+            }
+            columns.add(0, dimension.column);
+            tables.add(0, table);
+            groups *= dimension.cardinality();
+            if (groups > MAX_GROUPS) throw new IllegalArgumentException("Too many groups; group by fewer dimensions");
+        }
+        for (Dimension dimension : query.filters.keySet()) {
+            if (query.groupBy.contains(dimension)) continue;
+            int[] table = new int[256];
+            for (int b = 0; b < 256; b++) {
+                int code = dimension.codes[b];
+                table[b] = code < 0 || !query.allows(dimension, code) ? -1 : 0;
+            }
+            columns.add(dimension.column);
+            tables.add(table);
+        }
+        int[] columnIndex = columns.stream().mapToInt(Integer::intValue).toArray();
+        int[][] lookup = tables.toArray(new int[0][]);
+        int groupCount = groups;
+
+        Partial total = Arrays.stream(chunks).parallel()
+                .map(chunk -> scan(chunk, columnIndex, lookup, groupCount))
+                .reduce(Partial::merge)
+                .orElseGet(() -> new Partial(groupCount));
+
+        long matched = 0;
+        for (long count : total.counts) matched += count;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int g = 0; g < groupCount; g++) {
+            long count = total.counts[g];
+            if (count == 0) continue;
+            // The last groupBy dimension varies fastest
+            String[] labels = new String[query.groupBy.size()];
+            int rest = g;
+            for (int d = labels.length - 1; d >= 0; d--) {
+                Dimension dimension = query.groupBy.get(d);
+                labels[d] = dimension.labels[rest % dimension.cardinality()];
+                rest /= dimension.cardinality();
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int d = 0; d < labels.length; d++) row.put(query.groupBy.get(d).name, labels[d]);
+            row.put("count", count);
+            row.put("share", Math.round(count * 10_000.0 / matched) / 10_000.0);
+            row.put("avgScore", Math.round(total.scoreSums[g] * 10.0 / count) / 10.0);
+            rows.add(row);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("games", total.games);
+        result.put("matched", matched);
+        result.put("groupBy", query.groupBy.stream().map(dimension -> dimension.name).toList());
+        result.put("groups", rows);
+        result.put("tookMs", Math.round((System.nanoTime() - started) / 10_000.0) / 100.0);
+        return result;
+    }
+
+    public Map<String, Object> metrics() {
+        Chunk[] snapshot = chunks;
+        long games = 0;
+        for (Chunk chunk : snapshot) games += chunk.size;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("games", games);
+        m.put("recorded", recorded.sum());
+        m.put("chunks", snapshot.length);
+        m.put("bytes", (long) snapshot.length * COLUMNS * CHUNK_ROWS);
+        m.put("maxGames", (long) maxChunks * CHUNK_ROWS);
+        m.put("queries", queries.sum());
+        return m;
+    }
+
+    /** The vectorizable inner loop: per row, one table lookup per column read. */
+    private static Partial scan(Chunk chunk, int[] columnIndex, int[][] lookup, int groups) {
+        int rows = chunk.size;
+        Partial partial = new Partial(groups);
+        partial.games = rows;
+        long[] counts = partial.counts;
+        long[] scoreSums = partial.scoreSums;
+        byte[] scores = chunk.columns[Dimension.SCORE];
+        byte[][] columns = new byte[columnIndex.length][];
+        for (int c = 0; c < columns.length; c++) columns[c] = chunk.columns[columnIndex[c]];
+
+        rows:
+        for (int i = 0; i < rows; i++) {
+            int group = 0;
+            for (int c = 0; c < columns.length; c++) {
+                int part = lookup[c][columns[c][i] & 0xFF];
+                if (part < 0) continue rows;
+                group += part;
+            }
+            counts[group]++;
+            scoreSums[group] += scores[i];
+        }
+        return partial;
+    }
+
+    /** Caller holds the lock. */
+    private Chunk addChunk(Chunk[] current) {
+        Chunk chunk = new Chunk();
+        int keep = Math.min(current.length, maxChunks - 1);
+        Chunk[] next = new Chunk[keep + 1];
+        System.arraycopy(current, current.length - keep, next, 0, keep);
+        next[keep] = chunk;
+        chunks = next;
+        return chunk;
+    }
+
+    private static byte genderCode(String gender) {
+        if (gender == null || gender.isBlank()) return 0;
+        String g = gender.trim().toLowerCase();
+        if (g.equals("female") || g.equals("f") || g.equals("woman")) return 1;
+        if (g.equals("male") || g.equals("m") || g.equals("man")) return 2;
+        return 3;
+    }
+
+    private static byte choiceCode(String choice) {
+        if (choice == null || choice.isBlank()) return 0;
+        char c = Character.toUpperCase(choice.trim().charAt(0));
+        return c >= 'A' && c <= 'E' ? (byte) (c - 'A' + 1) : 0;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
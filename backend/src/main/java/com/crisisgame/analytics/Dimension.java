@@ -0,0 +1,106 @@
+package com.crisisgame.analytics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A column of {@link ChoiceAnalytics} that queries can group by or filter on. Every column holds one
+ * byte per game; a dimension maps each of the 256 possible bytes to a small code (an age to its age
+ * band, a score to its score band) and names the codes, so a scan only does table lookups.
+ */
+public final class Dimension {
+    static final int DIFFICULTY = 0;
+    static final int GENDER = 1;
+    static final int AGE = 2;
+    static final int SCORE = 3;
+    /** Column index of turn t's choice is CHOICE + t - 1. */
+    static final int CHOICE = 4;
+
+    static final String[] GENDERS = {"unknown", "female", "male", "other"};
+    static final String[] CHOICES = {"none", "A", "B", "C", "D", "E"};
+    private static final String[] AGE_BANDS = {"0-17", "18-24", "25-34", "35-44", "45-54", "55-64", "65+"};
+    private static final int[] AGE_BAND_STARTS = {0, 18, 25, 35, 45, 55, 65};
+
+    public final String name;
+    final int column;
+    final String[] labels;
+    /** Code of each stored byte, or -1 for bytes that are never stored. */
+    final int[] codes = new int[256];
+
+    private Dimension(String name, int column, String[] labels) {
+        this.name = name;
+        this.column = column;
+        this.labels = labels;
+        Arrays.fill(codes, -1);
+    }
+
+    /** difficulty, gender, ageBand, scoreBand or choice1 to choice10. */
+    public static Dimension named(String name) {
+        switch (name) {
+            case "difficulty" -> {
+                Dimension d = new Dimension(name, DIFFICULTY, new String[] {"1", "2", "3", "4", "5"});
+                for (int v = 1; v <= 5; v++) d.codes[v] = v - 1;
+                return d;
+            }
+            case "gender" -> {
+                Dimension d = new Dimension(name, GENDER, GENDERS);
+                for (int v = 0; v < GENDERS.length; v++) d.codes[v] = v;
+                return d;
+            }
+            case "ageBand" -> {
+                Dimension d = new Dimension(name, AGE, AGE_BANDS);
+                for (int age = 0; age <= ChoiceAnalytics.MAX_AGE; age++) {
+                    int band = AGE_BAND_STARTS.length - 1;
+                    while (age < AGE_BAND_STARTS[band]) band--;
+                    d.codes[age] = band;
+                }
+                return d;
+            }
+            case "scoreBand" -> {
+                String[] labels = new String[10];
+                for (int band = 0; band < 10; band++) labels[band] = band * 10 + "-" + (band == 9 ? 100 : band * 10 + 9);
+                Dimension d = new Dimension(name, SCORE, labels);
+                for (int score = 0; score <= 100; score++) d.codes[score] = Math.min(score / 10, 9);
+                return d;
+            }
+            default -> {
+                if (name.startsWith("choice")) {
+                    try {
+                        int turn = Integer.parseInt(name.substring("choice".length()));
+                        if (turn >= 1 && turn <= ChoiceAnalytics.TURNS) {
+                            Dimension d = new Dimension(name, CHOICE + turn - 1, CHOICES);
+                            for (int v = 0; v < CHOICES.length; v++) d.codes[v] = v;
+                            return d;
+                        }
+                    } catch (NumberFormatException e) {
+                        // not a turn number
+                    }
+                }
+                throw new IllegalArgumentException("Unknown dimension " + name
+                        + "; use difficulty, gender, ageBand, scoreBand or choice1-choice" + ChoiceAnalytics.TURNS);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Dimension d && d.name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    int cardinality() {
+        return labels.length;
+    }
+
+    /** Code of a label, compared case-insensitively. */
+    int code(String label) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase(label.trim())) return i;
+        }
+        throw new IllegalArgumentException(name + " must be one of " + List.of(labels));
+    }
+}
@@ -0,0 +1,223 @@
+package com.crisisgame.events;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Streams events from the {@link EventLog} segments as NDJSON, oldest first: the sealed segments, then
+ * the active one up to its last flushed batch. Segments outside the time range are skipped by name;
+ * inside a segment each line is read, checked against the filter from its leading fields, and copied
+ * out as is, so memory stays flat however many events match. A segment cut short by a crash is read
+ * up to where it ends.
+ */
+public final class EventExport {
+    /** Inclusive time range in epoch milliseconds, difficulty 1-5 and session id; null matches anything. */
+    public static final class Filter {
+        public Long fromMillis;
+        public Long toMillis;
+        public Integer difficulty;
+        public String sessionId;
+
+        boolean overlaps(EventLog.Segment segment) {
+            return (fromMillis == null || segment.lastMillis >= fromMillis)
+                    && (toMillis == null || segment.firstMillis <= toMillis);
+        }
+
+        boolean matches(long time, String session, int eventDifficulty) {
+            return (fromMillis == null || time >= fromMillis)
+                    && (toMillis == null || time <= toMillis)
+                    && (difficulty == null || eventDifficulty == difficulty)
+                    && (sessionId == null || sessionId.equals(session));
+        }
+    }
+
+    private static final long FLUSH_TIMEOUT_SECONDS = 5;
+
+    private EventExport() {}
+
+    /**
+     * Writes the matching events, one per line, after the writer has flushed what was queued so recent
+     * events are included.
+     *
+     * @return the number of events written
+     */
+    public static long write(EventLog log, Filter filter, Writer out) throws IOException {
+        try {
+            log.flush().get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing the event log");
+        } catch (ExecutionException e) {
+            throw new IOException("Event log could not be flushed", e.getCause());
+        } catch (TimeoutException e) {
+            // The writer is behind; export what is already written
+        }
+
+        long count = 0;
+        try (EventLog.Snapshot snapshot = log.snapshot()) {
+            for (EventLog.Segment segment : snapshot.sealed) {
+                if (!filter.overlaps(segment)) continue;
+                InputStream in;
+                try {
+                    in = Files.newInputStream(segment.file);
+                } catch (NoSuchFileException e) {
+                    // Deleted by retention since the snapshot
+                    continue;
+                }
+                count += copy(in, filter, out);
+            }
+            if (snapshot.active != null && filter.overlaps(snapshot.active)) {
+                count += copy(new Prefix(snapshot.activeIn, snapshot.activeLength), filter, out);
+            }
+        }
+        out.flush();
+        return count;
+    }
+
+    private static long copy(InputStream segment, Filter filter, Writer out) throws IOException {
+        long count = 0;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new UntilTruncated(new GZIPInputStream(
+                new BufferedInputStream(segment, 64 * 1024))), StandardCharsets.UTF_8), 64 * 1024)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!matches(filter, line)) continue;
+                out.write(line);
+                out.write('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** The first bytes of the active segment: the batches flushed when the snapshot was taken. */
+    private static final class Prefix extends FilterInputStream {
+        private long remaining;
+
+        Prefix(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = super.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+
+    /**
+     * Ends the stream where a segment recovered after a crash was cut off. The reader above reads ahead,
+     * so letting the EOFException through would lose the lines already decompressed before it.
+     */
+    private static final class UntilTruncated extends FilterInputStream {
+        private boolean truncated;
+
+        UntilTruncated(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (truncated) return -1;
+            try {
+                return super.read();
+            } catch (EOFException e) {
+                truncated = true;
+                return -1;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (truncated) return -1;
+            try {
+                return super.read(b, off, len);
+            } catch (EOFException e) {
+                truncated = true;
+                return -1;
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            return truncated ? 0 : super.available();
+        }
+    }
+
+    /** Epoch milliseconds or an ISO-8601 instant such as 2025-01-31T00:00:00Z. */
+    public static long parseTime(String value) {
+        String trimmed = value.trim();
+        try {
+            return Long.parseLong(trimmed);
+        } catch (NumberFormatException e) {
+            try {
+                return Instant.parse(trimmed).toEpochMilli();
+            } catch (DateTimeParseException notIso) {
+                throw new IllegalArgumentException("Not a time: " + value);
+            }
+        }
+    }
+
+    /** Reads only the leading time, type, sessionId and difficulty fields; unreadable lines never match. */
+    private static boolean matches(Filter filter, String line) {
+        long time = 0;
+        String session = null;
+        int difficulty = 0;
+        try (JsonReader in = new JsonReader(new StringReader(line))) {
+            in.beginObject();
+            int seen = 0;
+            while (seen < 4 && in.hasNext()) {
+                switch (in.nextName()) {
+                    case "time" -> time = in.nextLong();
+                    case "sessionId" -> session = in.nextString();
+                    case "difficulty" -> difficulty = in.nextInt();
+                    default -> in.skipValue();
+                }
+                seen++;
+            }
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            return false;
+        }
+        return filter.matches(time, session, difficulty);
+    }
+}
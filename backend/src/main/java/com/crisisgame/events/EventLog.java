@@ -0,0 +1,397 @@
+package com.crisisgame.events;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import com.crisisgame.model.PlayerProfile;
+import com.crisisgame.model.StartResponse;
+import com.crisisgame.model.TurnResponse;
+import com.crisisgame.util.Env;
+import com.crisisgame.wire.FieldName;
+import com.crisisgame.wire.ModelCodec;
+import com.crisisgame.wire.WireBuffer;
+import com.crisisgame.wire.WireEncoder;
+import com.crisisgame.wire.WireFormat;
+
+/**
+ * Append-only log of gameplay events: one "start" event per game (player profile and opening) and one
+ * "turn" event per played turn (choice and the full response, final scores included), so game data
+ * outlives the in-memory sessions.
+ *
+ * Game threads only hand the finished response to a bounded queue; if the queue is full the event is
+ * dropped and counted rather than making a player wait. One writer thread encodes the events as NDJSON
+ * into gzip segments under EVENT_LOG_DIR (default "events"), flushing after every batch so a crash
+ * loses at most the batch being written. A segment is sealed once it holds EVENT_LOG_SEGMENT_BYTES of
+ * uncompressed events (64 MB) or is EVENT_LOG_SEGMENT_SECONDS old (an hour), and renamed to
+ * events-FIRST-LAST-SEQ.ndjson.gz after the times of its first and last event, so an export can skip
+ * whole segments by time. Each line starts with time, type, sessionId and difficulty, in that order,
+ * for {@link EventExport} to filter on without decoding the rest. An export reads the active segment
+ * up to its last flushed batch rather than sealing it. Sealed segments whose last event is older than
+ * EVENT_LOG_RETAIN_DAYS are deleted; the default of 0 keeps them all.
+ */
+public class EventLog {
+    private static final Pattern SEGMENT = Pattern.compile("events-(\\d+)-(\\d+)-(\\d+)\\.ndjson\\.gz");
+    private static final String ACTIVE = "active.ndjson.gz.part";
+    private static final int GZIP_BUFFER = 64 * 1024;
+
+    private static final FieldName TIME = FieldName.of("time");
+    private static final FieldName TYPE = FieldName.of("type");
+    private static final FieldName SESSION_ID = FieldName.of("sessionId");
+    private static final FieldName DIFFICULTY = FieldName.of("difficulty");
+    private static final FieldName PLAYER = FieldName.of("player");
+    private static final FieldName CHOICE = FieldName.of("choice");
+    private static final FieldName DATA = FieldName.of("data");
+
+    /** A segment file and the time range of its events. */
+    public static final class Segment {
+        public final Path file;
+        public final long firstMillis;
+        public final long lastMillis;
+        final long sequence;
+
+        Segment(Path file, long firstMillis, long lastMillis, long sequence) {
+            this.file = file;
+            this.firstMillis = firstMillis;
+            this.lastMillis = lastMillis;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * What an export reads, taken under the writer's lock: the sealed segments and, if events have been
+     * written to it, the active segment with a stream opened on it at that moment. The stream keeps
+     * reading the same file if the segment is sealed and renamed meanwhile; only its first
+     * {@code activeLength} bytes are complete batches.
+     */
+    public static final class Snapshot implements Closeable {
+        public final List<Segment> sealed;
+        public final Segment active;
+        public final InputStream activeIn;
+        public final long activeLength;
+
+        Snapshot(List<Segment> sealed, Segment active, InputStream activeIn, long activeLength) {
+            this.sealed = sealed;
+            this.active = active;
+            this.activeIn = activeIn;
+            this.activeLength = activeLength;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (activeIn != null) activeIn.close();
+        }
+    }
+
+    /** One queued event; the response objects are not modified after the turn returns them. */
+    private static final class Pending {
+        final long time;
+        final String sessionId;
+        final PlayerProfile player;
+        final String choice;
+        final StartResponse start;
+        final TurnResponse turn;
+        final CompletableFuture<Void> flushed;
+
+        Pending(long time, String sessionId, PlayerProfile player, String choice, StartResponse start, TurnResponse turn,
+                CompletableFuture<Void> flushed) {
+            this.time = time;
+            this.sessionId = sessionId;
+            this.player = player;
+            this.choice = choice;
+            this.start = start;
+            this.turn = turn;
+            this.flushed = flushed;
+        }
+    }
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final long segmentMillis;
+    private final long retainMillis;
+    private final BlockingQueue<Pending> queue;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final WireBuffer buffer = new WireBuffer(4096);
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder writeErrors = new LongAdder();
+    private final AtomicLong sealedSegments = new AtomicLong();
+    private final AtomicLong deletedSegments = new AtomicLong();
+    private volatile String lastError;
+
+    // Guarded by this: the writer thread, or the shutdown hook draining it
+    private OutputStream out;
+    private long activeBytes;
+    private long activeFirst;
+    private long activeLast;
+    private long activeOpenedAt;
+
+    /** A retainMillis of 0 or less keeps every segment. */
+    public EventLog(Path dir, int queueCapacity, long segmentBytes, long segmentMillis, long retainMillis) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.segmentMillis = segmentMillis;
+        this.retainMillis = retainMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public static EventLog fromEnvironment() {
+        String dir = System.getenv("EVENT_LOG_DIR");
+        EventLog log = new EventLog(Paths.get(dir == null || dir.isBlank() ? "events" : dir),
+                Env.intValue("EVENT_LOG_QUEUE", 65_536),
+                Env.intValue("EVENT_LOG_SEGMENT_BYTES", 64 * 1024 * 1024),
+                Env.intValue("EVENT_LOG_SEGMENT_SECONDS", 3600) * 1000L,
+                Env.intValue("EVENT_LOG_RETAIN_DAYS", 0) * 86_400_000L);
+        log.start();
+        return log;
+    }
+
+    /** Recovers segments left open by a crash, then starts the writer thread. */
+    public void start() {
+        try {
+            Files.createDirectories(dir);
+            long maxSequence = -1;
+            for (Segment segment : segments()) maxSequence = Math.max(maxSequence, segment.sequence);
+            nextSequence.set(maxSequence + 1);
+            Path leftover = dir.resolve(ACTIVE);
+            if (Files.exists(leftover)) {
+                // Readable up to its last flushed batch; its first event time is unknown
+                long last = Files.getLastModifiedTime(leftover).toMillis();
+                Files.move(leftover, dir.resolve(segmentName(0, last, nextSequence.getAndIncrement())));
+                System.out.println("Recovered an unsealed event log segment");
+            }
+            deleteExpired();
+        } catch (IOException e) {
+            lastError = e.getMessage();
+            System.out.println("Event log directory " + dir + " is not usable: " + e.getMessage());
+        }
+        Thread writer = new Thread(this::run, "event-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "event-log-shutdown"));
+        System.out.println("Writing gameplay events to " + dir.toAbsolutePath());
+    }
+
+    public void recordStart(PlayerProfile player, StartResponse response) {
+        enqueue(new Pending(System.currentTimeMillis(), response.sessionId, player, null, response, null, null));
+    }
+
+    public void recordTurn(PlayerProfile player, String choice, TurnResponse response) {
+        enqueue(new Pending(System.currentTimeMillis(), response.sessionId, player, choice, null, response, null));
+    }
+
+    /**
+     * Completes once everything queued before this call is written and flushed, so an export sees it.
+     * Returns at once if the queue is full; the newest events then miss this export.
+     */
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> flushed = new CompletableFuture<>();
+        if (!queue.offer(new Pending(0, null, null, null, null, null, flushed))) flushed.complete(null);
+        return flushed;
+    }
+
+    /** The segments to export as of now; close it to release the active segment's stream. */
+    public synchronized Snapshot snapshot() throws IOException {
+        List<Segment> sealed = segments();
+        if (out == null || activeBytes == 0) return new Snapshot(sealed, null, null, 0);
+        // Nothing is written while the lock is held, so the file ends at a flushed batch
+        Path file = dir.resolve(ACTIVE);
+        InputStream in = Files.newInputStream(file);
+        return new Snapshot(sealed, new Segment(file, activeFirst, activeLast, nextSequence.get()), in, Files.size(file));
+    }
+
+    /** Sealed segments, oldest first. */
+    public List<Segment> segments() throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "events-*.ndjson.gz")) {
+            for (Path file : files) {
+                Matcher m = SEGMENT.matcher(file.getFileName().toString());
+                if (!m.matches()) continue;
+                segments.add(new Segment(file, Long.parseLong(m.group(1)), Long.parseLong(m.group(2)), Long.parseLong(m.group(3))));
+            }
+        }
+        segments.sort(Comparator.comparingLong((Segment s) -> s.sequence));
+        return segments;
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("dir", dir.toAbsolutePath().toString());
+        m.put("queued", queue.size());
+        m.put("written", written.sum());
+        m.put("dropped", dropped.sum());
+        m.put("writeErrors", writeErrors.sum());
+        m.put("sealedSegments", sealedSegments.get());
+        m.put("deletedSegments", deletedSegments.get());
+        m.put("lastError", lastError);
+        return m;
+    }
+
+    private void enqueue(Pending event) {
+        if (!queue.offer(event)) dropped.increment();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        while (true) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, 1024);
+                }
+                writeBatch(batch);
+                batch.clear();
+                sealIfDue();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                // Drop the broken segment's stream; the next event opens a fresh one
+                writeErrors.increment();
+                lastError = e.getMessage();
+                System.out.println("Event log write failed: " + e.getMessage());
+                abandonActive();
+                for (Pending pending : batch) if (pending.flushed != null) pending.flushed.complete(null);
+                batch.clear();
+            }
+        }
+    }
+
+    private synchronized void writeBatch(List<Pending> batch) throws IOException {
+        boolean wrote = false;
+        for (Pending event : batch) {
+            if (event.flushed != null) {
+                if (wrote) out.flush();
+                wrote = false;
+                event.flushed.complete(null);
+                continue;
+            }
+            if (out == null) openActive();
+            buffer.reset();
+            encode(event, WireFormat.JSON.encoder(buffer));
+            buffer.writeTo(out);
+            out.write('\n');
+            activeBytes += buffer.size() + 1;
+            if (activeFirst == 0) activeFirst = event.time;
+            activeLast = event.time;
+            written.increment();
+            wrote = true;
+        }
+        // Sync flush, so the segment is readable up to here even if the process dies
+        if (wrote) out.flush();
+    }
+
+    /** {"time","type","sessionId","difficulty", then "player" for a start or "choice" for a turn, then "data"} */
+    private static void encode(Pending event, WireEncoder out) {
+        out.beginObject(event.start != null || event.choice != null ? 6 : 5);
+        out.name(TIME); out.value(event.time);
+        out.name(TYPE); out.value(event.start != null ? "start" : "turn");
+        out.name(SESSION_ID); out.value(event.sessionId);
+        out.name(DIFFICULTY); out.value(event.player.getDifficulty());
+        if (event.start != null) {
+            out.name(PLAYER); ModelCodec.write(out, event.player);
+            out.name(DATA); ModelCodec.write(out, event.start);
+        } else {
+            if (event.choice != null) { out.name(CHOICE); out.value(event.choice); }
+            out.name(DATA); ModelCodec.write(out, event.turn);
+        }
+        out.endObject();
+    }
+
+    private void openActive() throws IOException {
+        out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(dir.resolve(ACTIVE)), GZIP_BUFFER),
+                GZIP_BUFFER, true);
+        activeBytes = 0;
+        activeFirst = 0;
+        activeLast = 0;
+        activeOpenedAt = System.currentTimeMillis();
+    }
+
+    /** Finishes the gzip stream and renames the segment after its time range; no-op without events. */
+    private void sealActive() throws IOException {
+        if (out == null) return;
+        OutputStream closing = out;
+        out = null;
+        closing.close();
+        Path sealed = dir.resolve(segmentName(activeFirst, activeLast, nextSequence.getAndIncrement()));
+        Files.move(dir.resolve(ACTIVE), sealed, StandardCopyOption.ATOMIC_MOVE);
+        sealedSegments.incrementAndGet();
+        deleteExpired();
+    }
+
+    /** Deletes sealed segments whose last event is older than the retention period. */
+    private void deleteExpired() {
+        if (retainMillis <= 0) return;
+        long cutoff = System.currentTimeMillis() - retainMillis;
+        try {
+            for (Segment segment : segments()) {
+                if (segment.lastMillis >= cutoff) continue;
+                Files.deleteIfExists(segment.file);
+                deletedSegments.incrementAndGet();
+            }
+        } catch (IOException e) {
+            lastError = e.getMessage();
+            System.out.println("Could not delete expired event log segments: " + e.getMessage());
+        }
+    }
+
+    private synchronized void sealIfDue() throws IOException {
+        if (out != null && (activeBytes >= segmentBytes || System.currentTimeMillis() - activeOpenedAt >= segmentMillis)) {
+            sealActive();
+        }
+    }
+
+    /** After a write error: keeps what reached the file as a sealed segment, like a crash recovery would. */
+    private synchronized void abandonActive() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            // already failing; the flushed part of the file is still readable
+        }
+        out = null;
+        try {
+            Files.move(dir.resolve(ACTIVE), dir.resolve(segmentName(activeFirst, activeLast, nextSequence.getAndIncrement())));
+        } catch (IOException e) {
+            System.out.println("Could not set aside the failed event log segment: " + e.getMessage());
+        }
+    }
+
+    /** Writes what is queued and seals the active segment; runs at shutdown. */
+    private synchronized void close() {
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        try {
+            writeBatch(rest);
+            sealActive();
+        } catch (IOException e) {
+            System.out.println("Event log could not be sealed at shutdown: " + e.getMessage());
+        }
+    }
+
+    private static String segmentName(long firstMillis, long lastMillis, long sequence) {
+        return "events-" + firstMillis + "-" + lastMillis + "-" + sequence + ".ndjson.gz";
+    }
+}
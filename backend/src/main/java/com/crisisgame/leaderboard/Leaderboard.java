@@ -0,0 +1,245 @@
+package com.crisisgame.leaderboard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import com.crisisgame.util.Env;
+import com.google.gson.Gson;
+
+/**
+ * Global and per-class rankings of finished games.
+ *
+ * Each board keeps, per difficulty, a histogram of final scores (one atomic counter per possible
+ * score, 0-100) and a top-K list held as an immutable sorted array swapped in with CAS. Recording a
+ * game and ranking it are lock-free and bounded by the score range, so the final turn gets its
+ * percentile without scanning past games. Reads for /api/leaderboard are served from a serialized
+ * snapshot that is rebuilt at most once per LEADERBOARD_SNAPSHOT_MS, by one thread, while the others
+ * keep serving the previous bytes.
+ */
+public class Leaderboard {
+    public static final int DIFFICULTIES = 5;
+    private static final int MAX_SCORE = 100;
+    private static final int MAX_NAME_LENGTH = 40;
+    private static final Pattern CLASS_CODE = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+
+    /** One finished game on a top-K list. */
+    public static final class Entry {
+        public final String name;
+        public final int score;
+        public final long finishedAtMillis;
+
+        Entry(String name, int score, long finishedAtMillis) {
+            this.name = name;
+            this.score = score;
+            this.finishedAtMillis = finishedAtMillis;
+        }
+    }
+
+    /** Where a just-recorded game landed; the class rank is null without a (known) class. */
+    public static final class Placement {
+        public final double percentile;
+        public final Double classPercentile;
+
+        Placement(double percentile, Double classPercentile) {
+            this.percentile = percentile;
+            this.classPercentile = classPercentile;
+        }
+    }
+
+    private final Gson gson = new Gson();
+    private final int topK;
+    private final long snapshotMillis;
+    private final int maxClasses;
+    private final Board global = new Board("global");
+    private final Map<String, Board> classes = new ConcurrentHashMap<>();
+    private final AtomicLong rejectedClasses = new AtomicLong();
+
+    public Leaderboard(int topK, long snapshotMillis, int maxClasses) {
+        this.topK = topK;
+        this.snapshotMillis = snapshotMillis;
+        this.maxClasses = maxClasses;
+    }
+
+    public static Leaderboard fromEnvironment() {
+        return new Leaderboard(
+                Env.intValue("LEADERBOARD_TOP_K", 10),
+                Env.intValue("LEADERBOARD_SNAPSHOT_MS", 1000),
+                Env.intValue("LEADERBOARD_MAX_CLASSES", 1000));
+    }
+
+    /** Normalized class code, or null if absent or not a valid code. */
+    public static String classCode(String raw) {
+        if (raw == null) return null;
+        String code = raw.trim().toUpperCase();
+        return CLASS_CODE.matcher(code).matches() ? code : null;
+    }
+
+    /** Records a finished game and returns its percentile rank among games of the same difficulty. */
+    public Placement record(String classCode, String name, int difficulty, int score) {
+        int d = Math.max(1, Math.min(DIFFICULTIES, difficulty)) - 1;
+        int s = Math.max(0, Math.min(MAX_SCORE, score));
+        Entry entry = new Entry(displayName(name), s, System.currentTimeMillis());
+
+        double percentile = global.add(d, entry);
+        Double classPercentile = null;
+        Board board = classBoard(classCode(classCode));
+        if (board != null) classPercentile = board.add(d, entry);
+        return new Placement(percentile, classPercentile);
+    }
+
+    /** Serialized snapshot for the global board (classCode null) or a class; null for an unknown class. */
+    public byte[] snapshotJson(String classCode) {
+        if (classCode == null) return global.snapshot();
+        String code = classCode(classCode);
+        Board board = code == null ? null : classes.get(code);
+        return board == null ? null : board.snapshot();
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        List<Long> players = new ArrayList<>();
+        for (int d = 0; d < DIFFICULTIES; d++) players.add(global.players.get(d));
+        m.put("playersPerDifficulty", players);
+        m.put("classes", classes.size());
+        m.put("rejectedClasses", rejectedClasses.get());
+        m.put("snapshotRebuilds", global.rebuilds.get());
+        return m;
+    }
+
+    private Board classBoard(String code) {
+        if (code == null) return null;
+        Board board = classes.get(code);
+        if (board != null) return board;
+        if (classes.size() >= maxClasses) {
+            rejectedClasses.incrementAndGet();
+            return null;
+        }
+        return classes.computeIfAbsent(code, Board::new);
+    }
+
+    private static String displayName(String name) {
+        if (name == null || name.isBlank()) return "Anonymous";
+        String trimmed = name.trim();
+        return trimmed.length() > MAX_NAME_LENGTH ? trimmed.substring(0, MAX_NAME_LENGTH) : trimmed;
+    }
+
+    private final class Board {
+        private final String scope;
+        private final AtomicLongArray[] histograms = new AtomicLongArray[DIFFICULTIES];
+        private final AtomicLongArray players = new AtomicLongArray(DIFFICULTIES);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private final AtomicReference<Entry[]>[] top = new AtomicReference[DIFFICULTIES];
+        private final AtomicLong version = new AtomicLong();
+        private final AtomicBoolean rebuilding = new AtomicBoolean();
+        private final AtomicLong rebuilds = new AtomicLong();
+        private volatile Snapshot cached;
+
+        Board(String scope) {
+            this.scope = scope;
+            for (int d = 0; d < DIFFICULTIES; d++) {
+                histograms[d] = new AtomicLongArray(MAX_SCORE + 1);
+                top[d] = new AtomicReference<>(new Entry[0]);
+            }
+        }
+
+        /** Adds the game and returns the share of other games it beat, ties counting half. */
+        double add(int d, Entry entry) {
+            AtomicLongArray histogram = histograms[d];
+            histogram.incrementAndGet(entry.score);
+            long total = players.incrementAndGet(d);
+            offer(d, entry);
+            version.incrementAndGet();
+
+            long below = 0;
+            for (int s = 0; s < entry.score; s++) below += histogram.get(s);
+            long ties = Math.max(0, histogram.get(entry.score) - 1);
+            long others = total - 1;
+            if (others <= 0) return 100.0;
+            return Math.round(1000.0 * (below + ties / 2.0) / others) / 10.0;
+        }
+
+        private void offer(int d, Entry entry) {
+            AtomicReference<Entry[]> ref = top[d];
+            while (true) {
+                Entry[] current = ref.get();
+                // Fast path: a full list whose lowest score is not beaten stays as it is
+                if (current.length >= topK && current[current.length - 1].score >= entry.score) return;
+                int at = 0;
+                while (at < current.length && current[at].score >= entry.score) at++;
+                Entry[] next = new Entry[Math.min(topK, current.length + 1)];
+                System.arraycopy(current, 0, next, 0, at);
+                next[at] = entry;
+                System.arraycopy(current, at, next, at + 1, next.length - at - 1);
+                if (ref.compareAndSet(current, next)) return;
+            }
+        }
+
+        byte[] snapshot() {
+            Snapshot snapshot = cached;
+            long now = System.currentTimeMillis();
+            if (snapshot != null && (snapshot.version == version.get() || now - snapshot.builtAtMillis < snapshotMillis)) {
+                return snapshot.json;
+            }
+            if (!rebuilding.compareAndSet(false, true)) {
+                // Someone else is rebuilding; serve the previous bytes meanwhile. Before the first
+                // snapshot exists there are none, so build a copy for this caller without publishing it.
+                if (snapshot != null) return snapshot.json;
+                return gson.toJson(describe(now)).getBytes(StandardCharsets.UTF_8);
+            }
+            // Only the thread that set the flag clears it
+            try {
+                long seen = version.get();
+                Snapshot rebuilt = new Snapshot(seen, now, gson.toJson(describe(now)).getBytes(StandardCharsets.UTF_8));
+                cached = rebuilt;
+                rebuilds.incrementAndGet();
+                return rebuilt.json;
+            } finally {
+                rebuilding.set(false);
+            }
+        }
+
+        private Map<String, Object> describe(long now) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("scope", scope);
+            m.put("generatedAtMillis", now);
+            List<Map<String, Object>> difficulties = new ArrayList<>();
+            for (int d = 0; d < DIFFICULTIES; d++) {
+                Map<String, Object> level = new LinkedHashMap<>();
+                level.put("difficulty", d + 1);
+                level.put("players", players.get(d));
+                Map<Integer, Long> histogram = new LinkedHashMap<>();
+                for (int s = 0; s <= MAX_SCORE; s++) {
+                    long count = histograms[d].get(s);
+                    if (count != 0) histogram.put(s, count);
+                }
+                level.put("histogram", histogram);
+                level.put("top", Arrays.asList(top[d].get()));
+                difficulties.add(level);
+            }
+            m.put("difficulties", difficulties);
+            return m;
+        }
+    }
+
+    private static final class Snapshot {
+        final long version;
+        final long builtAtMillis;
+        final byte[] json;
+
+        Snapshot(long version, long builtAtMillis, byte[] json) {
+            this.version = version;
+            this.builtAtMillis = builtAtMillis;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.crisisgame.loadtest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Replays recorded games from an /api/export file against a running GameServer and diffs every
+ * response with the recorded one, for regression and performance comparisons between builds.
+ *
+ * Each game is started with the player profile it was recorded with, seed included, so the server
+ * makes the same random picks, and its recorded choices are sent back to back without think time.
+ * Mock-mode games then reproduce exactly; text that came from Gemini (live turns, the final
+ * assessment) only does when the server talks to the deterministic stand-in, so those fields can be
+ * left out of the diff with --ignore. Games recorded before seeds were logged are skipped.
+ *
+ * Seeded starts need the admin token. The server logs, ranks and analyzes the replayed games like any
+ * other, so replay against a separate instance, not production.
+ *
+ * <pre>
+ * java -cp target/classes:... com.crisisgame.loadtest.GameReplay --events games.ndjson[.gz] \
+ *     [--url http://localhost:8081] [--token T] [--players 4] [--limit 1000] [--ignore field,...]
+ *     [--max-diffs 20] [--baseline replay-old.json] [--out replay.json]
+ * </pre>
+ */
+public final class GameReplay {
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final int MAX_DIFF_CHARS = 200;
+    // Differ between any two runs: new session ids, and ranks that depend on the other games on the server
+    private static final String DEFAULT_IGNORE = "sessionId,percentileRank,classPercentileRank";
+
+    private enum Endpoint { START, TURN }
+
+    /** A game as it was recorded: the start event and its turn events in order. */
+    private static final class Recorded {
+        final String sessionId;
+        final JsonObject player;
+        final JsonObject start;
+        final List<String> choices = new ArrayList<>();
+        final List<JsonObject> turns = new ArrayList<>();
+
+        Recorded(String sessionId, JsonObject player, JsonObject start) {
+            this.sessionId = sessionId;
+            this.player = player;
+            this.start = start;
+        }
+    }
+
+    private final Config config;
+    private final OkHttpClient http;
+    private final Gson gson = new Gson();
+
+    private GameReplay(Config config) {
+        this.config = config;
+        this.http = new OkHttpClient.Builder()
+                .protocols(List.of(Protocol.HTTP_1_1))
+                .connectionPool(new ConnectionPool(config.players, 5, TimeUnit.MINUTES))
+                .retryOnConnectionFailure(false)
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(config.timeoutSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = Config.parse(args);
+        GameReplay replay = new GameReplay(config);
+        Map<String, Object> report = replay.run();
+
+        String json = new GsonBuilder().setPrettyPrinting().serializeNulls().create().toJson(report);
+        if (config.out != null) {
+            try (Writer w = Files.newBufferedWriter(Path.of(config.out), StandardCharsets.UTF_8)) {
+                w.write(json);
+            }
+            System.out.println("Wrote " + config.out);
+        }
+        System.out.println(json);
+        replay.http.dispatcher().executorService().shutdown();
+        replay.http.connectionPool().evictAll();
+        // Non-zero when the build under test told a different story, so a CI step can fail on it
+        if (((Number) report.get("mismatchedGames")).longValue() > 0 || ((Number) report.get("failedGames")).longValue() > 0) {
+            System.exit(1);
+        }
+    }
+
+    private Map<String, Object> run() throws Exception {
+        List<Recorded> games = new ArrayList<>();
+        long unseeded = read(games);
+        System.out.printf("Replaying %d game(s) from %s against %s with %d player(s)%s%n", games.size(), config.events,
+                config.url, config.players, unseeded > 0 ? ", skipping " + unseeded + " recorded without a seed" : "");
+
+        ExecutorService pool = Executors.newFixedThreadPool(config.players, r -> {
+            Thread t = new Thread(r, "replay-player");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger next = new AtomicInteger();
+        long started = System.nanoTime();
+        List<Future<Player>> futures = new ArrayList<>();
+        for (int i = 0; i < config.players; i++) {
+            futures.add(pool.submit(() -> {
+                Player player = new Player();
+                for (int g; (g = next.getAndIncrement()) < games.size(); ) player.replay(games.get(g));
+                return player;
+            }));
+        }
+        List<Player> players = new ArrayList<>();
+        for (Future<Player> f : futures) players.add(f.get());
+        long elapsedNanos = System.nanoTime() - started;
+        pool.shutdown();
+
+        return report(players, games.size(), unseeded, elapsedNanos);
+    }
+
+    /** Reads the export into games, in the order they started; returns how many had no seed. */
+    private long read(List<Recorded> games) throws IOException {
+        Map<String, Recorded> bySession = new LinkedHashMap<>();
+        long unseeded = 0;
+        try (BufferedReader in = new BufferedReader(open(Path.of(config.events)), 64 * 1024)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JsonObject event = JsonParser.parseString(line).getAsJsonObject();
+                String sessionId = event.get("sessionId").getAsString();
+                String type = event.get("type").getAsString();
+                if (type.equals("start")) {
+                    JsonObject player = event.getAsJsonObject("player");
+                    if (!player.has("seed")) {
+                        unseeded++;
+                    } else if (bySession.size() < config.limit) {
+                        bySession.put(sessionId, new Recorded(sessionId, player, event.getAsJsonObject("data")));
+                    }
+                } else if (type.equals("turn")) {
+                    // Turns of games whose start is outside the export cannot be replayed
+                    Recorded game = bySession.get(sessionId);
+                    if (game == null || !event.has("choice")) continue;
+                    game.choices.add(event.get("choice").getAsString());
+                    game.turns.add(event.getAsJsonObject("data"));
+                }
+            }
+        }
+        games.addAll(bySession.values());
+        return unseeded;
+    }
+
+    /** The export as text, gunzipped if it is compressed like the event log's own segment files. */
+    private static Reader open(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024);
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        if (b1 == 0x1f && b2 == 0x8b) in = new GZIPInputStream(in, 64 * 1024);
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+
+    private Map<String, Object> report(List<Player> players, int games, long unseeded, long elapsedNanos) throws IOException {
+        double seconds = elapsedNanos / 1e9;
+        long matched = 0;
+        long mismatched = 0;
+        long failed = 0;
+        long mismatchedResponses = 0;
+        Map<String, Long> fields = new TreeMap<>();
+        List<Map<String, Object>> diffs = new ArrayList<>();
+        for (Player p : players) {
+            matched += p.matchedGames;
+            mismatched += p.mismatchedGames;
+            failed += p.failedGames;
+            mismatchedResponses += p.mismatchedResponses;
+            p.fieldMismatches.forEach((field, count) -> fields.merge(field, count, Long::sum));
+            for (Map<String, Object> diff : p.diffs) {
+                if (diffs.size() < config.maxDiffs) diffs.add(diff);
+            }
+        }
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Endpoint e : Endpoint.values()) {
+            LatencyHistogram service = new LatencyHistogram();
+            long errors = 0;
+            for (Player p : players) {
+                service.add(p.service[e.ordinal()]);
+                errors += p.errors[e.ordinal()];
+            }
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("requests", service.count());
+            m.put("errors", errors);
+            m.put("throughputPerSecond", round(service.count() / seconds));
+            m.put("serviceTimeMs", service.summary());
+            endpoints.put(e.name().toLowerCase(), m);
+        }
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("events", config.events);
+        settings.put("url", config.url);
+        settings.put("players", config.players);
+        settings.put("ignore", config.ignore);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("settings", settings);
+        report.put("elapsedSeconds", round(seconds));
+        report.put("games", games);
+        report.put("skippedUnseeded", unseeded);
+        report.put("matchedGames", matched);
+        report.put("mismatchedGames", mismatched);
+        report.put("failedGames", failed);
+        report.put("mismatchedResponses", mismatchedResponses);
+        report.put("fieldMismatches", fields);
+        report.put("gamesPerSecond", round(games / seconds));
+        report.put("endpoints", endpoints);
+        report.put("diffs", diffs);
+        if (config.baseline != null) report.put("versusBaseline", compare(endpoints));
+        return report;
+    }
+
+    /** Change of each service-time statistic against the baseline report, in percent. */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> compare(Map<String, Object> endpoints) throws IOException {
+        Map<String, Object> baseline;
+        try (Reader in = Files.newBufferedReader(Path.of(config.baseline), StandardCharsets.UTF_8)) {
+            baseline = gson.fromJson(in, Map.class);
+        }
+        Map<String, Object> baseEndpoints = (Map<String, Object>) baseline.get("endpoints");
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("baseline", config.baseline);
+        for (Endpoint e : Endpoint.values()) {
+            String name = e.name().toLowerCase();
+            Map<String, Object> base = baseEndpoints == null ? null : (Map<String, Object>) baseEndpoints.get(name);
+            if (base == null) continue;
+            Map<String, Object> before = (Map<String, Object>) base.get("serviceTimeMs");
+            Map<String, Object> after = (Map<String, Object>) ((Map<String, Object>) endpoints.get(name)).get("serviceTimeMs");
+            Map<String, Object> changes = new LinkedHashMap<>();
+            for (String stat : List.of("mean", "p50", "p90", "p99", "p999")) {
+                double was = ((Number) before.get(stat)).doubleValue();
+                double now = ((Number) after.get(stat)).doubleValue();
+                Map<String, Object> change = new LinkedHashMap<>();
+                change.put("baselineMs", was);
+                change.put("currentMs", now);
+                change.put("changePercent", was == 0 ? null : round((now - was) * 100 / was));
+                changes.put(stat, change);
+            }
+            result.put(name, changes);
+            Map<String, Object> p50 = (Map<String, Object>) changes.get("p50");
+            Map<String, Object> p99 = (Map<String, Object>) changes.get("p99");
+            System.out.printf("%s: p50 %.2f -> %.2f ms, p99 %.2f -> %.2f ms%n", name,
+                    p50.get("baselineMs"), p50.get("currentMs"), p99.get("baselineMs"), p99.get("currentMs"));
+        }
+        return result;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /** One replaying thread; owns its histograms and counters, so nothing is shared while the run is going. */
+    private final class Player {
+        final LatencyHistogram[] service = {new LatencyHistogram(), new LatencyHistogram()};
+        final long[] errors = new long[2];
+        final Map<String, Long> fieldMismatches = new TreeMap<>();
+        final List<Map<String, Object>> diffs = new ArrayList<>();
+        long matchedGames;
+        long mismatchedGames;
+        long failedGames;
+        long mismatchedResponses;
+
+        void replay(Recorded game) {
+            JsonObject response = send(Endpoint.START, game.player.toString());
+            if (response == null) {
+                failedGames++;
+                return;
+            }
+            boolean same = compare(game, 1, "start", game.start, response);
+            String sessionId = response.get("sessionId").getAsString();
+            for (int i = 0; i < game.choices.size(); i++) {
+                JsonObject body = new JsonObject();
+                body.addProperty("sessionId", sessionId);
+                body.addProperty("choice", game.choices.get(i));
+                response = send(Endpoint.TURN, body.toString());
+                if (response == null) {
+                    failedGames++;
+                    return;
+                }
+                same &= compare(game, i + 2, "turn", game.turns.get(i), response);
+            }
+            if (same) matchedGames++;
+            else mismatchedGames++;
+        }
+
+        /** Compares the top-level fields of a recorded and a replayed response; true if they all match. */
+        private boolean compare(Recorded game, int turn, String endpoint, JsonObject recorded, JsonObject replayed) {
+            Set<String> names = new LinkedHashSet<>(recorded.keySet());
+            names.addAll(replayed.keySet());
+            boolean same = true;
+            for (String name : names) {
+                if (config.ignore.contains(name)) continue;
+                JsonElement was = recorded.get(name);
+                JsonElement now = replayed.get(name);
+                // A field left out and an explicit null are the same to clients
+                boolean wasNull = was == null || was.isJsonNull();
+                boolean nowNull = now == null || now.isJsonNull();
+                if (wasNull ? nowNull : was.equals(now)) continue;
+                same = false;
+                fieldMismatches.merge(endpoint + "." + name, 1L, Long::sum);
+                if (diffs.size() < config.maxDiffs) {
+                    Map<String, Object> diff = new LinkedHashMap<>();
+                    diff.put("sessionId", game.sessionId);
+                    diff.put("turn", turn);
+                    diff.put("field", name);
+                    diff.put("recorded", shorten(was));
+                    diff.put("replayed", shorten(now));
+                    diffs.add(diff);
+                }
+            }
+            if (!same) mismatchedResponses++;
+            return same;
+        }
+
+        private JsonObject send(Endpoint endpoint, String body) {
+            Request.Builder request = new Request.Builder()
+                    .url(config.url + (endpoint == Endpoint.START ? "/api/game/start" : "/api/game/turn"))
+                    .post(RequestBody.create(body, JSON));
+            if (config.token != null) request.header("Authorization", "Bearer " + config.token);
+            long sent = System.nanoTime();
+            try (Response response = http.newCall(request.build()).execute()) {
+                ResponseBody responseBody = response.body();
+                String text = responseBody == null ? "" : responseBody.string();
+                long done = System.nanoTime();
+                if (!response.isSuccessful()) {
+                    errors[endpoint.ordinal()]++;
+                    System.out.println(endpoint.name().toLowerCase() + " failed with " + response.code() + ": " + text);
+                    return null;
+                }
+                service[endpoint.ordinal()].record((done - sent) / 1000);
+                return JsonParser.parseString(text).getAsJsonObject();
+            } catch (IOException | RuntimeException e) {
+                errors[endpoint.ordinal()]++;
+                return null;
+            }
+        }
+    }
+
+    private static String shorten(JsonElement value) {
+        if (value == null) return null;
+        String text = value.isJsonPrimitive() ? value.getAsString() : value.toString();
+        return text.length() <= MAX_DIFF_CHARS ? text : text.substring(0, MAX_DIFF_CHARS) + "...";
+    }
+
+    private static final class Config {
+        String events;
+        String url = "http://localhost:8081";
+        String token = System.getenv("ADMIN_TOKEN");
+        int players = 4;
+        int limit = Integer.MAX_VALUE;
+        int maxDiffs = 20;
+        int timeoutSeconds = 120;
+        Set<String> ignore = new LinkedHashSet<>(List.of(DEFAULT_IGNORE.split(",")));
+        String baseline;
+        String out;
+
+        static Config parse(String[] args) {
+            Config c = new Config();
+            for (int i = 0; i < args.length; i++) {
+                String value = i + 1 < args.length ? args[i + 1] : null;
+                switch (args[i]) {
+                    case "--events" -> c.events = value;
+                    case "--url" -> c.url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                    case "--token" -> c.token = value;
+                    case "--players" -> c.players = Integer.parseInt(value);
+                    case "--limit" -> c.limit = Integer.parseInt(value);
+                    case "--ignore" -> {
+                        for (String field : value.split(",")) if (!field.isBlank()) c.ignore.add(field.trim());
+                    }
+                    case "--max-diffs" -> c.maxDiffs = Integer.parseInt(value);
+                    case "--timeout-s" -> c.timeoutSeconds = Integer.parseInt(value);
+                    case "--baseline" -> c.baseline = value;
+                    case "--out" -> c.out = value;
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+                i++;
+            }
+            if (c.events == null) throw new IllegalArgumentException("--events is required (a file saved from /api/export)");
+            if (c.players < 1) throw new IllegalArgumentException("Need at least one player");
+            if (c.token != null && c.token.isBlank()) c.token = null;
+            return c;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.crisisgame.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Log-linear latency histogram in microseconds, in the style of HdrHistogram: values below 128 get
+ * their own bucket, larger values keep their top 7 significant bits, so every reported percentile is
+ * within 1/64 (1.6%) of the true value from 1 us up to hours with a fixed 3.7k-slot array. Not
+ * thread-safe; each player records into its own and they are merged at the end.
+ */
+final class LatencyHistogram {
+    private static final int LINEAR = 128;
+    private static final int HALF = LINEAR / 2;
+    private static final int SLOTS = LINEAR + (63 - 6) * HALF;
+
+    private final long[] counts = new long[SLOTS];
+    private long total;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    void record(long micros) {
+        long v = Math.max(0, micros);
+        counts[index(v)]++;
+        total++;
+        sum += v;
+        min = Math.min(min, v);
+        max = Math.max(max, v);
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < SLOTS; i++) counts[i] += other.counts[i];
+        total += other.total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return total;
+    }
+
+    /** Smallest bucket upper bound covering the given percentile (0-100] of recorded values. */
+    long percentile(double p) {
+        if (total == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            seen += counts[i];
+            if (seen >= target) return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+
+    /** Summary in milliseconds, for the JSON report. */
+    Map<String, Object> summary() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("count", total);
+        m.put("min", total == 0 ? 0 : millis(min));
+        m.put("mean", total == 0 ? 0 : millis(sum / total));
+        m.put("p50", millis(percentile(50)));
+        m.put("p90", millis(percentile(90)));
+        m.put("p99", millis(percentile(99)));
+        m.put("p999", millis(percentile(99.9)));
+        m.put("max", millis(max));
+        return m;
+    }
+
+    static int index(long v) {
+        if (v < LINEAR) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - 6;
+        return LINEAR + (shift - 1) * HALF + (int) (v >>> shift) - HALF;
+    }
+
+    static long upperBound(int index) {
+        if (index < LINEAR) return index;
+        int shift = (index - LINEAR) / HALF + 1;
+        long sub = (index - LINEAR) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    private static double millis(long micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+}
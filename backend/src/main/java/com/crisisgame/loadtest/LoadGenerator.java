@@ -0,0 +1,330 @@
+package com.crisisgame.loadtest;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Load generator for the game API: N simulated players, each playing whole games (start, then turns
+ * until gameOver) against a running GameServer in mock mode or backed by the Gemini stand-in.
+ *
+ * Latency is corrected for coordinated omission the way wrk2 does it. Each player plans its requests
+ * on a fixed timeline: the next request is due one response budget (--expected-ms) plus a think time
+ * after the previous one was due. A player who is answered within budget waits for the due time; one
+ * held up by a stall sends the overdue requests straight away, and their latency is measured from when
+ * they were due rather than when they could finally be sent, so a stall counts against every request it
+ * delayed. The raw send-to-response time is reported alongside as serviceTime.
+ *
+ * <pre>
+ * java -cp target/classes:... com.crisisgame.loadtest.LoadGenerator \
+ *     [--url http://localhost:8081] [--players 50] [--games 2 | --duration-s 60] [--think-ms 1000:3000]
+ *     [--expected-ms 250] [--difficulty 1:1,2:1,3:1,4:1,5:1] [--ramp-ms 5000] [--seed 1] [--out report.json]
+ * </pre>
+ */
+public final class LoadGenerator {
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final String CHOICES = "ABCDE";
+    private static final int MAX_TURNS = 20; // safety stop if a game never reports gameOver
+
+    private enum Endpoint { START, TURN }
+
+    private final Config config;
+    private final OkHttpClient http;
+
+    private LoadGenerator(Config config) {
+        this.config = config;
+        // One connection per player, no silent retries: a failed request is a failed request
+        this.http = new OkHttpClient.Builder()
+                .protocols(List.of(Protocol.HTTP_1_1))
+                .connectionPool(new ConnectionPool(config.players, 5, TimeUnit.MINUTES))
+                .retryOnConnectionFailure(false)
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(config.timeoutSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = Config.parse(args);
+        LoadGenerator generator = new LoadGenerator(config);
+        Map<String, Object> report = generator.run();
+
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(report);
+        if (config.out != null) {
+            try (Writer w = Files.newBufferedWriter(Path.of(config.out), StandardCharsets.UTF_8)) {
+                w.write(json);
+            }
+            System.out.println("Wrote " + config.out);
+        }
+        System.out.println(json);
+        generator.http.dispatcher().executorService().shutdown();
+        generator.http.connectionPool().evictAll();
+    }
+
+    private Map<String, Object> run() throws Exception {
+        System.out.printf("%d players against %s, %s, think %d-%d ms, budget %d ms%n", config.players, config.url,
+                config.durationSeconds > 0 ? config.durationSeconds + " s" : config.games + " game(s) each",
+                config.thinkMinMs, config.thinkMaxMs, config.expectedMs);
+
+        // Java 17 target: one platform thread per player; they spend their time asleep or blocked on I/O
+        ExecutorService pool = Executors.newFixedThreadPool(config.players, r -> {
+            Thread t = new Thread(r, "load-player");
+            t.setDaemon(true);
+            return t;
+        });
+        long started = System.nanoTime();
+        long deadline = config.durationSeconds > 0 ? started + TimeUnit.SECONDS.toNanos(config.durationSeconds) : Long.MAX_VALUE;
+        List<Future<Player>> futures = new ArrayList<>();
+        for (int i = 0; i < config.players; i++) {
+            long rampOffset = config.players == 1 ? 0 : TimeUnit.MILLISECONDS.toNanos(config.rampMs) * i / (config.players - 1);
+            Player player = new Player(new SplittableRandom(config.seed + i), started + rampOffset, deadline);
+            futures.add(pool.submit(() -> {
+                player.play();
+                return player;
+            }));
+        }
+        List<Player> players = new ArrayList<>();
+        for (Future<Player> f : futures) players.add(f.get());
+        long elapsedNanos = System.nanoTime() - started;
+        pool.shutdown();
+
+        return report(players, elapsedNanos);
+    }
+
+    private Map<String, Object> report(List<Player> players, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long games = 0;
+        long failedGames = 0;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Endpoint e : Endpoint.values()) {
+            LatencyHistogram latency = new LatencyHistogram();
+            LatencyHistogram service = new LatencyHistogram();
+            long errors = 0;
+            for (Player p : players) {
+                latency.add(p.latency[e.ordinal()]);
+                service.add(p.service[e.ordinal()]);
+                errors += p.errors[e.ordinal()];
+            }
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("requests", latency.count());
+            m.put("errors", errors);
+            m.put("throughputPerSecond", round(latency.count() / seconds));
+            m.put("latencyMs", latency.summary());
+            m.put("serviceTimeMs", service.summary());
+            endpoints.put(e.name().toLowerCase(), m);
+        }
+        for (Player p : players) {
+            games += p.games;
+            failedGames += p.failedGames;
+        }
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("url", config.url);
+        settings.put("players", config.players);
+        settings.put("gamesPerPlayer", config.durationSeconds > 0 ? null : config.games);
+        settings.put("durationSeconds", config.durationSeconds > 0 ? config.durationSeconds : null);
+        settings.put("thinkMs", List.of(config.thinkMinMs, config.thinkMaxMs));
+        settings.put("expectedMs", config.expectedMs);
+        settings.put("difficultyWeights", config.difficultyWeights);
+        settings.put("rampMs", config.rampMs);
+        settings.put("seed", config.seed);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("settings", settings);
+        report.put("elapsedSeconds", round(seconds));
+        report.put("games", games);
+        report.put("failedGames", failedGames);
+        report.put("gamesPerSecond", round(games / seconds));
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /** One simulated player; owns its histograms, so nothing is shared while the run is going. */
+    private final class Player {
+        final LatencyHistogram[] latency = {new LatencyHistogram(), new LatencyHistogram()};
+        final LatencyHistogram[] service = {new LatencyHistogram(), new LatencyHistogram()};
+        final long[] errors = new long[2];
+        final SplittableRandom random;
+        final long deadline;
+        long due;
+        long games;
+        long failedGames;
+
+        Player(SplittableRandom random, long firstDue, long deadline) {
+            this.random = random;
+            this.due = firstDue;
+            this.deadline = deadline;
+        }
+
+        void play() {
+            for (int game = 0; config.durationSeconds > 0 ? due < deadline : game < config.games; game++) {
+                if (playGame()) games++;
+                else failedGames++;
+            }
+        }
+
+        private boolean playGame() {
+            int difficulty = config.pickDifficulty(random);
+            String start = "{\"name\":\"Load Player\",\"gender\":\"Female\",\"age\":35,\"difficulty\":" + difficulty + "}";
+            GameState state = send(Endpoint.START, start);
+            if (state == null || state.sessionId == null) return false;
+            String sessionId = state.sessionId;
+            for (int turn = 0; turn < MAX_TURNS && !state.gameOver; turn++) {
+                char choice = CHOICES.charAt(random.nextInt(CHOICES.length()));
+                state = send(Endpoint.TURN, "{\"sessionId\":\"" + sessionId + "\",\"choice\":\"" + choice + "\"}");
+                if (state == null) return false;
+            }
+            return state.gameOver;
+        }
+
+        /** Waits for the request's due time, sends it, records both latencies and plans the next one. */
+        private GameState send(Endpoint endpoint, String body) {
+            long now;
+            while ((now = System.nanoTime()) < due) LockSupport.parkNanos(due - now);
+            long intended = due;
+            due = intended + TimeUnit.MILLISECONDS.toNanos(config.expectedMs + think());
+
+            Request request = new Request.Builder()
+                    .url(config.url + (endpoint == Endpoint.START ? "/api/game/start" : "/api/game/turn"))
+                    .post(RequestBody.create(body, JSON))
+                    .build();
+            try (Response response = http.newCall(request).execute()) {
+                ResponseBody responseBody = response.body();
+                String text = responseBody == null ? "" : responseBody.string();
+                long done = System.nanoTime();
+                if (!response.isSuccessful()) {
+                    errors[endpoint.ordinal()]++;
+                    return null;
+                }
+                latency[endpoint.ordinal()].record((done - intended) / 1000);
+                service[endpoint.ordinal()].record((done - now) / 1000);
+                return GameState.read(text);
+            } catch (IOException | RuntimeException e) {
+                errors[endpoint.ordinal()]++;
+                return null;
+            }
+        }
+
+        private long think() {
+            return config.thinkMaxMs <= config.thinkMinMs ? config.thinkMinMs
+                    : random.nextLong(config.thinkMinMs, config.thinkMaxMs + 1);
+        }
+    }
+
+    /** The two fields of a start or turn response the player needs. */
+    private static final class GameState {
+        String sessionId;
+        boolean gameOver;
+
+        static GameState read(String json) throws IOException {
+            GameState state = new GameState();
+            try (JsonReader in = new JsonReader(new StringReader(json))) {
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "sessionId" -> state.sessionId = in.nextString();
+                        case "gameOver" -> state.gameOver = in.nextBoolean();
+                        default -> in.skipValue();
+                    }
+                }
+            }
+            return state;
+        }
+    }
+
+    private static final class Config {
+        String url = "http://localhost:8081";
+        int players = 50;
+        int games = 2;
+        int durationSeconds;
+        long thinkMinMs = 1000;
+        long thinkMaxMs = 3000;
+        long expectedMs = 250;
+        long rampMs = 5000;
+        int timeoutSeconds = 120;
+        long seed = 1;
+        String out;
+        final Map<Integer, Integer> difficultyWeights = new LinkedHashMap<>();
+        private int weightTotal;
+
+        static Config parse(String[] args) {
+            Config c = new Config();
+            String difficulty = "1:1,2:1,3:1,4:1,5:1";
+            for (int i = 0; i < args.length; i++) {
+                String value = i + 1 < args.length ? args[i + 1] : null;
+                switch (args[i]) {
+                    case "--url" -> c.url = stripSlash(value);
+                    case "--players" -> c.players = Integer.parseInt(value);
+                    case "--games" -> c.games = Integer.parseInt(value);
+                    case "--duration-s" -> c.durationSeconds = Integer.parseInt(value);
+                    case "--think-ms" -> {
+                        String[] range = value.split(":");
+                        c.thinkMinMs = Long.parseLong(range[0]);
+                        c.thinkMaxMs = range.length > 1 ? Long.parseLong(range[1]) : c.thinkMinMs;
+                    }
+                    case "--expected-ms" -> c.expectedMs = Long.parseLong(value);
+                    case "--difficulty" -> difficulty = value;
+                    case "--ramp-ms" -> c.rampMs = Long.parseLong(value);
+                    case "--timeout-s" -> c.timeoutSeconds = Integer.parseInt(value);
+                    case "--seed" -> c.seed = Long.parseLong(value);
+                    case "--out" -> c.out = value;
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+                i++;
+            }
+            for (String entry : difficulty.split(",")) {
+                String[] parts = entry.split(":");
+                int level = Integer.parseInt(parts[0].trim());
+                int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+                if (level < 1 || level > 5 || weight < 0) throw new IllegalArgumentException("Bad difficulty weight: " + entry);
+                c.difficultyWeights.merge(level, weight, Integer::sum);
+                c.weightTotal += weight;
+            }
+            if (c.players < 1 || c.weightTotal == 0) throw new IllegalArgumentException("Need at least one player and one weighted difficulty");
+            return c;
+        }
+
+        int pickDifficulty(SplittableRandom random) {
+            int pick = random.nextInt(weightTotal);
+            for (Map.Entry<Integer, Integer> e : difficultyWeights.entrySet()) {
+                pick -= e.getValue();
+                if (pick < 0) return e.getKey();
+            }
+            throw new IllegalStateException();
+        }
+
+        private static String stripSlash(String url) {
+            return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        }
+    }
+}
@@ -3,10 +3,16 @@ package com.crisisgame.model;
 public class ChoiceRequest {
     private String sessionId;
     private String choice;
+    private String requestId;    // optional idempotency key; a retry sends the same one
+    private Integer turn;        // optional: the turn being answered, so a stale retry is refused
 
     public String getSessionId() { return sessionId; }
     public String getChoice() { return choice; }
+    public String getRequestId() { return requestId; }
+    public Integer getTurn() { return turn; }
 
     public void setSessionId(String sessionId) { this.sessionId = sessionId; }
     public void setChoice(String choice) { this.choice = choice; }
+    public void setRequestId(String requestId) { this.requestId = requestId; }
+    public void setTurn(Integer turn) { this.turn = turn; }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.crisisgame.model;
+
+/** The model's end-of-game debrief, one field per item the final turn reports. */
+public class FinalAssessment {
+    public String summary;
+    public String outcome;
+    public String career;
+    public String strengths;
+    public String improvements;
+    public String leadershipStyle;
+    public String crisisTheory;
+}
@@ -2,6 +2,10 @@ package com.crisisgame.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
+
+import com.crisisgame.narrative.WorldState;
+import com.crisisgame.scoring.ScoreTracker;
 
 public class GameState {
     private final String sessionId;
@@ -9,7 +13,13 @@ public class GameState {
     private int turn;
     private final List<String> messagesHistory;
     private final List<String> choiceHistory;
+    private final ScoreTracker score;
+    private final long seed;
+    // Every random pick in the game comes from here, so a seed and the same choices replay the same game
+    private final SplittableRandom random;
     private boolean finished;
+    private WorldState world; // mock-mode story state, created by the mock opening or the first mock turn
+    private List<String> liveOptions; // options of the last Gemini turn, for a fallback to mock turns
 
     public GameState(String sessionId, PlayerProfile player) {
         this.sessionId = sessionId;
@@ -17,6 +27,9 @@ public class GameState {
         this.turn = 1;
         this.messagesHistory = new ArrayList<>();
         this.choiceHistory = new ArrayList<>();
+        this.score = new ScoreTracker(player.getDifficulty());
+        this.seed = player.getSeed() != null ? player.getSeed() : 0;
+        this.random = new SplittableRandom(seed);
         this.finished = false;
     }
 
@@ -28,5 +41,15 @@ public class GameState {
     public void setFinished(boolean finished) { this.finished = finished; }
     public List<String> getMessagesHistory() { return messagesHistory; }
     public List<String> getChoiceHistory() { return choiceHistory; }
-    public void addChoice(String choice) { this.choiceHistory.add(choice); }
-}
\ No newline at end of file
+    public ScoreTracker getScore() { return score; }
+    public long getSeed() { return seed; }
+    public SplittableRandom getRandom() { return random; }
+    public WorldState getWorld() { return world; }
+    public void setWorld(WorldState world) { this.world = world; }
+    public List<String> getLiveOptions() { return liveOptions; }
+    public void setLiveOptions(List<String> liveOptions) { this.liveOptions = liveOptions; }
+    public void addChoice(String choice) {
+        this.choiceHistory.add(choice);
+        this.score.record(choice);
+    }
+}
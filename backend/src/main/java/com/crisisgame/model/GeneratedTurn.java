@@ -0,0 +1,9 @@
+package com.crisisgame.model;
+
+import java.util.List;
+
+/** A turn written by the model: the narrative and the five options, labelled "A) ..." to "E) ...". */
+public class GeneratedTurn {
+    public String narrative;
+    public List<String> options;
+}
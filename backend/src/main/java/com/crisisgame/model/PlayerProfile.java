@@ -5,14 +5,20 @@ public class PlayerProfile {
     private String gender;
     private int age;
     private int difficulty;
+    private String classCode; // optional, for class rankings
+    private Long seed; // the game's random seed; chosen at start unless a replay sets it
 
     public String getName() { return name; }
     public String getGender() { return gender; }
     public int getAge() { return age; }
     public int getDifficulty() { return difficulty; }
+    public String getClassCode() { return classCode; }
+    public Long getSeed() { return seed; }
 
     public void setName(String name) { this.name = name; }
     public void setGender(String gender) { this.gender = gender; }
     public void setAge(int age) { this.age = age; }
     public void setDifficulty(int difficulty) { this.difficulty = difficulty; }
+    public void setClassCode(String classCode) { this.classCode = classCode; }
+    public void setSeed(Long seed) { this.seed = seed; }
 }
\ No newline at end of file
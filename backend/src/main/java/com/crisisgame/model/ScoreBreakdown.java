@@ -0,0 +1,14 @@
+package com.crisisgame.model;
+
+/** Running score of a session, as sent with every turn. */
+public class ScoreBreakdown {
+    public int choices;
+    public int consistency;      // 0-20
+    public int strategic;        // 0-20
+    public int phase;            // 0-20
+    public int stakeholder;      // 0-20
+    public int difficultyBonus;  // 0-20
+    public int total;            // 50 + the five sub-scores
+    public int level;            // 1 (needs improvement) to 4 (excellent)
+    public int percentage;       // 30-95, the final performanceScore once the game ends
+}
@@ -0,0 +1,28 @@
+package com.crisisgame.model;
+
+/** Body of the /api/team endpoints; each endpoint reads the fields it needs. */
+public class TeamRequest {
+    private String teamId;
+    private String memberId;
+    private String member;   // display name of the member joining or creating
+    private String choice;
+    private PlayerProfile team = new PlayerProfile(); // create: the team's name, difficulty and class
+    private Double quorum;      // create: share of members whose vote closes a window at its timeout
+    private Integer voteSeconds; // create: length of a voting window
+
+    public String getTeamId() { return teamId; }
+    public String getMemberId() { return memberId; }
+    public String getMember() { return member; }
+    public String getChoice() { return choice; }
+    public PlayerProfile getTeam() { return team; }
+    public Double getQuorum() { return quorum; }
+    public Integer getVoteSeconds() { return voteSeconds; }
+
+    public void setTeamId(String teamId) { this.teamId = teamId; }
+    public void setMemberId(String memberId) { this.memberId = memberId; }
+    public void setMember(String member) { this.member = member; }
+    public void setChoice(String choice) { this.choice = choice; }
+    public void setTeam(PlayerProfile team) { this.team = team; }
+    public void setQuorum(Double quorum) { this.quorum = quorum; }
+    public void setVoteSeconds(Integer voteSeconds) { this.voteSeconds = voteSeconds; }
+}
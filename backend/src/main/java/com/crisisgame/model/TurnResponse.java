@@ -16,6 +16,9 @@ public class TurnResponse {
     public String crisisTheory;
     public String imageUrl;
     public int performanceScore; // New field for calculated score
+    public ScoreBreakdown score;  // Running score after this turn's choice
+    public Double percentileRank;      // Final turn: share of games at this difficulty you beat
+    public Double classPercentileRank; // Same, within your class (when a class code was given)
 
     public static TurnResponse ongoing(String sessionId, int turn, String narrative, List<String> options) {
         TurnResponse r = new TurnResponse();
@@ -0,0 +1,65 @@
+package com.crisisgame.narrative;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One piece of the narrative grammar: text with {slots}, split once into literals and slot indexes
+ * like {@link com.crisisgame.scenario.NarrativeTemplate}, so rendering is a run of appends.
+ */
+final class Fragment {
+    static final String[] SLOT_NAMES = {
+        "decision", "stakeholder", "previous", "outlet", "regulator", "turn", "remaining", "heat", "pressure", "trust"
+    };
+    static final int DECISION = 0, STAKEHOLDER = 1, PREVIOUS = 2, OUTLET = 3, REGULATOR = 4, TURN = 5,
+            REMAINING = 6, HEAT = 7, PRESSURE = 8, TRUST = 9;
+
+    // literals[i] is followed by slots[i]; the final literal has no slot after it
+    private final String[] literals;
+    private final int[] slots;
+
+    private Fragment(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+    }
+
+    static Fragment compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int literalStart = 0;
+        int open;
+        while ((open = text.indexOf('{', literalStart)) >= 0) {
+            int close = text.indexOf('}', open);
+            if (close < 0) throw new IllegalArgumentException("Unclosed slot in: " + text);
+            literals.add(text.substring(literalStart, open));
+            slots.add(slotFor(text.substring(open + 1, close), text));
+            literalStart = close + 1;
+        }
+        literals.add(text.substring(literalStart));
+
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) slotArray[i] = slots.get(i);
+        return new Fragment(literals.toArray(new String[0]), slotArray);
+    }
+
+    static Fragment[] compile(String... texts) {
+        Fragment[] fragments = new Fragment[texts.length];
+        for (int i = 0; i < texts.length; i++) fragments[i] = compile(texts[i]);
+        return fragments;
+    }
+
+    private static int slotFor(String name, String text) {
+        for (int i = 0; i < SLOT_NAMES.length; i++) {
+            if (SLOT_NAMES[i].equals(name)) return i;
+        }
+        throw new IllegalArgumentException("Unknown slot {" + name + "} in: " + text);
+    }
+
+    /** Appends the fragment with values[slot] for each slot. */
+    void render(StringBuilder sb, String[] values) {
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]).append(values[slots[i]]);
+        }
+        sb.append(literals[slots.length]);
+    }
+}
@@ -0,0 +1,24 @@
+package com.crisisgame.narrative;
+
+/**
+ * The kind of decision behind an option, in the order of the option letters the engine writes, which
+ * matches the A-E progression the score rewards (reactive, collaborative, analytical, innovative,
+ * comprehensive). Effects are the base changes to media heat, regulator pressure and trust.
+ */
+enum Move {
+    RESPOND(-8, 2, -1),
+    ENGAGE(-2, -2, 6),
+    INVESTIGATE(5, -8, 1),
+    INNOVATE(-4, 4, 3),
+    OVERHAUL(-5, -6, 4);
+
+    final int heat;
+    final int pressure;
+    final int trust;
+
+    Move(int heat, int pressure, int trust) {
+        this.heat = heat;
+        this.pressure = pressure;
+        this.trust = trust;
+    }
+}
@@ -0,0 +1,206 @@
+package com.crisisgame.narrative;
+
+import java.util.List;
+
+import com.crisisgame.scenario.ScenarioTable;
+import com.crisisgame.util.KeywordClassifier;
+
+/**
+ * Mock-mode turns written from the {@link NarrativeGrammar} instead of canned paragraphs. Each turn
+ * applies the player's decision to the session's {@link WorldState}, then describes how the decision
+ * landed, how the stakeholder now in the spotlight reacts, and whichever of the press or the
+ * regulators is pressing harder, and offers one option of each {@link Move} tailored to that
+ * stakeholder. Options the engine did not write itself (the scenario pack's opening, or a Gemini turn
+ * before a fallback) are classified by keyword.
+ *
+ * The engine is stateless and shared; all randomness comes from the session's seeded generator.
+ */
+public final class NarrativeEngine {
+    public static final int TOTAL_TURNS = 10;
+
+    /** A generated turn: 3-5 sentences and exactly five labeled options. */
+    public static final class Turn {
+        public final String narrative;
+        public final List<String> options;
+
+        Turn(String narrative, List<String> options) {
+            this.narrative = narrative;
+            this.options = options;
+        }
+    }
+
+    // Declared in priority order: first() picks the most specific kind of decision an option mentions
+    private enum Signal { OVERHAUL, INVESTIGATE, ENGAGE, INNOVATE, RESPOND, DEFENSIVE }
+
+    private static final KeywordClassifier<Signal> SIGNALS = KeywordClassifier.builder(Signal.class)
+            .add(Signal.OVERHAUL, "comprehensive", "overhaul", "long-term", "systematic", "reform", "restructur", "policy", "policies", "training")
+            .add(Signal.INVESTIGATE, "investigat", "research", "legal", "wait", "review", "audit", "analy", "details", "data", "document", "expert", "consultant")
+            .add(Signal.ENGAGE, "stakeholder", "community", "coordinate", "meet", "employee", "customer", "partner", "town hall", "engage", "collaborat")
+            .add(Signal.INNOVATE, "innovat", "technology", "pilot", "launch", "platform", "dashboard", "new ")
+            .add(Signal.RESPOND, "apolog", "statement", "announce", "press", "draft", "immediate", "respond", "public")
+            .add(Signal.DEFENSIVE, "deny", "blame", "minimize", "downplay", "push back")
+            .build();
+    private static final long MOVE_SIGNALS = (1L << Signal.DEFENSIVE.ordinal()) - 1;
+    private static final Move[] MOVES = Move.values();
+
+    /**
+     * World state for a new session, with the opening options the player will choose from. Options
+     * may be null when they are unknown; the letter then decides the kind of move.
+     */
+    public WorldState begin(long seed, int difficulty, List<String> openingOptions) {
+        WorldState world = new WorldState(seed, difficulty);
+        world.focus = spotlight(world);
+        for (int i = 0; i < WorldState.OPTIONS; i++) {
+            String option = openingOptions != null && i < openingOptions.size() ? openingOptions.get(i) : null;
+            if (option == null || option.isBlank()) continue;
+            world.offeredDecisions[i] = decision(option);
+            world.offeredMoves[i] = classify(world.offeredDecisions[i], i);
+        }
+        return world;
+    }
+
+    /** Plays the choice made on the previous turn and writes the given turn; runs in microseconds. */
+    public Turn next(WorldState world, int turn, String choice) {
+        int letter = letterIndex(choice);
+        String decision;
+        Move move;
+        if (letter >= 0 && world.offeredDecisions[letter] != null) {
+            decision = world.offeredDecisions[letter];
+            move = world.offeredMoves[letter];
+        } else if (letter >= 0) {
+            decision = "go with option " + choice.trim().toUpperCase();
+            move = MOVES[letter];
+        } else {
+            // Free text from a client that does not send letters
+            decision = decision(choice == null ? "" : choice);
+            move = classify(decision, -1);
+        }
+
+        Stakeholder previous = NarrativeGrammar.STAKEHOLDERS[world.focus];
+        boolean defensive = KeywordClassifier.has(SIGNALS.scan(decision), Signal.DEFENSIVE);
+        boolean repeated = move == world.lastMove;
+        int landed = world.apply(move, defensive, previous);
+        world.drift(turn);
+        world.focus = spotlight(world);
+
+        String[] values = new String[Fragment.SLOT_NAMES.length];
+        values[Fragment.DECISION] = decision;
+        values[Fragment.STAKEHOLDER] = NarrativeGrammar.STAKEHOLDERS[world.focus].name;
+        values[Fragment.PREVIOUS] = previous.name;
+        values[Fragment.OUTLET] = NarrativeGrammar.OUTLETS[world.random.nextInt(NarrativeGrammar.OUTLETS.length)];
+        values[Fragment.REGULATOR] = NarrativeGrammar.REGULATORS[world.difficulty - 1];
+        values[Fragment.TURN] = Integer.toString(turn);
+        values[Fragment.REMAINING] = remaining(TOTAL_TURNS + 1 - turn);
+        values[Fragment.HEAT] = NarrativeGrammar.HEAT_WORDS[band(world.mediaHeat)];
+        values[Fragment.PRESSURE] = NarrativeGrammar.PRESSURE_WORDS[band(world.regulatorPressure)];
+        values[Fragment.TRUST] = NarrativeGrammar.TRUST_WORDS[band(world.trust)];
+
+        StringBuilder sb = new StringBuilder(640);
+        sb.append("Turn ").append(turn).append(": ");
+        int outcome = landed >= 10 ? NarrativeGrammar.GOOD : landed <= 2 ? NarrativeGrammar.BAD : NarrativeGrammar.MIXED;
+        pick(world, NarrativeGrammar.CONSEQUENCES[move.ordinal()][outcome]).render(sb, values);
+        if (defensive) {
+            pick(world, NarrativeGrammar.DEFENSIVE).render(sb.append(' '), values);
+        } else if (repeated && world.streak >= 2) {
+            pick(world, NarrativeGrammar.REPEATED).render(sb.append(' '), values);
+        }
+        pick(world, NarrativeGrammar.REACTIONS[band(world.trust)]).render(sb.append(' '), values);
+        // Whichever of the press and the regulators is pressing harder drives the escalation
+        if (world.mediaHeat >= world.regulatorPressure) {
+            pick(world, NarrativeGrammar.MEDIA_ESCALATIONS[band(world.mediaHeat)]).render(sb.append(' '), values);
+        } else {
+            pick(world, NarrativeGrammar.REGULATOR_ESCALATIONS[band(world.regulatorPressure)]).render(sb.append(' '), values);
+        }
+        // A phase beat where a phase begins and on every late turn; otherwise where things stand
+        ScenarioTable.TurnPhase phase = ScenarioTable.TurnPhase.forTurn(turn);
+        if (turn == 2 || phase != ScenarioTable.TurnPhase.forTurn(turn - 1) || phase == ScenarioTable.TurnPhase.LATE) {
+            pick(world, NarrativeGrammar.PHASES[phase.ordinal()]).render(sb.append(' '), values);
+        } else {
+            pick(world, NarrativeGrammar.SUMMARIES).render(sb.append(' '), values);
+        }
+
+        String[] options = new String[WorldState.OPTIONS];
+        StringBuilder option = new StringBuilder(96);
+        for (int i = 0; i < options.length; i++) {
+            option.setLength(0);
+            pick(world, NarrativeGrammar.OPTIONS[i]).render(option, values);
+            world.offeredMoves[i] = MOVES[i];
+            world.offeredDecisions[i] = lowerFirst(option);
+            options[i] = (char) ('A' + i) + ") " + option;
+        }
+        return new Turn(sb.toString(), List.of(options));
+    }
+
+    /**
+     * Where the story goes next: usually to the stakeholders tied to the most pressing part of the
+     * world state, sometimes anywhere, and never to the same group twice in a row when it can help it.
+     */
+    private static int spotlight(WorldState world) {
+        Stakeholder.Axis axis;
+        if (world.random.nextInt(10) < 3) {
+            axis = Stakeholder.Axis.values()[world.random.nextInt(Stakeholder.Axis.values().length)];
+        } else if (world.trust < 40) {
+            axis = Stakeholder.Axis.TRUST;
+        } else {
+            axis = world.mediaHeat >= world.regulatorPressure ? Stakeholder.Axis.MEDIA : Stakeholder.Axis.REGULATOR;
+        }
+        int start = world.random.nextInt(NarrativeGrammar.STAKEHOLDERS.length);
+        int fallback = -1;
+        for (int i = 0; i < NarrativeGrammar.STAKEHOLDERS.length; i++) {
+            int candidate = (start + i) % NarrativeGrammar.STAKEHOLDERS.length;
+            if (NarrativeGrammar.STAKEHOLDERS[candidate].axis != axis) continue;
+            if (candidate != world.focus) return candidate;
+            fallback = candidate;
+        }
+        return fallback;
+    }
+
+    private static Move classify(String decision, int letter) {
+        Signal signal = SIGNALS.first(SIGNALS.scan(decision) & MOVE_SIGNALS);
+        if (signal != null) return Move.valueOf(signal.name());
+        return letter >= 0 ? MOVES[letter] : Move.RESPOND;
+    }
+
+    private static Fragment pick(WorldState world, Fragment[] variants) {
+        return variants.length == 1 ? variants[0] : variants[world.random.nextInt(variants.length)];
+    }
+
+    /** LOW below 40, MEDIUM below 70, HIGH from 70. */
+    private static int band(int value) {
+        return value < 40 ? NarrativeGrammar.LOW : value < 70 ? NarrativeGrammar.MEDIUM : NarrativeGrammar.HIGH;
+    }
+
+    private static String remaining(int decisions) {
+        return switch (decisions) {
+            case 1 -> "one decision";
+            case 2 -> "two decisions";
+            case 3 -> "three decisions";
+            default -> decisions + " decisions";
+        };
+    }
+
+    /** An option as the end of "Your decision to ...": without its label and trailing period, lowercased. */
+    private static String decision(String option) {
+        String text = option.trim();
+        if (text.length() > 2 && letterIndex(text.substring(0, 1)) >= 0 && ").:".indexOf(text.charAt(1)) >= 0) {
+            text = text.substring(2).trim();
+        }
+        if (text.endsWith(".")) text = text.substring(0, text.length() - 1);
+        return lowerFirst(text);
+    }
+
+    private static String lowerFirst(CharSequence text) {
+        if (text.length() == 0) return "";
+        // Keep acronyms such as "FAQ" or "CEO" intact
+        if (text.length() > 1 && Character.isUpperCase(text.charAt(1))) return text.toString();
+        return Character.toLowerCase(text.charAt(0)) + text.subSequence(1, text.length()).toString();
+    }
+
+    private static int letterIndex(String choice) {
+        if (choice == null) return -1;
+        String trimmed = choice.trim();
+        if (trimmed.length() != 1) return -1;
+        int index = Character.toUpperCase(trimmed.charAt(0)) - 'A';
+        return index >= 0 && index < WorldState.OPTIONS ? index : -1;
+    }
+}
@@ -0,0 +1,188 @@
+package com.crisisgame.narrative;
+
+/**
+ * The fragments turns are built from. Sentences never start with a slot, and stakeholders and
+ * regulators are all plural, so any of them fits any fragment.
+ */
+final class NarrativeGrammar {
+    private NarrativeGrammar() {}
+
+    static final int GOOD = 0, MIXED = 1, BAD = 2;
+    static final int LOW = 0, MEDIUM = 1, HIGH = 2;
+
+    static final Stakeholder[] STAKEHOLDERS = {
+        new Stakeholder("your customers", Stakeholder.Axis.TRUST),
+        new Stakeholder("employees", Stakeholder.Axis.TRUST),
+        new Stakeholder("board members", Stakeholder.Axis.TRUST),
+        new Stakeholder("community leaders", Stakeholder.Axis.TRUST),
+        new Stakeholder("investors", Stakeholder.Axis.MEDIA),
+        new Stakeholder("journalists", Stakeholder.Axis.MEDIA),
+        new Stakeholder("industry analysts", Stakeholder.Axis.MEDIA),
+        new Stakeholder("consumer advocacy groups", Stakeholder.Axis.REGULATOR),
+        new Stakeholder("lawmakers", Stakeholder.Axis.REGULATOR),
+        new Stakeholder("the officials handling the inquiry", Stakeholder.Axis.REGULATOR),
+    };
+
+    static final String[] OUTLETS = {
+        "the local paper", "a national newspaper", "the evening news", "a widely followed industry blog",
+        "an investigative podcast", "the business press",
+    };
+
+    /** By difficulty 1-5. */
+    static final String[] REGULATORS = {
+        "local authorities", "state regulators", "federal regulators", "regulators in several countries",
+        "international regulators",
+    };
+
+    static final String[] HEAT_WORDS = {"low", "building", "intense"};
+    static final String[] PRESSURE_WORDS = {"watching from a distance", "asking pointed questions", "preparing to act"};
+    static final String[] TRUST_WORDS = {"fragile", "wavering", "holding up"};
+
+    /** How the last decision landed, by move and then GOOD, MIXED, BAD. */
+    static final Fragment[][][] CONSEQUENCES = {
+        { // RESPOND
+            Fragment.compile(
+                "Your decision to {decision} got ahead of the story, and {previous} credit you with speaking first.",
+                "Moving fast paid off: your decision to {decision} set the terms of the coverage before rumors could."),
+            Fragment.compile(
+                "Your decision to {decision} bought a news cycle, though {previous} say it answered none of their real questions.",
+                "Your decision to {decision} calmed the first wave of coverage, but it reads as a holding line rather than a plan."),
+            Fragment.compile(
+                "Your decision to {decision} backfired, and {previous} picked it apart within hours.",
+                "Few believed it when you chose to {decision}, and the quotes are now being used against you."),
+        },
+        { // ENGAGE
+            Fragment.compile(
+                "Your decision to {decision} was noticed, and {previous} now describe the company as listening.",
+                "Sitting down with people paid off: your decision to {decision} turned several critics into cautious allies."),
+            Fragment.compile(
+                "Your decision to {decision} opened a dialogue, but {previous} want to see action before they soften.",
+                "The conversations that followed your decision to {decision} were civil, if guarded."),
+            Fragment.compile(
+                "Your decision to {decision} was dismissed as a listening tour, and {previous} walked out of the first meeting.",
+                "Your decision to {decision} came too late to feel sincere, and {previous} said so publicly."),
+        },
+        { // INVESTIGATE
+            Fragment.compile(
+                "Your decision to {decision} gave officials the facts they needed, and the first findings are already on their desks.",
+                "The groundwork behind your decision to {decision} is paying off: you now know more than anyone reporting on the story."),
+            Fragment.compile(
+                "Your decision to {decision} is building a solid record, but outside the company it looks like silence.",
+                "Your decision to {decision} has produced early answers, while {previous} are still waiting to hear them."),
+            Fragment.compile(
+                "While you chose to {decision}, the story ran on without you and {previous} filled the silence with speculation.",
+                "Your decision to {decision} is being painted as stalling, and {previous} are asking what you are hiding."),
+        },
+        { // INNOVATE
+            Fragment.compile(
+                "Your decision to {decision} surprised people in the right way, and {previous} are sharing it as an example.",
+                "The bold bet paid off: your decision to {decision} changed the conversation."),
+            Fragment.compile(
+                "Your decision to {decision} drew interest, but {previous} want to know whether it will actually work.",
+                "Your decision to {decision} is being watched closely; it could still go either way."),
+            Fragment.compile(
+                "Your decision to {decision} was seen as a gimmick, and {previous} are openly skeptical.",
+                "Critics called your decision to {decision} a distraction from the real problem."),
+        },
+        { // OVERHAUL
+            Fragment.compile(
+                "Your decision to {decision} showed you mean to fix the cause, not the headline, and {previous} have taken note.",
+                "The scale of your decision to {decision} has shifted the story from blame to repair."),
+            Fragment.compile(
+                "Your decision to {decision} is the right direction, but it will take weeks before anyone sees results.",
+                "Your decision to {decision} won respect in principle, while {previous} question the timeline."),
+            Fragment.compile(
+                "Your decision to {decision} was dismissed as too little, too late by {previous}.",
+                "Nobody doubts the ambition behind your decision to {decision}, but {previous} doubt you will follow through."),
+        },
+    };
+
+    static final Fragment[] DEFENSIVE = Fragment.compile(
+        "The defensive tone did not go unnoticed.",
+        "Pushing back has made the company look more interested in its image than in the people affected.");
+
+    static final Fragment[] REPEATED = Fragment.compile(
+        "Observers are starting to notice a pattern in how you respond.",
+        "Some now say the company seems to have only one playbook.");
+
+    /** The stakeholder in the spotlight, by trust LOW, MEDIUM, HIGH. */
+    static final Fragment[][] REACTIONS = {
+        Fragment.compile(
+            "Among {stakeholder}, anger is hardening into distrust, and some are organizing.",
+            "Patience has run out among {stakeholder}, who now assume the worst of every statement."),
+        Fragment.compile(
+            "The mood among {stakeholder} is wary; they are waiting to see what you do next.",
+            "Opinion among {stakeholder} is split between giving you time and demanding answers now."),
+        Fragment.compile(
+            "Support among {stakeholder} is holding, and several have spoken up on the company's behalf.",
+            "Goodwill among {stakeholder} remains, for now, on your side."),
+    };
+
+    /** By media heat LOW, MEDIUM, HIGH. */
+    static final Fragment[][] MEDIA_ESCALATIONS = {
+        Fragment.compile(
+            "The story has drifted off the front pages, with only {outlet} still following it.",
+            "Coverage has slowed to the occasional follow-up in {outlet}."),
+        Fragment.compile(
+            "A new piece in {outlet} is circulating widely, with quotes from people inside the company.",
+            "Coverage is building, led by {outlet}, which is asking for interviews with leadership."),
+        Fragment.compile(
+            "The story now leads {outlet}, and reporters are camped outside headquarters.",
+            "A leaked internal email has surfaced in {outlet}, and the story is trending nationally."),
+    };
+
+    /** By regulator pressure LOW, MEDIUM, HIGH. */
+    static final Fragment[][] REGULATOR_ESCALATIONS = {
+        Fragment.compile(
+            "Contact with {regulator} remains routine, limited to requests for documents.",
+            "For now, {regulator} seem satisfied with the information you have provided."),
+        Fragment.compile(
+            "A formal briefing within 48 hours has been requested by {regulator}.",
+            "There are signals that {regulator} may open a formal inquiry."),
+        Fragment.compile(
+            "A formal investigation by {regulator} is now under way, with subpoenas expected.",
+            "Word has come that {regulator} are preparing enforcement action and potential fines."),
+    };
+
+    /** Opens each phase of the game, by ScenarioTable.TurnPhase. */
+    static final Fragment[][] PHASES = {
+        Fragment.compile(
+            "The first days of a crisis set the story, and what you do now will be remembered.",
+            "Leadership wants a clear direction before the end of the day."),
+        Fragment.compile(
+            "The initial shock is over; people are now judging how well the company follows through.",
+            "The board has asked for an update on your strategy at its next meeting."),
+        Fragment.compile(
+            "With {remaining} left, the board will soon judge how this crisis was handled.",
+            "The end is in sight, with {remaining} to go before the final review."),
+    };
+
+    static final Fragment[] SUMMARIES = Fragment.compile(
+        "Right now media attention is {heat}, regulators are {pressure}, and trust in the company is {trust}.",
+        "Where things stand: media attention is {heat}, regulators are {pressure}, and trust is {trust}.");
+
+    /** Option phrasings by move, in option letter order. */
+    static final Fragment[][] OPTIONS = {
+        Fragment.compile( // RESPOND
+            "Issue a public statement addressing the concerns of {stakeholder}",
+            "Hold a press conference today before {outlet} runs its next piece",
+            "Publish a clear timeline of what happened and when",
+            "Push back on inaccurate reports and minimize the company's exposure"),
+        Fragment.compile( // ENGAGE
+            "Meet with {stakeholder} to hear their concerns directly",
+            "Set up a joint working group with {stakeholder}",
+            "Brief {regulator} in person and invite their input"),
+        Fragment.compile( // INVESTIGATE
+            "Commission an independent review of the root cause",
+            "Gather full documentation for {regulator} before saying more",
+            "Analyze the data to find out how far the problem really goes"),
+        Fragment.compile( // INNOVATE
+            "Launch a public dashboard tracking every fix as it happens",
+            "Pilot a compensation program designed together with {stakeholder}",
+            "Open the company's process to outside experts in a livestreamed review"),
+        Fragment.compile( // OVERHAUL
+            "Announce a long-term program to fix the underlying causes",
+            "Restructure oversight with an independent committee reporting to the board",
+            "Commit to a comprehensive, company-wide reform plan with public milestones"),
+    };
+}
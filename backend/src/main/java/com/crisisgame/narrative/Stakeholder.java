@@ -0,0 +1,14 @@
+package com.crisisgame.narrative;
+
+/** A group the story can put in the spotlight, and which part of the world state it weighs on most. */
+final class Stakeholder {
+    enum Axis { MEDIA, REGULATOR, TRUST }
+
+    final String name;
+    final Axis axis;
+
+    Stakeholder(String name, Axis axis) {
+        this.name = name;
+        this.axis = axis;
+    }
+}
@@ -0,0 +1,96 @@
+package com.crisisgame.narrative;
+
+import java.util.SplittableRandom;
+
+/**
+ * What the story has done to the world so far in one mock-mode session: media heat, regulator pressure
+ * and trust on a 0-100 scale, which stakeholder is in the spotlight, and the options last offered, so
+ * the next turn can tell what the player's letter meant. Lives in the session's GameState and is only
+ * touched while the session is locked; the generator is seeded per session, so the same seed and
+ * choices always tell the same story.
+ */
+public final class WorldState {
+    static final int OPTIONS = 5;
+
+    final SplittableRandom random;
+    final int difficulty;
+    int mediaHeat;
+    int regulatorPressure;
+    int trust;
+    int focus;
+    Move lastMove;
+    int streak;
+    final Move[] offeredMoves = new Move[OPTIONS];
+    final String[] offeredDecisions = new String[OPTIONS];
+
+    WorldState(long seed, int difficulty) {
+        this.random = new SplittableRandom(seed);
+        this.difficulty = Math.max(1, Math.min(5, difficulty));
+        // Harder scenarios open with a louder story, closer scrutiny and less benefit of the doubt
+        this.mediaHeat = 20 + 10 * this.difficulty;
+        this.regulatorPressure = 10 + 10 * this.difficulty;
+        this.trust = 70 - 5 * this.difficulty;
+    }
+
+    public int mediaHeat() { return mediaHeat; }
+    public int regulatorPressure() { return regulatorPressure; }
+    public int trust() { return trust; }
+
+    /**
+     * Applies the chosen move and returns how well it landed: positive when it built trust and eased
+     * the pressure, negative when it did the opposite. The base effects of the move depend on the
+     * situation it was made in, and repeating the previous move has half the effect.
+     */
+    int apply(Move move, boolean defensive, Stakeholder spotlight) {
+        int heat = move.heat;
+        int pressure = move.pressure;
+        int trustChange = move.trust;
+        switch (move) {
+            // A statement nobody believes feeds the story instead of ending it
+            case RESPOND -> { if (trust < 35) heat = 4; }
+            // Engaging the stakeholder in the spotlight works on what they care about
+            case ENGAGE -> {
+                if (spotlight.axis == Stakeholder.Axis.MEDIA) heat -= 4;
+                else if (spotlight.axis == Stakeholder.Axis.REGULATOR) pressure -= 4;
+                else trustChange += 3;
+            }
+            // Investigating while the story is hot reads as stalling
+            case INVESTIGATE -> { if (mediaHeat > 70) heat += 4; }
+            // Untested fixes make wary regulators warier
+            case INNOVATE -> { if (regulatorPressure > 60) pressure += 4; }
+            case OVERHAUL -> { if (trust < 35) trustChange -= 2; }
+        }
+        if (move == lastMove) {
+            heat /= 2;
+            pressure /= 2;
+            trustChange = trustChange / 2 - 3;
+            streak++;
+        } else {
+            streak = 1;
+        }
+        if (defensive) {
+            heat += 6;
+            trustChange -= 8;
+        }
+        heat += random.nextInt(-2, 3);
+        pressure += random.nextInt(-2, 3);
+        trustChange += random.nextInt(-2, 3);
+
+        mediaHeat = clamp(mediaHeat + heat);
+        regulatorPressure = clamp(regulatorPressure + pressure);
+        trust = clamp(trust + trustChange);
+        lastMove = move;
+        return 2 * trustChange - heat - pressure;
+    }
+
+    /** The crisis keeps developing between decisions, faster on harder scenarios and later turns. */
+    void drift(int turn) {
+        mediaHeat = clamp(mediaHeat + difficulty / 2 + random.nextInt(0, 3));
+        regulatorPressure = clamp(regulatorPressure + (turn >= 5 ? difficulty : difficulty / 2));
+        if (mediaHeat > 60) trust = clamp(trust - 1);
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(100, value));
+    }
+}
@@ -0,0 +1,78 @@
+package com.crisisgame.profiling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.crisisgame.util.Env;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * On-demand Java Flight Recorder recordings for /api/admin/recording. A recording runs for a bounded
+ * time (at most JFR_MAX_SECONDS, 120 s by default) and size (JFR_MAX_BYTES, 64 MB by default) with
+ * the JDK's "default" settings, which JFR keeps to about 1% overhead, or "profile" for more detail.
+ * The game's own events are always enabled. One recording runs at a time.
+ */
+public final class FlightRecordings {
+    public static final int DEFAULT_SECONDS = 30;
+    public static final int MAX_SECONDS = Env.intValue("JFR_MAX_SECONDS", 120);
+    private static final long MAX_BYTES = Env.intValue("JFR_MAX_BYTES", 64 * 1024 * 1024);
+
+    private final AtomicBoolean recording = new AtomicBoolean();
+
+    /** Thrown when a recording is requested while another is still running. */
+    public static final class BusyException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        BusyException() {
+            super("A recording is already running");
+        }
+    }
+
+    /**
+     * Records for the given time (clamped to 1..MAX_SECONDS) and returns the .jfr file, which the caller
+     * deletes once it has been sent.
+     *
+     * @param settings "default" or "profile"
+     */
+    public Path record(int seconds, String settings) throws IOException, InterruptedException {
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (ParseException | IOException e) {
+            throw new IllegalArgumentException("Unknown settings: " + settings);
+        }
+        if (!recording.compareAndSet(false, true)) throw new BusyException();
+        long duration = Math.max(1, Math.min(seconds, MAX_SECONDS));
+        try (Recording r = new Recording(configuration)) {
+            r.setName("crisis-game-" + System.currentTimeMillis());
+            r.setMaxSize(MAX_BYTES);
+            r.setToDisk(true);
+            r.enable(StageEvent.class);
+            r.enable(GeminiCallEvent.class);
+            r.enable(RequestEvent.class);
+            System.out.println("Flight recording started for " + duration + "s with " + settings + " settings");
+            r.start();
+            try {
+                Thread.sleep(duration * 1000);
+            } finally {
+                r.stop();
+            }
+            Path file = Files.createTempFile("crisis-game-", ".jfr");
+            try {
+                r.dump(file);
+            } catch (IOException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+            System.out.println("Flight recording finished: " + Files.size(file) + " bytes");
+            return file;
+        } finally {
+            recording.set(false);
+        }
+    }
+}
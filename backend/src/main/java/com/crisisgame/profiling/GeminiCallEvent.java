@@ -0,0 +1,47 @@
+package com.crisisgame.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One routed Gemini call, from building the request to the last byte of the reply. */
+@Name("com.crisisgame.GeminiCall")
+@Label("Gemini Call")
+@Category({"Crisis Game", "Gemini"})
+@Description("A routed Gemini call, with the model, prompt size and reported token usage")
+@StackTrace(false)
+public final class GeminiCallEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    public String phase;
+
+    @Label("Model")
+    public String model;
+
+    @Label("Streaming")
+    public boolean streaming;
+
+    @Label("Messages")
+    public int messages;
+
+    @Label("Prompt Characters")
+    @Description("System prompt plus all message contents")
+    public long promptChars;
+
+    @Label("Reply Characters")
+    public long replyChars;
+
+    @Label("Prompt Tokens")
+    public int promptTokens;
+
+    @Label("Output Tokens")
+    public int outputTokens;
+
+    @Label("Thought Tokens")
+    public int thoughtTokens;
+
+    @Label("Outcome")
+    @Description("ok, error or cancelled")
+    public String outcome;
+}
@@ -0,0 +1,22 @@
+package com.crisisgame.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One HTTP request, end to end; time not covered by its stages is time spent outside them. */
+@Name("com.crisisgame.Request")
+@Label("HTTP Request")
+@Category({"Crisis Game", "HTTP"})
+@StackTrace(false)
+public final class RequestEvent extends jdk.jfr.Event {
+    @Label("Method")
+    public String method;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Status")
+    public int status;
+}
@@ -0,0 +1,62 @@
+package com.crisisgame.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One stage of serving a start or turn request. Stages that run below GameService (reply parsing inside
+ * OpenAIClient) leave the session empty; they run on the same thread as, and inside, the "generate" stage
+ * that names it.
+ *
+ * When no recording has the event enabled, {@link #start} and {@link #finish} are no-ops the JIT can
+ * remove, so the stages stay instrumented in production.
+ */
+@Name("com.crisisgame.Stage")
+@Label("Turn Stage")
+@Category({"Crisis Game", "Turns"})
+@Description("One stage of serving a start or turn request")
+@StackTrace(false)
+public final class StageEvent extends jdk.jfr.Event {
+    public static final String READ_REQUEST = "read-request";
+    public static final String SESSION = "session";
+    public static final String PROMPT = "prompt";
+    public static final String GENERATE = "generate";
+    public static final String PARSE_REPLY = "parse-reply";
+    public static final String SCORE = "score";
+    public static final String MOCK_TURN = "mock-turn";
+    public static final String IMAGE = "image";
+    public static final String WRITE_RESPONSE = "write-response";
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Session ID")
+    public String sessionId;
+
+    @Label("Turn")
+    public int turn;
+
+    @Label("Size")
+    @Description("Characters or bytes the stage handled: request body, prompt, reply or response; -1 where it does not apply")
+    public long size;
+
+    public static StageEvent start(String stage) {
+        StageEvent event = new StageEvent();
+        event.stage = stage;
+        event.begin();
+        return event;
+    }
+
+    public void finish(String sessionId, int turn, long size) {
+        end();
+        if (shouldCommit()) {
+            this.sessionId = sessionId;
+            this.turn = turn;
+            this.size = size;
+            commit();
+        }
+    }
+}
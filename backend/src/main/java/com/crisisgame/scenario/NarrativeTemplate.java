@@ -0,0 +1,71 @@
+package com.crisisgame.scenario;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Narrative text with {placeholders}, split once into literal segments and slots so rendering is a
+ * single pass of appends instead of a String.format parse on every call.
+ *
+ * Supported placeholders: {name}, {age}, {gender}, {role}.
+ */
+public final class NarrativeTemplate {
+    private static final String[] SLOT_NAMES = {"name", "age", "gender", "role"};
+    private static final int NAME = 0, AGE = 1, GENDER = 2, ROLE = 3;
+
+    // literals[i] is followed by slots[i]; the final literal has no slot after it
+    private final String[] literals;
+    private final int[] slots;
+    private final int literalLength;
+
+    private NarrativeTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    public static NarrativeTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int literalStart = 0;
+        int open;
+        while ((open = text.indexOf('{', literalStart)) >= 0) {
+            int close = text.indexOf('}', open);
+            if (close < 0) throw new IllegalArgumentException("Unclosed placeholder at index " + open);
+            int slot = slotFor(text.substring(open + 1, close));
+            literals.add(text.substring(literalStart, open));
+            slots.add(slot);
+            literalStart = close + 1;
+        }
+        literals.add(text.substring(literalStart));
+
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) slotArray[i] = slots.get(i);
+        return new NarrativeTemplate(literals.toArray(new String[0]), slotArray);
+    }
+
+    private static int slotFor(String name) {
+        for (int i = 0; i < SLOT_NAMES.length; i++) {
+            if (SLOT_NAMES[i].equals(name)) return i;
+        }
+        throw new IllegalArgumentException("Unknown placeholder {" + name + "}");
+    }
+
+    public String renderScenario(String name, int age, String gender, String role) {
+        StringBuilder sb = new StringBuilder(literalLength + 16 * slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            switch (slots[i]) {
+                case NAME -> sb.append(name);
+                case AGE -> sb.append(age);
+                case GENDER -> sb.append(gender);
+                case ROLE -> sb.append(role);
+                default -> throw new IllegalStateException("Unknown slot " + slots[i]);
+            }
+        }
+        sb.append(literals[slots.length]);
+        return sb.toString();
+    }
+}
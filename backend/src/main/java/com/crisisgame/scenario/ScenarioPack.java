@@ -0,0 +1,24 @@
+package com.crisisgame.scenario;
+
+import java.util.List;
+
+/**
+ * On-disk form of a scenario pack, read with Gson.
+ *
+ * <pre>
+ * {
+ *   "name": "healthcare-2025",
+ *   "scenarios": [ {"difficulty": 3, "narrative": "You're {name}, a {age}-year-old {gender} ...", "options": ["A) ...", ...] } ]
+ * }
+ * </pre>
+ */
+public class ScenarioPack {
+    public String name;
+    public List<ScenarioEntry> scenarios;
+
+    public static class ScenarioEntry {
+        public int difficulty;
+        public String narrative;
+        public List<String> options;
+    }
+}
@@ -0,0 +1,179 @@
+package com.crisisgame.scenario;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Holds the current {@link ScenarioTable} for mock mode.
+ *
+ * The built-in pack ships as a classpath resource. Extra packs are read from the directory named by
+ * SCENARIO_PACK_DIR (every *.json file, memory-mapped) and added on top of it. The directory is
+ * watched, and a changed pack is validated and swapped in atomically; an invalid pack is logged and
+ * the previous table stays live, so content can be updated without a redeploy.
+ */
+public class ScenarioRepository {
+    private static final String DEFAULT_PACK = "/scenarios/default-pack.json";
+    private static final long RELOAD_DEBOUNCE_MS = 250;
+
+    private final Gson gson = new Gson();
+    private final Path packDir;
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong rejectedReloads = new AtomicLong();
+    private volatile ScenarioTable table;
+    private volatile long loadedAtMillis;
+    private volatile String lastError;
+
+    public ScenarioRepository(Path packDir) {
+        this.packDir = packDir;
+        this.table = ScenarioTable.build(loadPacks());
+        this.loadedAtMillis = System.currentTimeMillis();
+        System.out.println("Loaded scenario packs " + table.packNames());
+    }
+
+    public static ScenarioRepository fromEnvironment() {
+        String dir = System.getenv("SCENARIO_PACK_DIR");
+        ScenarioRepository repository = new ScenarioRepository(dir == null || dir.isBlank() ? null : Paths.get(dir));
+        repository.watch();
+        return repository;
+    }
+
+    public ScenarioTable table() {
+        return table;
+    }
+
+    /** Rebuilds the table from disk; returns false and keeps the current table if any pack is invalid. */
+    public synchronized boolean reload() {
+        try {
+            ScenarioTable rebuilt = ScenarioTable.build(loadPacks());
+            table = rebuilt;
+            loadedAtMillis = System.currentTimeMillis();
+            lastError = null;
+            reloads.incrementAndGet();
+            System.out.println("Reloaded scenario packs " + rebuilt.packNames());
+            return true;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            rejected(e.getMessage());
+            return false;
+        } catch (RuntimeException e) {
+            // A malformed pack the validation missed; must not end the watcher thread
+            rejected(e.toString());
+            return false;
+        }
+    }
+
+    private void rejected(String error) {
+        rejectedReloads.incrementAndGet();
+        lastError = error;
+        System.err.println("Rejected scenario pack reload, keeping previous content: " + error);
+    }
+
+    public Map<String, Object> snapshot() {
+        ScenarioTable current = table;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("packs", current.packNames());
+        m.put("packDir", packDir == null ? null : packDir.toString());
+        m.put("loadedAtMillis", loadedAtMillis);
+        m.put("reloads", reloads.get());
+        m.put("rejectedReloads", rejectedReloads.get());
+        m.put("lastError", lastError);
+        List<Integer> perDifficulty = new ArrayList<>();
+        for (int d = 1; d <= ScenarioTable.DIFFICULTIES; d++) perDifficulty.add(current.scenarioCount(d));
+        m.put("scenariosPerDifficulty", perDifficulty);
+        return m;
+    }
+
+    private List<ScenarioPack> loadPacks() {
+        List<ScenarioPack> packs = new ArrayList<>();
+        try (InputStream in = ScenarioRepository.class.getResourceAsStream(DEFAULT_PACK)) {
+            if (in == null) throw new IllegalStateException("Missing built-in scenario pack " + DEFAULT_PACK);
+            packs.add(parse(new InputStreamReader(in, StandardCharsets.UTF_8), DEFAULT_PACK));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read built-in scenario pack", e);
+        }
+
+        if (packDir != null && Files.isDirectory(packDir)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(packDir, "*.json")) {
+                List<Path> sorted = new ArrayList<>();
+                files.forEach(sorted::add);
+                sorted.sort(null);
+                for (Path file : sorted) packs.add(readMapped(file));
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to list scenario packs in " + packDir + ": " + e.getMessage(), e);
+            }
+        }
+        return packs;
+    }
+
+    private ScenarioPack readMapped(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            String json = StandardCharsets.UTF_8.decode(mapped).toString();
+            ScenarioPack pack = parse(new StringReader(json), file.toString());
+            if (pack.name == null) pack.name = file.getFileName().toString();
+            return pack;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read scenario pack " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private ScenarioPack parse(Reader reader, String source) {
+        try {
+            ScenarioPack pack = gson.fromJson(reader, ScenarioPack.class);
+            if (pack == null) throw new IllegalArgumentException(source + " is empty");
+            return pack;
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException(source + " is not a valid scenario pack: " + e.getMessage());
+        }
+    }
+
+    private void watch() {
+        if (packDir == null || !Files.isDirectory(packDir)) return;
+        try {
+            WatchService watcher = FileSystems.getDefault().newWatchService();
+            packDir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+            Thread thread = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    try {
+                        WatchKey key = watcher.take();
+                        // Editors write in several steps; wait for the burst of events to settle
+                        Thread.sleep(RELOAD_DEBOUNCE_MS);
+                        key.pollEvents();
+                        key.reset();
+                        reload();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, "scenario-pack-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        } catch (IOException e) {
+            System.err.println("Scenario pack hot reload disabled: " + e.getMessage());
+        }
+    }
+}
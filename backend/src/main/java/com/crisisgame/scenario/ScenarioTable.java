@@ -0,0 +1,121 @@
+package com.crisisgame.scenario;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable, pre-indexed mock-mode content: opening scenarios by difficulty. Built once from one or
+ * more {@link ScenarioPack}s; lookups are array indexing and the option lists are shared immutable
+ * lists. Later mock turns are written by the narrative engine, which paces its story by
+ * {@link TurnPhase}.
+ */
+public final class ScenarioTable {
+    public static final int DIFFICULTIES = 5;
+    private static final int OPTION_COUNT = 5;
+
+    public enum TurnPhase {
+        EARLY, MID, LATE;
+
+        /** Turns 2-4 are early, 5-7 mid and 8-10 late. */
+        public static TurnPhase forTurn(int turn) {
+            return values()[Math.max(0, Math.min(2, (turn - 2) / 3))];
+        }
+    }
+
+    public static final class Entry {
+        private final NarrativeTemplate narrative;
+        private final List<String> options;
+
+        Entry(NarrativeTemplate narrative, List<String> options) {
+            this.narrative = narrative;
+            this.options = options;
+        }
+
+        public NarrativeTemplate narrative() { return narrative; }
+        public List<String> options() { return options; }
+    }
+
+    private final Entry[][] scenarios;
+    private final List<String> packNames;
+
+    private ScenarioTable(Entry[][] scenarios, List<String> packNames) {
+        this.scenarios = scenarios;
+        this.packNames = packNames;
+    }
+
+    public int scenarioCount(int difficulty) {
+        return scenarios[difficultyIndex(difficulty)].length;
+    }
+
+    public Entry scenario(int difficulty, int pick) {
+        return scenarios[difficultyIndex(difficulty)][pick];
+    }
+
+    public List<String> packNames() {
+        return packNames;
+    }
+
+    private static int difficultyIndex(int difficulty) {
+        return Math.max(0, Math.min(DIFFICULTIES - 1, difficulty - 1));
+    }
+
+    /**
+     * Validates and indexes the packs. Content from later packs is added to earlier ones, so the
+     * default pack can be extended without repeating it.
+     *
+     * @throws IllegalArgumentException describing the first invalid entry
+     */
+    public static ScenarioTable build(List<ScenarioPack> packs) {
+        List<List<Entry>> byDifficulty = new ArrayList<>();
+        for (int i = 0; i < DIFFICULTIES; i++) byDifficulty.add(new ArrayList<>());
+        List<String> names = new ArrayList<>();
+
+        for (ScenarioPack pack : packs) {
+            String packName = pack.name != null ? pack.name : "unnamed";
+            names.add(packName);
+
+            if (pack.scenarios != null) {
+                for (int i = 0; i < pack.scenarios.size(); i++) {
+                    ScenarioPack.ScenarioEntry s = pack.scenarios.get(i);
+                    String where = packName + " scenarios[" + i + "]";
+                    if (s == null) throw new IllegalArgumentException(where + ": entry is null");
+                    if (s.difficulty < 1 || s.difficulty > DIFFICULTIES) {
+                        throw new IllegalArgumentException(where + ": difficulty must be 1-" + DIFFICULTIES);
+                    }
+                    NarrativeTemplate template = compile(where, s.narrative);
+                    byDifficulty.get(s.difficulty - 1).add(new Entry(template, options(where, s.options)));
+                }
+            }
+        }
+
+        Entry[][] scenarios = new Entry[DIFFICULTIES][];
+        for (int i = 0; i < DIFFICULTIES; i++) {
+            if (byDifficulty.get(i).isEmpty()) throw new IllegalArgumentException("No scenarios for difficulty " + (i + 1));
+            scenarios[i] = byDifficulty.get(i).toArray(new Entry[0]);
+        }
+        return new ScenarioTable(scenarios, List.copyOf(names));
+    }
+
+    private static NarrativeTemplate compile(String where, String narrative) {
+        if (narrative == null || narrative.isBlank()) throw new IllegalArgumentException(where + ": narrative is empty");
+        try {
+            return NarrativeTemplate.compile(narrative);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(where + ": " + e.getMessage());
+        }
+    }
+
+    private static List<String> options(String where, List<String> options) {
+        if (options == null || options.size() != OPTION_COUNT) {
+            throw new IllegalArgumentException(where + ": exactly " + OPTION_COUNT + " options are required");
+        }
+        for (int i = 0; i < OPTION_COUNT; i++) {
+            String option = options.get(i);
+            String label = (char) ('A' + i) + ")";
+            if (option == null || !option.startsWith(label) || option.length() <= label.length() + 1) {
+                throw new IllegalArgumentException(where + ": option " + (i + 1) + " must start with \"" + label + " \"");
+            }
+        }
+        return List.copyOf(options);
+    }
+}
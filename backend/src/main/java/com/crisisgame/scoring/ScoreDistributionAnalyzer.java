@@ -0,0 +1,281 @@
+package com.crisisgame.scoring;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.google.gson.GsonBuilder;
+
+/**
+ * Offline calibration tool: scores every possible game (all 5^10 sequences of A-E choices) for each
+ * difficulty and reports how the scoring rules spread players out.
+ *
+ * A sequence is packed into an int (base-5 digits, turn 1 in the lowest digit), so the whole space is
+ * the range [0, 5^10). The range is split across a fork-join pool; each leaf decodes its codes into a
+ * reused {@link ScoreTracker} and accumulates into primitive arrays, so nothing is allocated per
+ * sequence. Output: total / level / percentage histograms, percentile band thresholds, and per-rule
+ * statistics (mean, how often it hits its cap, and its share of the total's variance).
+ *
+ * <pre>
+ * java -cp target/classes:... com.crisisgame.scoring.ScoreDistributionAnalyzer [difficulty] [--json]
+ * </pre>
+ */
+public final class ScoreDistributionAnalyzer {
+    private static final int TURNS = 10;
+    private static final int SEQUENCES = pow5(TURNS);
+    private static final int LEAF_SIZE = 1 << 14;
+    private static final int MAX_TOTAL = 150;
+    private static final int RULE_CAP = 20;
+    private static final String[] LETTERS = {"A", "B", "C", "D", "E"};
+    private static final String[] RULES = {"consistency", "strategic", "phase", "stakeholder", "difficultyBonus"};
+
+    private ScoreDistributionAnalyzer() {}
+
+    public static void main(String[] args) {
+        boolean json = false;
+        int only = 0;
+        for (String arg : args) {
+            if (arg.equals("--json")) json = true;
+            else only = Integer.parseInt(arg);
+        }
+
+        List<Map<String, Object>> reports = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int difficulty = 1; difficulty <= 5; difficulty++) {
+            if (only != 0 && difficulty != only) continue;
+            long t0 = System.nanoTime();
+            Distribution d = ForkJoinPool.commonPool().invoke(new ScoreRange(difficulty, 0, SEQUENCES));
+            reports.add(d.report((System.nanoTime() - t0) / 1_000_000));
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        if (json) {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("sequencesPerDifficulty", SEQUENCES);
+            out.put("parallelism", ForkJoinPool.commonPool().getParallelism());
+            out.put("elapsedMs", elapsedMs);
+            out.put("difficulties", reports);
+            System.out.println(new GsonBuilder().setPrettyPrinting().create().toJson(out));
+        } else {
+            for (Map<String, Object> report : reports) print(report);
+            System.out.printf("%,d sequences per difficulty on %d threads in %d ms%n",
+                    SEQUENCES, ForkJoinPool.commonPool().getParallelism(), elapsedMs);
+        }
+    }
+
+    /** Accumulates one slice of the sequence space; merged pairwise as the fork-join tree unwinds. */
+    static final class Distribution {
+        final int difficulty;
+        long count;
+        final long[] totals = new long[MAX_TOTAL + 1];
+        final long[] levels = new long[5];
+        final long[] percentages = new long[101];
+        final long[] ruleSum = new long[RULES.length];
+        final long[] ruleSquares = new long[RULES.length];
+        final long[] ruleTimesTotal = new long[RULES.length];
+        final long[] ruleCapped = new long[RULES.length];
+        long totalSum;
+        long totalSquares;
+
+        Distribution(int difficulty) {
+            this.difficulty = difficulty;
+        }
+
+        void add(ScoreTracker t) {
+            int c = t.consistencyScore();
+            int s = t.strategicScore();
+            int p = t.phaseScore();
+            int k = t.stakeholderScore();
+            int b = t.difficultyBonus();
+            int total = 50 + c + s + p + k + b;
+            count++;
+            totals[total]++;
+            levels[t.level()]++;
+            percentages[t.percentage()]++;
+            totalSum += total;
+            totalSquares += (long) total * total;
+            addRule(0, c, total);
+            addRule(1, s, total);
+            addRule(2, p, total);
+            addRule(3, k, total);
+            addRule(4, b, total);
+        }
+
+        private void addRule(int rule, int value, int total) {
+            ruleSum[rule] += value;
+            ruleSquares[rule] += (long) value * value;
+            ruleTimesTotal[rule] += (long) value * total;
+            if (value >= RULE_CAP) ruleCapped[rule]++;
+        }
+
+        Distribution merge(Distribution other) {
+            count += other.count;
+            totalSum += other.totalSum;
+            totalSquares += other.totalSquares;
+            addAll(totals, other.totals);
+            addAll(levels, other.levels);
+            addAll(percentages, other.percentages);
+            addAll(ruleSum, other.ruleSum);
+            addAll(ruleSquares, other.ruleSquares);
+            addAll(ruleTimesTotal, other.ruleTimesTotal);
+            addAll(ruleCapped, other.ruleCapped);
+            return this;
+        }
+
+        private static void addAll(long[] into, long[] from) {
+            for (int i = 0; i < into.length; i++) into[i] += from[i];
+        }
+
+        Map<String, Object> report(long elapsedMs) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("difficulty", difficulty);
+            m.put("sequences", count);
+            m.put("elapsedMs", elapsedMs);
+
+            double mean = (double) totalSum / count;
+            double variance = (double) totalSquares / count - mean * mean;
+            Map<String, Object> total = new LinkedHashMap<>();
+            total.put("min", firstNonZero(totals));
+            total.put("max", lastNonZero(totals));
+            total.put("mean", round(mean));
+            total.put("stdDev", round(Math.sqrt(variance)));
+            Map<String, Integer> percentiles = new LinkedHashMap<>();
+            for (int p : new int[] {10, 25, 50, 75, 90}) percentiles.put("p" + p, percentile(totals, count, p));
+            total.put("percentiles", percentiles);
+            total.put("histogram", sparse(totals));
+            m.put("total", total);
+
+            // Current bands (level 1 < 55 <= 2 < 70 <= 3 < 85 <= 4) against thresholds just above each quartile
+            Map<String, Object> bands = new LinkedHashMap<>();
+            Map<String, Double> share = new LinkedHashMap<>();
+            for (int level = 1; level <= 4; level++) share.put("level" + level, round(100.0 * levels[level] / count));
+            bands.put("currentSharePercent", share);
+            bands.put("currentThresholds", List.of(55, 70, 85));
+            bands.put("quartileThresholds", List.of(
+                    percentile(totals, count, 25) + 1, percentile(totals, count, 50) + 1, percentile(totals, count, 75) + 1));
+            m.put("bands", bands);
+
+            m.put("percentageHistogram", sparse(percentages));
+
+            // Share of variance: cov(rule, total) / var(total); the shares of all rules add up to 1
+            List<Map<String, Object>> rules = new ArrayList<>();
+            for (int r = 0; r < RULES.length; r++) {
+                double ruleMean = (double) ruleSum[r] / count;
+                double ruleVariance = (double) ruleSquares[r] / count - ruleMean * ruleMean;
+                double covariance = (double) ruleTimesTotal[r] / count - ruleMean * mean;
+                Map<String, Object> rule = new LinkedHashMap<>();
+                rule.put("rule", RULES[r]);
+                rule.put("mean", round(ruleMean));
+                rule.put("stdDev", round(Math.sqrt(Math.max(0, ruleVariance))));
+                rule.put("cappedPercent", round(100.0 * ruleCapped[r] / count));
+                rule.put("varianceShare", variance == 0 ? 0.0 : round(covariance / variance));
+                rules.add(rule);
+            }
+            m.put("rules", rules);
+            return m;
+        }
+    }
+
+    /** Scores the codes [from, to) for one difficulty. */
+    static final class ScoreRange extends RecursiveTask<Distribution> {
+        private static final long serialVersionUID = 1L;
+
+        private final int difficulty;
+        private final int from;
+        private final int to;
+
+        ScoreRange(int difficulty, int from, int to) {
+            this.difficulty = difficulty;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Distribution compute() {
+            if (to - from <= LEAF_SIZE) {
+                Distribution d = new Distribution(difficulty);
+                ScoreTracker tracker = new ScoreTracker(difficulty);
+                for (int code = from; code < to; code++) {
+                    tracker.reset();
+                    int rest = code;
+                    for (int turn = 0; turn < TURNS; turn++) {
+                        tracker.record(LETTERS[rest % 5]);
+                        rest /= 5;
+                    }
+                    d.add(tracker);
+                }
+                return d;
+            }
+            int mid = (from + to) >>> 1;
+            ScoreRange left = new ScoreRange(difficulty, from, mid);
+            left.fork();
+            Distribution right = new ScoreRange(difficulty, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(Map<String, Object> report) {
+        Map<String, Object> total = (Map<String, Object>) report.get("total");
+        Map<String, Object> bands = (Map<String, Object>) report.get("bands");
+        System.out.printf("== Difficulty %s (%,d sequences, %s ms)%n", report.get("difficulty"), report.get("sequences"), report.get("elapsedMs"));
+        System.out.printf("total: min %s  max %s  mean %s  sd %s  %s%n",
+                total.get("min"), total.get("max"), total.get("mean"), total.get("stdDev"), total.get("percentiles"));
+        System.out.printf("bands: share %s  current %s  quartiles %s%n",
+                bands.get("currentSharePercent"), bands.get("currentThresholds"), bands.get("quartileThresholds"));
+
+        Map<Integer, Long> histogram = (Map<Integer, Long>) total.get("histogram");
+        long peak = histogram.values().stream().mapToLong(Long::longValue).max().orElse(1);
+        for (Map.Entry<Integer, Long> e : histogram.entrySet()) {
+            int width = (int) Math.max(1, 50 * e.getValue() / peak);
+            System.out.printf("  %3d %10d %s%n", e.getKey(), e.getValue(), "#".repeat(width));
+        }
+        System.out.printf("percentage: %s%n", report.get("percentageHistogram"));
+        for (Map<String, Object> rule : (List<Map<String, Object>>) report.get("rules")) {
+            System.out.printf("  %-16s mean %6s  sd %6s  capped %6s%%  variance share %s%n",
+                    rule.get("rule"), rule.get("mean"), rule.get("stdDev"), rule.get("cappedPercent"), rule.get("varianceShare"));
+        }
+        System.out.println();
+    }
+
+    private static Map<Integer, Long> sparse(long[] histogram) {
+        Map<Integer, Long> m = new LinkedHashMap<>();
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] != 0) m.put(i, histogram[i]);
+        }
+        return m;
+    }
+
+    private static int percentile(long[] histogram, long count, int p) {
+        long rank = (long) Math.ceil(count * p / 100.0);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) return i;
+        }
+        return histogram.length - 1;
+    }
+
+    private static int firstNonZero(long[] histogram) {
+        for (int i = 0; i < histogram.length; i++) if (histogram[i] != 0) return i;
+        return -1;
+    }
+
+    private static int lastNonZero(long[] histogram) {
+        for (int i = histogram.length - 1; i >= 0; i--) if (histogram[i] != 0) return i;
+        return -1;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static int pow5(int n) {
+        int result = 1;
+        for (int i = 0; i < n; i++) result *= 5;
+        return result;
+    }
+}
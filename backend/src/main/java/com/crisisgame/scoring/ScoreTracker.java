@@ -0,0 +1,204 @@
+package com.crisisgame.scoring;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.crisisgame.model.ScoreBreakdown;
+import com.crisisgame.util.KeywordClassifier;
+
+/**
+ * Incremental performance score for one session.
+ *
+ * Every rule of the scoring formula only needs counts over the choices made so far (how often each
+ * letter was picked, how many picks moved up the A-E progression, how many fell into the expected
+ * crisis phase, ...), so {@link #record} updates a handful of counters and the score can be read at
+ * any turn without walking the history again. Choices are the option letters A-E; anything else is
+ * counted as its own distinct approach, as the formula always did.
+ */
+public final class ScoreTracker {
+    private static final int LETTERS = 5; // A = reactive, B = collaborative, C = analytical, D = innovative, E = comprehensive
+
+    private enum ChoiceSignal {
+        PROACTIVE, REACTIVE, STAKEHOLDER_FOCUS, STRATEGIC, STAKEHOLDER_CARE, LONG_TERM, DEFENSIVE, MINIMIZE, DAMAGE
+    }
+
+    private static final KeywordClassifier<ChoiceSignal> CHOICE_KEYWORDS = KeywordClassifier.builder(ChoiceSignal.class)
+            .add(ChoiceSignal.PROACTIVE, "proactive", "prevent", "anticipate", "prepare")
+            .add(ChoiceSignal.REACTIVE, "respond", "react", "address", "immediate")
+            .add(ChoiceSignal.STAKEHOLDER_FOCUS, "stakeholder", "community", "customer", "partner")
+            .add(ChoiceSignal.STRATEGIC, "strategic", "comprehensive", "systematic")
+            .add(ChoiceSignal.STAKEHOLDER_CARE, "stakeholder", "community", "transparent")
+            .add(ChoiceSignal.LONG_TERM, "long-term", "sustainable", "future")
+            .add(ChoiceSignal.DEFENSIVE, "deny", "blame")
+            .add(ChoiceSignal.MINIMIZE, "minimize")
+            .add(ChoiceSignal.DAMAGE, "damage")
+            .build();
+
+    private final int difficulty;
+
+    private int choices;
+    private final int[] letterCounts = new int[LETTERS];
+    private int distinctLetters;
+    private Set<String> otherChoices; // rare: free-text choices, created on first use
+    private int previousLetter = -1;
+    private int progressions;
+    private int innovative;
+    private int reactiveEarly;
+    private int analyticalMid;
+    private int strategicLate;
+
+    private int proactiveWords;
+    private int reactiveWords;
+    private int stakeholderWords;
+    private int qualityPoints;
+
+    public ScoreTracker(int difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    public int getDifficulty() { return difficulty; }
+    public int getChoices() { return choices; }
+
+    /** Adds the next choice; constant time. */
+    public void record(String choice) {
+        int letter = letterIndex(choice);
+        int position = choices++;
+
+        if (letter >= 0) {
+            if (letterCounts[letter]++ == 0) distinctLetters++;
+        } else {
+            if (otherChoices == null) otherChoices = new HashSet<>();
+            otherChoices.add(choice);
+        }
+
+        // Strategic progression: moving toward more sophisticated approaches (A -> B -> C -> D -> E)
+        if (position > 0 && letter > previousLetter) progressions++;
+        previousLetter = letter;
+        if (letter == 3 || letter == 4) innovative++;
+
+        // Crisis phases: turns 1-3 reactive (A, B), 4-7 analytical (B, C), 8+ strategic (C, D, E)
+        if (position < 3) {
+            if (letter == 0 || letter == 1) reactiveEarly++;
+        } else if (position < 7) {
+            if (letter == 1 || letter == 2) analyticalMid++;
+        } else if (letter >= 2) {
+            strategicLate++;
+        }
+
+        long hits = CHOICE_KEYWORDS.scan(choice);
+        if (KeywordClassifier.has(hits, ChoiceSignal.PROACTIVE)) proactiveWords++;
+        if (KeywordClassifier.has(hits, ChoiceSignal.REACTIVE)) reactiveWords++;
+        if (KeywordClassifier.has(hits, ChoiceSignal.STAKEHOLDER_FOCUS)) stakeholderWords++;
+        if (KeywordClassifier.has(hits, ChoiceSignal.STRATEGIC)) qualityPoints += 2;
+        if (KeywordClassifier.has(hits, ChoiceSignal.STAKEHOLDER_CARE)) qualityPoints += 2;
+        if (KeywordClassifier.has(hits, ChoiceSignal.LONG_TERM)) qualityPoints += 2;
+        if (KeywordClassifier.has(hits, ChoiceSignal.DEFENSIVE)
+                || KeywordClassifier.has(hits, ChoiceSignal.MINIMIZE) && !KeywordClassifier.has(hits, ChoiceSignal.DAMAGE)) {
+            qualityPoints -= 1;
+        }
+    }
+
+    /** Forgets all choices so the tracker can be reused (score tooling replays millions of games). */
+    public void reset() {
+        choices = 0;
+        Arrays.fill(letterCounts, 0);
+        distinctLetters = 0;
+        otherChoices = null;
+        previousLetter = -1;
+        progressions = innovative = reactiveEarly = analyticalMid = strategicLate = 0;
+        proactiveWords = reactiveWords = stakeholderWords = qualityPoints = 0;
+    }
+
+    private static int letterIndex(String choice) {
+        if (choice == null || choice.length() != 1) return -1;
+        int index = choice.charAt(0) - 'A';
+        return index >= 0 && index < LETTERS ? index : -1;
+    }
+
+    private int distinctChoices() {
+        return distinctLetters + (otherChoices == null ? 0 : otherChoices.size());
+    }
+
+    // 1. Choice consistency: balanced (not too repetitive, not too chaotic) scores higher
+    public int consistencyScore() {
+        if (choices < 3) return 10; // Not enough data, give neutral score
+        int unique = distinctChoices();
+        if (unique >= 3 && unique <= 4) return 20;
+        if (unique == 2 || unique == 5) return 15;
+        return 10;
+    }
+
+    // 2. Strategic thinking: progression plus innovation at Expert/Master levels
+    public int strategicScore() {
+        int score = 10 + progressions * 2;
+        if (difficulty >= 4) score += innovative * 2;
+        return Math.min(20, score);
+    }
+
+    // 3. Crisis phase management, once there are enough choices to analyze phases
+    public int phaseScore() {
+        if (choices < 8) return 10;
+        return Math.min(20, 10 + analyticalMid * 2 + strategicLate * 3 + reactiveEarly * 2);
+    }
+
+    // 4. Stakeholder balance: each choice type focuses on different stakeholders
+    public int stakeholderScore() {
+        int unique = distinctChoices();
+        if (unique >= 4) return 20;
+        if (unique == 3) return 15;
+        if (unique == 2) return 10;
+        return 5;
+    }
+
+    // 5. Difficulty adjustment: 0-12 for difficulties 1-5, plus 5 on completion
+    public int difficultyBonus() {
+        int completionBonus = choices >= 10 ? 5 : 0;
+        return Math.min(20, (difficulty - 1) * 3 + completionBonus);
+    }
+
+    public int totalScore() {
+        return 50 + consistencyScore() + strategicScore() + phaseScore() + stakeholderScore() + difficultyBonus();
+    }
+
+    /** The total normalized to 1-4 for result selection. */
+    public int level() {
+        int total = totalScore();
+        if (total >= 85) return 4; // Excellent
+        if (total >= 70) return 3; // Good
+        if (total >= 55) return 2; // Adequate
+        return 1; // Needs Improvement
+    }
+
+    /** Percentage shown to the player: level, wording consistency, difficulty and choice quality, 30-95. */
+    public int percentage() {
+        int baseScore = (level() - 1) * 20; // 0, 20, 40, 60, 80
+        int difficultyBonus = (difficulty - 1) * 5;
+        int choiceQualityScore = Math.max(0, Math.min(30, qualityPoints));
+        return Math.max(30, Math.min(95, baseScore + wordingConsistency() + difficultyBonus + choiceQualityScore));
+    }
+
+    private int wordingConsistency() {
+        if (choices < 3) return 0;
+        int maxApproach = Math.max(proactiveWords, Math.max(reactiveWords, stakeholderWords));
+        double consistencyRatio = (double) maxApproach / choices;
+        if (consistencyRatio >= 0.7) return 15; // Highly consistent
+        if (consistencyRatio >= 0.5) return 10; // Moderately consistent
+        if (consistencyRatio >= 0.3) return 5;  // Somewhat consistent
+        return 0; // Inconsistent approach
+    }
+
+    public ScoreBreakdown breakdown() {
+        ScoreBreakdown b = new ScoreBreakdown();
+        b.choices = choices;
+        b.consistency = consistencyScore();
+        b.strategic = strategicScore();
+        b.phase = phaseScore();
+        b.stakeholder = stakeholderScore();
+        b.difficultyBonus = difficultyBonus();
+        b.total = 50 + b.consistency + b.strategic + b.phase + b.stakeholder + b.difficultyBonus;
+        b.level = level();
+        b.percentage = percentage();
+        return b;
+    }
+}
@@ -0,0 +1,366 @@
+package com.crisisgame.spectate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.crisisgame.model.StartResponse;
+import com.crisisgame.model.TurnResponse;
+import com.crisisgame.util.Env;
+import com.crisisgame.wire.ModelCodec;
+import com.crisisgame.wire.WireBuffer;
+import com.crisisgame.wire.WireFormat;
+
+/**
+ * Read-only Server-Sent Events streams of running games, for projecting a game to a classroom. Each
+ * start or turn becomes one SSE frame, encoded once when the first spectator needs it; every spectator
+ * of the session is handed the same byte array. A spectator joining mid-game gets the latest frame
+ * first. Games without spectators only keep a reference to their latest response.
+ *
+ * Spectators are written by a small pool of SPECTATE_WRITERS threads rather than a thread each. Every
+ * spectator has a queue of at most SPECTATE_QUEUE frames; one that falls that far behind is
+ * disconnected (EventSource reconnects and resumes from the latest frame), and one whose write has been
+ * blocked longer than SPECTATE_WRITE_TIMEOUT_MS has its writer interrupted, which closes its connection.
+ * Idle streams get a comment line every SPECTATE_HEARTBEAT_SECONDS so proxies keep them open.
+ */
+public final class SpectatorHub {
+    private static final byte[] HEARTBEAT = ": ping\n\n".getBytes(StandardCharsets.US_ASCII);
+    // Queued after a game's final frame; the writer closes the stream when it reaches it
+    private static final byte[] END = new byte[0];
+    private static final long RETAIN_FINISHED_MINUTES = 10;
+
+    /** Where a spectator's frames go: the response body of its open request, and how to end it. */
+    public interface Stream {
+        OutputStream body();
+
+        void close();
+    }
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final int queueFrames;
+    private final int maxSpectators;
+    private final long writeTimeoutNanos;
+    private final long heartbeatNanos;
+    private final AtomicInteger open = new AtomicInteger();
+    private final ExecutorService writers;
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "spectate-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final LongAdder subscribed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder framesEncoded = new LongAdder();
+    private final LongAdder framesQueued = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder heartbeats = new LongAdder();
+    private final LongAdder slowConsumerCloses = new LongAdder();
+    private final LongAdder writeTimeouts = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+
+    public SpectatorHub(int writerThreads, int queueFrames, int maxSpectators, int writeTimeoutMillis, int heartbeatSeconds) {
+        this.queueFrames = queueFrames;
+        this.maxSpectators = maxSpectators;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        this.heartbeatNanos = TimeUnit.SECONDS.toNanos(heartbeatSeconds);
+        this.writers = Executors.newFixedThreadPool(writerThreads, r -> {
+            Thread t = new Thread(r, "spectate-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        watchdog.scheduleWithFixedDelay(this::checkSpectators, 1, 1, TimeUnit.SECONDS);
+    }
+
+    public static SpectatorHub fromEnvironment() {
+        return new SpectatorHub(
+                Env.intValue("SPECTATE_WRITERS", Math.max(2, Runtime.getRuntime().availableProcessors())),
+                Env.intValue("SPECTATE_QUEUE", 16),
+                Env.intValue("SPECTATE_MAX_SPECTATORS", 10_000),
+                Env.intValue("SPECTATE_WRITE_TIMEOUT_MS", 10_000),
+                Env.intValue("SPECTATE_HEARTBEAT_SECONDS", 15));
+    }
+
+    /** A session's opening; called once per game, before any of its turns. */
+    public void publish(String sessionId, StartResponse response) {
+        publish(sessionId, "start", response, false);
+    }
+
+    /** A session's turn; called in turn order, under the session's lock. */
+    public void publish(String sessionId, TurnResponse response) {
+        publish(sessionId, "turn", response, response.gameOver);
+    }
+
+    /** Whether the session has a stream to watch: it has started and did not finish too long ago. */
+    public boolean watchable(String sessionId) {
+        return sessionId != null && channels.containsKey(sessionId);
+    }
+
+    /**
+     * Adds a spectator and queues the session's latest frame for it, unless {@code lastEventId} shows it
+     * already has that frame (an EventSource reconnecting).
+     *
+     * @return false when the session is unknown or the spectator limit is reached; the stream is not used then
+     */
+    public boolean subscribe(String sessionId, String lastEventId, Stream stream) {
+        Channel channel = sessionId == null ? null : channels.get(sessionId);
+        if (channel == null) return false;
+        if (open.incrementAndGet() > maxSpectators) {
+            open.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        subscribed.increment();
+        Subscriber subscriber = new Subscriber(stream);
+        synchronized (channel) {
+            channel.subscribers.add(subscriber);
+            if (!String.valueOf(channel.sequence).equals(lastEventId)) offer(subscriber, channel.frame());
+            if (channel.finished) subscriber.offer(END);
+        }
+        return true;
+    }
+
+    /**
+     * Whether the spectator limit is reached, counting the refusal. Checked before the response starts,
+     * as {@link #subscribe} comes too late to answer with a status.
+     */
+    public boolean full() {
+        if (open.get() < maxSpectators) return false;
+        rejected.increment();
+        return true;
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("sessions", channels.size());
+        m.put("open", open.get());
+        m.put("subscribed", subscribed.sum());
+        m.put("rejected", rejected.sum());
+        m.put("framesEncoded", framesEncoded.sum());
+        m.put("framesQueued", framesQueued.sum());
+        m.put("bytesWritten", bytesWritten.sum());
+        m.put("heartbeats", heartbeats.sum());
+        m.put("slowConsumerCloses", slowConsumerCloses.sum());
+        m.put("writeTimeouts", writeTimeouts.sum());
+        m.put("disconnects", disconnects.sum());
+        return m;
+    }
+
+    private void publish(String sessionId, String event, Object response, boolean finished) {
+        Channel channel = channels.computeIfAbsent(sessionId, id -> new Channel());
+        synchronized (channel) {
+            channel.update(event, response, finished);
+            if (!channel.subscribers.isEmpty()) {
+                byte[] frame = channel.frame();
+                for (Subscriber subscriber : channel.subscribers) {
+                    offer(subscriber, frame);
+                    if (finished) subscriber.offer(END);
+                }
+            }
+        }
+        if (finished) {
+            watchdog.schedule(() -> channels.remove(sessionId, channel), RETAIN_FINISHED_MINUTES, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Queues a frame; a spectator whose queue is full is cut off. It stays listed until its stream is
+     * closed, so the watchdog can still abort a write it is blocked in.
+     */
+    private void offer(Subscriber subscriber, byte[] frame) {
+        if (subscriber.offer(frame)) {
+            framesQueued.increment();
+        } else if (subscriber.stop()) {
+            slowConsumerCloses.increment();
+        }
+    }
+
+    private void checkSpectators() {
+        long now = System.nanoTime();
+        for (Channel channel : channels.values()) {
+            synchronized (channel) {
+                for (Subscriber subscriber : channel.subscribers) {
+                    if (subscriber.closed()) {
+                        channel.subscribers.remove(subscriber);
+                    } else if (subscriber.abortIfBlocked(now, writeTimeoutNanos)) {
+                        writeTimeouts.increment();
+                    } else if (now - subscriber.lastQueuedNanos > heartbeatNanos && subscriber.offer(HEARTBEAT)) {
+                        heartbeats.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    /** One watched session: its latest response, and that response's frame once someone needed it. */
+    private final class Channel {
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        // Guarded by this
+        int sequence;
+        String event;
+        Object latest;
+        byte[] frame;
+        boolean finished;
+
+        void update(String event, Object response, boolean finished) {
+            this.sequence++;
+            this.event = event;
+            this.latest = response;
+            this.frame = null;
+            this.finished = finished;
+        }
+
+        /** "id: N", "event: start|turn" and the response as one JSON data line. */
+        byte[] frame() {
+            if (frame == null) {
+                WireBuffer buffer = new WireBuffer(4096);
+                if (latest instanceof StartResponse start) ModelCodec.write(WireFormat.JSON.encoder(buffer), start);
+                else ModelCodec.write(WireFormat.JSON.encoder(buffer), (TurnResponse) latest);
+                byte[] head = ("id: " + sequence + "\nevent: " + event + "\ndata: ").getBytes(StandardCharsets.US_ASCII);
+                byte[] data = buffer.toByteArray();
+                byte[] bytes = new byte[head.length + data.length + 2];
+                System.arraycopy(head, 0, bytes, 0, head.length);
+                System.arraycopy(data, 0, bytes, head.length, data.length);
+                bytes[bytes.length - 2] = '\n';
+                bytes[bytes.length - 1] = '\n';
+                frame = bytes;
+                framesEncoded.increment();
+            }
+            return frame;
+        }
+    }
+
+    /**
+     * A spectator's queue and its place in the writer pool. It is handed to a writer when its queue goes
+     * from empty to non-empty, and the writer drains it; only one writer works on it at a time.
+     */
+    private final class Subscriber implements Runnable {
+        private final Stream stream;
+        // Guarded by this
+        private final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean stopped;
+        private boolean closed;
+        private boolean aborted;
+        private Thread writer;
+        private long writeStartedNanos;
+        volatile long lastQueuedNanos = System.nanoTime();
+
+        Subscriber(Stream stream) {
+            this.stream = stream;
+        }
+
+        /** False when the queue is full or the spectator is gone. */
+        synchronized boolean offer(byte[] frame) {
+            if (stopped) return false;
+            if (queue.size() >= queueFrames && frame != END) return false;
+            queue.add(frame);
+            lastQueuedNanos = System.nanoTime();
+            if (!scheduled) {
+                scheduled = true;
+                writers.execute(this);
+            }
+            return true;
+        }
+
+        /** Drops what is queued and has the writer close the stream; false if already stopped. */
+        synchronized boolean stop() {
+            if (stopped) return false;
+            stopped = true;
+            queue.clear();
+            if (!scheduled) {
+                scheduled = true;
+                writers.execute(this);
+            }
+            return true;
+        }
+
+        synchronized boolean closed() {
+            return closed;
+        }
+
+        /**
+         * Interrupts a writer blocked on this spectator for longer than the timeout. The response body
+         * sits on a blocking socket channel, which the interrupt closes, so the write fails at once.
+         */
+        synchronized boolean abortIfBlocked(long now, long timeoutNanos) {
+            if (aborted || writer == null || now - writeStartedNanos <= timeoutNanos) return false;
+            aborted = true;
+            stopped = true;
+            queue.clear();
+            writer.interrupt();
+            return true;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    byte[] frame;
+                    synchronized (this) {
+                        frame = stopped ? END : queue.poll();
+                        if (frame == null) {
+                            scheduled = false;
+                            return;
+                        }
+                        writer = Thread.currentThread();
+                        writeStartedNanos = System.nanoTime();
+                    }
+                    try {
+                        if (frame == END) {
+                            close();
+                            return;
+                        }
+                        OutputStream body = stream.body();
+                        body.write(frame);
+                        // Flush once the queue is drained, so a backlog goes out in one chunk
+                        if (isEmpty()) body.flush();
+                        bytesWritten.add(frame.length);
+                    } catch (IOException e) {
+                        disconnects.increment();
+                        close();
+                        return;
+                    } finally {
+                        synchronized (this) {
+                            writer = null;
+                            // An abort that came after the write finished must not hit this thread's next spectator
+                            Thread.interrupted();
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                close();
+            }
+        }
+
+        private synchronized boolean isEmpty() {
+            return queue.isEmpty();
+        }
+
+        private void close() {
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+                stopped = true;
+                queue.clear();
+            }
+            open.decrementAndGet();
+            try {
+                stream.close();
+            } catch (RuntimeException e) {
+                // connection already gone
+            }
+        }
+    }
+}
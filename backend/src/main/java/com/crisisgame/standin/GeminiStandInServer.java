@@ -0,0 +1,374 @@
+package com.crisisgame.standin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the Gemini generateContent / streamGenerateContent endpoints.
+ *
+ * Point the backend at it with GEMINI_BASE_URL=http://localhost:PORT/v1beta (and CRISIS_MOCK_MODE=false)
+ * to exercise the real OpenAIClient HTTP path without the cost and rate limits of the live API.
+ * Answers are canned crisis turns in the same shape the model produces (JSON when the request carries a
+ * generationConfig.responseSchema, free text otherwise), delayed and failed according
+ * to a {@link StandInProfile}. The profile can be swapped while running by POSTing a spec to
+ * /standin/profile, and request counters are available from GET /standin/stats.
+ */
+public class GeminiStandInServer {
+    private static final int STREAM_CHUNK_TOKENS = 8;
+
+    private static final String[] TURN_OPENINGS = {
+        "Reporters are camped outside headquarters and the story is trending nationally.",
+        "A regulator has requested a full incident timeline by the end of the day.",
+        "Employees are sharing internal memos on social media and morale is slipping.",
+        "Two major customers have paused their contracts pending an explanation.",
+        "The board chair has called asking for a clear plan before markets open."
+    };
+
+    private static final String[] OPTION_TEMPLATES = {
+        "Issue a transparent public statement acknowledging what is known so far",
+        "Brief regulators privately before any external communication",
+        "Gather the crisis team to analyse the facts and stakeholder exposure",
+        "Launch an innovative response that turns the incident into a reform program",
+        "Coordinate a comprehensive plan covering employees, customers, media and investors"
+    };
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Gson gson = new Gson();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile StandInProfile profile;
+    private volatile Random random;
+
+    public GeminiStandInServer(int port, StandInProfile profile) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = Executors.newCachedThreadPool();
+        setProfile(profile);
+
+        server.createContext("/standin/profile", this::handleProfile);
+        server.createContext("/standin/stats", this::handleStats);
+        server.createContext("/", this::handleModelCall);
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8090;
+        String spec = args.length > 1 ? args[1] : System.getenv("STANDIN_PROFILE");
+
+        GeminiStandInServer standIn = new GeminiStandInServer(port, StandInProfile.parse(spec));
+        standIn.start();
+        System.out.println("Gemini stand-in server started on port " + standIn.getPort() + " with profile " + standIn.profile);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /** Base URL to hand to {@code new OpenAIClient(baseUrl)}. */
+    public String getBaseUrl() {
+        return "http://localhost:" + getPort() + "/v1beta";
+    }
+
+    public void setProfile(StandInProfile profile) {
+        this.profile = profile;
+        this.random = profile.newRandom();
+    }
+
+    private void handleProfile(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            return;
+        }
+        try {
+            setProfile(StandInProfile.parse(readBody(exchange)));
+            System.out.println("Stand-in profile changed to " + profile);
+            send(exchange, 200, "{\"profile\":\"" + profile + "\"}");
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, errorJson(400, e.getMessage(), "INVALID_ARGUMENT"));
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        JsonObject stats = new JsonObject();
+        stats.addProperty("requests", requests.get());
+        stats.addProperty("rateLimited", rateLimited.get());
+        stats.addProperty("failures", failures.get());
+        stats.addProperty("profile", profile.toString());
+        send(exchange, 200, stats.toString());
+    }
+
+    private void handleModelCall(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        boolean streaming = path.endsWith(":streamGenerateContent");
+        if (!"POST".equals(exchange.getRequestMethod()) || (!streaming && !path.endsWith(":generateContent"))) {
+            send(exchange, 404, errorJson(404, "Unknown stand-in endpoint " + path, "NOT_FOUND"));
+            return;
+        }
+
+        StandInProfile current = profile;
+        Random rnd = random;
+        long requestNumber = requests.getAndIncrement();
+        String requestBody = readBody(exchange);
+
+        if (current.isRateLimited(requestNumber)) {
+            rateLimited.incrementAndGet();
+            send(exchange, 429, errorJson(429, "Resource has been exhausted (e.g. check quota).", "RESOURCE_EXHAUSTED"));
+            return;
+        }
+
+        pause(current.sampleLatencyMillis(rnd));
+
+        if (current.isFailure(rnd)) {
+            failures.incrementAndGet();
+            send(exchange, 503, errorJson(503, "The model is overloaded. Please try again later.", "UNAVAILABLE"));
+            return;
+        }
+
+        String model = modelFromPath(path);
+        String text = answerFor(requestBody, rnd);
+        List<String> tokens = tokenize(text);
+        int promptTokens = Math.max(1, requestBody.length() / 4);
+
+        if (streaming) {
+            String query = exchange.getRequestURI().getQuery();
+            boolean sse = query != null && Arrays.asList(query.split("&")).contains("alt=sse");
+            streamAnswer(exchange, current, model, tokens, promptTokens, sse);
+        } else {
+            pause(current.generationMillis(tokens.size()));
+            JsonObject response = chunk(text, model, true, promptTokens, tokens.size());
+            send(exchange, 200, response.toString());
+        }
+    }
+
+    private void streamAnswer(HttpExchange exchange, StandInProfile current, String model, List<String> tokens,
+                              int promptTokens, boolean sse) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", sse ? "text/event-stream" : "application/json");
+        exchange.sendResponseHeaders(200, 0);
+
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (!sse) os.write('[');
+            for (int start = 0; start < tokens.size(); start += STREAM_CHUNK_TOKENS) {
+                int end = Math.min(tokens.size(), start + STREAM_CHUNK_TOKENS);
+                pause(current.generationMillis(end - start));
+
+                boolean last = end == tokens.size();
+                String text = String.join("", tokens.subList(start, end));
+                String json = chunk(text, model, last, promptTokens, tokens.size()).toString();
+
+                String frame;
+                if (sse) {
+                    frame = "data: " + json + "\r\n\r\n";
+                } else {
+                    frame = (start == 0 ? "" : ",\r\n") + json;
+                }
+                os.write(frame.getBytes(StandardCharsets.UTF_8));
+                os.flush();
+            }
+            if (!sse) os.write(']');
+        }
+    }
+
+    private JsonObject chunk(String text, String model, boolean last, int promptTokens, int candidateTokens) {
+        JsonObject part = new JsonObject();
+        part.addProperty("text", text);
+        JsonArray parts = new JsonArray();
+        parts.add(part);
+
+        JsonObject content = new JsonObject();
+        content.add("parts", parts);
+        content.addProperty("role", "model");
+
+        JsonObject candidate = new JsonObject();
+        candidate.add("content", content);
+        candidate.addProperty("index", 0);
+        if (last) candidate.addProperty("finishReason", "STOP");
+
+        JsonArray candidates = new JsonArray();
+        candidates.add(candidate);
+
+        JsonObject response = new JsonObject();
+        response.add("candidates", candidates);
+        if (last) {
+            JsonObject usage = new JsonObject();
+            usage.addProperty("promptTokenCount", promptTokens);
+            usage.addProperty("candidatesTokenCount", candidateTokens);
+            usage.addProperty("totalTokenCount", promptTokens + candidateTokens);
+            response.add("usageMetadata", usage);
+        }
+        response.addProperty("modelVersion", model);
+        return response;
+    }
+
+    private String answerFor(String requestBody, Random rnd) {
+        JsonObject body = parseBody(requestBody);
+        String lastUserText = lastUserText(body);
+        boolean finalTurn = lastUserText.contains("final analysis") || lastUserText.contains("FINAL RESULTS ANALYSIS");
+        boolean structured = responseSchema(body) != null;
+
+        if (finalTurn) return structured ? finalAssessmentJson() : finalAssessment();
+
+        String narrative = TURN_OPENINGS[rnd.nextInt(TURN_OPENINGS.length)] + ' '
+            + TURN_OPENINGS[rnd.nextInt(TURN_OPENINGS.length)] + ' '
+            + "Every stakeholder is waiting to see how you respond next.";
+        if (structured) {
+            JsonObject turn = new JsonObject();
+            turn.addProperty("narrative", narrative);
+            JsonArray options = new JsonArray();
+            for (String option : OPTION_TEMPLATES) options.add(option);
+            turn.add("options", options);
+            return turn.toString();
+        }
+
+        StringBuilder text = new StringBuilder(narrative).append("\n\n");
+        for (int i = 0; i < OPTION_TEMPLATES.length; i++) {
+            text.append("**").append((char) ('A' + i)).append(".** ").append(OPTION_TEMPLATES[i]).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static String finalAssessment() {
+        return "OUTCOME: The crisis was contained with stakeholder trust largely restored.\n\n"
+             + "CAREER: Recognised internally and considered for a broader leadership role.\n\n"
+             + "STRENGTHS: Clear, timely communication that kept stakeholders aligned.\n\n"
+             + "IMPROVEMENTS: Earlier engagement with regulators would have reduced scrutiny.\n\n"
+             + "LEADERSHIP: Collaborative and transparent under sustained pressure.\n\n"
+             + "CRISIS_THEORY: Situational Crisis Communication Theory - responses matched the level of attributed responsibility.\n\n"
+             + "1. The crisis was contained with stakeholder trust largely restored.\n"
+             + "2. Recognised internally and considered for a broader leadership role.\n"
+             + "3. Clear, timely communication that kept stakeholders aligned.\n"
+             + "4. Earlier engagement with regulators would have reduced scrutiny.\n"
+             + "5. Situational Crisis Communication Theory guided the response.\n"
+             + "6. Reputation recovers over the following quarters with lasting process changes.\n";
+    }
+
+    private static String finalAssessmentJson() {
+        JsonObject a = new JsonObject();
+        a.addProperty("summary", "The crisis was contained within the quarter. Reputation recovers over the following quarters with lasting process changes.");
+        a.addProperty("outcome", "The crisis was contained with stakeholder trust largely restored.");
+        a.addProperty("career", "Recognised internally and considered for a broader leadership role.");
+        a.addProperty("strengths", "Clear, timely communication that kept stakeholders aligned.");
+        a.addProperty("improvements", "Earlier engagement with regulators would have reduced scrutiny.");
+        a.addProperty("leadershipStyle", "Collaborative and transparent under sustained pressure.");
+        a.addProperty("crisisTheory", "Situational Crisis Communication Theory - responses matched the level of attributed responsibility.");
+        return a.toString();
+    }
+
+    private JsonObject parseBody(String requestBody) {
+        try {
+            JsonObject body = gson.fromJson(requestBody, JsonObject.class);
+            return body == null ? new JsonObject() : body;
+        } catch (RuntimeException e) {
+            System.out.println("Stand-in could not read request body: " + e.getMessage());
+            return new JsonObject();
+        }
+    }
+
+    private static JsonObject responseSchema(JsonObject body) {
+        JsonElement config = body.get("generationConfig");
+        if (config == null || !config.isJsonObject()) return null;
+        JsonElement schema = config.getAsJsonObject().get("responseSchema");
+        return schema != null && schema.isJsonObject() ? schema.getAsJsonObject() : null;
+    }
+
+    private static String lastUserText(JsonObject body) {
+        try {
+            if (!body.has("contents")) return "";
+            JsonArray contents = body.getAsJsonArray("contents");
+            for (int i = contents.size() - 1; i >= 0; i--) {
+                JsonObject content = contents.get(i).getAsJsonObject();
+                JsonElement role = content.get("role");
+                if (role == null || "user".equals(role.getAsString())) {
+                    StringBuilder text = new StringBuilder();
+                    for (JsonElement part : content.getAsJsonArray("parts")) {
+                        JsonElement partText = part.getAsJsonObject().get("text");
+                        if (partText != null) text.append(partText.getAsString());
+                    }
+                    return text.toString();
+                }
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Stand-in could not read request body: " + e.getMessage());
+        }
+        return "";
+    }
+
+    private static List<String> tokenize(String text) {
+        // Words keep their trailing whitespace so concatenated chunks reproduce the text exactly
+        List<String> tokens = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= text.length(); i++) {
+            if (i == text.length() || (Character.isWhitespace(text.charAt(i - 1)) && !Character.isWhitespace(text.charAt(i)))) {
+                tokens.add(text.substring(start, i));
+                start = i;
+            }
+        }
+        return tokens;
+    }
+
+    private static String modelFromPath(String path) {
+        int slash = path.lastIndexOf('/');
+        int colon = path.lastIndexOf(':');
+        return colon > slash ? path.substring(slash + 1, colon) : "unknown";
+    }
+
+    private static String errorJson(int code, String message, String status) {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        error.addProperty("status", status);
+        JsonObject body = new JsonObject();
+        body.add("error", error);
+        return body.toString();
+    }
+
+    private static void pause(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
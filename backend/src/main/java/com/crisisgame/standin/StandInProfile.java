@@ -0,0 +1,129 @@
+package com.crisisgame.standin;
+
+import java.util.Random;
+
+/**
+ * Behaviour profile for {@link GeminiStandInServer}: how long the fake model takes to answer,
+ * how fast it streams tokens, and how often it fails.
+ *
+ * Profiles are written as a semicolon separated spec so they can be passed on the command line
+ * or through the STANDIN_PROFILE environment variable, for example:
+ * <pre>
+ *   latency=lognormal:900:0.5;tokensPerSecond=60;errorRate=0.02;burst429=200:10;seed=42
+ * </pre>
+ *
+ * Supported latency distributions (all values in milliseconds):
+ * fixed:MS, uniform:MIN:MAX, normal:MEAN:STDDEV, lognormal:MEDIAN:SIGMA.
+ * {@code burst429=EVERY:LENGTH} answers LENGTH consecutive requests with 429 after every EVERY requests.
+ */
+public class StandInProfile {
+    public enum Distribution { FIXED, UNIFORM, NORMAL, LOGNORMAL }
+
+    private final Distribution distribution;
+    private final double a;
+    private final double b;
+    private final double tokensPerSecond;
+    private final double errorRate;
+    private final int burstEvery;
+    private final int burstLength;
+    private final Long seed;
+
+    private StandInProfile(Distribution distribution, double a, double b, double tokensPerSecond,
+                           double errorRate, int burstEvery, int burstLength, Long seed) {
+        this.distribution = distribution;
+        this.a = a;
+        this.b = b;
+        this.tokensPerSecond = tokensPerSecond;
+        this.errorRate = errorRate;
+        this.burstEvery = burstEvery;
+        this.burstLength = burstLength;
+        this.seed = seed;
+    }
+
+    /** Instant answers with no failures, useful for CI runs that only exercise the HTTP path. */
+    public static StandInProfile instant() {
+        return new StandInProfile(Distribution.FIXED, 0, 0, 0, 0, 0, 0, null);
+    }
+
+    public static StandInProfile parse(String spec) {
+        Distribution distribution = Distribution.FIXED;
+        double a = 0, b = 0, tokensPerSecond = 0, errorRate = 0;
+        int burstEvery = 0, burstLength = 0;
+        Long seed = null;
+
+        if (spec == null || spec.isBlank()) return instant();
+
+        for (String entry : spec.split(";")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) continue;
+            int eq = trimmed.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Invalid profile entry: " + trimmed);
+            String key = trimmed.substring(0, eq).trim();
+            String[] values = trimmed.substring(eq + 1).trim().split(":");
+
+            switch (key) {
+                case "latency" -> {
+                    distribution = Distribution.valueOf(values[0].toUpperCase());
+                    a = values.length > 1 ? Double.parseDouble(values[1]) : 0;
+                    b = values.length > 2 ? Double.parseDouble(values[2]) : 0;
+                    if (distribution != Distribution.FIXED && values.length < 3) {
+                        throw new IllegalArgumentException("Latency distribution " + values[0] + " needs two parameters");
+                    }
+                }
+                case "tokensPerSecond" -> tokensPerSecond = Double.parseDouble(values[0]);
+                case "errorRate" -> errorRate = Double.parseDouble(values[0]);
+                case "burst429" -> {
+                    if (values.length < 2) throw new IllegalArgumentException("burst429 needs EVERY:LENGTH");
+                    burstEvery = Integer.parseInt(values[0]);
+                    burstLength = Integer.parseInt(values[1]);
+                }
+                case "seed" -> seed = Long.parseLong(values[0]);
+                default -> throw new IllegalArgumentException("Unknown profile key: " + key);
+            }
+        }
+
+        if (errorRate < 0 || errorRate > 1) throw new IllegalArgumentException("errorRate must be between 0 and 1");
+        return new StandInProfile(distribution, a, b, tokensPerSecond, errorRate, burstEvery, burstLength, seed);
+    }
+
+    Random newRandom() {
+        return seed != null ? new Random(seed) : new Random();
+    }
+
+    /** Time until the first byte of the answer, sampled from the configured distribution. */
+    long sampleLatencyMillis(Random random) {
+        double value = switch (distribution) {
+            case FIXED -> a;
+            case UNIFORM -> a + random.nextDouble() * (b - a);
+            case NORMAL -> a + random.nextGaussian() * b;
+            case LOGNORMAL -> a * Math.exp(random.nextGaussian() * b);
+        };
+        return Math.max(0, Math.round(value));
+    }
+
+    /** Milliseconds spent generating the given number of tokens, or 0 when streaming is unthrottled. */
+    long generationMillis(int tokens) {
+        return tokensPerSecond <= 0 ? 0 : Math.round(tokens * 1000.0 / tokensPerSecond);
+    }
+
+    boolean isRateLimited(long requestNumber) {
+        if (burstEvery <= 0 || burstLength <= 0) return false;
+        long position = requestNumber % (burstEvery + burstLength);
+        return position >= burstEvery;
+    }
+
+    boolean isFailure(Random random) {
+        return errorRate > 0 && random.nextDouble() < errorRate;
+    }
+
+    public double getTokensPerSecond() { return tokensPerSecond; }
+
+    @Override
+    public String toString() {
+        return "latency=" + distribution.name().toLowerCase() + ":" + a + ":" + b
+                + ";tokensPerSecond=" + tokensPerSecond
+                + ";errorRate=" + errorRate
+                + ";burst429=" + burstEvery + ":" + burstLength
+                + (seed != null ? ";seed=" + seed : "");
+    }
+}
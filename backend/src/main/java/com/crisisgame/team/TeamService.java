@@ -0,0 +1,269 @@
+package com.crisisgame.team;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import com.crisisgame.Deadline;
+import com.crisisgame.GameService;
+import com.crisisgame.model.PlayerProfile;
+import com.crisisgame.model.StartResponse;
+import com.crisisgame.model.TeamRequest;
+import com.crisisgame.model.TurnResponse;
+import com.crisisgame.util.Env;
+
+/**
+ * Team games for classrooms: several members play one GameService session. Each turn opens a voting
+ * window; it closes once every member has voted, or at its timeout if a quorum has (otherwise it is
+ * extended), and the winning option is played as a single turn, so a team costs one Gemini call per
+ * turn instead of one per member. Members follow the game by long-polling {@link #await}, which answers
+ * everyone from the same pre-encoded {@link TeamSnapshot}.
+ *
+ * Team ids are short codes to type into a classroom screen; member ids are secret and identify the
+ * member's ballots. Finished teams are forgotten after RETAIN_FINISHED_MINUTES.
+ */
+public class TeamService {
+    /** A request the team cannot serve in its current state; status is the HTTP status to answer with. */
+    public static final class TeamException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        public final int status;
+
+        public TeamException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private static final String CODE_ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+    private static final int CODE_LENGTH = 6;
+    private static final long RETAIN_FINISHED_MINUTES = 30;
+
+    private final GameService gameService;
+    private final long voteMillis;
+    private final double quorum;
+    private final long pollMillis;
+    private final int maxMembers;
+    private final Map<String, TeamSession> teams = new ConcurrentHashMap<>();
+    // Starts and turns block on Gemini, so they run here rather than on the timer or a request thread
+    private final ExecutorService turns;
+    private final ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "team-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder votes = new LongAdder();
+    private final LongAdder turnsPlayed = new LongAdder();
+    private final LongAdder extendedWindows = new LongAdder();
+    private final LongAdder failedTurns = new LongAdder();
+    private final LongAdder callsSaved = new LongAdder();
+    private final LongAdder polls = new LongAdder();
+
+    public TeamService(GameService gameService, int voteSeconds, double quorum, int pollSeconds, int maxMembers, int threads) {
+        this.gameService = gameService;
+        this.voteMillis = TimeUnit.SECONDS.toMillis(voteSeconds);
+        this.quorum = quorum;
+        this.pollMillis = TimeUnit.SECONDS.toMillis(pollSeconds);
+        this.maxMembers = maxMembers;
+        this.turns = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "team-turn");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static TeamService fromEnvironment(GameService gameService) {
+        return new TeamService(gameService,
+                Env.intValue("TEAM_VOTE_SECONDS", 60),
+                Env.doubleValue("TEAM_QUORUM", 0.5),
+                Env.intValue("TEAM_POLL_SECONDS", 25),
+                Env.intValue("TEAM_MAX_MEMBERS", 30),
+                Env.intValue("TEAM_THREADS", 16));
+    }
+
+    /**
+     * Creates a team in its lobby with the creator as its first member and host. The request names the
+     * team ("team") and the creator ("member"), and may set "quorum" and "voteSeconds" for this team.
+     *
+     * @return the team id and the creator's member id
+     */
+    public Map<String, Object> create(TeamRequest request) throws TeamException {
+        PlayerProfile profile = request.getTeam();
+        if (isBlank(profile.getName())) throw new TeamException(400, "team name is required");
+        if (isBlank(request.getMember())) throw new TeamException(400, "member name is required");
+        if (profile.getDifficulty() < 1 || profile.getDifficulty() > 5) throw new TeamException(400, "difficulty must be 1-5");
+        double teamQuorum = request.getQuorum() != null ? request.getQuorum() : quorum;
+        if (!(teamQuorum > 0 && teamQuorum <= 1)) throw new TeamException(400, "quorum must be above 0 and at most 1");
+        long teamVoteMillis = request.getVoteSeconds() != null ? TimeUnit.SECONDS.toMillis(request.getVoteSeconds()) : voteMillis;
+        if (teamVoteMillis < 5_000 || teamVoteMillis > 600_000) throw new TeamException(400, "voteSeconds must be 5-600");
+        // Prompts describe the player; a team is described as a group unless the request says otherwise
+        if (isBlank(profile.getGender())) profile.setGender("Mixed team");
+
+        TeamSession.Member host = new TeamSession.Member(UUID.randomUUID().toString(), request.getMember().trim());
+        TeamSession team;
+        String teamId;
+        do {
+            teamId = newCode();
+            team = new TeamSession(teamId, profile, host, teamQuorum, teamVoteMillis);
+        } while (teams.putIfAbsent(teamId, team) != null);
+        created.increment();
+        joined.increment();
+        return ids(team, host);
+    }
+
+    public Map<String, Object> join(TeamRequest request) throws TeamException {
+        TeamSession team = team(request.getTeamId());
+        if (isBlank(request.getMember())) throw new TeamException(400, "member name is required");
+        TeamSession.Member member = new TeamSession.Member(UUID.randomUUID().toString(), request.getMember().trim());
+        team.join(member, maxMembers);
+        joined.increment();
+        changed(team);
+        return ids(team, member);
+    }
+
+    /** Generates the opening in the background; members see it through their polls. Host only. */
+    public TeamSnapshot start(TeamRequest request) throws TeamException {
+        TeamSession team = member(request);
+        team.beginStart(request.getMemberId());
+        changed(team);
+        turns.execute(() -> {
+            try {
+                StartResponse response = gameService.start(team.profile, null, Deadline.standard());
+                long window = team.started(response);
+                callsSaved.add(team.memberCount() - 1);
+                schedule(team, window);
+            } catch (Exception e) {
+                System.out.println("Team " + team.teamId + " could not start: " + e.getMessage());
+                team.startFailed("The game could not be started: " + e.getMessage());
+            }
+            changed(team);
+        });
+        return team.snapshot();
+    }
+
+    /** Records or replaces the member's ballot ("A"-"E") in the open window. */
+    public TeamSnapshot vote(TeamRequest request) throws TeamException {
+        TeamSession team = member(request);
+        int choice = TeamSession.indexOf(request.getChoice());
+        if (choice < 0) throw new TeamException(400, "choice must be one of A, B, C, D, E");
+        long everyoneVoted = team.vote(request.getMemberId(), choice);
+        votes.increment();
+        if (everyoneVoted >= 0) {
+            close(team, everyoneVoted, false);
+        } else {
+            changed(team);
+        }
+        return team.snapshot();
+    }
+
+    /**
+     * Long poll: calls {@code deliver} once, with the first snapshot newer than {@code since}, or with
+     * the current one after TEAM_POLL_SECONDS. Delivery may happen on another thread after this returns.
+     */
+    public void await(String teamId, long since, Consumer<TeamSnapshot> deliver) throws TeamException {
+        TeamSession team = team(teamId);
+        polls.increment();
+        TeamSession.Waiter waiter = team.await(since, deliver);
+        if (waiter != null) timers.schedule(() -> team.expire(waiter), pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public Map<String, Object> metrics() {
+        long members = 0;
+        for (TeamSession team : teams.values()) members += team.memberCount();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("teams", teams.size());
+        m.put("members", members);
+        m.put("created", created.sum());
+        m.put("joined", joined.sum());
+        m.put("votes", votes.sum());
+        m.put("turns", turnsPlayed.sum());
+        m.put("extendedWindows", extendedWindows.sum());
+        m.put("failedTurns", failedTurns.sum());
+        m.put("geminiCallsSaved", callsSaved.sum());
+        m.put("polls", polls.sum());
+        return m;
+    }
+
+    private void schedule(TeamSession team, long window) {
+        team.timer(timers.schedule(() -> close(team, window, true), team.voteMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /** Closes the window and plays the winning option; a window that timed out without quorum is extended. */
+    private void close(TeamSession team, long window, boolean timedOut) {
+        TeamSession.Resolution resolution = team.close(window);
+        if (resolution == null) {
+            if (timedOut && team.extend(window) >= 0) {
+                extendedWindows.increment();
+                schedule(team, window);
+                changed(team);
+            }
+            return;
+        }
+        changed(team);
+        turns.execute(() -> {
+            long next;
+            try {
+                TurnResponse response = gameService.turn(team.sessionId(), resolution.choice, null, Deadline.standard());
+                next = team.resolved(resolution, response);
+                turnsPlayed.increment();
+                callsSaved.add(resolution.members - 1);
+                if (response.gameOver) {
+                    timers.schedule(() -> teams.remove(team.teamId, team), RETAIN_FINISHED_MINUTES, TimeUnit.MINUTES);
+                }
+            } catch (Exception e) {
+                System.out.println("Team " + team.teamId + " turn failed: " + e.getMessage());
+                failedTurns.increment();
+                next = team.resolveFailed("The turn could not be played: " + e.getMessage() + ". Please vote again.");
+            }
+            if (next >= 0) schedule(team, next);
+            changed(team);
+        });
+    }
+
+    /** Publishes the team's new state and answers the members waiting for it. */
+    private static void changed(TeamSession team) {
+        team.deliver(team.publish());
+    }
+
+    private TeamSession team(String teamId) throws TeamException {
+        TeamSession team = teamId == null ? null : teams.get(teamId.trim().toUpperCase());
+        if (team == null) throw new TeamException(404, "Unknown team");
+        return team;
+    }
+
+    private TeamSession member(TeamRequest request) throws TeamException {
+        TeamSession team = team(request.getTeamId());
+        if (!team.isMember(request.getMemberId())) throw new TeamException(403, "Not a member of this team");
+        return team;
+    }
+
+    private static Map<String, Object> ids(TeamSession team, TeamSession.Member member) {
+        Map<String, Object> ids = new LinkedHashMap<>();
+        ids.put("teamId", team.teamId);
+        ids.put("memberId", member.id);
+        ids.put("version", team.snapshot().version);
+        return ids;
+    }
+
+    private static String newCode() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] code = new char[CODE_LENGTH];
+        for (int i = 0; i < code.length; i++) code[i] = CODE_ALPHABET.charAt(random.nextInt(CODE_ALPHABET.length()));
+        return new String(code);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
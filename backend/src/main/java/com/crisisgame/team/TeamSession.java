@@ -0,0 +1,379 @@
+package com.crisisgame.team;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import com.crisisgame.model.PlayerProfile;
+import com.crisisgame.model.StartResponse;
+import com.crisisgame.model.TurnResponse;
+import com.crisisgame.wire.FieldName;
+import com.crisisgame.wire.ModelCodec;
+import com.crisisgame.wire.WireEncoder;
+
+/**
+ * One team game: the members, the ballots of the open voting window, and the latest start or turn
+ * response of the single GameService session they share. Every change bumps the version and is captured
+ * in an immutable {@link TeamSnapshot} that all members' polls are answered from, so a turn result is
+ * encoded once per format however many members are waiting for it.
+ *
+ * All state is guarded by the session's lock; callbacks to waiting members run outside it.
+ */
+final class TeamSession {
+    enum Phase { LOBBY, STARTING, VOTING, RESOLVING, FINISHED }
+
+    static final String[] CHOICES = {"A", "B", "C", "D", "E"};
+
+    private static final FieldName[] CHOICE_NAMES = {
+            FieldName.of("A"), FieldName.of("B"), FieldName.of("C"), FieldName.of("D"), FieldName.of("E")};
+    private static final FieldName TEAM_ID = FieldName.of("teamId");
+    private static final FieldName TEAM = FieldName.of("team");
+    private static final FieldName VERSION = FieldName.of("version");
+    private static final FieldName PHASE = FieldName.of("phase");
+    private static final FieldName TURN = FieldName.of("turn");
+    private static final FieldName MEMBERS = FieldName.of("members");
+    private static final FieldName NAME = FieldName.of("name");
+    private static final FieldName HOST = FieldName.of("host");
+    private static final FieldName VOTED = FieldName.of("voted");
+    private static final FieldName VOTES = FieldName.of("votes");
+    private static final FieldName AGREED = FieldName.of("agreed");
+    private static final FieldName MISSED = FieldName.of("missed");
+    private static final FieldName PARTICIPATION = FieldName.of("participation");
+    private static final FieldName AGREEMENT = FieldName.of("agreement");
+    private static final FieldName QUORUM = FieldName.of("quorum");
+    private static final FieldName TALLY = FieldName.of("tally");
+    private static final FieldName CLOSES_AT = FieldName.of("votingClosesAt");
+    private static final FieldName LAST_CHOICE = FieldName.of("lastChoice");
+    private static final FieldName ERROR = FieldName.of("error");
+    private static final FieldName DATA = FieldName.of("data");
+
+    static final class Member {
+        final String id;
+        final String name;
+        int votes;   // windows this member voted in
+        int agreed;  // of those, windows the team's choice matched their ballot
+        int missed;  // windows that closed without their ballot
+
+        Member(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    /** The outcome of a closed window, applied to the members' stats once the turn is generated. */
+    static final class Resolution {
+        final String choice;
+        final Map<String, Integer> ballots;
+        final int members;
+
+        Resolution(String choice, Map<String, Integer> ballots, int members) {
+            this.choice = choice;
+            this.ballots = ballots;
+            this.members = members;
+        }
+    }
+
+    static final class Waiter {
+        final Consumer<TeamSnapshot> deliver;
+        final AtomicBoolean delivered = new AtomicBoolean();
+
+        Waiter(Consumer<TeamSnapshot> deliver) {
+            this.deliver = deliver;
+        }
+
+        void deliver(TeamSnapshot snapshot) {
+            if (delivered.compareAndSet(false, true)) deliver.accept(snapshot);
+        }
+    }
+
+    final String teamId;
+    final PlayerProfile profile;
+    final String hostId;
+    final double quorum;
+    final long voteMillis;
+
+    private final Map<String, Member> members = new LinkedHashMap<>();
+    // Member id to choice index; a changed ballot moves to the end, so the order is that of the standing ballots
+    private final Map<String, Integer> ballots = new LinkedHashMap<>();
+    private final List<Waiter> waiters = new ArrayList<>();
+    private Phase phase = Phase.LOBBY;
+    private String sessionId;
+    private int turn;
+    private Object latest; // StartResponse or TurnResponse
+    private String lastChoice;
+    private String error;
+    private long window;
+    private long closesAt;
+    private ScheduledFuture<?> windowTimer;
+    private long version;
+    private TeamSnapshot snapshot;
+
+    TeamSession(String teamId, PlayerProfile profile, Member host, double quorum, long voteMillis) {
+        this.teamId = teamId;
+        this.profile = profile;
+        this.hostId = host.id;
+        this.quorum = quorum;
+        this.voteMillis = voteMillis;
+        members.put(host.id, host);
+        publish();
+    }
+
+    synchronized Phase phase() {
+        return phase;
+    }
+
+    synchronized String sessionId() {
+        return sessionId;
+    }
+
+    synchronized int memberCount() {
+        return members.size();
+    }
+
+    synchronized boolean isMember(String memberId) {
+        return memberId != null && members.containsKey(memberId);
+    }
+
+    synchronized TeamSnapshot snapshot() {
+        return snapshot;
+    }
+
+    synchronized void join(Member member, int maxMembers) throws TeamService.TeamException {
+        if (phase == Phase.FINISHED) throw new TeamService.TeamException(409, "Game already finished");
+        if (members.size() >= maxMembers) throw new TeamService.TeamException(409, "Team is full");
+        members.put(member.id, member);
+    }
+
+    synchronized void beginStart(String memberId) throws TeamService.TeamException {
+        if (!hostId.equals(memberId)) throw new TeamService.TeamException(403, "Only the member who created the team can start it");
+        if (phase != Phase.LOBBY) throw new TeamService.TeamException(409, "Game already started");
+        phase = Phase.STARTING;
+        error = null;
+    }
+
+    /** Opens the first voting window; returns the window number for its timer. */
+    synchronized long started(StartResponse response) {
+        sessionId = response.sessionId;
+        turn = response.turn;
+        latest = response;
+        return openWindow();
+    }
+
+    synchronized void startFailed(String message) {
+        phase = Phase.LOBBY;
+        error = message;
+    }
+
+    /** @return the window's number when every member has now voted, so it can close early; -1 otherwise */
+    synchronized long vote(String memberId, int choice) throws TeamService.TeamException {
+        if (phase != Phase.VOTING) throw new TeamService.TeamException(409, "No vote is open");
+        ballots.remove(memberId);
+        ballots.put(memberId, choice);
+        return ballots.size() == members.size() ? window : -1;
+    }
+
+    synchronized void timer(ScheduledFuture<?> timer) {
+        windowTimer = timer;
+    }
+
+    /**
+     * Closes window {@code number} if it is still open and has a quorum (at its timeout) or every
+     * member's ballot. The most voted option wins; a tie goes to the tied option whose earliest standing
+     * ballot came first.
+     *
+     * @return the resolution, or null when the window stays open or was already closed
+     */
+    synchronized Resolution close(long number) {
+        if (phase != Phase.VOTING || number != window) return null;
+        if (ballots.size() < quorumCount()) return null;
+
+        int[] tally = tally();
+        int winner = -1;
+        for (int choice : ballots.values()) {
+            if (winner < 0 || tally[choice] > tally[winner]) winner = choice;
+        }
+        if (windowTimer != null) windowTimer.cancel(false);
+        phase = Phase.RESOLVING;
+        lastChoice = CHOICES[winner];
+        error = null;
+        Resolution resolution = new Resolution(lastChoice, new LinkedHashMap<>(ballots), members.size());
+        ballots.clear();
+        return resolution;
+    }
+
+    /** Pushes the deadline of a window that timed out without a quorum; returns its number, or -1 if closed. */
+    synchronized long extend(long number) {
+        if (phase != Phase.VOTING || number != window) return -1;
+        closesAt = System.currentTimeMillis() + voteMillis;
+        return window;
+    }
+
+    /** Applies the closed window to the members' stats; returns the next window number, or -1 at game end. */
+    synchronized long resolved(Resolution resolution, TurnResponse response) {
+        int chosen = indexOf(resolution.choice);
+        for (Member member : members.values()) {
+            Integer ballot = resolution.ballots.get(member.id);
+            if (ballot == null) {
+                member.missed++;
+            } else {
+                member.votes++;
+                if (ballot == chosen) member.agreed++;
+            }
+        }
+        turn = response.turn;
+        latest = response;
+        if (response.gameOver) {
+            phase = Phase.FINISHED;
+            return -1;
+        }
+        return openWindow();
+    }
+
+    /** The turn could not be generated: the team votes again on the same options. */
+    synchronized long resolveFailed(String message) {
+        long number = openWindow();
+        error = message;
+        return number;
+    }
+
+    /**
+     * Calls {@code deliver} with the first snapshot newer than version {@code since}: at once if there
+     * is one (and then returns null), otherwise when the team next changes.
+     */
+    Waiter await(long since, Consumer<TeamSnapshot> deliver) {
+        Waiter waiter = new Waiter(deliver);
+        TeamSnapshot current;
+        synchronized (this) {
+            current = snapshot;
+            if (current.version <= since && phase != Phase.FINISHED) {
+                waiters.add(waiter);
+                return waiter;
+            }
+        }
+        waiter.deliver(current);
+        return null;
+    }
+
+    /** At the poll timeout: answers a waiter with the unchanged snapshot, unless a change answered it first. */
+    void expire(Waiter waiter) {
+        synchronized (this) {
+            waiters.remove(waiter);
+        }
+        waiter.deliver(snapshot());
+    }
+
+    /** Hands the current snapshot to the released waiters; call without holding the lock. */
+    void deliver(List<Waiter> released) {
+        if (released.isEmpty()) return;
+        TeamSnapshot current = snapshot();
+        for (Waiter waiter : released) waiter.deliver(current);
+    }
+
+    /** Bumps the version, captures a snapshot and releases the waiters it satisfies. */
+    synchronized List<Waiter> publish() {
+        version++;
+        snapshot = capture();
+        List<Waiter> released = new ArrayList<>(waiters);
+        waiters.clear();
+        return released;
+    }
+
+    private long openWindow() {
+        if (windowTimer != null) windowTimer.cancel(false);
+        windowTimer = null;
+        ballots.clear();
+        phase = Phase.VOTING;
+        closesAt = System.currentTimeMillis() + voteMillis;
+        return ++window;
+    }
+
+    private int quorumCount() {
+        return Math.max(1, (int) Math.ceil(quorum * members.size()));
+    }
+
+    private int[] tally() {
+        int[] tally = new int[CHOICES.length];
+        for (int choice : ballots.values()) tally[choice]++;
+        return tally;
+    }
+
+    static int indexOf(String choice) {
+        if (choice == null || choice.isBlank()) return -1;
+        char c = Character.toUpperCase(choice.trim().charAt(0));
+        return choice.trim().length() == 1 && c >= 'A' && c <= 'E' ? c - 'A' : -1;
+    }
+
+    private TeamSnapshot capture() {
+        // Everything the snapshot shows is copied, so it can be encoded later without the lock
+        List<Object[]> rows = new ArrayList<>();
+        Set<String> voted = new HashSet<>(ballots.keySet());
+        for (Member m : members.values()) {
+            rows.add(new Object[] {m.name, m.id.equals(hostId), voted.contains(m.id), m.votes, m.agreed, m.missed});
+        }
+        int[] tally = tally();
+        int needed = quorumCount();
+        Phase currentPhase = phase;
+        int currentTurn = turn;
+        long currentClosesAt = phase == Phase.VOTING ? closesAt : 0;
+        String currentChoice = lastChoice;
+        String currentError = error;
+        Object data = latest;
+        String teamName = profile.getName();
+        long currentVersion = version;
+
+        return new TeamSnapshot(currentVersion, out -> {
+            boolean voting = currentPhase == Phase.VOTING;
+            out.beginObject(6 + (voting ? 3 : 0) + (currentChoice != null ? 1 : 0) + (currentError != null ? 1 : 0)
+                    + (data != null ? 1 : 0));
+            out.name(TEAM_ID); out.value(teamId);
+            out.name(TEAM); out.value(teamName);
+            out.name(VERSION); out.value(currentVersion);
+            out.name(PHASE); out.value(currentPhase.name().toLowerCase());
+            out.name(TURN); out.value(currentTurn);
+            out.name(MEMBERS);
+            out.beginArray(rows.size());
+            for (Object[] row : rows) writeMember(out, row);
+            out.endArray();
+            if (voting) {
+                out.name(QUORUM); out.value(needed);
+                out.name(TALLY);
+                out.beginObject(CHOICES.length);
+                for (int i = 0; i < CHOICES.length; i++) {
+                    out.name(CHOICE_NAMES[i]); out.value(tally[i]);
+                }
+                out.endObject();
+                out.name(CLOSES_AT); out.value(currentClosesAt);
+            }
+            if (currentChoice != null) { out.name(LAST_CHOICE); out.value(currentChoice); }
+            if (currentError != null) { out.name(ERROR); out.value(currentError); }
+            if (data instanceof StartResponse start) {
+                out.name(DATA); ModelCodec.write(out, start);
+            } else if (data instanceof TurnResponse result) {
+                out.name(DATA); ModelCodec.write(out, result);
+            }
+            out.endObject();
+        });
+    }
+
+    private static void writeMember(WireEncoder out, Object[] row) {
+        int votes = (int) row[3];
+        int agreed = (int) row[4];
+        int missed = (int) row[5];
+        out.beginObject(6 + (votes + missed > 0 ? 1 : 0) + (votes > 0 ? 1 : 0));
+        out.name(NAME); out.value((String) row[0]);
+        out.name(HOST); out.value((boolean) row[1]);
+        out.name(VOTED); out.value((boolean) row[2]);
+        out.name(VOTES); out.value(votes);
+        out.name(AGREED); out.value(agreed);
+        out.name(MISSED); out.value(missed);
+        if (votes + missed > 0) { out.name(PARTICIPATION); out.value(Math.round(votes * 100.0 / (votes + missed)) / 100.0); }
+        if (votes > 0) { out.name(AGREEMENT); out.value(Math.round(agreed * 100.0 / votes) / 100.0); }
+        out.endObject();
+    }
+}
@@ -0,0 +1,33 @@
+package com.crisisgame.team;
+
+import java.util.function.Consumer;
+
+import com.crisisgame.wire.WireBuffer;
+import com.crisisgame.wire.WireEncoder;
+import com.crisisgame.wire.WireFormat;
+
+/**
+ * A team's state at one version, as every member sees it. The body is encoded the first time a format
+ * is asked for and the bytes are shared by all later requests for that version.
+ */
+public final class TeamSnapshot {
+    public final long version;
+    private final Consumer<WireEncoder> writer;
+    private final byte[][] encoded = new byte[WireFormat.values().length][];
+
+    TeamSnapshot(long version, Consumer<WireEncoder> writer) {
+        this.version = version;
+        this.writer = writer;
+    }
+
+    public synchronized byte[] encoded(WireFormat format) {
+        byte[] bytes = encoded[format.ordinal()];
+        if (bytes == null) {
+            WireBuffer buffer = new WireBuffer(4096);
+            writer.accept(format.encoder(buffer));
+            bytes = buffer.toByteArray();
+            encoded[format.ordinal()] = bytes;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,40 @@
+package com.crisisgame.util;
+
+import java.util.function.Function;
+
+/**
+ * Settings from environment variables. An unset or blank variable gives the default; so does a number
+ * that does not parse, after logging it, so a typo never keeps the server from starting.
+ */
+public final class Env {
+    private Env() {}
+
+    /** The trimmed value, or the default when unset or blank. */
+    public static String stringValue(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public static int intValue(String name, int defaultValue) {
+        return parse(name, defaultValue, Integer::valueOf);
+    }
+
+    public static long longValue(String name, long defaultValue) {
+        return parse(name, defaultValue, Long::valueOf);
+    }
+
+    public static double doubleValue(String name, double defaultValue) {
+        return parse(name, defaultValue, Double::valueOf);
+    }
+
+    private static <T> T parse(String name, T defaultValue, Function<String, T> parser) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) return defaultValue;
+        try {
+            return parser.apply(value.trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Ignoring invalid " + name + "=" + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.crisisgame.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Pulls one top-level string field out of a JSON document that arrives in arbitrary chunks (a streamed
+ * structured Gemini reply) and passes its decoded text on as soon as each chunk is seen, so a client
+ * can show the narrative before the options behind it have been generated. Escapes split across
+ * chunks are handled; everything after the field is ignored. The complete document is still decoded
+ * normally once it has arrived.
+ */
+public final class JsonFieldStreamer {
+    private enum State { SEEK, VALUE, DONE }
+
+    private final String field;
+    private final Consumer<String> listener;
+    private final StringBuilder key = new StringBuilder();
+    private final StringBuilder decoded = new StringBuilder();
+
+    private State state = State.SEEK;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private boolean keyMatched;   // the string just closed was our field name at the top level
+    private boolean expectValue;  // ... and its ':' has been seen
+    private int unicodeDigits = -1;
+    private int unicodeValue;
+
+    public JsonFieldStreamer(String field, Consumer<String> listener) {
+        this.field = field;
+        this.listener = listener;
+    }
+
+    public void feed(CharSequence chunk) {
+        if (state == State.DONE) return;
+        for (int i = 0, n = chunk.length(); i < n && state != State.DONE; i++) {
+            char c = chunk.charAt(i);
+            if (state == State.VALUE) value(c);
+            else seek(c);
+        }
+        if (decoded.length() > 0) {
+            listener.accept(decoded.toString());
+            decoded.setLength(0);
+        }
+    }
+
+    public boolean isDone() {
+        return state == State.DONE;
+    }
+
+    private void seek(char c) {
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+                keyMatched = depth == 1 && field.contentEquals(key);
+                return;
+            }
+            if (key.length() <= field.length()) key.append(c);
+            return;
+        }
+        if (c <= ' ') return;
+        if (expectValue) {
+            expectValue = false;
+            // The field holds something other than a string: nothing to stream
+            state = c == '"' ? State.VALUE : State.DONE;
+            return;
+        }
+        if (c == ':' && keyMatched) {
+            expectValue = true;
+        } else if (c == '"') {
+            inString = true;
+            key.setLength(0);
+        } else if (c == '{' || c == '[') {
+            depth++;
+        } else if (c == '}' || c == ']') {
+            depth--;
+        }
+        keyMatched = false;
+    }
+
+    private void value(char c) {
+        if (unicodeDigits >= 0) {
+            unicodeValue = unicodeValue << 4 | Character.digit(c, 16);
+            if (++unicodeDigits == 4) {
+                decoded.append((char) unicodeValue);
+                unicodeDigits = -1;
+            }
+        } else if (escaped) {
+            escaped = false;
+            switch (c) {
+                case 'n' -> decoded.append('\n');
+                case 't' -> decoded.append('\t');
+                case 'r' -> decoded.append('\r');
+                case 'b' -> decoded.append('\b');
+                case 'f' -> decoded.append('\f');
+                case 'u' -> {
+                    unicodeDigits = 0;
+                    unicodeValue = 0;
+                }
+                default -> decoded.append(c); // \" \\ \/
+            }
+        } else if (c == '\\') {
+            escaped = true;
+        } else if (c == '"') {
+            state = State.DONE;
+        } else {
+            decoded.append(c);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.crisisgame.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Case-insensitive multi-keyword matcher used by the text heuristics (crisis type, performance level,
+ * choice quality, ...).
+ *
+ * Keywords are grouped into enum categories and compiled once into an Aho-Corasick automaton. A scan
+ * walks the text a single time, folds ASCII case on the fly instead of lowercasing a copy, and returns
+ * a bit mask of the categories whose keywords occur anywhere in the text (substring semantics, like
+ * {@code text.toLowerCase().contains(keyword)}). Keywords must be ASCII; at most 64 categories.
+ */
+public final class KeywordClassifier<C extends Enum<C>> {
+    private static final int ALPHABET = 128; // rows are indexed with state << 7
+
+    private final C[] categories;
+    private final int[] transitions;
+    private final long[] outputs;
+    private final long allCategories;
+
+    private KeywordClassifier(C[] categories, int[] transitions, long[] outputs, long allCategories) {
+        this.categories = categories;
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.allCategories = allCategories;
+    }
+
+    public static <C extends Enum<C>> Builder<C> builder(Class<C> type) {
+        return new Builder<>(type);
+    }
+
+    /** Returns the categories present in the text as a bit mask indexed by enum ordinal. */
+    public long scan(CharSequence text) {
+        if (text == null) return 0;
+        long hits = 0;
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c >= ALPHABET) {
+                // No keyword contains non-ASCII characters, so any partial match ends here
+                state = 0;
+                continue;
+            }
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            state = transitions[(state << 7) | c];
+            long out = outputs[state];
+            if (out != 0) {
+                hits |= out;
+                if (hits == allCategories) break;
+            }
+        }
+        return hits;
+    }
+
+    public static <C extends Enum<C>> boolean has(long hits, C category) {
+        return (hits & (1L << category.ordinal())) != 0;
+    }
+
+    @SafeVarargs
+    public static <C extends Enum<C>> boolean hasAny(long hits, C... categories) {
+        for (C category : categories) {
+            if (has(hits, category)) return true;
+        }
+        return false;
+    }
+
+    /** The hit category declared first in the enum, or null if nothing matched. */
+    public C first(long hits) {
+        return hits == 0 ? null : categories[Long.numberOfTrailingZeros(hits)];
+    }
+
+    public static final class Builder<C extends Enum<C>> {
+        private final C[] categories;
+        private final List<String> keywords = new ArrayList<>();
+        private final List<C> keywordCategories = new ArrayList<>();
+
+        private Builder(Class<C> type) {
+            this.categories = type.getEnumConstants();
+            if (categories.length > 64) throw new IllegalArgumentException("At most 64 categories are supported");
+        }
+
+        public Builder<C> add(C category, String... words) {
+            for (String word : words) {
+                if (word.isEmpty()) throw new IllegalArgumentException("Empty keyword for " + category);
+                for (int i = 0; i < word.length(); i++) {
+                    if (word.charAt(i) >= ALPHABET) throw new IllegalArgumentException("Keyword must be ASCII: " + word);
+                }
+                keywords.add(word.toLowerCase());
+                keywordCategories.add(category);
+            }
+            return this;
+        }
+
+        public KeywordClassifier<C> build() {
+            // Trie
+            List<int[]> gotoTable = new ArrayList<>();
+            List<Long> out = new ArrayList<>();
+            gotoTable.add(newRow());
+            out.add(0L);
+            long all = 0;
+            for (int k = 0; k < keywords.size(); k++) {
+                String word = keywords.get(k);
+                int state = 0;
+                for (int i = 0; i < word.length(); i++) {
+                    int c = word.charAt(i);
+                    if (gotoTable.get(state)[c] < 0) {
+                        gotoTable.get(state)[c] = gotoTable.size();
+                        gotoTable.add(newRow());
+                        out.add(0L);
+                    }
+                    state = gotoTable.get(state)[c];
+                }
+                long bit = 1L << keywordCategories.get(k).ordinal();
+                out.set(state, out.get(state) | bit);
+                all |= bit;
+            }
+
+            // Failure links, folded into a full transition table (breadth first)
+            int states = gotoTable.size();
+            int[] transitions = new int[states * ALPHABET];
+            long[] outputs = new long[states];
+            int[] fail = new int[states];
+            for (int s = 0; s < states; s++) outputs[s] = out.get(s);
+
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = gotoTable.get(0)[c];
+                if (next < 0) {
+                    transitions[c] = 0;
+                } else {
+                    transitions[c] = next;
+                    fail[next] = 0;
+                    queue.add(next);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int s = queue.poll();
+                outputs[s] |= outputs[fail[s]];
+                for (int c = 0; c < ALPHABET; c++) {
+                    int next = gotoTable.get(s)[c];
+                    if (next < 0) {
+                        transitions[s * ALPHABET + c] = transitions[fail[s] * ALPHABET + c];
+                    } else {
+                        transitions[s * ALPHABET + c] = next;
+                        fail[next] = transitions[fail[s] * ALPHABET + c];
+                        queue.add(next);
+                    }
+                }
+            }
+            return new KeywordClassifier<>(categories, transitions, outputs, all);
+        }
+
+        private static int[] newRow() {
+            int[] row = new int[ALPHABET];
+            Arrays.fill(row, -1);
+            return row;
+        }
+    }
+}
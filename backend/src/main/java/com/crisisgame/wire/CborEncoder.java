@@ -0,0 +1,108 @@
+package com.crisisgame.wire;
+
+/**
+ * CBOR (RFC 8949) with definite-length maps, arrays and strings, integers in their shortest form and
+ * doubles narrowed to single precision when that is exact.
+ */
+final class CborEncoder implements WireEncoder {
+    static final int UNSIGNED = 0;
+    static final int NEGATIVE = 1;
+    static final int TEXT = 3;
+    static final int ARRAY = 4;
+    static final int MAP = 5;
+
+    private static final int FALSE = 0xF4;
+    private static final int TRUE = 0xF5;
+    private static final int NULL = 0xF6;
+    private static final int FLOAT32 = 0xFA;
+    private static final int FLOAT64 = 0xFB;
+
+    private final WireBuffer out;
+
+    CborEncoder(WireBuffer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void beginObject(int fieldCount) {
+        writeHead(out, MAP, fieldCount);
+    }
+
+    @Override
+    public void endObject() {
+        // definite length: nothing to close
+    }
+
+    @Override
+    public void beginArray(int size) {
+        writeHead(out, ARRAY, size);
+    }
+
+    @Override
+    public void endArray() {
+        // definite length: nothing to close
+    }
+
+    @Override
+    public void name(FieldName name) {
+        out.write(name.cbor);
+    }
+
+    @Override
+    public void value(String value) {
+        if (value == null) {
+            nullValue();
+            return;
+        }
+        writeHead(out, TEXT, WireBuffer.utf8Length(value));
+        out.writeUtf8(value, 0, value.length());
+    }
+
+    @Override
+    public void value(long value) {
+        if (value >= 0) writeHead(out, UNSIGNED, value);
+        else writeHead(out, NEGATIVE, -1 - value);
+    }
+
+    @Override
+    public void value(double value) {
+        float narrow = (float) value;
+        if (narrow == value) {
+            out.write(FLOAT32);
+            out.writeLong(Float.floatToIntBits(narrow) & 0xFFFFFFFFL, 4);
+        } else {
+            out.write(FLOAT64);
+            out.writeLong(Double.doubleToLongBits(value), 8);
+        }
+    }
+
+    @Override
+    public void value(boolean value) {
+        out.write(value ? TRUE : FALSE);
+    }
+
+    @Override
+    public void nullValue() {
+        out.write(NULL);
+    }
+
+    /** Major type and argument in the shortest encoding. */
+    static void writeHead(WireBuffer out, int majorType, long argument) {
+        int major = majorType << 5;
+        if (argument < 24) {
+            out.write(major | (int) argument);
+        } else if (argument <= 0xFF) {
+            out.write(major | 24);
+            out.write((int) argument);
+        } else if (argument <= 0xFFFF) {
+            out.write(major | 25);
+            out.writeLong(argument, 2);
+        } else if (argument <= 0xFFFFFFFFL) {
+            out.write(major | 26);
+            out.writeLong(argument, 4);
+        } else {
+            out.write(major | 27);
+            out.writeLong(argument, 8);
+        }
+    }
+}
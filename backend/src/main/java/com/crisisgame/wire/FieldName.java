@@ -0,0 +1,29 @@
+package com.crisisgame.wire;
+
+import java.nio.charset.StandardCharsets;
+
+/** An object key with its JSON ({@code "name":}) and CBOR (text string) forms encoded up front. */
+public final class FieldName {
+    final String name;
+    final byte[] json;
+    final byte[] cbor;
+
+    private FieldName(String name) {
+        this.name = name;
+        this.json = ("\"" + name + "\":").getBytes(StandardCharsets.UTF_8);
+        WireBuffer buffer = new WireBuffer(name.length() + 9);
+        CborEncoder.writeHead(buffer, CborEncoder.TEXT, WireBuffer.utf8Length(name));
+        buffer.writeUtf8(name, 0, name.length());
+        this.cbor = buffer.toByteArray();
+    }
+
+    /** @param name a plain identifier; it is not escaped */
+    public static FieldName of(String name) {
+        return new FieldName(name);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
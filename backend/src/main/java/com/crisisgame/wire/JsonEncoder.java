@@ -0,0 +1,139 @@
+package com.crisisgame.wire;
+
+/**
+ * Compact UTF-8 JSON. Output parses to the same values as Gson's default serialization; only the
+ * escaping differs, since HTML-sensitive characters such as '=' and '&' are left as they are.
+ */
+final class JsonEncoder implements WireEncoder {
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final WireBuffer out;
+    private boolean needsComma;
+
+    JsonEncoder(WireBuffer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void beginObject(int fieldCount) {
+        separate();
+        out.write('{');
+        needsComma = false;
+    }
+
+    @Override
+    public void endObject() {
+        out.write('}');
+        needsComma = true;
+    }
+
+    @Override
+    public void beginArray(int size) {
+        separate();
+        out.write('[');
+        needsComma = false;
+    }
+
+    @Override
+    public void endArray() {
+        out.write(']');
+        needsComma = true;
+    }
+
+    @Override
+    public void name(FieldName name) {
+        separate();
+        out.write(name.json);
+        needsComma = false;
+    }
+
+    @Override
+    public void value(String value) {
+        if (value == null) {
+            nullValue();
+            return;
+        }
+        separate();
+        out.write('"');
+        int runStart = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') continue;
+            if (runStart < i) out.writeUtf8(value, runStart, i);
+            escape(c);
+            runStart = i + 1;
+        }
+        if (runStart < value.length()) out.writeUtf8(value, runStart, value.length());
+        out.write('"');
+        needsComma = true;
+    }
+
+    @Override
+    public void value(long value) {
+        separate();
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                out.writeUtf8("-9223372036854775808", 0, 20);
+                needsComma = true;
+                return;
+            }
+            out.write('-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) divisor *= 10;
+        for (; divisor > 0; divisor /= 10) out.write('0' + (int) (value / divisor % 10));
+        needsComma = true;
+    }
+
+    @Override
+    public void value(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            nullValue(); // not representable in JSON
+            return;
+        }
+        separate();
+        String text = Double.toString(value);
+        out.writeUtf8(text, 0, text.length());
+        needsComma = true;
+    }
+
+    @Override
+    public void value(boolean value) {
+        separate();
+        out.write(value ? TRUE : FALSE);
+        needsComma = true;
+    }
+
+    @Override
+    public void nullValue() {
+        separate();
+        out.write(NULL);
+        needsComma = true;
+    }
+
+    private void separate() {
+        if (needsComma) out.write(',');
+    }
+
+    private void escape(char c) {
+        out.write('\\');
+        switch (c) {
+            case '"' -> out.write('"');
+            case '\\' -> out.write('\\');
+            case '\n' -> out.write('n');
+            case '\r' -> out.write('r');
+            case '\t' -> out.write('t');
+            default -> {
+                out.write('u');
+                out.write(HEX[c >> 12 & 0xF]);
+                out.write(HEX[c >> 8 & 0xF]);
+                out.write(HEX[c >> 4 & 0xF]);
+                out.write(HEX[c & 0xF]);
+            }
+        }
+    }
+}
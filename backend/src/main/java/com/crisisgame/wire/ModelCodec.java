@@ -0,0 +1,234 @@
+package com.crisisgame.wire;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.crisisgame.model.ChoiceRequest;
+import com.crisisgame.model.PlayerProfile;
+import com.crisisgame.model.ScoreBreakdown;
+import com.crisisgame.model.StartResponse;
+import com.crisisgame.model.TeamRequest;
+import com.crisisgame.model.TurnResponse;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Hand-written adapters for the API model classes, replacing reflective Gson on the game endpoints.
+ * Writers emit fields in declaration order and leave out null fields, as Gson did, so JSON clients see
+ * the same documents. Readers take the JSON request bodies and skip unknown fields.
+ * Keep these in step with the model classes when fields are added.
+ */
+public final class ModelCodec {
+    private static final FieldName SESSION_ID = FieldName.of("sessionId");
+    private static final FieldName TURN = FieldName.of("turn");
+    private static final FieldName NARRATIVE = FieldName.of("narrative");
+    private static final FieldName OPTIONS = FieldName.of("options");
+    private static final FieldName GAME_OVER = FieldName.of("gameOver");
+    private static final FieldName OUTCOME = FieldName.of("outcome");
+    private static final FieldName CAREER_RESULT = FieldName.of("careerResult");
+    private static final FieldName STRENGTHS = FieldName.of("strengths");
+    private static final FieldName IMPROVEMENTS = FieldName.of("improvements");
+    private static final FieldName LEADERSHIP_STYLE = FieldName.of("leadershipStyle");
+    private static final FieldName CRISIS_THEORY = FieldName.of("crisisTheory");
+    private static final FieldName IMAGE_URL = FieldName.of("imageUrl");
+    private static final FieldName PERFORMANCE_SCORE = FieldName.of("performanceScore");
+    private static final FieldName SCORE = FieldName.of("score");
+    private static final FieldName PERCENTILE_RANK = FieldName.of("percentileRank");
+    private static final FieldName CLASS_PERCENTILE_RANK = FieldName.of("classPercentileRank");
+
+    private static final FieldName CHOICES = FieldName.of("choices");
+    private static final FieldName CONSISTENCY = FieldName.of("consistency");
+    private static final FieldName STRATEGIC = FieldName.of("strategic");
+    private static final FieldName PHASE = FieldName.of("phase");
+    private static final FieldName STAKEHOLDER = FieldName.of("stakeholder");
+    private static final FieldName DIFFICULTY_BONUS = FieldName.of("difficultyBonus");
+    private static final FieldName TOTAL = FieldName.of("total");
+    private static final FieldName LEVEL = FieldName.of("level");
+    private static final FieldName PERCENTAGE = FieldName.of("percentage");
+
+    private static final FieldName NAME = FieldName.of("name");
+    private static final FieldName GENDER = FieldName.of("gender");
+    private static final FieldName AGE = FieldName.of("age");
+    private static final FieldName DIFFICULTY = FieldName.of("difficulty");
+    private static final FieldName CLASS_CODE = FieldName.of("classCode");
+    private static final FieldName SEED = FieldName.of("seed");
+
+    private static final FieldName ERROR = FieldName.of("error");
+
+    private ModelCodec() {}
+
+    public static void write(WireEncoder out, StartResponse r) {
+        out.beginObject(2 + present(r.sessionId) + present(r.narrative) + present(r.options));
+        if (r.sessionId != null) { out.name(SESSION_ID); out.value(r.sessionId); }
+        out.name(TURN); out.value(r.turn);
+        if (r.narrative != null) { out.name(NARRATIVE); out.value(r.narrative); }
+        if (r.options != null) { out.name(OPTIONS); writeStrings(out, r.options); }
+        out.endObject();
+    }
+
+    public static void write(WireEncoder out, TurnResponse r) {
+        int fields = 3 + present(r.sessionId) + present(r.narrative) + present(r.options)
+                + present(r.outcome) + present(r.careerResult) + present(r.strengths) + present(r.improvements)
+                + present(r.leadershipStyle) + present(r.crisisTheory) + present(r.imageUrl) + present(r.score)
+                + present(r.percentileRank) + present(r.classPercentileRank);
+        out.beginObject(fields);
+        if (r.sessionId != null) { out.name(SESSION_ID); out.value(r.sessionId); }
+        out.name(TURN); out.value(r.turn);
+        if (r.narrative != null) { out.name(NARRATIVE); out.value(r.narrative); }
+        if (r.options != null) { out.name(OPTIONS); writeStrings(out, r.options); }
+        out.name(GAME_OVER); out.value(r.gameOver);
+        if (r.outcome != null) { out.name(OUTCOME); out.value(r.outcome); }
+        if (r.careerResult != null) { out.name(CAREER_RESULT); out.value(r.careerResult); }
+        if (r.strengths != null) { out.name(STRENGTHS); out.value(r.strengths); }
+        if (r.improvements != null) { out.name(IMPROVEMENTS); out.value(r.improvements); }
+        if (r.leadershipStyle != null) { out.name(LEADERSHIP_STYLE); out.value(r.leadershipStyle); }
+        if (r.crisisTheory != null) { out.name(CRISIS_THEORY); out.value(r.crisisTheory); }
+        if (r.imageUrl != null) { out.name(IMAGE_URL); out.value(r.imageUrl); }
+        out.name(PERFORMANCE_SCORE); out.value(r.performanceScore);
+        if (r.score != null) { out.name(SCORE); write(out, r.score); }
+        if (r.percentileRank != null) { out.name(PERCENTILE_RANK); out.value(r.percentileRank); }
+        if (r.classPercentileRank != null) { out.name(CLASS_PERCENTILE_RANK); out.value(r.classPercentileRank); }
+        out.endObject();
+    }
+
+    public static void write(WireEncoder out, ScoreBreakdown b) {
+        out.beginObject(9);
+        out.name(CHOICES); out.value(b.choices);
+        out.name(CONSISTENCY); out.value(b.consistency);
+        out.name(STRATEGIC); out.value(b.strategic);
+        out.name(PHASE); out.value(b.phase);
+        out.name(STAKEHOLDER); out.value(b.stakeholder);
+        out.name(DIFFICULTY_BONUS); out.value(b.difficultyBonus);
+        out.name(TOTAL); out.value(b.total);
+        out.name(LEVEL); out.value(b.level);
+        out.name(PERCENTAGE); out.value(b.percentage);
+        out.endObject();
+    }
+
+    public static void write(WireEncoder out, PlayerProfile p) {
+        out.beginObject(2 + present(p.getName()) + present(p.getGender()) + present(p.getClassCode()) + present(p.getSeed()));
+        if (p.getName() != null) { out.name(NAME); out.value(p.getName()); }
+        if (p.getGender() != null) { out.name(GENDER); out.value(p.getGender()); }
+        out.name(AGE); out.value(p.getAge());
+        out.name(DIFFICULTY); out.value(p.getDifficulty());
+        if (p.getClassCode() != null) { out.name(CLASS_CODE); out.value(p.getClassCode()); }
+        if (p.getSeed() != null) { out.name(SEED); out.value(p.getSeed()); }
+        out.endObject();
+    }
+
+    /** {"error": message} */
+    public static void writeError(WireEncoder out, String message) {
+        out.beginObject(1);
+        out.name(ERROR); out.value(message);
+        out.endObject();
+    }
+
+    public static PlayerProfile readPlayer(JsonReader in) throws IOException {
+        PlayerProfile p = new PlayerProfile();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "name" -> p.setName(nextString(in));
+                case "gender" -> p.setGender(nextString(in));
+                case "age" -> p.setAge(nextInt(in));
+                case "difficulty" -> p.setDifficulty(nextInt(in));
+                case "classCode" -> p.setClassCode(nextString(in));
+                case "seed" -> p.setSeed(nextNullableLong(in));
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return p;
+    }
+
+    public static ChoiceRequest readChoice(JsonReader in) throws IOException {
+        ChoiceRequest c = new ChoiceRequest();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "sessionId" -> c.setSessionId(nextString(in));
+                case "choice" -> c.setChoice(nextString(in));
+                case "requestId" -> c.setRequestId(nextString(in));
+                case "turn" -> c.setTurn(nextNullableInt(in));
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return c;
+    }
+
+    /** Team fields: "team" is the team's name; gender, age, difficulty and classCode describe it as for a player. */
+    public static TeamRequest readTeamRequest(JsonReader in) throws IOException {
+        TeamRequest t = new TeamRequest();
+        PlayerProfile team = t.getTeam();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "teamId" -> t.setTeamId(nextString(in));
+                case "memberId" -> t.setMemberId(nextString(in));
+                case "member" -> t.setMember(nextString(in));
+                case "choice" -> t.setChoice(nextString(in));
+                case "quorum" -> t.setQuorum(nextNullableDouble(in));
+                case "voteSeconds" -> t.setVoteSeconds(nextNullableInt(in));
+                case "team" -> team.setName(nextString(in));
+                case "gender" -> team.setGender(nextString(in));
+                case "age" -> team.setAge(nextInt(in));
+                case "difficulty" -> team.setDifficulty(nextInt(in));
+                case "classCode" -> team.setClassCode(nextString(in));
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return t;
+    }
+
+    private static void writeStrings(WireEncoder out, List<String> values) {
+        out.beginArray(values.size());
+        for (int i = 0; i < values.size(); i++) out.value(values.get(i));
+        out.endArray();
+    }
+
+    private static int present(Object value) {
+        return value == null ? 0 : 1;
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static Long nextNullableLong(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextLong();
+    }
+
+    private static Integer nextNullableInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextInt();
+    }
+
+    private static Double nextNullableDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextDouble();
+    }
+
+    private static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextInt();
+    }
+}
@@ -0,0 +1,106 @@
+package com.crisisgame.wire;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer the encoders write into. One buffer per server thread is reset and reused, so
+ * a response costs no String, no getBytes() copy and, once the buffer has grown, no allocation.
+ */
+public final class WireBuffer {
+    private byte[] bytes;
+    private int size;
+
+    public WireBuffer(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return bytes.length;
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    void write(int b) {
+        if (size == bytes.length) grow(1);
+        bytes[size++] = (byte) b;
+    }
+
+    void write(byte[] b) {
+        if (size + b.length > bytes.length) grow(b.length);
+        System.arraycopy(b, 0, bytes, size, b.length);
+        size += b.length;
+    }
+
+    /** Big-endian, as CBOR wants it. */
+    void writeLong(long value, int byteCount) {
+        if (size + byteCount > bytes.length) grow(byteCount);
+        for (int shift = (byteCount - 1) * 8; shift >= 0; shift -= 8) bytes[size++] = (byte) (value >>> shift);
+    }
+
+    /** UTF-8 bytes of s[from, to); a lone surrogate is written as '?', as String.getBytes does. */
+    void writeUtf8(String s, int from, int to) {
+        if (size + (to - from) * 3 > bytes.length) grow((to - from) * 3);
+        byte[] b = bytes;
+        int n = size;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                b[n++] = (byte) c;
+            } else if (c < 0x800) {
+                b[n++] = (byte) (0xC0 | c >> 6);
+                b[n++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                b[n++] = (byte) (0xF0 | cp >> 18);
+                b[n++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                b[n++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                b[n++] = (byte) (0x80 | cp & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                b[n++] = '?';
+            } else {
+                b[n++] = (byte) (0xE0 | c >> 12);
+                b[n++] = (byte) (0x80 | c >> 6 & 0x3F);
+                b[n++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        size = n;
+    }
+
+    /** Number of bytes {@link #writeUtf8} produces for the whole string. */
+    static int utf8Length(String s) {
+        int length = s.length();
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) continue;
+            if (c < 0x800) {
+                length += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 2; // four bytes for two chars
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                length += 2;
+            }
+        }
+        return length;
+    }
+
+    private void grow(int needed) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + needed));
+    }
+}
@@ -0,0 +1,28 @@
+package com.crisisgame.wire;
+
+/**
+ * Streaming writer shared by the wire formats, so each model class needs a single hand-written adapter.
+ * Objects and arrays are opened with their element count, which CBOR puts in the header and JSON ignores.
+ */
+public interface WireEncoder {
+    void beginObject(int fieldCount);
+
+    void endObject();
+
+    void beginArray(int size);
+
+    void endArray();
+
+    void name(FieldName name);
+
+    /** A null string is written as null. */
+    void value(String value);
+
+    void value(long value);
+
+    void value(double value);
+
+    void value(boolean value);
+
+    void nullValue();
+}
@@ -0,0 +1,48 @@
+package com.crisisgame.wire;
+
+/**
+ * Response encodings the game endpoints can produce. Browsers get JSON; native clients that send
+ * {@code Accept: application/cbor} get the same fields as CBOR. Turn responses are mostly prose, so
+ * CBOR is only 5-10% smaller, but it encodes in about half the time and needs no text parsing.
+ */
+public enum WireFormat {
+    JSON("application/json"),
+    CBOR("application/cbor");
+
+    private final String contentType;
+
+    WireFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public WireEncoder encoder(WireBuffer buffer) {
+        return this == CBOR ? new CborEncoder(buffer) : new JsonEncoder(buffer);
+    }
+
+    /** CBOR when the Accept header lists application/cbor (and does not refuse it with q=0), JSON otherwise. */
+    public static WireFormat negotiate(String accept) {
+        if (accept == null) return JSON;
+        for (String range : accept.split(",")) {
+            String[] parts = range.split(";");
+            if (!parts[0].trim().equalsIgnoreCase(CBOR.contentType)) continue;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=") && isZero(param.substring(2))) return JSON;
+            }
+            return CBOR;
+        }
+        return JSON;
+    }
+
+    private static boolean isZero(String q) {
+        try {
+            return Double.parseDouble(q.trim()) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.crisisgame.ws;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.CharacterCodingException;
+import java.util.function.Consumer;
+
+import com.crisisgame.Deadline;
+import com.crisisgame.GameService;
+import com.crisisgame.model.PlayerProfile;
+import com.crisisgame.model.StartResponse;
+import com.crisisgame.model.TurnResponse;
+import com.crisisgame.wire.FieldName;
+import com.crisisgame.wire.ModelCodec;
+import com.crisisgame.wire.WireBuffer;
+import com.crisisgame.wire.WireEncoder;
+import com.crisisgame.wire.WireFormat;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * The game protocol on one WebSocket connection. The connection is bound to the game it starts, so
+ * choices carry no session id.
+ *
+ * Client messages are JSON text frames:
+ * {@code {"type":"start","player":{...}}} and {@code {"type":"choice","choice":"B"}}.
+ * Server messages are JSON text frames, or CBOR binary frames when the client asked for the
+ * {@code crisis-game.cbor} subprotocol:
+ * {@code {"type":"chunk","text":...}} while a narrative is being generated,
+ * {@code {"type":"start","data":{StartResponse}}}, {@code {"type":"turn","data":{TurnResponse}}}
+ * and {@code {"type":"error","error":...}}. After the final turn the server closes with 1000.
+ */
+final class GameChannel {
+    private static final FieldName TYPE = FieldName.of("type");
+    private static final FieldName TEXT = FieldName.of("text");
+    private static final FieldName DATA = FieldName.of("data");
+    private static final FieldName ERROR = FieldName.of("error");
+
+    private final GameService gameService;
+    private final WebSocketConnection connection;
+    private final WireFormat format;
+    private final GameSocketServer server;
+    private final WireBuffer buffer = new WireBuffer(2048);
+    private final Consumer<String> chunks = this::sendChunk;
+
+    private String sessionId;
+    // Deadline of the message being served; cancelled as soon as the client is known to be gone
+    private volatile Deadline current;
+
+    GameChannel(GameService gameService, WebSocketConnection connection, WireFormat format, GameSocketServer server) {
+        this.gameService = gameService;
+        this.connection = connection;
+        this.format = format;
+        this.server = server;
+        connection.onAbort(this::clientGone);
+    }
+
+    /** Serves messages until the client leaves or the game ends. */
+    void run() {
+        try {
+            WebSocketConnection.Message message;
+            while ((message = connection.readMessage()) != null) {
+                server.messagesIn.incrementAndGet();
+                if (message.opcode != WebSocketConnection.OP_TEXT) {
+                    server.protocolErrors.incrementAndGet();
+                    connection.close(WebSocketConnection.CLOSE_UNSUPPORTED, "Send JSON text frames");
+                    return;
+                }
+                connection.serving(true);
+                try {
+                    if (!handle(message.text())) return;
+                } finally {
+                    connection.serving(false);
+                }
+            }
+        } catch (WebSocketConnection.ProtocolException e) {
+            server.protocolErrors.incrementAndGet();
+            connection.close(e.closeCode, e.getMessage());
+        } catch (CharacterCodingException e) {
+            server.protocolErrors.incrementAndGet();
+            connection.close(WebSocketConnection.CLOSE_INVALID_DATA, "Invalid UTF-8");
+        } catch (IOException e) {
+            // Client went away or the watchdog aborted the socket
+            connection.abort();
+        }
+    }
+
+    /** Handles one client message; false once the connection should close. */
+    private boolean handle(String text) throws IOException {
+        String type = null;
+        String choice = null;
+        PlayerProfile player = null;
+        try (JsonReader in = new JsonReader(new StringReader(text))) {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type" -> type = in.nextString();
+                    case "choice" -> choice = in.nextString();
+                    case "player" -> player = ModelCodec.readPlayer(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (IOException | IllegalStateException e) {
+            sendError("Malformed message");
+            return true;
+        }
+
+        if ("start".equals(type)) {
+            if (sessionId != null) {
+                sendError("A game is already running on this connection");
+                return true;
+            }
+            if (player == null) {
+                sendError("Start message needs a player");
+                return true;
+            }
+            // Seeded starts are for replays over HTTP with the admin token
+            player.setSeed(null);
+            StartResponse response;
+            try {
+                response = gameService.start(player, chunks, current = Deadline.standard());
+            } catch (Deadline.CancelledException e) {
+                return stopped(e);
+            } catch (Exception e) {
+                e.printStackTrace();
+                sendError("Internal server error: " + e.getMessage());
+                return true;
+            }
+            sessionId = response.sessionId;
+            send("start", out -> ModelCodec.write(out, response));
+            return true;
+        }
+        if ("choice".equals(type)) {
+            if (sessionId == null) {
+                sendError("Start a game first");
+                return true;
+            }
+            TurnResponse response;
+            try {
+                response = gameService.turn(sessionId, choice, chunks, current = Deadline.standard());
+            } catch (Deadline.CancelledException e) {
+                return stopped(e);
+            } catch (Exception e) {
+                e.printStackTrace();
+                sendError("Internal server error: " + e.getMessage());
+                return true;
+            }
+            send("turn", out -> ModelCodec.write(out, response));
+            if (response.gameOver) {
+                connection.close(WebSocketConnection.CLOSE_NORMAL, "Game over");
+                return false;
+            }
+            return true;
+        }
+        sendError("Unknown message type: " + type);
+        return true;
+    }
+
+    /** The request was cancelled; tell the client unless it is the one that left. */
+    private boolean stopped(Deadline.CancelledException e) throws IOException {
+        if (e.reason == Deadline.Reason.CLIENT_GONE) return false;
+        sendError(e.getMessage());
+        return true;
+    }
+
+    private void clientGone() {
+        Deadline deadline = current;
+        if (deadline != null) deadline.cancel(Deadline.Reason.CLIENT_GONE);
+    }
+
+    /**
+     * Streamed narrative text. Runs on this connection's thread inside the Gemini call, so a slow client
+     * slows the read of the upstream stream. A failed send means the client has gone, so the Gemini call
+     * behind it is cancelled.
+     */
+    private void sendChunk(String text) {
+        try {
+            connection.writeLock().lock();
+            try {
+                buffer.reset();
+                WireEncoder out = format.encoder(buffer);
+                out.beginObject(2);
+                out.name(TYPE); out.value("chunk");
+                out.name(TEXT); out.value(text);
+                out.endObject();
+                connection.send(opcode(), buffer);
+            } finally {
+                connection.writeLock().unlock();
+            }
+            server.chunksOut.incrementAndGet();
+        } catch (IOException e) {
+            clientGone();
+        }
+    }
+
+    private void send(String type, Consumer<WireEncoder> data) throws IOException {
+        connection.writeLock().lock();
+        try {
+            buffer.reset();
+            WireEncoder out = format.encoder(buffer);
+            out.beginObject(2);
+            out.name(TYPE); out.value(type);
+            out.name(DATA); data.accept(out);
+            out.endObject();
+            connection.send(opcode(), buffer);
+        } finally {
+            connection.writeLock().unlock();
+        }
+        server.messagesOut.incrementAndGet();
+    }
+
+    private void sendError(String message) throws IOException {
+        connection.writeLock().lock();
+        try {
+            buffer.reset();
+            WireEncoder out = format.encoder(buffer);
+            out.beginObject(2);
+            out.name(TYPE); out.value("error");
+            out.name(ERROR); out.value(message);
+            out.endObject();
+            connection.send(opcode(), buffer);
+        } finally {
+            connection.writeLock().unlock();
+        }
+        server.messagesOut.incrementAndGet();
+    }
+
+    private int opcode() {
+        return format == WireFormat.CBOR ? WebSocketConnection.OP_BINARY : WebSocketConnection.OP_TEXT;
+    }
+}
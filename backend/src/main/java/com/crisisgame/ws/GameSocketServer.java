@@ -0,0 +1,293 @@
+package com.crisisgame.ws;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.crisisgame.GameService;
+import com.crisisgame.util.Env;
+import com.crisisgame.wire.WireFormat;
+
+/**
+ * WebSocket endpoint for playing a whole game over one connection ({@code ws://host:8082/ws/game}),
+ * so each turn costs one small frame each way instead of an HTTP request with headers and JSON
+ * envelopes, and the narrative can be pushed as it is generated. See {@link GameChannel} for the
+ * message protocol.
+ *
+ * Each connection gets a thread from an unbounded pool, capped by a semaphore at
+ * WS_MAX_CONNECTIONS; extra handshakes get 503. One scheduler thread pings idle connections every
+ * WS_PING_SECONDS, drops connections that have not been heard from in two intervals, and aborts
+ * connections whose current write has been blocked longer than WS_WRITE_TIMEOUT_MS. A connection
+ * waiting for its turn to be generated is not dropped for silence: its thread is not reading frames,
+ * and the turn's own deadline bounds the wait.
+ */
+public final class GameSocketServer {
+    static final String PATH = "/ws/game";
+    static final String CBOR_PROTOCOL = "crisis-game.cbor";
+    static final String JSON_PROTOCOL = "crisis-game.json";
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int MAX_HANDSHAKE_BYTES = 8192;
+    private static final int HANDSHAKE_TIMEOUT_MS = 5000;
+
+    private final GameService gameService;
+    private final int port;
+    private final int maxMessageBytes;
+    private final long pingIntervalNanos;
+    private final long writeTimeoutNanos;
+    private final Semaphore slots;
+    private final Set<WebSocketConnection> open = ConcurrentHashMap.newKeySet();
+    private final ExecutorService connectionThreads = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "ws-connection");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ws-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    final AtomicLong accepted = new AtomicLong();
+    final AtomicLong rejected = new AtomicLong();
+    final AtomicLong badHandshakes = new AtomicLong();
+    final AtomicLong messagesIn = new AtomicLong();
+    final AtomicLong messagesOut = new AtomicLong();
+    final AtomicLong chunksOut = new AtomicLong();
+    final AtomicLong pings = new AtomicLong();
+    final AtomicLong idleCloses = new AtomicLong();
+    final AtomicLong slowConsumerCloses = new AtomicLong();
+    final AtomicLong protocolErrors = new AtomicLong();
+
+    public GameSocketServer(GameService gameService, int port, int maxConnections, int maxMessageBytes,
+                            int pingSeconds, int writeTimeoutMillis) {
+        this.gameService = gameService;
+        this.port = port;
+        this.maxMessageBytes = maxMessageBytes;
+        this.pingIntervalNanos = TimeUnit.SECONDS.toNanos(pingSeconds);
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        this.slots = new Semaphore(maxConnections);
+    }
+
+    public static GameSocketServer fromEnvironment(GameService gameService) {
+        return new GameSocketServer(gameService,
+                Env.intValue("WS_PORT", 8082),
+                Env.intValue("WS_MAX_CONNECTIONS", 256),
+                Env.intValue("WS_MAX_MESSAGE_BYTES", 16 * 1024),
+                Env.intValue("WS_PING_SECONDS", 20),
+                Env.intValue("WS_WRITE_TIMEOUT_MS", 10_000));
+    }
+
+    public int port() {
+        return port;
+    }
+
+    public void start() throws IOException {
+        ServerSocket server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress(port));
+        Thread acceptor = new Thread(() -> acceptLoop(server), "ws-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        watchdog.scheduleWithFixedDelay(this::checkConnections, 1, 1, TimeUnit.SECONDS);
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("open", open.size());
+        m.put("accepted", accepted.get());
+        m.put("rejected", rejected.get());
+        m.put("badHandshakes", badHandshakes.get());
+        m.put("messagesIn", messagesIn.get());
+        m.put("messagesOut", messagesOut.get());
+        m.put("chunksOut", chunksOut.get());
+        m.put("pings", pings.get());
+        m.put("idleCloses", idleCloses.get());
+        m.put("slowConsumerCloses", slowConsumerCloses.get());
+        m.put("protocolErrors", protocolErrors.get());
+        return m;
+    }
+
+    private void acceptLoop(ServerSocket server) {
+        while (!server.isClosed()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                System.out.println("WebSocket accept failed: " + e.getMessage());
+                continue;
+            }
+            if (!slots.tryAcquire()) {
+                rejected.incrementAndGet();
+                reject(socket, "503 Service Unavailable");
+                continue;
+            }
+            connectionThreads.execute(() -> {
+                try {
+                    serve(socket);
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+    }
+
+    private void serve(Socket socket) {
+        WebSocketConnection connection = null;
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            WireFormat format = handshake(socket, in);
+            if (format == null) return;
+            // Liveness is the watchdog's job from here on
+            socket.setSoTimeout(0);
+            accepted.incrementAndGet();
+            connection = new WebSocketConnection(socket, in, maxMessageBytes);
+            open.add(connection);
+            new GameChannel(gameService, connection, format, this).run();
+        } catch (IOException e) {
+            // Handshake timeouts and resets before the upgrade
+            badHandshakes.incrementAndGet();
+        } finally {
+            if (connection != null) open.remove(connection);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // already closed
+            }
+        }
+    }
+
+    /** Reads the upgrade request and answers it; returns the frame format, or null after refusing. */
+    private WireFormat handshake(Socket socket, InputStream in) throws IOException {
+        String request = readHead(in);
+        if (request == null) {
+            badHandshakes.incrementAndGet();
+            reject(socket, "400 Bad Request");
+            return null;
+        }
+        String[] lines = request.split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) headers.merge(lines[i].substring(0, colon).trim().toLowerCase(),
+                    lines[i].substring(colon + 1).trim(), (a, b) -> a + ", " + b);
+        }
+
+        String path = requestLine.length == 3 ? requestLine[1] : "";
+        int query = path.indexOf('?');
+        if (query >= 0) path = path.substring(0, query);
+        if (!"GET".equals(requestLine[0]) || !PATH.equals(path)) {
+            badHandshakes.incrementAndGet();
+            reject(socket, "404 Not Found");
+            return null;
+        }
+        String key = headers.get("sec-websocket-key");
+        if (!hasToken(headers.get("upgrade"), "websocket") || !hasToken(headers.get("connection"), "upgrade") || key == null) {
+            badHandshakes.incrementAndGet();
+            reject(socket, "400 Bad Request");
+            return null;
+        }
+        if (!"13".equals(headers.get("sec-websocket-version"))) {
+            badHandshakes.incrementAndGet();
+            write(socket, "HTTP/1.1 426 Upgrade Required\r\nSec-WebSocket-Version: 13\r\nContent-Length: 0\r\n\r\n");
+            return null;
+        }
+
+        String requested = headers.get("sec-websocket-protocol");
+        String protocol = hasToken(requested, CBOR_PROTOCOL) ? CBOR_PROTOCOL
+                : hasToken(requested, JSON_PROTOCOL) ? JSON_PROTOCOL : null;
+        write(socket, "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n"
+                + (protocol != null ? "Sec-WebSocket-Protocol: " + protocol + "\r\n" : "")
+                + "\r\n");
+        return CBOR_PROTOCOL.equals(protocol) ? WireFormat.CBOR : WireFormat.JSON;
+    }
+
+    private void checkConnections() {
+        long now = System.nanoTime();
+        for (WebSocketConnection c : open) {
+            long writeStarted = c.writeStartedNanos();
+            if (writeStarted != 0 && now - writeStarted > writeTimeoutNanos) {
+                slowConsumerCloses.incrementAndGet();
+                c.abort();
+            } else if (!c.isServing() && now - c.lastHeardNanos() > 2 * pingIntervalNanos) {
+                idleCloses.incrementAndGet();
+                c.close(WebSocketConnection.CLOSE_GOING_AWAY, "Ping timeout");
+            } else if (now - c.lastHeardNanos() >= pingIntervalNanos && now - c.lastPingNanos() >= pingIntervalNanos) {
+                if (c.trySendPing()) pings.incrementAndGet();
+            }
+        }
+    }
+
+    static String acceptKey(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key.trim() + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Request line and headers up to the blank line, or null if they are oversized or cut off. */
+    private static String readHead(InputStream in) throws IOException {
+        byte[] head = new byte[MAX_HANDSHAKE_BYTES];
+        int n = 0;
+        while (n < head.length) {
+            int b = in.read();
+            if (b < 0) return null;
+            head[n++] = (byte) b;
+            if (n >= 4 && head[n - 4] == '\r' && head[n - 3] == '\n' && head[n - 2] == '\r' && head[n - 1] == '\n') {
+                return new String(head, 0, n - 4, StandardCharsets.ISO_8859_1);
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasToken(String header, String token) {
+        if (header == null) return false;
+        for (String part : header.split(",")) {
+            if (part.trim().equalsIgnoreCase(token)) return true;
+        }
+        return false;
+    }
+
+    private static void reject(Socket socket, String status) {
+        try {
+            write(socket, "HTTP/1.1 " + status + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n");
+            socket.close();
+        } catch (IOException e) {
+            // client already gone
+        }
+    }
+
+    private static void write(Socket socket, String response) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(response.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+}
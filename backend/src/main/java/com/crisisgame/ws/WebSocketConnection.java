@@ -0,0 +1,308 @@
+package com.crisisgame.ws;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.crisisgame.wire.WireBuffer;
+
+/**
+ * Server side of one RFC 6455 connection over a blocking socket, after the handshake.
+ *
+ * One thread reads ({@link #readMessage}); control frames are answered inline and only data messages
+ * are returned. Writes from any thread are serialized by a lock and block while the client's TCP
+ * window is full, which is the backpressure: a slow client stalls only its own game, and the server
+ * watchdog aborts the connection if a single write stays blocked past the write timeout. Pings use
+ * tryLock, so the watchdog never waits behind a stuck write.
+ */
+final class WebSocketConnection {
+    static final int OP_CONTINUATION = 0x0;
+    static final int OP_TEXT = 0x1;
+    static final int OP_BINARY = 0x2;
+    static final int OP_CLOSE = 0x8;
+    static final int OP_PING = 0x9;
+    static final int OP_PONG = 0xA;
+
+    static final int CLOSE_NORMAL = 1000;
+    static final int CLOSE_GOING_AWAY = 1001;
+    static final int CLOSE_PROTOCOL_ERROR = 1002;
+    static final int CLOSE_UNSUPPORTED = 1003;
+    static final int CLOSE_INVALID_DATA = 1007;
+    static final int CLOSE_TOO_BIG = 1009;
+
+    /** A complete data message. */
+    static final class Message {
+        final int opcode;
+        final byte[] payload;
+
+        Message(int opcode, byte[] payload) {
+            this.opcode = opcode;
+            this.payload = payload;
+        }
+
+        /** The payload as text; close with CLOSE_INVALID_DATA if this throws. */
+        String text() throws CharacterCodingException {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(payload)).toString();
+        }
+    }
+
+    /** Raised by {@link #readMessage} when the client breaks the protocol; carries the close code to send. */
+    static final class ProtocolException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        final int closeCode;
+
+        ProtocolException(int closeCode, String message) {
+            super(message);
+            this.closeCode = closeCode;
+        }
+    }
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final int maxMessageBytes;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final byte[] header = new byte[10];
+
+    private volatile long writeStartedNanos; // 0 while no write is in progress
+    private volatile long lastHeardNanos = System.nanoTime();
+    private volatile long lastPingNanos = System.nanoTime();
+    private volatile boolean serving;
+    private volatile boolean closeSent;
+    private volatile Runnable onAbort;
+
+    WebSocketConnection(Socket socket, InputStream in, int maxMessageBytes) throws IOException {
+        this.socket = socket;
+        this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in);
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+        this.maxMessageBytes = maxMessageBytes;
+    }
+
+    /** Next text or binary message, or null once the client has closed the connection. */
+    Message readMessage() throws IOException {
+        ByteArrayOutputStream fragments = null;
+        int messageOpcode = -1;
+        while (true) {
+            int b0 = readByte();
+            if (b0 < 0) return null;
+            int b1 = readByte();
+            if (b1 < 0) return null;
+            lastHeardNanos = System.nanoTime();
+
+            boolean fin = (b0 & 0x80) != 0;
+            int opcode = b0 & 0x0F;
+            if ((b0 & 0x70) != 0) throw new ProtocolException(CLOSE_PROTOCOL_ERROR, "Reserved bits set");
+            if ((b1 & 0x80) == 0) throw new ProtocolException(CLOSE_PROTOCOL_ERROR, "Client frames must be masked");
+
+            long length = b1 & 0x7F;
+            if (length == 126) length = readUnsigned(2);
+            else if (length == 127) length = readUnsigned(8);
+
+            boolean control = opcode >= 0x8;
+            if (control && (!fin || length > 125)) throw new ProtocolException(CLOSE_PROTOCOL_ERROR, "Invalid control frame");
+            int buffered = fragments == null ? 0 : fragments.size();
+            if (!control && length + buffered > maxMessageBytes) {
+                throw new ProtocolException(CLOSE_TOO_BIG, "Message exceeds " + maxMessageBytes + " bytes");
+            }
+
+            byte[] mask = readFully(4);
+            byte[] payload = readFully((int) length);
+            for (int i = 0; i < payload.length; i++) payload[i] ^= mask[i & 3];
+
+            switch (opcode) {
+                case OP_PING -> send(OP_PONG, payload, payload.length);
+                case OP_PONG -> { /* lastHeardNanos already updated */ }
+                case OP_CLOSE -> {
+                    int code = payload.length >= 2 ? (payload[0] & 0xFF) << 8 | payload[1] & 0xFF : CLOSE_NORMAL;
+                    close(code, "");
+                    return null;
+                }
+                case OP_TEXT, OP_BINARY -> {
+                    if (messageOpcode >= 0) throw new ProtocolException(CLOSE_PROTOCOL_ERROR, "Expected a continuation frame");
+                    if (fin) return new Message(opcode, payload);
+                    messageOpcode = opcode;
+                    fragments = new ByteArrayOutputStream();
+                    fragments.write(payload);
+                }
+                case OP_CONTINUATION -> {
+                    if (messageOpcode < 0) throw new ProtocolException(CLOSE_PROTOCOL_ERROR, "Unexpected continuation frame");
+                    fragments.write(payload);
+                    if (fin) return new Message(messageOpcode, fragments.toByteArray());
+                }
+                default -> throw new ProtocolException(CLOSE_PROTOCOL_ERROR, "Unknown opcode " + opcode);
+            }
+        }
+    }
+
+    /** Sends one unfragmented data frame with the buffer's contents. */
+    void send(int opcode, WireBuffer payload) throws IOException {
+        writeLock.lock();
+        try {
+            writeFrame(opcode, payload.size());
+            payload.writeTo(out);
+            out.flush();
+        } finally {
+            writeStartedNanos = 0;
+            writeLock.unlock();
+        }
+    }
+
+    /** Lock that {@link #send(int, WireBuffer)} holds; callers encoding into a shared buffer take it first. */
+    ReentrantLock writeLock() {
+        return writeLock;
+    }
+
+    /** Sends a ping unless a write is in progress; never blocks behind a slow client. */
+    boolean trySendPing() {
+        if (!writeLock.tryLock()) return false;
+        try {
+            writeFrame(OP_PING, 0);
+            out.flush();
+            lastPingNanos = System.nanoTime();
+            return true;
+        } catch (IOException e) {
+            abort();
+            return false;
+        } finally {
+            writeStartedNanos = 0;
+            writeLock.unlock();
+        }
+    }
+
+    /** Sends a close frame (once) and closes the socket. */
+    void close(int code, String reason) {
+        if (!closeSent) {
+            closeSent = true;
+            byte[] text = reason.getBytes(StandardCharsets.UTF_8);
+            byte[] payload = new byte[2 + Math.min(text.length, 123)];
+            payload[0] = (byte) (code >> 8);
+            payload[1] = (byte) code;
+            System.arraycopy(text, 0, payload, 2, payload.length - 2);
+            if (writeLock.tryLock()) {
+                try {
+                    send(OP_CLOSE, payload, payload.length);
+                } catch (IOException e) {
+                    // closing anyway
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        }
+        abort();
+    }
+
+    /** Closes the socket without a handshake; unblocks a stuck read or write. */
+    void abort() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+        Runnable hook = onAbort;
+        if (hook != null) hook.run();
+    }
+
+    /** Runs when the socket is torn down, e.g. by the watchdog while a turn is being generated. */
+    void onAbort(Runnable hook) {
+        onAbort = hook;
+    }
+
+    boolean isClosed() {
+        return socket.isClosed();
+    }
+
+    long writeStartedNanos() {
+        return writeStartedNanos;
+    }
+
+    long lastHeardNanos() {
+        return lastHeardNanos;
+    }
+
+    long lastPingNanos() {
+        return lastPingNanos;
+    }
+
+    /**
+     * Marks a client message as being served. Frames are not read meanwhile, so pongs wait in the socket
+     * and silence does not count against the client; once served, the reply just sent counts as heard.
+     */
+    void serving(boolean serving) {
+        if (!serving) lastHeardNanos = System.nanoTime();
+        this.serving = serving;
+    }
+
+    boolean isServing() {
+        return serving;
+    }
+
+    private void send(int opcode, byte[] payload, int length) throws IOException {
+        writeLock.lock();
+        try {
+            writeFrame(opcode, length);
+            out.write(payload, 0, length);
+            out.flush();
+        } finally {
+            writeStartedNanos = 0;
+            writeLock.unlock();
+        }
+    }
+
+    /** Writes a FIN frame header; the caller holds the write lock. */
+    private void writeFrame(int opcode, int length) throws IOException {
+        writeStartedNanos = System.nanoTime();
+        int n = 0;
+        header[n++] = (byte) (0x80 | opcode);
+        if (length < 126) {
+            header[n++] = (byte) length;
+        } else if (length <= 0xFFFF) {
+            header[n++] = 126;
+            header[n++] = (byte) (length >> 8);
+            header[n++] = (byte) length;
+        } else {
+            header[n++] = 127;
+            for (int shift = 56; shift >= 0; shift -= 8) header[n++] = (byte) ((long) length >>> shift);
+        }
+        out.write(header, 0, n);
+    }
+
+    private int readByte() throws IOException {
+        return in.read();
+    }
+
+    private long readUnsigned(int bytes) throws IOException {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("Connection closed mid-frame");
+            value = value << 8 | b;
+        }
+        if (value < 0) throw new ProtocolException(CLOSE_TOO_BIG, "Frame too large");
+        return value;
+    }
+
+    private byte[] readFully(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(bytes, read, length - read);
+            if (n < 0) throw new EOFException("Connection closed mid-frame");
+            read += n;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,41 @@
+package com.crisisgame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * On Gemini 2.5 maxOutputTokens counts thinking tokens too, so every route has to leave room for the
+ * reply once its thinking budget is spent.
+ */
+class ModelRouterTest {
+    // A mid-game turn: 3-5 sentences of narrative and five options, with room to spare
+    private static final int MIN_ANSWER_TOKENS = 800;
+
+    @ParameterizedTest
+    @EnumSource(ModelRouter.Phase.class)
+    void routesLeaveRoomForTheReplyAfterThinking(ModelRouter.Phase phase) {
+        ModelRouter.Route route = new ModelRouter().route(phase);
+        for (GenerationSettings settings : new GenerationSettings[] {route.primary(), route.fallback()}) {
+            assertTrue(settings.maxOutputTokens - Math.max(0, settings.thinkingBudget) >= MIN_ANSWER_TOKENS,
+                    phase + " leaves too little for the reply: " + settings);
+        }
+    }
+
+    @Test
+    void outputLimitIsAnswerPlusThinkingBudget() {
+        GenerationSettings thinking = GenerationSettings.forAnswer("gemini-2.5-pro", 2048, 4096);
+        assertEquals(6144, thinking.maxOutputTokens);
+        assertEquals(4096, thinking.answerTokens());
+
+        GenerationSettings noThinking = GenerationSettings.forAnswer("gemini-2.5-flash", 0, 800);
+        assertEquals(800, noThinking.maxOutputTokens);
+
+        // Dynamic thinking has no budget to add; an unset limit stays unset
+        assertEquals(800, GenerationSettings.forAnswer("gemini-2.5-flash", -1, 800).maxOutputTokens);
+        assertEquals(-1, GenerationSettings.forAnswer("gemini-2.5-flash", 512, -1).maxOutputTokens);
+    }
+}
@@ -0,0 +1,96 @@
+package com.crisisgame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.crisisgame.model.PlayerProfile;
+import com.crisisgame.model.StartResponse;
+import com.crisisgame.model.TurnResponse;
+import com.crisisgame.standin.GeminiStandInServer;
+import com.crisisgame.standin.StandInProfile;
+
+/**
+ * Repeating a turn request returns the first reply instead of playing the turn again, on every turn
+ * up to the final one, whether turns are written by Gemini (here the local stand-in) or mocked.
+ */
+class TurnRetryTest {
+    private static GeminiStandInServer standIn;
+
+    @BeforeAll
+    static void startStandIn() throws IOException {
+        standIn = new GeminiStandInServer(0, StandInProfile.instant());
+        standIn.start();
+    }
+
+    @AfterAll
+    static void stopStandIn() {
+        standIn.stop();
+    }
+
+    private static GameService service(GenerationController.Mode mode) {
+        GameService service = new GameService(new OpenAIClient(standIn.getBaseUrl()));
+        service.generation().setMode(mode);
+        return service;
+    }
+
+    private static String startGame(GameService service) throws IOException {
+        PlayerProfile player = new PlayerProfile();
+        player.setName("Robin");
+        player.setAge(35);
+        player.setGender("Other");
+        player.setDifficulty(3);
+        StartResponse start = service.start(player);
+        return start.sessionId;
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = GenerationController.Mode.class, names = {"LIVE", "MOCK"})
+    void finalTurnRetriedByTurnNumberIsAnsweredFromTheFirstReply(GenerationController.Mode mode) throws IOException {
+        GameService service = service(mode);
+        String sessionId = startGame(service);
+        for (int turn = 1; turn < 10; turn++) {
+            TurnResponse response = service.turn(sessionId, "B", null, turn, null, null);
+            assertFalse(response.gameOver, "turn " + turn);
+            assertSame(response, service.turn(sessionId, "B", null, turn, null, null), "retry of turn " + turn);
+        }
+
+        TurnResponse results = service.turn(sessionId, "C", null, 10, null, null);
+        assertTrue(results.gameOver);
+        assertSame(results, service.turn(sessionId, "C", null, 10, null, null));
+        assertEquals(10L, retries(service).get("replayed"));
+        assertEquals(0L, retries(service).get("conflicts"));
+
+        // A turn the game has moved past is still a conflict
+        assertThrows(GameService.TurnConflictException.class, () -> service.turn(sessionId, "C", null, 9, null, null));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = GenerationController.Mode.class, names = {"LIVE", "MOCK"})
+    void finalTurnRetriedByTurnNumberAfterAKeyedRequest(GenerationController.Mode mode) throws IOException {
+        GameService service = service(mode);
+        String sessionId = startGame(service);
+        for (int turn = 1; turn < 10; turn++) service.turn(sessionId, "A", null, turn, null, null);
+
+        // Sent with only a key; the retry only knows which turn it answers
+        TurnResponse results = service.turn(sessionId, "E", "final-request", null, null, null);
+        assertTrue(results.gameOver);
+        assertSame(results, service.turn(sessionId, "E", null, 10, null, null));
+        assertSame(results, service.turn(sessionId, "E", "final-request", null, null, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> retries(GameService service) {
+        return (Map<String, Object>) service.metrics().get("turnRetries");
+    }
+}
@@ -0,0 +1,262 @@
+package com.crisisgame.scoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.crisisgame.model.ScoreBreakdown;
+
+/**
+ * Differential test: the incremental {@link ScoreTracker} must score every game exactly as the
+ * full-history formula it replaced, kept below as {@link LegacyScore}. The default build checks a
+ * sample of random games at each difficulty after every choice; the tests tagged "exhaustive" (run with
+ * -Pexhaustive-tests, a few minutes) check every letter sequence of a full game and many more random
+ * games.
+ */
+class ScoreTrackerTest {
+    private static final String[] LETTERS = {"A", "B", "C", "D", "E"};
+    private static final int TURNS = 10;
+
+    // Option texts as the old game sent them, covering every keyword rule of the wording heuristics
+    private static final String[] FREE_TEXT = {
+        "Issue an immediate statement to respond to the media",
+        "Meet with community stakeholders and partners",
+        "Prepare a proactive plan to prevent a repeat",
+        "Commit to a comprehensive, systematic and sustainable long-term strategy",
+        "Be transparent with every customer about the future",
+        "Deny the reports and blame the supplier",
+        "Minimize the damage with a short statement",
+        "Minimize coverage and move on",
+        "Anticipate questions and address them before they are asked",
+        "Wait for the legal review",
+        "a", "e", "F", "",
+    };
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 5})
+    void runningScoreMatchesForSampledLetterGames(int difficulty) {
+        checkRandomGames(difficulty, 0, 20_000);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 5})
+    void runningScoreMatchesForSampledGamesWithFreeText(int difficulty) {
+        checkRandomGames(difficulty, -1, 20_000);
+    }
+
+    @Tag("exhaustive")
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 5})
+    void finalScoreMatchesForEveryLetterSequence(int difficulty) {
+        ScoreTracker tracker = new ScoreTracker(difficulty);
+        String[] game = new String[TURNS];
+        int[] digits = new int[TURNS];
+        int sequences = (int) Math.pow(LETTERS.length, TURNS);
+        for (int n = 0; n < sequences; n++) {
+            // Count through all 5^10 sequences in base 5
+            for (int i = 0, v = n; i < TURNS; i++, v /= LETTERS.length) digits[i] = v % LETTERS.length;
+            tracker.reset();
+            for (int i = 0; i < TURNS; i++) {
+                game[i] = LETTERS[digits[i]];
+                tracker.record(game[i]);
+            }
+            List<String> played = Arrays.asList(game);
+            assertSame(LegacyScore.of(played, difficulty), tracker.breakdown(), played);
+        }
+    }
+
+    @Tag("exhaustive")
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 5})
+    void runningScoreMatchesForManyGamesWithFreeText(int difficulty) {
+        checkRandomGames(difficulty, -1, 200_000);
+    }
+
+    /**
+     * Plays random games of 1-12 turns and checks the score after every choice. With freeTextPercent -1
+     * each game mixes in its own random share of free-text choices.
+     */
+    private static void checkRandomGames(int difficulty, int freeTextPercent, int games) {
+        SplittableRandom random = new SplittableRandom(31L * difficulty + freeTextPercent);
+        ScoreTracker tracker = new ScoreTracker(difficulty);
+        List<String> game = new ArrayList<>();
+        for (int n = 0; n < games; n++) {
+            tracker.reset();
+            game.clear();
+            int freeText = freeTextPercent >= 0 ? freeTextPercent : random.nextInt(0, 101);
+            int turns = random.nextInt(1, TURNS + 3);
+            for (int i = 0; i < turns; i++) {
+                String choice = random.nextInt(100) < freeText
+                        ? FREE_TEXT[random.nextInt(FREE_TEXT.length)]
+                        : LETTERS[random.nextInt(LETTERS.length)];
+                game.add(choice);
+                tracker.record(choice);
+                assertSame(LegacyScore.of(game, difficulty), tracker.breakdown(), game);
+            }
+        }
+    }
+
+    // Messages are built lazily: the exhaustive test makes tens of millions of these checks
+    private static void assertSame(LegacyScore expected, ScoreBreakdown actual, List<String> game) {
+        assertEquals(game.size(), actual.choices, () -> "choices " + game);
+        assertEquals(expected.consistency, actual.consistency, () -> "consistency " + game);
+        assertEquals(expected.strategic, actual.strategic, () -> "strategic " + game);
+        assertEquals(expected.phase, actual.phase, () -> "phase " + game);
+        assertEquals(expected.stakeholder, actual.stakeholder, () -> "stakeholder " + game);
+        assertEquals(expected.difficultyBonus, actual.difficultyBonus, () -> "difficultyBonus " + game);
+        assertEquals(expected.total, actual.total, () -> "total " + game);
+        assertEquals(expected.level, actual.level, () -> "level " + game);
+        assertEquals(expected.percentage, actual.percentage, () -> "percentage " + game);
+    }
+
+    /**
+     * The scoring formula as GameService computed it over the full choice history before
+     * ScoreTracker, without the duplicate append of the last choice, and with the keyword checks
+     * as the lowercase substring tests they were before the keyword automaton.
+     */
+    private static final class LegacyScore {
+        int consistency, strategic, phase, stakeholder, difficultyBonus, total, level, percentage;
+
+        static LegacyScore of(List<String> choices, int difficulty) {
+            LegacyScore s = new LegacyScore();
+            s.consistency = analyzeChoiceConsistency(choices);
+            s.strategic = analyzeStrategicThinking(choices, difficulty);
+            s.phase = analyzeCrisisPhaseManagement(choices);
+            s.stakeholder = analyzeStakeholderBalance(choices);
+            s.difficultyBonus = calculateDifficultyBonus(difficulty, choices.size());
+            s.total = 50 + s.consistency + s.strategic + s.phase + s.stakeholder + s.difficultyBonus;
+            if (s.total >= 85) s.level = 4;
+            else if (s.total >= 70) s.level = 3;
+            else if (s.total >= 55) s.level = 2;
+            else s.level = 1;
+            s.percentage = calculateAccuratePercentage(s.level, choices, difficulty);
+            return s;
+        }
+
+        private static int analyzeChoiceConsistency(List<String> choices) {
+            if (choices.size() < 3) return 10;
+            Map<String, Integer> choiceCount = new HashMap<>();
+            for (String choice : choices) {
+                choiceCount.put(choice, choiceCount.getOrDefault(choice, 0) + 1);
+            }
+            int uniqueChoices = choiceCount.size();
+            if (uniqueChoices >= 3 && uniqueChoices <= 4) return 20;
+            if (uniqueChoices == 2 || uniqueChoices == 5) return 15;
+            return 10;
+        }
+
+        private static int analyzeStrategicThinking(List<String> choices, int difficulty) {
+            int score = 10;
+            for (int i = 1; i < choices.size(); i++) {
+                if (isStrategicProgression(choices.get(i - 1), choices.get(i))) score += 2;
+            }
+            if (difficulty >= 4) {
+                long innovativeChoices = choices.stream().filter(c -> c.equals("D") || c.equals("E")).count();
+                score += (int) (innovativeChoices * 2);
+            }
+            return Math.min(20, score);
+        }
+
+        private static boolean isStrategicProgression(String prev, String curr) {
+            List<String> progression = Arrays.asList("A", "B", "C", "D", "E");
+            return progression.indexOf(curr) > progression.indexOf(prev);
+        }
+
+        private static int analyzeCrisisPhaseManagement(List<String> choices) {
+            int score = 10;
+            int totalChoices = choices.size();
+            if (totalChoices >= 8) {
+                List<String> earlyChoices = choices.subList(0, Math.min(3, totalChoices));
+                long reactiveEarly = earlyChoices.stream().filter(c -> c.equals("A") || c.equals("B")).count();
+                if (totalChoices > 3) {
+                    List<String> midChoices = choices.subList(3, Math.min(7, totalChoices));
+                    long analyticalMid = midChoices.stream().filter(c -> c.equals("B") || c.equals("C")).count();
+                    score += analyticalMid * 2;
+                }
+                if (totalChoices > 7) {
+                    List<String> lateChoices = choices.subList(7, totalChoices);
+                    long strategicLate = lateChoices.stream().filter(c -> c.equals("C") || c.equals("D") || c.equals("E")).count();
+                    score += strategicLate * 3;
+                }
+                score += reactiveEarly * 2;
+            }
+            return Math.min(20, score);
+        }
+
+        private static int analyzeStakeholderBalance(List<String> choices) {
+            Map<String, Integer> stakeholderFocus = new HashMap<>();
+            for (String choice : choices) {
+                stakeholderFocus.put(choice, stakeholderFocus.getOrDefault(choice, 0) + 1);
+            }
+            int uniqueApproaches = stakeholderFocus.size();
+            if (uniqueApproaches >= 4) return 20;
+            if (uniqueApproaches == 3) return 15;
+            if (uniqueApproaches == 2) return 10;
+            return 5;
+        }
+
+        private static int calculateDifficultyBonus(int difficulty, int choicesCount) {
+            int baseBonus = (difficulty - 1) * 3;
+            int completionBonus = choicesCount >= 10 ? 5 : 0;
+            return Math.min(20, baseBonus + completionBonus);
+        }
+
+        private static int calculateAccuratePercentage(int performanceScore, List<String> choices, int difficulty) {
+            int baseScore = (performanceScore - 1) * 20;
+            int consistencyScore = calculateConsistencyScore(choices);
+            int difficultyBonus = (difficulty - 1) * 5;
+            int choiceQualityScore = analyzeChoiceQuality(choices);
+            return Math.max(30, Math.min(95, baseScore + consistencyScore + difficultyBonus + choiceQualityScore));
+        }
+
+        private static int calculateConsistencyScore(List<String> choices) {
+            if (choices.size() < 3) return 0;
+            int proactiveChoices = 0;
+            int reactiveChoices = 0;
+            int stakeholderFocused = 0;
+            for (String choice : choices) {
+                String lower = choice.toLowerCase(Locale.ROOT);
+                if (containsAny(lower, "proactive", "prevent", "anticipate", "prepare")) proactiveChoices++;
+                if (containsAny(lower, "respond", "react", "address", "immediate")) reactiveChoices++;
+                if (containsAny(lower, "stakeholder", "community", "customer", "partner")) stakeholderFocused++;
+            }
+            int maxApproach = Math.max(proactiveChoices, Math.max(reactiveChoices, stakeholderFocused));
+            double consistencyRatio = (double) maxApproach / choices.size();
+            if (consistencyRatio >= 0.7) return 15;
+            if (consistencyRatio >= 0.5) return 10;
+            if (consistencyRatio >= 0.3) return 5;
+            return 0;
+        }
+
+        private static int analyzeChoiceQuality(List<String> choices) {
+            int qualityScore = 0;
+            for (String choice : choices) {
+                String lower = choice.toLowerCase(Locale.ROOT);
+                if (containsAny(lower, "strategic", "comprehensive", "systematic")) qualityScore += 2;
+                if (containsAny(lower, "stakeholder", "community", "transparent")) qualityScore += 2;
+                if (containsAny(lower, "long-term", "sustainable", "future")) qualityScore += 2;
+                if (containsAny(lower, "deny", "blame") || (lower.contains("minimize") && !lower.contains("damage"))) {
+                    qualityScore -= 1;
+                }
+            }
+            return Math.max(0, Math.min(30, qualityScore));
+        }
+
+        private static boolean containsAny(String text, String... keywords) {
+            for (String keyword : keywords) {
+                if (text.contains(keyword)) return true;
+            }
+            return false;
+        }
+    }
+}